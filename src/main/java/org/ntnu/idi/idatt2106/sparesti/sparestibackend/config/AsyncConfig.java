@@ -0,0 +1,75 @@
+package org.ntnu.idi.idatt2106.sparesti.sparestibackend.config;
+
+import java.util.concurrent.ThreadPoolExecutor;
+import org.ntnu.idi.idatt2106.sparesti.sparestibackend.util.MailProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableAsync;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+/**
+ * Config class that enables asynchronous methods, and defines the executors they run on.
+ *
+ * @author L.M.L. Nilsen
+ * @version 1.0
+ * @since 3.5.24
+ */
+@Configuration
+@EnableAsync
+public class AsyncConfig {
+
+    /**
+     * Name of the executor that processes uploaded images
+     */
+    public static final String IMAGE_EXECUTOR = "imageExecutor";
+
+    /**
+     * Name of the executor that the outbound mail queue is drained on
+     */
+    public static final String MAIL_EXECUTOR = "mailExecutor";
+
+    /**
+     * Default constructor
+     */
+    public AsyncConfig() {}
+
+    /**
+     * Creates the executor that processes uploaded images. Image processing is CPU and memory
+     * heavy, so the pool and its queue are bounded. Tasks that do not fit in the queue are
+     * discarded, and the original image is served in their place.
+     * @return Executor for image processing
+     */
+    @Bean(name = IMAGE_EXECUTOR)
+    public ThreadPoolTaskExecutor imageExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(2);
+        executor.setMaxPoolSize(2);
+        executor.setQueueCapacity(100);
+        executor.setThreadNamePrefix("image-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.DiscardPolicy());
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(30);
+        return executor;
+    }
+
+    /**
+     * Creates the executor that the outbound mail queue is drained on, with a thread for each
+     * worker. Sending mail mostly waits on the SMTP server, so it is kept apart from the image
+     * executor. Workers that are woken while all threads are busy wait in a short queue, and
+     * are discarded if it is full, as the busy workers keep draining until the queue is empty.
+     * @param properties Mail properties
+     * @return Executor for sending mail
+     */
+    @Bean(name = MAIL_EXECUTOR)
+    public ThreadPoolTaskExecutor mailExecutor(MailProperties properties) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(properties.getWorkers());
+        executor.setMaxPoolSize(properties.getWorkers());
+        executor.setQueueCapacity(properties.getWorkers());
+        executor.setThreadNamePrefix("mail-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.DiscardPolicy());
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(30);
+        return executor;
+    }
+}
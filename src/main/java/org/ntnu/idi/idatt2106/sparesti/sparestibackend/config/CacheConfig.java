@@ -0,0 +1,71 @@
+package org.ntnu.idi.idatt2106.sparesti.sparestibackend.config;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import java.time.Duration;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Config class that enables caching, and defines the names of the application's caches. Every
+ * cache is a bounded Caffeine cache whose entries expire a while after they are written. The
+ * challenge statistics depend on the current time, as challenges become overdue without being
+ * changed, and evictions only reach the instance that handled the change, so the expiry bounds
+ * how stale a cached entry can get.
+ *
+ * @author Yasin M.
+ * @version 1.0
+ * @since 2.5.24
+ */
+@Configuration
+@EnableCaching
+public class CacheConfig {
+
+    /**
+     * Cache for per-type challenge statistics of a user, keyed by user id
+     */
+    public static final String CHALLENGE_STATS = "challengeStats";
+
+    /**
+     * Cache for platform-wide per-type challenge statistics
+     */
+    public static final String PLATFORM_CHALLENGE_STATS = "platformChallengeStats";
+
+    /**
+     * Maximum number of users whose challenge statistics are cached
+     */
+    static final long MAX_CACHED_USERS = 10_000;
+
+    /**
+     * Time after which cached statistics are computed again
+     */
+    static final Duration STATS_TIME_TO_LIVE = Duration.ofMinutes(5);
+
+    /**
+     * Default constructor
+     */
+    public CacheConfig() {}
+
+    /**
+     * Creates the cache manager with a bounded, expiring cache for each cache name
+     * @return The cache manager
+     */
+    @Bean
+    public CacheManager cacheManager() {
+        CaffeineCacheManager cacheManager = new CaffeineCacheManager();
+        cacheManager.setCaffeine(
+                Caffeine.newBuilder().maximumSize(1_000).expireAfterWrite(STATS_TIME_TO_LIVE));
+        cacheManager.registerCustomCache(
+                CHALLENGE_STATS,
+                Caffeine.newBuilder()
+                        .maximumSize(MAX_CACHED_USERS)
+                        .expireAfterWrite(STATS_TIME_TO_LIVE)
+                        .build());
+        cacheManager.registerCustomCache(
+                PLATFORM_CHALLENGE_STATS,
+                Caffeine.newBuilder().maximumSize(1).expireAfterWrite(STATS_TIME_TO_LIVE).build());
+        return cacheManager;
+    }
+}
@@ -0,0 +1,43 @@
+package org.ntnu.idi.idatt2106.sparesti.sparestibackend.config;
+
+import java.util.Properties;
+import javax.mail.Session;
+import org.ntnu.idi.idatt2106.sparesti.sparestibackend.util.MailProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Config class that creates the mail session that the outbound mail queue sends through.
+ *
+ * @author L.M.L. Nilsen
+ * @version 1.0
+ * @since 3.5.24
+ */
+@Configuration
+public class MailConfig {
+
+    /**
+     * Default constructor
+     */
+    public MailConfig() {}
+
+    /**
+     * Creates the mail session with the SMTP settings of the mail properties. The session is
+     * shared by all workers, which open their own connections from it.
+     * @param properties Mail properties
+     * @return The mail session
+     */
+    @Bean
+    public Session mailSession(MailProperties properties) {
+        String timeout = String.valueOf(properties.getTimeout().toMillis());
+        Properties prop = new Properties();
+        prop.put("mail.smtp.host", properties.getHost());
+        prop.put("mail.smtp.port", String.valueOf(properties.getPort()));
+        prop.put("mail.smtp.auth", String.valueOf(properties.isAuth()));
+        prop.put("mail.smtp.starttls.enable", String.valueOf(properties.isStarttls()));
+        prop.put("mail.smtp.connectiontimeout", timeout);
+        prop.put("mail.smtp.timeout", timeout);
+        prop.put("mail.smtp.writetimeout", timeout);
+        return Session.getInstance(prop);
+    }
+}
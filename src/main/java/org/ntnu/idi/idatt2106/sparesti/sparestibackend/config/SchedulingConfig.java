@@ -0,0 +1,21 @@
+package org.ntnu.idi.idatt2106.sparesti.sparestibackend.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Config class that enables scheduled background jobs.
+ *
+ * @author L.M.L. Nilsen
+ * @version 1.0
+ * @since 3.5.24
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+
+    /**
+     * Default constructor
+     */
+    public SchedulingConfig() {}
+}
@@ -0,0 +1,48 @@
+package org.ntnu.idi.idatt2106.sparesti.sparestibackend.config;
+
+import java.nio.file.Paths;
+import org.ntnu.idi.idatt2106.sparesti.sparestibackend.service.storage.LocalStorageBackend;
+import org.ntnu.idi.idatt2106.sparesti.sparestibackend.service.storage.S3StorageBackend;
+import org.ntnu.idi.idatt2106.sparesti.sparestibackend.util.StorageProperties;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Config class that creates the storage backend selected by the storage.backend property.
+ *
+ * @author L.M.L. Nilsen
+ * @version 1.0
+ * @since 3.5.24
+ */
+@Configuration
+public class StorageConfig {
+
+    /**
+     * Default constructor
+     */
+    public StorageConfig() {}
+
+    /**
+     * Creates the backend that stores files in sharded folders on the local file system
+     * @param properties Storage properties
+     * @return The local backend
+     */
+    @Bean
+    @ConditionalOnProperty(name = "storage.backend", havingValue = "local", matchIfMissing = true)
+    public LocalStorageBackend localStorageBackend(StorageProperties properties) {
+        return new LocalStorageBackend(Paths.get(properties.getLocation().trim()));
+    }
+
+    /**
+     * Creates the backend that stores files in an S3-compatible object store
+     * @param properties Storage properties
+     * @return The S3 backend
+     */
+    @Bean
+    @ConditionalOnProperty(name = "storage.backend", havingValue = "s3")
+    public S3StorageBackend s3StorageBackend(StorageProperties properties) {
+        return S3StorageBackend.create(
+                properties.getS3(), Paths.get(properties.getLocation().trim()));
+    }
+}
@@ -10,7 +10,9 @@ import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.ntnu.idi.idatt2106.sparesti.sparestibackend.dto.config.ChallengeConfigDTO;
+import org.ntnu.idi.idatt2106.sparesti.sparestibackend.dto.config.ChallengeTypeConfigDTO;
 import org.ntnu.idi.idatt2106.sparesti.sparestibackend.exception.config.ChallengeConfigNotFoundException;
+import org.ntnu.idi.idatt2106.sparesti.sparestibackend.exception.config.ChallengeTypeConfigNotFoundException;
 import org.ntnu.idi.idatt2106.sparesti.sparestibackend.exception.user.UserNotFoundException;
 import org.ntnu.idi.idatt2106.sparesti.sparestibackend.exception.validation.BadInputException;
 import org.ntnu.idi.idatt2106.sparesti.sparestibackend.exception.validation.ObjectNotValidException;
@@ -197,4 +199,117 @@ public class ChallengeConfigController {
         log.info("Successfully updated challenge config to: {}", updatedConfig);
         return ResponseEntity.ok(updatedConfig);
     }
+
+    /**
+     * Creates or updates a single challenge type config, leaving the user's other types untouched
+     * @param challengeTypeConfigDTO The type config to create or update
+     * @param userDetails Current user
+     * @return The created or updated type config
+     * @throws ChallengeConfigNotFoundException If the user's challenge config could not be found
+     * @throws ObjectNotValidException If the supplied type config data is invalid
+     */
+    @PatchMapping("/type")
+    @Operation(
+            summary = "Create or update challenge type config",
+            description =
+                    "Creates or updates a single challenge type config for the authenticated"
+                            + " user. Other challenge types are not affected.",
+            tags = {"Challenge Config"})
+    @ApiResponses(
+            value = {
+                @ApiResponse(
+                        responseCode = "200",
+                        description = "Challenge type config created or updated",
+                        content =
+                                @Content(
+                                        mediaType = "application/json",
+                                        schema =
+                                                @Schema(
+                                                        implementation =
+                                                                ChallengeTypeConfigDTO.class))),
+                @ApiResponse(
+                        responseCode = "401",
+                        description = "The JWT token is expired or its format is invalid",
+                        content = @Content),
+                @ApiResponse(
+                        responseCode = "403",
+                        description = "Attempt of accessing secure endpoint without token",
+                        content = @Content),
+                @ApiResponse(
+                        responseCode = "404",
+                        description = "Challenge config not found",
+                        content = @Content),
+                @ApiResponse(responseCode = "400", description = "Bad input", content = @Content)
+            })
+    public ResponseEntity<ChallengeTypeConfigDTO> upsertChallengeTypeConfig(
+            @Parameter(description = "Challenge type config to create or update") @RequestBody
+                    ChallengeTypeConfigDTO challengeTypeConfigDTO,
+            @Parameter(description = "Details of the authenticated user") @AuthenticationPrincipal
+                    UserDetails userDetails)
+            throws ChallengeConfigNotFoundException, ObjectNotValidException {
+        log.info(
+                "Received request to create or update challenge type config: {}, by user: {}",
+                challengeTypeConfigDTO,
+                userDetails.getUsername());
+        ChallengeTypeConfigDTO typeConfig =
+                userConfigService.upsertChallengeTypeConfig(
+                        userDetails.getUsername(), challengeTypeConfigDTO);
+        log.info("Successfully saved challenge type config: {}", typeConfig);
+        return ResponseEntity.ok(typeConfig);
+    }
+
+    /**
+     * Deletes a single challenge type config
+     * @param type Type of the config to delete
+     * @param userDetails Current user
+     * @return No content, if the type config was deleted
+     * @throws ChallengeConfigNotFoundException If the user's challenge config could not be found
+     * @throws ChallengeTypeConfigNotFoundException If the user has no config for the type
+     * @throws BadInputException If the type config is the user's last one
+     */
+    @DeleteMapping("/type/{type}")
+    @Operation(
+            summary = "Delete challenge type config",
+            description =
+                    "Deletes a single challenge type config for the authenticated user. The last"
+                            + " challenge type can not be deleted.",
+            tags = {"Challenge Config"})
+    @ApiResponses(
+            value = {
+                @ApiResponse(
+                        responseCode = "204",
+                        description = "Challenge type config deleted",
+                        content = @Content),
+                @ApiResponse(
+                        responseCode = "401",
+                        description = "The JWT token is expired or its format is invalid",
+                        content = @Content),
+                @ApiResponse(
+                        responseCode = "403",
+                        description = "Attempt of accessing secure endpoint without token",
+                        content = @Content),
+                @ApiResponse(
+                        responseCode = "404",
+                        description = "Challenge config or challenge type config not found",
+                        content = @Content),
+                @ApiResponse(
+                        responseCode = "400",
+                        description = "Attempt of deleting the last challenge type config",
+                        content = @Content)
+            })
+    public ResponseEntity<Void> deleteChallengeTypeConfig(
+            @Parameter(description = "Type of the config to delete") @PathVariable String type,
+            @Parameter(description = "Details of the authenticated user") @AuthenticationPrincipal
+                    UserDetails userDetails)
+            throws ChallengeConfigNotFoundException,
+                    ChallengeTypeConfigNotFoundException,
+                    BadInputException {
+        log.info(
+                "Received request to delete challenge type config: {}, by user: {}",
+                type,
+                userDetails.getUsername());
+        userConfigService.deleteChallengeTypeConfig(userDetails.getUsername(), type);
+        log.info("Successfully deleted challenge type config: {}", type);
+        return ResponseEntity.noContent().build();
+    }
 }
@@ -7,28 +7,33 @@ import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.constraints.NotNull;
 import java.io.IOException;
-import java.nio.file.Files;
-import java.nio.file.Paths;
 import java.util.List;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.ntnu.idi.idatt2106.sparesti.sparestibackend.dto.challenge.ChallengeCreateDTO;
 import org.ntnu.idi.idatt2106.sparesti.sparestibackend.dto.challenge.ChallengeDTO;
+import org.ntnu.idi.idatt2106.sparesti.sparestibackend.dto.challenge.ChallengeFilterDTO;
+import org.ntnu.idi.idatt2106.sparesti.sparestibackend.dto.challenge.ChallengeTypeStatsDTO;
 import org.ntnu.idi.idatt2106.sparesti.sparestibackend.dto.challenge.ChallengeUpdateDTO;
 import org.ntnu.idi.idatt2106.sparesti.sparestibackend.exception.challenge.ChallengeNotFoundException;
 import org.ntnu.idi.idatt2106.sparesti.sparestibackend.exception.user.UserNotFoundException;
 import org.ntnu.idi.idatt2106.sparesti.sparestibackend.exception.validation.BadInputException;
 import org.ntnu.idi.idatt2106.sparesti.sparestibackend.exception.validation.ObjectNotValidException;
+import org.ntnu.idi.idatt2106.sparesti.sparestibackend.model.StoredImage;
 import org.ntnu.idi.idatt2106.sparesti.sparestibackend.model.User;
+import org.ntnu.idi.idatt2106.sparesti.sparestibackend.model.enums.ImageSize;
 import org.ntnu.idi.idatt2106.sparesti.sparestibackend.service.ChallengeService;
 import org.ntnu.idi.idatt2106.sparesti.sparestibackend.service.FileSystemStorageService;
 import org.ntnu.idi.idatt2106.sparesti.sparestibackend.service.UserService;
+import org.ntnu.idi.idatt2106.sparesti.sparestibackend.util.ImageResponseWriter;
+import org.springdoc.core.annotations.ParameterObject;
 import org.springframework.core.io.Resource;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
-import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.security.core.userdetails.UserDetails;
@@ -56,17 +61,25 @@ public class ChallengeController {
 
     private final FileSystemStorageService fileSystemStorageService;
 
+    private final ImageResponseWriter imageResponseWriter;
+
     /**
-     * Gets a page of a user's saving challenges
+     * Gets a page of a user's saving challenges that match a filter
+     * @param filter Optional conditions on type, due date, created date and completion
      * @param pageable The pageable object that configures the page
      * @param userDetails Current user
      * @return A page of saving challenges
      * @throws ChallengeNotFoundException If a challenge could not be found
      * @throws UserNotFoundException if the user could not be found
+     * @throws BadInputException If the page is sorted on an unsupported property, or a range of
+     * the filter is invalid
      */
     @Operation(
             summary = "Get user challenges",
-            description = "Retrieve challenges associated with the authenticated user.")
+            description =
+                    "Retrieve challenges associated with the authenticated user. The challenges"
+                            + " can be filtered on type, due date, created date and completion,"
+                            + " and sorted on id, due, createdOn and completion.")
     @ApiResponses(
             value = {
                 @ApiResponse(
@@ -88,18 +101,24 @@ public class ChallengeController {
                 @ApiResponse(
                         responseCode = "404",
                         description = "Challenges or user not found",
+                        content = @Content),
+                @ApiResponse(
+                        responseCode = "400",
+                        description = "Unsupported sort property or invalid filter range",
                         content = @Content)
             })
     @GetMapping
     public ResponseEntity<Page<ChallengeDTO>> getUserChallenges(
+            @ParameterObject ChallengeFilterDTO filter,
             @Parameter(description = "Pageable object for pagination") Pageable pageable,
             @Parameter(description = "Details of the authenticated user") @AuthenticationPrincipal
                     UserDetails userDetails)
-            throws ChallengeNotFoundException, UserNotFoundException {
+            throws ChallengeNotFoundException, UserNotFoundException, BadInputException {
         log.info("Received GET request for challenges by username: {}", userDetails.getUsername());
         User user = getUser(userDetails);
 
-        Page<ChallengeDTO> challenges = challengeService.getChallengesByUser(user, pageable);
+        Page<ChallengeDTO> challenges =
+                challengeService.getChallengesByUser(user, filter, pageable);
         log.info("Retrieved challenges: {}", challenges);
         return ResponseEntity.ok(challenges);
     }
@@ -446,6 +465,90 @@ public class ChallengeController {
         return ResponseEntity.noContent().build();
     }
 
+    /**
+     * Gets per-type statistics of a user's challenges
+     * @param userDetails Current user
+     * @return List of statistics, one per challenge type
+     * @throws UserNotFoundException If the user could not be found
+     */
+    @Operation(
+            summary = "Get challenge statistics",
+            description =
+                    "Retrieve total saved amount, completion rate, average duration and overdue"
+                            + " rate per challenge type for the authenticated user.")
+    @ApiResponses(
+            value = {
+                @ApiResponse(
+                        responseCode = "200",
+                        description = "Challenge statistics found",
+                        content = {
+                            @Content(
+                                    mediaType = "application/json",
+                                    schema = @Schema(implementation = ChallengeTypeStatsDTO.class))
+                        }),
+                @ApiResponse(
+                        responseCode = "401",
+                        description = "The JWT token is expired or its format is invalid",
+                        content = @Content),
+                @ApiResponse(
+                        responseCode = "403",
+                        description = "Attempt of accessing secure endpoint without token",
+                        content = @Content),
+                @ApiResponse(
+                        responseCode = "404",
+                        description = "User not found",
+                        content = @Content)
+            })
+    @GetMapping("/stats")
+    public ResponseEntity<List<ChallengeTypeStatsDTO>> getChallengeStats(
+            @Parameter(description = "Details of the authenticated user") @AuthenticationPrincipal
+                    UserDetails userDetails)
+            throws UserNotFoundException {
+        log.info(
+                "Received GET request for challenge statistics by username: {}",
+                userDetails.getUsername());
+        List<ChallengeTypeStatsDTO> stats =
+                challengeService.getChallengeStats(getUser(userDetails));
+        log.info("Retrieved challenge statistics: {}", stats);
+        return ResponseEntity.ok(stats);
+    }
+
+    /**
+     * Gets per-type statistics of all challenges on the platform. Only available to admins.
+     * @return List of statistics, one per challenge type
+     */
+    @Operation(
+            summary = "Get platform challenge statistics",
+            description =
+                    "Retrieve total saved amount, completion rate, average duration and overdue"
+                            + " rate per challenge type for all users. Requires the admin role.")
+    @ApiResponses(
+            value = {
+                @ApiResponse(
+                        responseCode = "200",
+                        description = "Challenge statistics found",
+                        content = {
+                            @Content(
+                                    mediaType = "application/json",
+                                    schema = @Schema(implementation = ChallengeTypeStatsDTO.class))
+                        }),
+                @ApiResponse(
+                        responseCode = "401",
+                        description = "The JWT token is expired or its format is invalid",
+                        content = @Content),
+                @ApiResponse(
+                        responseCode = "403",
+                        description = "Attempt of accessing endpoint without the admin role",
+                        content = @Content)
+            })
+    @GetMapping("/stats/platform")
+    public ResponseEntity<List<ChallengeTypeStatsDTO>> getPlatformChallengeStats() {
+        log.info("Received GET request for platform challenge statistics");
+        List<ChallengeTypeStatsDTO> stats = challengeService.getPlatformChallengeStats();
+        log.info("Retrieved platform challenge statistics: {}", stats);
+        return ResponseEntity.ok(stats);
+    }
+
     /**
      * Generates a list of challenges based on user's config
      * @param userDetails Current user
@@ -511,6 +614,16 @@ public class ChallengeController {
                         responseCode = "200",
                         description = "Successfully uploaded file",
                         content = @Content),
+                @ApiResponse(
+                        responseCode = "400",
+                        description = "The file is not a supported image, or has too many pixels",
+                        content = @Content),
+                @ApiResponse(
+                        responseCode = "413",
+                        description =
+                                "The file is larger than allowed, or would exceed the storage"
+                                        + " quota",
+                        content = @Content),
                 @ApiResponse(
                         responseCode = "401",
                         description = "Invalid or expired JWT token",
@@ -535,8 +648,10 @@ public class ChallengeController {
     /**
      * Gets the image of a challenge
      * @param id Identifies challenge
+     * @param size Rendition of the image
      * @param userDetails Current user
-     * @return Resource wrapper for image
+     * @param request Current request, used for conditional and Range requests
+     * @param response Response the image is written to
      * @throws IOException For IO-errors
      */
     @Tag(name = "File upload", description = "Endpoints for uploading images")
@@ -551,6 +666,18 @@ public class ChallengeController {
                                     mediaType = "application/json",
                                     schema = @Schema(implementation = Resource.class))
                         }),
+                @ApiResponse(
+                        responseCode = "206",
+                        description = "Successfully get the requested byte range of the file",
+                        content = @Content),
+                @ApiResponse(
+                        responseCode = "304",
+                        description = "The image is unchanged since the client's copy",
+                        content = @Content),
+                @ApiResponse(
+                        responseCode = "416",
+                        description = "The requested byte range is outside the file",
+                        content = @Content),
                 @ApiResponse(
                         responseCode = "401",
                         description = "Invalid or expired JWT token",
@@ -562,22 +689,17 @@ public class ChallengeController {
             })
     @GetMapping("/picture")
     @ResponseBody
-    public ResponseEntity<Resource> findFile(
+    public void findFile(
             @Parameter(description = "Identifies challenge with the desired file") @RequestParam
                     String id,
-            @AuthenticationPrincipal UserDetails userDetails)
+            @Parameter(description = "Rendition of the image: THUMB, MEDIUM or ORIGINAL")
+                    @RequestParam(defaultValue = "ORIGINAL")
+                    ImageSize size,
+            @AuthenticationPrincipal UserDetails userDetails,
+            HttpServletRequest request,
+            HttpServletResponse response)
             throws IOException {
-        Resource file = fileSystemStorageService.getImage(id + "-C", userDetails);
-
-        if (file == null) return ResponseEntity.notFound().build();
-
-        String mimeType;
-        try {
-            mimeType = Files.probeContentType(Paths.get(file.getURI()));
-        } catch (IOException e) {
-            mimeType = "application/octet-stream"; // default MIME type if detection fails
-        }
-
-        return ResponseEntity.ok().contentType(MediaType.parseMediaType(mimeType)).body(file);
+        StoredImage image = fileSystemStorageService.findImage(id + "-C", size, userDetails);
+        imageResponseWriter.write(image, request, response);
     }
 }
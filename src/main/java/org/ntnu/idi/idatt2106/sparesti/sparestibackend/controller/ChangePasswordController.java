@@ -5,7 +5,6 @@ import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
-import javax.mail.MessagingException;
 import lombok.RequiredArgsConstructor;
 import org.ntnu.idi.idatt2106.sparesti.sparestibackend.dto.user.ChangePasswordRequestRequest;
 import org.ntnu.idi.idatt2106.sparesti.sparestibackend.dto.user.ResetPasswordRequest;
@@ -34,13 +33,12 @@ public class ChangePasswordController {
     private final ChangePasswordRequestService changePasswordRequestService;
 
     /**
-     * Parses a request for forgot password and sends a mail
-     * with a link for resetting password. The response is always the same
-     * to prevent user's from finding each other's mails
+     * Parses a request for forgot password and queues a mail
+     * with a link for resetting password, which is sent in the background.
+     * The response is always the same to prevent user's from finding each other's mails
      * @param changePasswordRequestRequest Wrapper for a user's mail
      * @return OK-string
      * @throws BadInputException For invalid mail
-     * @throws MessagingException If mail could not be sent - non-existent mail
      * @throws ObjectNotValidException If mail is invalid
      */
     @Operation(
@@ -48,12 +46,12 @@ public class ChangePasswordController {
             description = "Sends a mail with link for resetting password")
     @ApiResponses(
             value = {
-                @ApiResponse(responseCode = "200", description = "Sent mail", content = @Content)
+                @ApiResponse(responseCode = "200", description = "Queued mail", content = @Content)
             })
     @PostMapping("/changePasswordRequest")
     public ResponseEntity<String> changePasswordRequest(
             @RequestBody ChangePasswordRequestRequest changePasswordRequestRequest)
-            throws BadInputException, MessagingException, ObjectNotValidException {
+            throws BadInputException, ObjectNotValidException {
         changePasswordRequestService.sendForgotPasswordEmail(changePasswordRequestRequest);
         return ResponseEntity.ok("OK");
     }
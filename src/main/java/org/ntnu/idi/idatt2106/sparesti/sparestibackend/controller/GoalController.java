@@ -7,27 +7,31 @@ import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import java.io.IOException;
-import java.nio.file.Files;
-import java.nio.file.Paths;
 import java.util.List;
 import lombok.RequiredArgsConstructor;
 import org.ntnu.idi.idatt2106.sparesti.sparestibackend.dto.goal.GoalCreateDTO;
+import org.ntnu.idi.idatt2106.sparesti.sparestibackend.dto.goal.GoalFilterDTO;
 import org.ntnu.idi.idatt2106.sparesti.sparestibackend.dto.goal.GoalResponseDTO;
 import org.ntnu.idi.idatt2106.sparesti.sparestibackend.dto.goal.GoalUpdateDTO;
 import org.ntnu.idi.idatt2106.sparesti.sparestibackend.exception.goal.ActiveGoalLimitExceededException;
 import org.ntnu.idi.idatt2106.sparesti.sparestibackend.exception.validation.BadInputException;
 import org.ntnu.idi.idatt2106.sparesti.sparestibackend.exception.validation.ObjectNotValidException;
+import org.ntnu.idi.idatt2106.sparesti.sparestibackend.model.StoredImage;
 import org.ntnu.idi.idatt2106.sparesti.sparestibackend.model.User;
+import org.ntnu.idi.idatt2106.sparesti.sparestibackend.model.enums.ImageSize;
 import org.ntnu.idi.idatt2106.sparesti.sparestibackend.service.FileSystemStorageService;
 import org.ntnu.idi.idatt2106.sparesti.sparestibackend.service.GoalService;
 import org.ntnu.idi.idatt2106.sparesti.sparestibackend.service.UserService;
+import org.ntnu.idi.idatt2106.sparesti.sparestibackend.util.ImageResponseWriter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springdoc.core.annotations.ParameterObject;
 import org.springframework.core.io.Resource;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
-import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.security.core.userdetails.UserDetails;
@@ -55,18 +59,26 @@ public class GoalController {
 
     private final FileSystemStorageService fileSystemStorageService;
 
+    private final ImageResponseWriter imageResponseWriter;
+
     private final Logger logger = LoggerFactory.getLogger(this.getClass());
 
     /**
-     * Gets a page of a user's saving goals
+     * Gets a page of a user's saving goals that match a filter
+     * @param filter Optional conditions on due date, created date and completion
      * @param pageable Config for page object
      * @param userDetails Current user
      * @return Page of saving goals
+     * @throws BadInputException If the page is sorted on an unsupported property, or a range of
+     * the filter is invalid
      */
     @Tag(name = "Saving goal", description = "CRUD methods for saving goal")
     @Operation(
             summary = "GET a page of saving goals of the currently authenticated (logger in) user",
-            description = "Retrieves a page of active all saving goals of the user",
+            description =
+                    "Retrieves a page of active all saving goals of the user. The goals can be"
+                            + " filtered on due date, created date and completion, and sorted on"
+                            + " id, priority, due, createdOn and completion.",
             responses = {
                 @ApiResponse(
                         responseCode = "200",
@@ -83,15 +95,22 @@ public class GoalController {
                 @ApiResponse(
                         responseCode = "403",
                         description = "Attempt of accessing secure endpoint without token",
+                        content = @Content),
+                @ApiResponse(
+                        responseCode = "400",
+                        description = "Unsupported sort property or invalid filter range",
                         content = @Content)
             })
     @GetMapping
     public ResponseEntity<Page<GoalResponseDTO>> getUserGoals(
-            Pageable pageable, @AuthenticationPrincipal UserDetails userDetails) {
+            @ParameterObject GoalFilterDTO filter,
+            Pageable pageable,
+            @AuthenticationPrincipal UserDetails userDetails)
+            throws BadInputException {
         logger.info("Received GET request for goals of user: {}", userDetails.getUsername());
         User user = userService.findUserByUsername(userDetails.getUsername());
         logger.info("Trying to get all user goals");
-        return ResponseEntity.ok(goalService.getUserGoals(user, pageable));
+        return ResponseEntity.ok(goalService.getUserGoals(user, filter, pageable));
     }
 
     /**
@@ -473,6 +492,16 @@ public class GoalController {
                         responseCode = "200",
                         description = "Successfully get file",
                         content = @Content),
+                @ApiResponse(
+                        responseCode = "400",
+                        description = "The file is not a supported image, or has too many pixels",
+                        content = @Content),
+                @ApiResponse(
+                        responseCode = "413",
+                        description =
+                                "The file is larger than allowed, or would exceed the storage"
+                                        + " quota",
+                        content = @Content),
                 @ApiResponse(
                         responseCode = "401",
                         description = "Invalid or expired JWT token",
@@ -495,8 +524,10 @@ public class GoalController {
     /**
      * Gets the image of a goal
      * @param id Identifies goal
+     * @param size Rendition of the image
      * @param userDetails Current user
-     * @return Resource wrapper for image
+     * @param request Current request, used for conditional and Range requests
+     * @param response Response the image is written to
      * @throws IOException For IO-errors
      */
     @Tag(name = "File upload", description = "Endpoints for uploading images")
@@ -511,6 +542,18 @@ public class GoalController {
                                     mediaType = "application/json",
                                     schema = @Schema(implementation = Resource.class))
                         }),
+                @ApiResponse(
+                        responseCode = "206",
+                        description = "Successfully get the requested byte range of the file",
+                        content = @Content),
+                @ApiResponse(
+                        responseCode = "304",
+                        description = "The image is unchanged since the client's copy",
+                        content = @Content),
+                @ApiResponse(
+                        responseCode = "416",
+                        description = "The requested byte range is outside the file",
+                        content = @Content),
                 @ApiResponse(
                         responseCode = "401",
                         description = "Invalid or expired JWT token",
@@ -522,20 +565,16 @@ public class GoalController {
             })
     @GetMapping("/picture")
     @ResponseBody
-    public ResponseEntity<Resource> findFile(
-            @RequestParam String id, @AuthenticationPrincipal UserDetails userDetails)
+    public void findFile(
+            @RequestParam String id,
+            @Parameter(description = "Rendition of the image: THUMB, MEDIUM or ORIGINAL")
+                    @RequestParam(defaultValue = "ORIGINAL")
+                    ImageSize size,
+            @AuthenticationPrincipal UserDetails userDetails,
+            HttpServletRequest request,
+            HttpServletResponse response)
             throws IOException {
-        Resource file = fileSystemStorageService.getImage(id + "-G", userDetails);
-
-        if (file == null) return ResponseEntity.notFound().build();
-
-        String mimeType;
-        try {
-            mimeType = Files.probeContentType(Paths.get(file.getURI()));
-        } catch (IOException e) {
-            mimeType = "application/octet-stream"; // default MIME type if detection fails
-        }
-
-        return ResponseEntity.ok().contentType(MediaType.parseMediaType(mimeType)).body(file);
+        StoredImage image = fileSystemStorageService.findImage(id + "-G", size, userDetails);
+        imageResponseWriter.write(image, request, response);
     }
 }
@@ -0,0 +1,100 @@
+package org.ntnu.idi.idatt2106.sparesti.sparestibackend.controller;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.List;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.ntnu.idi.idatt2106.sparesti.sparestibackend.model.StoredImage;
+import org.ntnu.idi.idatt2106.sparesti.sparestibackend.model.enums.ImageSize;
+import org.ntnu.idi.idatt2106.sparesti.sparestibackend.service.FileSystemStorageService;
+import org.ntnu.idi.idatt2106.sparesti.sparestibackend.util.ImageResponseWriter;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * Controller for getting the pictures of several goals and challenges in one request, which
+ * list screens use instead of a request per picture
+ *
+ * @author L.M.L. Nilsen
+ * @version 1.0
+ * @since 3.5.24
+ */
+@Slf4j
+@RestController
+@CrossOrigin
+@RequiredArgsConstructor
+@RequestMapping("/pictures")
+@Tag(name = "File upload", description = "Endpoints for uploading images")
+public class PictureController {
+
+    private final FileSystemStorageService fileSystemStorageService;
+
+    private final ImageResponseWriter imageResponseWriter;
+
+    /**
+     * Gets the pictures of some of the user's goals and challenges as a multipart/mixed
+     * response. Each part has a Content-ID of the form {@code <{id}-G>} for goals and
+     * {@code <{id}-C>} for challenges. Goals and challenges without a picture are left out.
+     * @param goals Ids of the goals
+     * @param challenges Ids of the challenges
+     * @param size Rendition of the pictures
+     * @param userDetails Current user
+     * @param response Response the pictures are written to
+     * @throws IOException Upon IO-errors
+     */
+    @Operation(
+            summary = "Get images",
+            description = "Get the pictures of several goals and challenges as multipart/mixed")
+    @ApiResponses(
+            value = {
+                @ApiResponse(
+                        responseCode = "200",
+                        description = "Successfully get the pictures that exist",
+                        content = @Content(mediaType = "multipart/mixed")),
+                @ApiResponse(
+                        responseCode = "400",
+                        description = "Too many pictures were requested",
+                        content = @Content),
+                @ApiResponse(
+                        responseCode = "401",
+                        description = "Invalid or expired JWT token",
+                        content = @Content),
+                @ApiResponse(
+                        responseCode = "403",
+                        description = "No JWT token provided",
+                        content = @Content)
+            })
+    @GetMapping
+    public void findFiles(
+            @Parameter(description = "Ids of the goals") @RequestParam(defaultValue = "")
+                    List<Long> goals,
+            @Parameter(description = "Ids of the challenges") @RequestParam(defaultValue = "")
+                    List<Long> challenges,
+            @Parameter(description = "Rendition of the images: THUMB, MEDIUM or ORIGINAL")
+                    @RequestParam(defaultValue = "THUMB")
+                    ImageSize size,
+            @AuthenticationPrincipal UserDetails userDetails,
+            HttpServletResponse response)
+            throws IOException {
+        log.info(
+                "Received GET request for {} goal and {} challenge pictures by user '{}'",
+                goals.size(),
+                challenges.size(),
+                userDetails.getUsername());
+        List<StoredImage> images =
+                fileSystemStorageService.findImages(goals, challenges, size, userDetails);
+        imageResponseWriter.writeMultipart(images, response);
+    }
+}
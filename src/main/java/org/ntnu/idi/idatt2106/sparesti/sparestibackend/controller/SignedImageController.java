@@ -0,0 +1,99 @@
+package org.ntnu.idi.idatt2106.sparesti.sparestibackend.controller;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import lombok.RequiredArgsConstructor;
+import org.ntnu.idi.idatt2106.sparesti.sparestibackend.service.ImageBlobService;
+import org.ntnu.idi.idatt2106.sparesti.sparestibackend.util.ImageResponseWriter;
+import org.ntnu.idi.idatt2106.sparesti.sparestibackend.util.ImageUrlSigner;
+import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * Controller that serves image files through the signed URLs that are returned with goals,
+ * challenges and users. The signature and expiry of the URL are the only checks, so requests
+ * are served without a JWT token or any database access. They still pass through the security
+ * filter chain, which permits them without authentication and adds its security headers.
+ *
+ * @author L.M.L. Nilsen
+ * @version 1.0
+ * @since 3.5.24
+ * @see ImageUrlSigner
+ */
+@RestController
+@CrossOrigin
+@RequestMapping("/images")
+@RequiredArgsConstructor
+@Tag(name = "Images", description = "Image files served through signed URLs")
+public class SignedImageController {
+
+    private final ImageUrlSigner imageUrlSigner;
+
+    private final ImageResponseWriter imageResponseWriter;
+
+    /**
+     * Gets the image file of a signed URL
+     * @param key Key of the image file
+     * @param expires When the URL expires, as a Unix time in seconds
+     * @param signature Signature of the URL
+     * @param request Current request, used for conditional and Range requests
+     * @param response Response the image is written to
+     * @throws IOException Upon IO-errors
+     */
+    @Operation(
+            summary = "Get image file",
+            description = "Get an image file through a signed URL, without a JWT token")
+    @ApiResponses(
+            value = {
+                @ApiResponse(
+                        responseCode = "200",
+                        description = "Successfully get file",
+                        content = @Content),
+                @ApiResponse(
+                        responseCode = "206",
+                        description = "Successfully get the requested byte range of the file",
+                        content = @Content),
+                @ApiResponse(
+                        responseCode = "304",
+                        description = "The image is unchanged since the client's copy",
+                        content = @Content),
+                @ApiResponse(
+                        responseCode = "403",
+                        description = "The signature is invalid or the URL has expired",
+                        content = @Content),
+                @ApiResponse(
+                        responseCode = "404",
+                        description = "The image no longer exists",
+                        content = @Content),
+                @ApiResponse(
+                        responseCode = "416",
+                        description = "The requested byte range is outside the file",
+                        content = @Content)
+            })
+    @GetMapping("/{key}")
+    public void findFile(
+            @PathVariable String key,
+            @Parameter(description = "Expiry of the URL, in seconds since the epoch") @RequestParam
+                    long expires,
+            @Parameter(description = "Signature of the URL") @RequestParam String signature,
+            HttpServletRequest request,
+            HttpServletResponse response)
+            throws IOException {
+        if (!ImageBlobService.isBlobKey(key) || !imageUrlSigner.verify(key, expires, signature)) {
+            response.setStatus(HttpServletResponse.SC_FORBIDDEN);
+            return;
+        }
+        imageResponseWriter.writeBlob(key, expires, request, response);
+    }
+}
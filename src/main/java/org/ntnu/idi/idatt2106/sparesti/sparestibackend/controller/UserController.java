@@ -1,24 +1,29 @@
 package org.ntnu.idi.idatt2106.sparesti.sparestibackend.controller;
 
 import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import java.io.IOException;
-import java.nio.file.Files;
-import java.nio.file.Paths;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.ntnu.idi.idatt2106.sparesti.sparestibackend.dto.user.StorageUsageResponse;
 import org.ntnu.idi.idatt2106.sparesti.sparestibackend.dto.user.StreakResponse;
 import org.ntnu.idi.idatt2106.sparesti.sparestibackend.dto.user.UserResponse;
 import org.ntnu.idi.idatt2106.sparesti.sparestibackend.dto.user.UserUpdateDTO;
 import org.ntnu.idi.idatt2106.sparesti.sparestibackend.exception.user.UserNotFoundException;
+import org.ntnu.idi.idatt2106.sparesti.sparestibackend.model.StoredImage;
+import org.ntnu.idi.idatt2106.sparesti.sparestibackend.model.enums.ImageSize;
 import org.ntnu.idi.idatt2106.sparesti.sparestibackend.service.FileSystemStorageService;
+import org.ntnu.idi.idatt2106.sparesti.sparestibackend.service.StorageQuotaService;
 import org.ntnu.idi.idatt2106.sparesti.sparestibackend.service.UserService;
+import org.ntnu.idi.idatt2106.sparesti.sparestibackend.util.ImageResponseWriter;
 import org.springframework.core.io.Resource;
-import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.security.core.userdetails.UserDetails;
@@ -44,6 +49,10 @@ public class UserController {
 
     private final FileSystemStorageService fileSystemStorageService;
 
+    private final StorageQuotaService storageQuotaService;
+
+    private final ImageResponseWriter imageResponseWriter;
+
     /**
      * Gets a users profile
      * @param userDetails Current user
@@ -145,6 +154,46 @@ public class UserController {
         return ResponseEntity.ok(userService.getStreak(userDetails.getUsername()));
     }
 
+    /**
+     * Gets how much storage a user uses for images, and their quota
+     * @param userDetails Current user
+     * @return The storage usage and quota of the user
+     * @throws UserNotFoundException If user could not be found
+     */
+    @GetMapping("/storage")
+    @Operation(
+            summary = "Get User Storage Usage",
+            description =
+                    "Get the number of bytes the currently authenticated user stores in images,"
+                            + " and their quota.",
+            responses = {
+                @ApiResponse(
+                        responseCode = "200",
+                        description = "Storage usage retrieved successfully.",
+                        content =
+                                @Content(
+                                        mediaType = "application/json",
+                                        schema =
+                                                @Schema(
+                                                        implementation =
+                                                                StorageUsageResponse.class))),
+                @ApiResponse(
+                        responseCode = "401",
+                        description = "User is not authenticated.",
+                        content = @Content),
+                @ApiResponse(
+                        responseCode = "403",
+                        description = "Attempt of accessing secure endpoint without token",
+                        content = @Content)
+            })
+    public ResponseEntity<StorageUsageResponse> getStorageUsage(
+            @AuthenticationPrincipal UserDetails userDetails) throws UserNotFoundException {
+        log.info("Received GET request for storage usage by user '{}'", userDetails.getUsername());
+        return ResponseEntity.ok(
+                storageQuotaService.getUsage(
+                        userService.findUserByUsername(userDetails.getUsername()).getId()));
+    }
+
     /**
      * Gets the profile picture of a user
      * @param userDetails Current user
@@ -160,6 +209,16 @@ public class UserController {
                         responseCode = "200",
                         description = "Successfully get file",
                         content = @Content),
+                @ApiResponse(
+                        responseCode = "400",
+                        description = "The file is not a supported image, or has too many pixels",
+                        content = @Content),
+                @ApiResponse(
+                        responseCode = "413",
+                        description =
+                                "The file is larger than allowed, or would exceed the storage"
+                                        + " quota",
+                        content = @Content),
                 @ApiResponse(
                         responseCode = "401",
                         description = "Invalid or expired JWT token",
@@ -180,8 +239,10 @@ public class UserController {
 
     /**
      * Uploads the profile picture of a user
+     * @param size Rendition of the image
      * @param userDetails Current user
-     * @return Resource wrapper for image
+     * @param request Current request, used for conditional and Range requests
+     * @param response Response the image is written to
      * @throws IOException Upon IO-errors
      */
     @Tag(name = "File upload", description = "Endpoints for uploading images")
@@ -196,6 +257,18 @@ public class UserController {
                                     mediaType = "application/json",
                                     schema = @Schema(implementation = Resource.class))
                         }),
+                @ApiResponse(
+                        responseCode = "206",
+                        description = "Successfully get the requested byte range of the file",
+                        content = @Content),
+                @ApiResponse(
+                        responseCode = "304",
+                        description = "The image is unchanged since the client's copy",
+                        content = @Content),
+                @ApiResponse(
+                        responseCode = "416",
+                        description = "The requested byte range is outside the file",
+                        content = @Content),
                 @ApiResponse(
                         responseCode = "401",
                         description = "Invalid or expired JWT token",
@@ -207,21 +280,18 @@ public class UserController {
             })
     @GetMapping("/picture")
     @ResponseBody
-    public ResponseEntity<Resource> findFile(@AuthenticationPrincipal UserDetails userDetails)
+    public void findFile(
+            @Parameter(description = "Rendition of the image: THUMB, MEDIUM or ORIGINAL")
+                    @RequestParam(defaultValue = "ORIGINAL")
+                    ImageSize size,
+            @AuthenticationPrincipal UserDetails userDetails,
+            HttpServletRequest request,
+            HttpServletResponse response)
             throws IOException {
 
-        Resource file =
-                fileSystemStorageService.getImage(userDetails.getUsername() + "-P", userDetails);
-
-        if (file == null) return ResponseEntity.notFound().build();
-
-        String mimeType;
-        try {
-            mimeType = Files.probeContentType(Paths.get(file.getURI()));
-        } catch (IOException e) {
-            mimeType = "application/octet-stream"; // default MIME type if detection fails
-        }
-
-        return ResponseEntity.ok().contentType(MediaType.parseMediaType(mimeType)).body(file);
+        StoredImage image =
+                fileSystemStorageService.findImage(
+                        userDetails.getUsername() + "-P", size, userDetails);
+        imageResponseWriter.write(image, request, response);
     }
 }
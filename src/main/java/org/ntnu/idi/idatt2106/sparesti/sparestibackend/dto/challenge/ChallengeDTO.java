@@ -18,6 +18,10 @@ import java.time.ZonedDateTime;
  * @param completedOn Completed on date
  * @param due Due date
  * @param type Type of challenge
+ * @param hasImage Whether an image has been uploaded
+ * @param placeholder Data URI of a tiny preview of the image, or null if there is none yet
+ * @param imageUrl Signed URL of the image, which can be fetched without a JWT token until it
+ * expires, or null if there is none
  */
 // @JsonIgnoreProperties(ignoreUnknown = true)
 public record ChallengeDTO(
@@ -42,5 +46,53 @@ public record ChallengeDTO(
         @Past(message = "Created date must be in the past") ZonedDateTime createdOn,
         ZonedDateTime completedOn,
         @Future(message = "Due date must be in the future") ZonedDateTime due,
-        @NotNull(message = "Type cannot be null") String type)
-        implements Serializable {}
+        @NotNull(message = "Type cannot be null") String type,
+        @NotNull Boolean hasImage,
+        String placeholder,
+        String imageUrl)
+        implements Serializable {
+
+    /**
+     * Constructor for a challenge without an image, used to project challenges straight from
+     * the database
+     * @param id Id of challenge
+     * @param title Title
+     * @param saved Saved amount
+     * @param target Target amount
+     * @param perPurchase Per unit price
+     * @param completion Completion percentage
+     * @param description Description
+     * @param createdOn Created on date
+     * @param completedOn Completed on date
+     * @param due Due date
+     * @param type Type of challenge
+     */
+    public ChallengeDTO(
+            Long id,
+            String title,
+            BigDecimal saved,
+            BigDecimal target,
+            BigDecimal perPurchase,
+            BigDecimal completion,
+            String description,
+            ZonedDateTime createdOn,
+            ZonedDateTime completedOn,
+            ZonedDateTime due,
+            String type) {
+        this(
+                id,
+                title,
+                saved,
+                target,
+                perPurchase,
+                completion,
+                description,
+                createdOn,
+                completedOn,
+                due,
+                type,
+                false,
+                null,
+                null);
+    }
+}
@@ -0,0 +1,57 @@
+package org.ntnu.idi.idatt2106.sparesti.sparestibackend.dto.challenge;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import org.ntnu.idi.idatt2106.sparesti.sparestibackend.util.ApplicationUtil;
+
+/**
+ * DTO for aggregated statistics of the challenges of a single type
+ * @param type Type of challenge
+ * @param challenges Number of challenges of the type
+ * @param completed Number of completed challenges of the type
+ * @param totalSaved Total amount saved on challenges of the type
+ * @param completionRate Percentage of challenges that are completed
+ * @param averageDurationDays Average number of days from creation to completion, null if none are completed
+ * @param overdueRate Percentage of challenges that are, or were completed, past their due date
+ */
+public record ChallengeTypeStatsDTO(
+        String type,
+        long challenges,
+        long completed,
+        BigDecimal totalSaved,
+        BigDecimal completionRate,
+        BigDecimal averageDurationDays,
+        BigDecimal overdueRate)
+        implements Serializable {
+
+    private static final BigDecimal SECONDS_PER_DAY = BigDecimal.valueOf(86400);
+
+    /**
+     * Creates statistics from the raw aggregates of a GROUP BY query
+     * @param type Type of challenge
+     * @param challenges Number of challenges of the type
+     * @param completed Number of completed challenges of the type
+     * @param totalSaved Total amount saved on challenges of the type
+     * @param averageDurationSeconds Average number of seconds from creation to completion
+     * @param overdue Number of challenges that are, or were completed, past their due date
+     */
+    public ChallengeTypeStatsDTO(
+            String type,
+            Long challenges,
+            Long completed,
+            BigDecimal totalSaved,
+            Double averageDurationSeconds,
+            Long overdue) {
+        this(
+                type,
+                challenges,
+                completed,
+                totalSaved == null ? BigDecimal.ZERO : totalSaved,
+                ApplicationUtil.percent(completed, challenges),
+                averageDurationSeconds == null
+                        ? null
+                        : BigDecimal.valueOf(averageDurationSeconds)
+                                .divide(SECONDS_PER_DAY, 3, ApplicationUtil.ROUNDING_MODE),
+                ApplicationUtil.percent(overdue, challenges));
+    }
+}
@@ -0,0 +1,25 @@
+package org.ntnu.idi.idatt2106.sparesti.sparestibackend.dto.goal;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.time.ZonedDateTime;
+import org.springframework.format.annotation.DateTimeFormat;
+
+/**
+ * DTO for filtering {@link org.ntnu.idi.idatt2106.sparesti.sparestibackend.model.Goal}
+ * entities, bound from query parameters. All fields are optional, and bounds are inclusive.
+ * @param dueFrom Lower bound of the due date
+ * @param dueTo Upper bound of the due date
+ * @param createdFrom Lower bound of the created on date
+ * @param createdTo Upper bound of the created on date
+ * @param completionFrom Lower bound of the completion percentage
+ * @param completionTo Upper bound of the completion percentage
+ */
+public record GoalFilterDTO(
+        @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) ZonedDateTime dueFrom,
+        @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) ZonedDateTime dueTo,
+        @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) ZonedDateTime createdFrom,
+        @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) ZonedDateTime createdTo,
+        BigDecimal completionFrom,
+        BigDecimal completionTo)
+        implements Serializable {}
@@ -17,6 +17,10 @@ import java.time.ZonedDateTime;
  * @param createdOn Created on date
  * @param completedOn Completed on date
  * @param due Due date
+ * @param hasImage Whether an image has been uploaded
+ * @param placeholder Data URI of a tiny preview of the image, or null if there is none yet
+ * @param imageUrl Signed URL of the image, which can be fetched without a JWT token until it
+ * expires, or null if there is none
  */
 // @JsonIgnoreProperties(ignoreUnknown = true)
 public record GoalResponseDTO(
@@ -43,5 +47,50 @@ public record GoalResponseDTO(
                 Long priority,
         @Past(message = "Created date must be in the past") ZonedDateTime createdOn,
         @Future(message = "Completed date must be in the future") ZonedDateTime completedOn,
-        @Future(message = "Due date must be in the future") ZonedDateTime due)
-        implements Serializable {}
+        @Future(message = "Due date must be in the future") ZonedDateTime due,
+        @NotNull Boolean hasImage,
+        String placeholder,
+        String imageUrl)
+        implements Serializable {
+
+    /**
+     * Constructor for a goal without an image, used to project goals straight from the
+     * database
+     * @param id Id of goal
+     * @param title Title of goal
+     * @param saved Saved amount
+     * @param target Target amount
+     * @param completion Completion percentage
+     * @param description Description
+     * @param priority Goal priority
+     * @param createdOn Created on date
+     * @param completedOn Completed on date
+     * @param due Due date
+     */
+    public GoalResponseDTO(
+            Long id,
+            String title,
+            BigDecimal saved,
+            BigDecimal target,
+            BigDecimal completion,
+            String description,
+            Long priority,
+            ZonedDateTime createdOn,
+            ZonedDateTime completedOn,
+            ZonedDateTime due) {
+        this(
+                id,
+                title,
+                saved,
+                target,
+                completion,
+                description,
+                priority,
+                createdOn,
+                completedOn,
+                due,
+                false,
+                null,
+                null);
+    }
+}
@@ -0,0 +1,14 @@
+package org.ntnu.idi.idatt2106.sparesti.sparestibackend.dto.image;
+
+import java.io.Serializable;
+
+/**
+ * DTO for the preview of a {@link org.ntnu.idi.idatt2106.sparesti.sparestibackend.model.StoredImage}
+ * @param entityId Id of the goal or challenge the image belongs to, or 0 for profile pictures
+ * @param placeholder Data URI of a tiny preview of the image, or null if it has not been
+ * generated yet
+ * @param url Signed URL of the image file, which can be fetched without a JWT token until it
+ * expires
+ */
+public record ImagePreviewDTO(Long entityId, String placeholder, String url)
+        implements Serializable {}
@@ -0,0 +1,11 @@
+package org.ntnu.idi.idatt2106.sparesti.sparestibackend.dto.image;
+
+/**
+ * Projection of the columns of a {@link org.ntnu.idi.idatt2106.sparesti.sparestibackend.model.StoredImage}
+ * that its preview is built from
+ * @param entityId Id of the goal or challenge the image belongs to, or 0 for profile pictures
+ * @param placeholder Data URI of a tiny preview of the image, or null if it has not been
+ * generated yet
+ * @param path Key of the image's blob file
+ */
+public record StoredImagePreview(Long entityId, String placeholder, String path) {}
@@ -0,0 +1,14 @@
+package org.ntnu.idi.idatt2106.sparesti.sparestibackend.dto.user;
+
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.PositiveOrZero;
+import java.io.Serializable;
+
+/**
+ * DTO for {@link org.ntnu.idi.idatt2106.sparesti.sparestibackend.model.StorageUsage}
+ * @param used Number of bytes stored in the user's images
+ * @param quota Number of bytes the user may store
+ */
+public record StorageUsageResponse(
+        @NotNull @PositiveOrZero Long used, @NotNull @PositiveOrZero Long quota)
+        implements Serializable {}
@@ -0,0 +1,9 @@
+package org.ntnu.idi.idatt2106.sparesti.sparestibackend.dto.user;
+
+/**
+ * DTO for the unique fields of a user, used to check whether a username or email is taken
+ * without loading the user
+ * @param username Username of the user
+ * @param email Email of the user
+ */
+public record UserIdentityDTO(String username, String email) {}
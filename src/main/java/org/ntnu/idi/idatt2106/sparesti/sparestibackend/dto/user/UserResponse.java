@@ -21,6 +21,11 @@ import org.ntnu.idi.idatt2106.sparesti.sparestibackend.dto.account.AccountDTO;
  * @param savedAmount Saved money
  * @param badges User badges
  * @param hasPasskey Boolean for whether user has biometric login
+ * @param hasImage Whether a profile picture has been uploaded
+ * @param placeholder Data URI of a tiny preview of the profile picture, or null if there is
+ * none yet
+ * @param imageUrl Signed URL of the profile picture, which can be fetched without a JWT token
+ * until it expires, or null if there is none
  */
 @JsonIgnoreProperties(ignoreUnknown = true)
 public record UserResponse(
@@ -33,5 +38,8 @@ public record UserResponse(
         @NotNull AccountDTO savingAccount,
         @NotNull BigDecimal savedAmount,
         @NotNull Set<BadgeDTO> badges,
-        @NotNull Boolean hasPasskey)
+        @NotNull Boolean hasPasskey,
+        @NotNull Boolean hasImage,
+        String placeholder,
+        String imageUrl)
         implements Serializable {}
@@ -0,0 +1,34 @@
+package org.ntnu.idi.idatt2106.sparesti.sparestibackend.dto.user;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+
+/**
+ * DTO for the numbers of a user's weekly savings digest, computed with one aggregate query
+ * @param userId Id of the user
+ * @param firstName First name of the user
+ * @param email Email address the digest is sent to
+ * @param streak Current streak of the user
+ * @param savedAmount Total amount the user has saved
+ * @param completedChallenges Number of challenges completed during the week
+ * @param savedThisWeek Amount saved on the challenges completed during the week
+ */
+public record WeeklyDigestDTO(
+        Long userId,
+        String firstName,
+        String email,
+        Long streak,
+        BigDecimal savedAmount,
+        Long completedChallenges,
+        BigDecimal savedThisWeek)
+        implements Serializable {
+
+    /**
+     * Replaces the missing sum of a user without completed challenges with zero
+     */
+    public WeeklyDigestDTO {
+        if (savedThisWeek == null) {
+            savedThisWeek = BigDecimal.ZERO;
+        }
+    }
+}
@@ -7,13 +7,15 @@ package org.ntnu.idi.idatt2106.sparesti.sparestibackend.exception;
  * @version 1.0
  * @since 29.4.24
  */
-public class AssertionRequestNotFoundException extends RuntimeException {
+public class AssertionRequestNotFoundException extends DomainException {
 
     /**
      * Constructor for exception
      * @param username Username of user
      */
     public AssertionRequestNotFoundException(String username) {
-        super("Assertion request not found for: " + username + " Try to login again.");
+        super(
+                ErrorCode.ASSERTION_REQUEST_NOT_FOUND,
+                "Assertion request not found for: " + username + " Try to login again.");
     }
 }
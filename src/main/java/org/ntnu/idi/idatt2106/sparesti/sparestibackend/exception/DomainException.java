@@ -0,0 +1,42 @@
+package org.ntnu.idi.idatt2106.sparesti.sparestibackend.exception;
+
+import lombok.Getter;
+
+/**
+ * Base class of the exceptions for expected client errors, such as entities that are not found
+ * or invalid input. These are thrown for ordinary bad requests and only their message and code
+ * reach the client, so they do not capture a stack trace, which is the main cost of creating an
+ * exception. Unexpected errors are not domain exceptions, and keep their stack traces.
+ *
+ * @author L.M.L. Nilsen
+ * @version 1.0
+ * @since 3.5.24
+ */
+@Getter
+public abstract class DomainException extends RuntimeException {
+
+    /**
+     * Error code the exception is answered with
+     */
+    private final ErrorCode errorCode;
+
+    /**
+     * Constructs a domain exception without a stack trace
+     * @param errorCode Error code the exception is answered with
+     * @param message Message sent to the client
+     */
+    protected DomainException(ErrorCode errorCode, String message) {
+        this(errorCode, message, null);
+    }
+
+    /**
+     * Constructs a domain exception without a stack trace. The cause keeps its own stack trace.
+     * @param errorCode Error code the exception is answered with
+     * @param message Message sent to the client
+     * @param cause Throwable cause object
+     */
+    protected DomainException(ErrorCode errorCode, String message, Throwable cause) {
+        super(message, cause, false, false);
+        this.errorCode = errorCode;
+    }
+}
@@ -7,13 +7,13 @@ package org.ntnu.idi.idatt2106.sparesti.sparestibackend.exception;
  * @version 1.0
  * @since 20.4.24
  */
-public class EmailNotFoundException extends RuntimeException {
+public class EmailNotFoundException extends DomainException {
 
     /**
      * Constructor for exception
      * @param message Custom message
      */
     public EmailNotFoundException(String message) {
-        super(message);
+        super(ErrorCode.EMAIL_NOT_FOUND, message);
     }
 }
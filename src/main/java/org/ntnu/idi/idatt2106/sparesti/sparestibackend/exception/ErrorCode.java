@@ -0,0 +1,46 @@
+package org.ntnu.idi.idatt2106.sparesti.sparestibackend.exception;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+
+/**
+ * Error codes of the expected client errors, each with the HTTP status it is answered with. The
+ * code is sent in the problem responses of {@link GlobalExceptionHandler}, so clients can tell
+ * errors with the same status apart.
+ *
+ * @author L.M.L. Nilsen
+ * @version 1.0
+ * @since 3.5.24
+ */
+@Getter
+@RequiredArgsConstructor
+public enum ErrorCode {
+    BAD_INPUT(HttpStatus.BAD_REQUEST),
+    INVALID_OBJECT(HttpStatus.BAD_REQUEST),
+    BAD_CREDENTIALS(HttpStatus.BAD_REQUEST),
+    CHALLENGE_ALREADY_COMPLETED(HttpStatus.BAD_REQUEST),
+    ACTIVE_GOAL_LIMIT_EXCEEDED(HttpStatus.BAD_REQUEST),
+    NOT_ACTIVE_GOAL(HttpStatus.BAD_REQUEST),
+    STORAGE_ERROR(HttpStatus.BAD_REQUEST),
+    STORAGE_FILE_NOT_FOUND(HttpStatus.BAD_REQUEST),
+    USER_NOT_FOUND(HttpStatus.NOT_FOUND),
+    EMAIL_NOT_FOUND(HttpStatus.NOT_FOUND),
+    GOAL_NOT_FOUND(HttpStatus.NOT_FOUND),
+    CHALLENGE_NOT_FOUND(HttpStatus.NOT_FOUND),
+    CONFIG_NOT_FOUND(HttpStatus.NOT_FOUND),
+    CHALLENGE_CONFIG_NOT_FOUND(HttpStatus.NOT_FOUND),
+    CHALLENGE_TYPE_CONFIG_NOT_FOUND(HttpStatus.NOT_FOUND),
+    ACCOUNT_NOT_FOUND(HttpStatus.NOT_FOUND),
+    ASSERTION_REQUEST_NOT_FOUND(HttpStatus.NOT_FOUND),
+    USER_ALREADY_EXISTS(HttpStatus.CONFLICT),
+    CHALLENGE_CONFIG_ALREADY_EXISTS(HttpStatus.CONFLICT),
+    ACCOUNT_ALREADY_EXISTS(HttpStatus.CONFLICT),
+    FILE_TOO_LARGE(HttpStatus.PAYLOAD_TOO_LARGE),
+    STORAGE_QUOTA_EXCEEDED(HttpStatus.PAYLOAD_TOO_LARGE);
+
+    /**
+     * HTTP status of the error
+     */
+    private final HttpStatus status;
+}
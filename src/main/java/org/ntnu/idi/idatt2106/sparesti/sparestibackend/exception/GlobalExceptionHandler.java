@@ -6,26 +6,11 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.Set;
 import javax.mail.MessagingException;
-import org.ntnu.idi.idatt2106.sparesti.sparestibackend.exception.account.AccountAlreadyExistsException;
-import org.ntnu.idi.idatt2106.sparesti.sparestibackend.exception.account.AccountNotFoundException;
-import org.ntnu.idi.idatt2106.sparesti.sparestibackend.exception.challenge.ChallengeAlreadyCompletedException;
-import org.ntnu.idi.idatt2106.sparesti.sparestibackend.exception.challenge.ChallengeNotFoundException;
-import org.ntnu.idi.idatt2106.sparesti.sparestibackend.exception.config.ChallengeConfigAlreadyExistsException;
-import org.ntnu.idi.idatt2106.sparesti.sparestibackend.exception.config.ChallengeConfigNotFoundException;
-import org.ntnu.idi.idatt2106.sparesti.sparestibackend.exception.config.ConfigNotFoundException;
-import org.ntnu.idi.idatt2106.sparesti.sparestibackend.exception.goal.ActiveGoalLimitExceededException;
-import org.ntnu.idi.idatt2106.sparesti.sparestibackend.exception.goal.GoalNotFoundException;
-import org.ntnu.idi.idatt2106.sparesti.sparestibackend.exception.goal.NotActiveGoalException;
-import org.ntnu.idi.idatt2106.sparesti.sparestibackend.exception.storage.StorageException;
-import org.ntnu.idi.idatt2106.sparesti.sparestibackend.exception.storage.StorageFileNotFoundException;
-import org.ntnu.idi.idatt2106.sparesti.sparestibackend.exception.user.UserAlreadyExistsException;
-import org.ntnu.idi.idatt2106.sparesti.sparestibackend.exception.user.UserNotFoundException;
-import org.ntnu.idi.idatt2106.sparesti.sparestibackend.exception.validation.BadInputException;
 import org.ntnu.idi.idatt2106.sparesti.sparestibackend.exception.validation.ObjectNotValidException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.dao.DataIntegrityViolationException;
-import org.springframework.http.HttpStatus;
+import org.springframework.http.ProblemDetail;
 import org.springframework.http.ResponseEntity;
 import org.springframework.http.converter.HttpMessageNotReadableException;
 import org.springframework.security.authentication.BadCredentialsException;
@@ -36,10 +21,14 @@ import org.springframework.web.bind.MissingServletRequestParameterException;
 import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.ResponseBody;
+import org.springframework.web.method.annotation.MethodArgumentTypeMismatchException;
+import org.springframework.web.multipart.MaxUploadSizeExceededException;
 
 /**
  * Global exception handler to handle different types of exceptions across the application. It provides centralized
  * exception handling for various types of exceptions that may occur during the execution of the application.
+ * Handled exceptions are answered with problem responses, as described by RFC 7807, which carry the
+ * {@link ErrorCode} of the error. Unexpected exceptions are left to Spring, which logs their stack traces.
  *
  * @author Harry L.X and Lars M.L.N
  * @version 1.0
@@ -65,106 +54,112 @@ public class GlobalExceptionHandler {
         logger.error("{}: {}", ex.getClass().getSimpleName(), ex.getMessage());
     }
 
-    private String createErrorResponseMsg(Exception ex) {
-        return ex.getMessage();
+    /**
+     * Creates a problem response, as described by RFC 7807, with the status of the error code.
+     * The error code is added as the "code" property.
+     *
+     * @param errorCode
+     *            The error code of the problem.
+     * @param detail
+     *            Message that describes the problem.
+     * @return ResponseEntity with the problem.
+     */
+    private ResponseEntity<ProblemDetail> problem(ErrorCode errorCode, String detail) {
+        ProblemDetail problem = ProblemDetail.forStatusAndDetail(errorCode.getStatus(), detail);
+        problem.setProperty("code", errorCode.name());
+        return ResponseEntity.status(errorCode.getStatus()).body(problem);
     }
 
     /**
-     * Handle exceptions related to existing objects.
+     * Handle domain exceptions, which are the expected client errors of the application. The
+     * status of the response is given by the error code of the exception.
      *
      * @param ex
-     *            The exception indicating that an object already exists.
-     * @return ResponseEntity with an appropriate HTTP status code and error message.
+     *            The domain exception.
+     * @return ResponseEntity with the problem.
      */
-    @ExceptionHandler(
-            value = {
-                UserAlreadyExistsException.class,
-                ChallengeConfigAlreadyExistsException.class,
-                AccountAlreadyExistsException.class
-            })
-    public ResponseEntity<String> handleObjectAlreadyExistException(Exception ex) {
+    @ExceptionHandler(DomainException.class)
+    public ResponseEntity<ProblemDetail> handleDomainException(DomainException ex) {
         logError(ex);
-        String msg = createErrorResponseMsg(ex);
-        return ResponseEntity.status(HttpStatus.CONFLICT).body(msg);
+        return problem(ex.getErrorCode(), ex.getMessage());
     }
 
     /**
-     * Handle exceptions related to non-existing objects.
+     * Handle exceptions related to non-existing users, thrown by Spring Security.
      *
      * @param ex
-     *            The exception indicating that an object does not exist.
-     * @return ResponseEntity with an appropriate HTTP status code and error message.
+     *            The exception indicating that a user does not exist.
+     * @return ResponseEntity with the problem.
      */
-    @ExceptionHandler(
-            value = {
-                UserNotFoundException.class,
-                UsernameNotFoundException.class,
-                GoalNotFoundException.class,
-                ChallengeConfigNotFoundException.class,
-                ChallengeNotFoundException.class,
-                ConfigNotFoundException.class,
-                AccountNotFoundException.class,
-                AssertionRequestNotFoundException.class,
-                EmailNotFoundException.class
-            })
-    public ResponseEntity<String> handleObjectDoesNotExistException(Exception ex) {
+    @ExceptionHandler(UsernameNotFoundException.class)
+    public ResponseEntity<ProblemDetail> handleUsernameNotFoundException(Exception ex) {
         logError(ex);
-        String msg = createErrorResponseMsg(ex);
-        return ResponseEntity.status(HttpStatus.NOT_FOUND).body(msg);
+        return problem(ErrorCode.USER_NOT_FOUND, ex.getMessage());
     }
 
     /**
-     * Handle exceptions related to bad input or invalid requests.
+     * Handle exceptions related to bad input or invalid requests, which are not domain
+     * exceptions.
      *
      * @param ex
      *            The exception indicating bad input or invalid request.
-     * @return ResponseEntity with an appropriate HTTP status code and error message.
+     * @return ResponseEntity with the problem.
      */
     @ExceptionHandler(
             value = {
                 IllegalArgumentException.class,
                 HttpMessageNotReadableException.class,
-                BadInputException.class,
                 NullPointerException.class,
                 MissingServletRequestParameterException.class,
+                MethodArgumentTypeMismatchException.class,
                 HttpRequestMethodNotSupportedException.class,
                 MessagingException.class,
                 MethodArgumentNotValidException.class,
-                ActiveGoalLimitExceededException.class,
-                DataIntegrityViolationException.class,
-                ChallengeAlreadyCompletedException.class,
-                ActiveGoalLimitExceededException.class,
-                NotActiveGoalException.class,
-                StorageException.class,
-                StorageFileNotFoundException.class
+                DataIntegrityViolationException.class
             })
-    public ResponseEntity<String> handleBadInputException(Exception ex) {
+    public ResponseEntity<ProblemDetail> handleBadInputException(Exception ex) {
+        logError(ex);
+        return problem(ErrorCode.BAD_INPUT, ex.getMessage());
+    }
+
+    /**
+     * Handle uploads that are larger than the multipart limit.
+     *
+     * @param ex
+     *            The exception indicating that an upload is too large.
+     * @return ResponseEntity with the problem.
+     */
+    @ExceptionHandler(MaxUploadSizeExceededException.class)
+    public ResponseEntity<ProblemDetail> handleMaxUploadSizeExceededException(Exception ex) {
         logError(ex);
-        String msg = createErrorResponseMsg(ex);
-        return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(msg);
+        return problem(ErrorCode.FILE_TOO_LARGE, ex.getMessage());
     }
 
     /**
      * Exception handler method for BadCredentialsException
      * @param ex Exception
-     * @return ResponseEntity with error message
+     * @return ResponseEntity with the problem
      */
     @ExceptionHandler(value = BadCredentialsException.class)
-    public ResponseEntity<String> handleBadCredentialsException(Exception ex) {
+    public ResponseEntity<ProblemDetail> handleBadCredentialsException(Exception ex) {
         logError(ex);
-        String msg = "Brukernavn eller passord er feil";
-        return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(msg);
+        return problem(ErrorCode.BAD_CREDENTIALS, "Brukernavn eller passord er feil");
     }
 
     /**
      * Handle exception for invalid objects
      * @param ex ObjectNotValid exception
-     * @return ResponseEntity with bad request response code containing all violations
+     * @return ResponseEntity with bad request response code, with all violations in the
+     *         "errors" property
      */
     @ExceptionHandler(ObjectNotValidException.class)
-    public ResponseEntity<Set<String>> handleValidationException(ObjectNotValidException ex) {
+    public ResponseEntity<ProblemDetail> handleValidationException(ObjectNotValidException ex) {
         logError(ex);
-        return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(ex.getErrorMessages());
+        Set<String> errors = ex.getErrorMessages();
+        ResponseEntity<ProblemDetail> response =
+                problem(ex.getErrorCode(), String.join(", ", errors));
+        response.getBody().setProperty("errors", errors);
+        return response;
     }
 
     /**
@@ -176,15 +171,17 @@ public class GlobalExceptionHandler {
      */
     @ExceptionHandler(ConstraintViolationException.class)
     @ResponseBody
-    public ResponseEntity<String> handleConstraintViolationException(
+    public ResponseEntity<ProblemDetail> handleConstraintViolationException(
             ConstraintViolationException ex) {
         List<String> errors = new ArrayList<>();
         for (ConstraintViolation<?> violation : ex.getConstraintViolations()) {
             errors.add(violation.getMessage());
         }
 
-        String errorMessage = String.join(", ", errors);
-        return ResponseEntity.badRequest().body(errorMessage);
+        ResponseEntity<ProblemDetail> response =
+                problem(ErrorCode.INVALID_OBJECT, String.join(", ", errors));
+        response.getBody().setProperty("errors", errors);
+        return response;
     }
     /*
     /**
@@ -1,5 +1,8 @@
 package org.ntnu.idi.idatt2106.sparesti.sparestibackend.exception.account;
 
+import org.ntnu.idi.idatt2106.sparesti.sparestibackend.exception.DomainException;
+import org.ntnu.idi.idatt2106.sparesti.sparestibackend.exception.ErrorCode;
+
 /**
  * Exception that is thrown when creating an account that already exists
  *
@@ -7,13 +10,13 @@ package org.ntnu.idi.idatt2106.sparesti.sparestibackend.exception.account;
  * @version 1.0
  * @since 24.4.24
  */
-public class AccountAlreadyExistsException extends RuntimeException {
+public class AccountAlreadyExistsException extends DomainException {
 
     /**
      * Constructs an instance of the exception class
      * @param message Custom message that the exception is thrown with
      */
     public AccountAlreadyExistsException(String message) {
-        super(message);
+        super(ErrorCode.ACCOUNT_ALREADY_EXISTS, message);
     }
 }
@@ -1,5 +1,8 @@
 package org.ntnu.idi.idatt2106.sparesti.sparestibackend.exception.account;
 
+import org.ntnu.idi.idatt2106.sparesti.sparestibackend.exception.DomainException;
+import org.ntnu.idi.idatt2106.sparesti.sparestibackend.exception.ErrorCode;
+
 /**
  * Exception that is thrown when putting to an account that does not exist
  *
@@ -7,13 +10,13 @@ package org.ntnu.idi.idatt2106.sparesti.sparestibackend.exception.account;
  * @version 1.0
  * @since 24.4.24
  */
-public class AccountNotFoundException extends RuntimeException {
+public class AccountNotFoundException extends DomainException {
 
     /**
      * Constructs an instance of the exception class
      * @param message Custom message that the exception is thrown with
      */
     public AccountNotFoundException(String message) {
-        super(message);
+        super(ErrorCode.ACCOUNT_NOT_FOUND, message);
     }
 }
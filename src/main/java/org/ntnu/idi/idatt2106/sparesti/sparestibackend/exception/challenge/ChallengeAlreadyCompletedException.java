@@ -1,5 +1,8 @@
 package org.ntnu.idi.idatt2106.sparesti.sparestibackend.exception.challenge;
 
+import org.ntnu.idi.idatt2106.sparesti.sparestibackend.exception.DomainException;
+import org.ntnu.idi.idatt2106.sparesti.sparestibackend.exception.ErrorCode;
+
 /**
  * Exception thrown for when attempting to complete challenge that was already completed
  *
@@ -7,13 +10,13 @@ package org.ntnu.idi.idatt2106.sparesti.sparestibackend.exception.challenge;
  * @version 1.0
  * @since 24.4.24
  */
-public class ChallengeAlreadyCompletedException extends RuntimeException {
+public class ChallengeAlreadyCompletedException extends DomainException {
 
     /**
      * Constructor for exception
      * @param challengeId Id of challenge that already was completed
      */
     public ChallengeAlreadyCompletedException(Long challengeId) {
-        super("Challenge already completed: " + challengeId);
+        super(ErrorCode.CHALLENGE_ALREADY_COMPLETED, "Challenge already completed: " + challengeId);
     }
 }
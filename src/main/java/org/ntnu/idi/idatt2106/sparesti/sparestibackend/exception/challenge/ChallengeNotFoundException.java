@@ -1,5 +1,8 @@
 package org.ntnu.idi.idatt2106.sparesti.sparestibackend.exception.challenge;
 
+import org.ntnu.idi.idatt2106.sparesti.sparestibackend.exception.DomainException;
+import org.ntnu.idi.idatt2106.sparesti.sparestibackend.exception.ErrorCode;
+
 /**
  * Exception thrown for when challenge could not be found
  *
@@ -7,13 +10,13 @@ package org.ntnu.idi.idatt2106.sparesti.sparestibackend.exception.challenge;
  * @version 1.0
  * @since 22.4.2024
  */
-public class ChallengeNotFoundException extends RuntimeException {
+public class ChallengeNotFoundException extends DomainException {
 
     /**
      * Constructor for exception
      * @param id Id of non-existent challenge
      */
     public ChallengeNotFoundException(Long id) {
-        super("Challenge with id: " + id + " was not found");
+        super(ErrorCode.CHALLENGE_NOT_FOUND, "Challenge with id: " + id + " was not found");
     }
 }
@@ -1,5 +1,8 @@
 package org.ntnu.idi.idatt2106.sparesti.sparestibackend.exception.config;
 
+import org.ntnu.idi.idatt2106.sparesti.sparestibackend.exception.DomainException;
+import org.ntnu.idi.idatt2106.sparesti.sparestibackend.exception.ErrorCode;
+
 /**
  * Exception thrown for when attempting to create Challenge config if user already has one
  *
@@ -7,13 +10,15 @@ package org.ntnu.idi.idatt2106.sparesti.sparestibackend.exception.config;
  * @version 1.0
  * @since 23.4.24
  */
-public class ChallengeConfigAlreadyExistsException extends RuntimeException {
+public class ChallengeConfigAlreadyExistsException extends DomainException {
 
     /**
      * Constructor for exception
      * @param id Id of user
      */
     public ChallengeConfigAlreadyExistsException(Long id) {
-        super("Challenge config for user with id " + id + " already exists");
+        super(
+                ErrorCode.CHALLENGE_CONFIG_ALREADY_EXISTS,
+                "Challenge config for user with id " + id + " already exists");
     }
 }
@@ -1,5 +1,8 @@
 package org.ntnu.idi.idatt2106.sparesti.sparestibackend.exception.config;
 
+import org.ntnu.idi.idatt2106.sparesti.sparestibackend.exception.DomainException;
+import org.ntnu.idi.idatt2106.sparesti.sparestibackend.exception.ErrorCode;
+
 /**
  * Exception thrown for attempting to find non-existent Challenge config
  *
@@ -7,13 +10,15 @@ package org.ntnu.idi.idatt2106.sparesti.sparestibackend.exception.config;
  * @version 1.0
  * @since 23.4.24
  */
-public class ChallengeConfigNotFoundException extends RuntimeException {
+public class ChallengeConfigNotFoundException extends DomainException {
 
     /**
      * Constructor for exception
      * @param id Id of config that exception was thrown for
      */
     public ChallengeConfigNotFoundException(Long id) {
-        super("Could not find challenge config for user with id " + id);
+        super(
+                ErrorCode.CHALLENGE_CONFIG_NOT_FOUND,
+                "Could not find challenge config for user with id " + id);
     }
 }
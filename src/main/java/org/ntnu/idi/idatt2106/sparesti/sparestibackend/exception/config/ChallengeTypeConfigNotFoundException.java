@@ -0,0 +1,24 @@
+package org.ntnu.idi.idatt2106.sparesti.sparestibackend.exception.config;
+
+import org.ntnu.idi.idatt2106.sparesti.sparestibackend.exception.DomainException;
+import org.ntnu.idi.idatt2106.sparesti.sparestibackend.exception.ErrorCode;
+
+/**
+ * Exception thrown for attempting to find a non-existent challenge type config
+ *
+ * @author Yasin M.
+ * @version 1.0
+ * @since 2.5.24
+ */
+public class ChallengeTypeConfigNotFoundException extends DomainException {
+
+    /**
+     * Constructor for exception
+     * @param type Type of the config that exception was thrown for
+     */
+    public ChallengeTypeConfigNotFoundException(String type) {
+        super(
+                ErrorCode.CHALLENGE_TYPE_CONFIG_NOT_FOUND,
+                "Could not find challenge type config with type " + type);
+    }
+}
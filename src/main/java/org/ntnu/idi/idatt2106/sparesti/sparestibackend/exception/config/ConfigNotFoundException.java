@@ -1,5 +1,8 @@
 package org.ntnu.idi.idatt2106.sparesti.sparestibackend.exception.config;
 
+import org.ntnu.idi.idatt2106.sparesti.sparestibackend.exception.DomainException;
+import org.ntnu.idi.idatt2106.sparesti.sparestibackend.exception.ErrorCode;
+
 /**
  * Exception thrown for config not found
  *
@@ -7,13 +10,13 @@ package org.ntnu.idi.idatt2106.sparesti.sparestibackend.exception.config;
  * @version 1.0
  * @since 19.4.24
  */
-public class ConfigNotFoundException extends RuntimeException {
+public class ConfigNotFoundException extends DomainException {
 
     /**
      * Constructor for exception
      * @param message Custom message
      */
     public ConfigNotFoundException(String message) {
-        super(message);
+        super(ErrorCode.CONFIG_NOT_FOUND, message);
     }
 }
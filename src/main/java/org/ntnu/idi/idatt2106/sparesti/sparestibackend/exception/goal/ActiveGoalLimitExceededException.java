@@ -1,5 +1,8 @@
 package org.ntnu.idi.idatt2106.sparesti.sparestibackend.exception.goal;
 
+import org.ntnu.idi.idatt2106.sparesti.sparestibackend.exception.DomainException;
+import org.ntnu.idi.idatt2106.sparesti.sparestibackend.exception.ErrorCode;
+
 /**
  * Exception for active goal limit (10)
  *
@@ -7,12 +10,12 @@ package org.ntnu.idi.idatt2106.sparesti.sparestibackend.exception.goal;
  * @version 1.0
  * @since 23.4.24
  */
-public class ActiveGoalLimitExceededException extends RuntimeException {
+public class ActiveGoalLimitExceededException extends DomainException {
 
     /**
      * Constructor for exception
      */
     public ActiveGoalLimitExceededException() {
-        super("A user can only have max 10 active goals");
+        super(ErrorCode.ACTIVE_GOAL_LIMIT_EXCEEDED, "A user can only have max 10 active goals");
     }
 }
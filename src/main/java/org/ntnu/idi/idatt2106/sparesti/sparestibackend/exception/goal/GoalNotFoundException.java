@@ -1,5 +1,8 @@
 package org.ntnu.idi.idatt2106.sparesti.sparestibackend.exception.goal;
 
+import org.ntnu.idi.idatt2106.sparesti.sparestibackend.exception.DomainException;
+import org.ntnu.idi.idatt2106.sparesti.sparestibackend.exception.ErrorCode;
+
 /**
  * Exception for goal not found
  *
@@ -7,13 +10,13 @@ package org.ntnu.idi.idatt2106.sparesti.sparestibackend.exception.goal;
  * @version 1.0
  * @since 23.4.24
  */
-public class GoalNotFoundException extends RuntimeException {
+public class GoalNotFoundException extends DomainException {
 
     /**
      * Constructor for exception
      * @param id Id of non-existent goal
      */
     public GoalNotFoundException(Long id) {
-        super("Goal with id '" + id + "' not found for current user");
+        super(ErrorCode.GOAL_NOT_FOUND, "Goal with id '" + id + "' not found for current user");
     }
 }
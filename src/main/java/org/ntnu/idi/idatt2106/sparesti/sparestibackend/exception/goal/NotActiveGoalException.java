@@ -1,5 +1,8 @@
 package org.ntnu.idi.idatt2106.sparesti.sparestibackend.exception.goal;
 
+import org.ntnu.idi.idatt2106.sparesti.sparestibackend.exception.DomainException;
+import org.ntnu.idi.idatt2106.sparesti.sparestibackend.exception.ErrorCode;
+
 /**
  * Exception for goal that is not active
  *
@@ -7,13 +10,13 @@ package org.ntnu.idi.idatt2106.sparesti.sparestibackend.exception.goal;
  * @version 1.0
  * @since 23.4.24
  */
-public class NotActiveGoalException extends RuntimeException {
+public class NotActiveGoalException extends DomainException {
 
     /**
      * Constructor for exception
      * @param id Id of non-active goal
      */
     public NotActiveGoalException(Long id) {
-        super("Goal with id '" + id + "' is not an active goal");
+        super(ErrorCode.NOT_ACTIVE_GOAL, "Goal with id '" + id + "' is not an active goal");
     }
 }
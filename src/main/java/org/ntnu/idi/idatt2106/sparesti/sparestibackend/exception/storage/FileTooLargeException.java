@@ -0,0 +1,23 @@
+package org.ntnu.idi.idatt2106.sparesti.sparestibackend.exception.storage;
+
+import org.ntnu.idi.idatt2106.sparesti.sparestibackend.exception.ErrorCode;
+
+/**
+ * Exception thrown when an uploaded file is larger than allowed for what it belongs to
+ *
+ * @author L.M.L. Nilsen
+ * @version 1.0
+ * @since 3.5.24
+ */
+public class FileTooLargeException extends StorageException {
+
+    /**
+     * Constructor for exception
+     * @param maxSize The largest allowed size in bytes
+     */
+    public FileTooLargeException(long maxSize) {
+        super(
+                ErrorCode.FILE_TOO_LARGE,
+                "The file is larger than the limit of " + maxSize + " bytes.");
+    }
+}
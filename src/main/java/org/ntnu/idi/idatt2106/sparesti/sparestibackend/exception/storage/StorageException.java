@@ -1,5 +1,8 @@
 package org.ntnu.idi.idatt2106.sparesti.sparestibackend.exception.storage;
 
+import org.ntnu.idi.idatt2106.sparesti.sparestibackend.exception.DomainException;
+import org.ntnu.idi.idatt2106.sparesti.sparestibackend.exception.ErrorCode;
+
 /**
  * Exception thrown in relation to uploading and getting files
  *
@@ -7,14 +10,14 @@ package org.ntnu.idi.idatt2106.sparesti.sparestibackend.exception.storage;
  * @version 1.0
  * @since 30.4.24
  */
-public class StorageException extends RuntimeException {
+public class StorageException extends DomainException {
 
     /**
      * Constructor for exception
      * @param message Custom message
      */
     public StorageException(String message) {
-        super(message);
+        super(ErrorCode.STORAGE_ERROR, message);
     }
 
     /**
@@ -23,6 +26,15 @@ public class StorageException extends RuntimeException {
      * @param cause Throwable cause object
      */
     public StorageException(String message, Throwable cause) {
-        super(message, cause);
+        super(ErrorCode.STORAGE_ERROR, message, cause);
+    }
+
+    /**
+     * Constructor for a more specific storage exception
+     * @param errorCode Error code the exception is answered with
+     * @param message Custom message
+     */
+    protected StorageException(ErrorCode errorCode, String message) {
+        super(errorCode, message);
     }
 }
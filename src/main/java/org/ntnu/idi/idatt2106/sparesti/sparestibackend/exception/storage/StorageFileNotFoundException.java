@@ -1,5 +1,7 @@
 package org.ntnu.idi.idatt2106.sparesti.sparestibackend.exception.storage;
 
+import org.ntnu.idi.idatt2106.sparesti.sparestibackend.exception.ErrorCode;
+
 /**
  * Exception thrown in relation to files uploads when they are not found
  *
@@ -14,6 +16,6 @@ public class StorageFileNotFoundException extends StorageException {
      * @param message custom message
      */
     public StorageFileNotFoundException(String message) {
-        super(message);
+        super(ErrorCode.STORAGE_FILE_NOT_FOUND, message);
     }
 }
@@ -0,0 +1,23 @@
+package org.ntnu.idi.idatt2106.sparesti.sparestibackend.exception.storage;
+
+import org.ntnu.idi.idatt2106.sparesti.sparestibackend.exception.ErrorCode;
+
+/**
+ * Exception thrown when an upload would make a user store more than their quota
+ *
+ * @author L.M.L. Nilsen
+ * @version 1.0
+ * @since 3.5.24
+ */
+public class StorageQuotaExceededException extends StorageException {
+
+    /**
+     * Constructor for exception
+     * @param quota The number of bytes each user may store
+     */
+    public StorageQuotaExceededException(long quota) {
+        super(
+                ErrorCode.STORAGE_QUOTA_EXCEEDED,
+                "The upload would exceed your storage quota of " + quota + " bytes.");
+    }
+}
@@ -1,5 +1,8 @@
 package org.ntnu.idi.idatt2106.sparesti.sparestibackend.exception.user;
 
+import org.ntnu.idi.idatt2106.sparesti.sparestibackend.exception.DomainException;
+import org.ntnu.idi.idatt2106.sparesti.sparestibackend.exception.ErrorCode;
+
 /**
  * Exception that is thrown when creating a user that already exists
  *
@@ -7,13 +10,13 @@ package org.ntnu.idi.idatt2106.sparesti.sparestibackend.exception.user;
  * @version 1.0
  * @since 17.4.24
  */
-public class UserAlreadyExistsException extends RuntimeException {
+public class UserAlreadyExistsException extends DomainException {
 
     /**
      * Constructs an instance of the exception class
      * @param message Custom message that the exception is thrown with
      */
     public UserAlreadyExistsException(String message) {
-        super(message);
+        super(ErrorCode.USER_ALREADY_EXISTS, message);
     }
 }
@@ -1,5 +1,8 @@
 package org.ntnu.idi.idatt2106.sparesti.sparestibackend.exception.user;
 
+import org.ntnu.idi.idatt2106.sparesti.sparestibackend.exception.DomainException;
+import org.ntnu.idi.idatt2106.sparesti.sparestibackend.exception.ErrorCode;
+
 /**
  * Exception thrown for finding non-existent user
  *
@@ -7,13 +10,13 @@ package org.ntnu.idi.idatt2106.sparesti.sparestibackend.exception.user;
  * @version 1.0
  * @since 19.4.24
  */
-public class UserNotFoundException extends RuntimeException {
+public class UserNotFoundException extends DomainException {
 
     /**
      * Constructor for exception
      * @param username Username of non-existent user
      */
     public UserNotFoundException(String username) {
-        super("User with username: '" + username + "' not found");
+        super(ErrorCode.USER_NOT_FOUND, "User with username: '" + username + "' not found");
     }
 }
@@ -1,5 +1,8 @@
 package org.ntnu.idi.idatt2106.sparesti.sparestibackend.exception.validation;
 
+import org.ntnu.idi.idatt2106.sparesti.sparestibackend.exception.DomainException;
+import org.ntnu.idi.idatt2106.sparesti.sparestibackend.exception.ErrorCode;
+
 /**
  * Exception that is thrown for bad user input
  *
@@ -7,13 +10,13 @@ package org.ntnu.idi.idatt2106.sparesti.sparestibackend.exception.validation;
  * @version 1.0
  * @since 17.4.24
  */
-public class BadInputException extends RuntimeException {
+public class BadInputException extends DomainException {
 
     /**
      * Constructs an instance of the exception class
      * @param message Custom message that the exception is thrown with
      */
     public BadInputException(String message) {
-        super(message);
+        super(ErrorCode.BAD_INPUT, message);
     }
 }
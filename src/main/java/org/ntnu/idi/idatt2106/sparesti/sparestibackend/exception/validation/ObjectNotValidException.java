@@ -1,8 +1,10 @@
 package org.ntnu.idi.idatt2106.sparesti.sparestibackend.exception.validation;
 
+import jakarta.validation.ConstraintViolation;
 import java.util.Set;
-import lombok.Getter;
-import lombok.RequiredArgsConstructor;
+import java.util.stream.Collectors;
+import org.ntnu.idi.idatt2106.sparesti.sparestibackend.exception.DomainException;
+import org.ntnu.idi.idatt2106.sparesti.sparestibackend.exception.ErrorCode;
 
 /**
  * Exception for goal invalid object
@@ -11,12 +13,40 @@ import lombok.RequiredArgsConstructor;
  * @version 1.0
  * @since 24.4.24
  */
-@RequiredArgsConstructor
-@Getter
-public class ObjectNotValidException extends RuntimeException {
+public class ObjectNotValidException extends DomainException {
 
     /**
-     * Set of error messages
+     * The violated constraints
      */
-    private final Set<String> errorMessages;
+    private final transient Set<? extends ConstraintViolation<?>> violations;
+
+    /**
+     * Set of error messages, collected from the violations when first requested
+     */
+    private Set<String> errorMessages;
+
+    /**
+     * Constructor for an object that violates constraints
+     * @param violations The violated constraints
+     */
+    public ObjectNotValidException(Set<? extends ConstraintViolation<?>> violations) {
+        super(
+                ErrorCode.INVALID_OBJECT,
+                "The object violates " + violations.size() + " constraints");
+        this.violations = violations;
+    }
+
+    /**
+     * Gets the error messages of the violated constraints
+     * @return Set of error messages
+     */
+    public Set<String> getErrorMessages() {
+        if (errorMessages == null) {
+            errorMessages =
+                    violations.stream()
+                            .map(ConstraintViolation::getMessage)
+                            .collect(Collectors.toSet());
+        }
+        return errorMessages;
+    }
 }
@@ -38,11 +38,13 @@ public interface ChallengeConfigMapper {
     ChallengeConfig toEntity(ChallengeConfigDTO challengeConfigDTO);
 
     /**
-     * Cascades changes from a ChallengeConfigDTO to target entity.
+     * Cascades changes from a ChallengeConfigDTO to target entity. The type configs are
+     * not mapped, as they are diffed and persisted individually.
      * @param challengeConfig Entity that is updated
      * @param challengeConfigDTO DTO that contains the changes
      * @return Updated entity
      */
+    @Mapping(target = "challengeTypeConfigs", ignore = true)
     ChallengeConfig updateEntity(
             @MappingTarget ChallengeConfig challengeConfig, ChallengeConfigDTO challengeConfigDTO);
 }
@@ -5,6 +5,7 @@ import org.mapstruct.factory.Mappers;
 import org.ntnu.idi.idatt2106.sparesti.sparestibackend.dto.challenge.ChallengeCreateDTO;
 import org.ntnu.idi.idatt2106.sparesti.sparestibackend.dto.challenge.ChallengeDTO;
 import org.ntnu.idi.idatt2106.sparesti.sparestibackend.dto.challenge.ChallengeUpdateDTO;
+import org.ntnu.idi.idatt2106.sparesti.sparestibackend.dto.image.ImagePreviewDTO;
 import org.ntnu.idi.idatt2106.sparesti.sparestibackend.model.Challenge;
 import org.ntnu.idi.idatt2106.sparesti.sparestibackend.model.User;
 import org.ntnu.idi.idatt2106.sparesti.sparestibackend.util.ApplicationUtil;
@@ -26,17 +27,54 @@ public interface ChallengeMapper {
     ChallengeMapper INSTANCE = Mappers.getMapper(ChallengeMapper.class);
 
     /**
-     * Converts from Challenge entity to DTO. Calculates completion value as
-     * percentage of saved amount to target amount
+     * Converts from Challenge entity to DTO, for a challenge without an image. Calculates
+     * completion value as percentage of saved amount to target amount
      * @param challenge Challenge entity
      * @return Converted DTO
      */
-    @Mapping(
-            target = "completion",
-            expression =
-                    "java(ApplicationUtil.percent(challenge.getSaved(), challenge.getTarget()))")
+    @Mappings({
+        @Mapping(
+                target = "completion",
+                expression =
+                        "java(ApplicationUtil.percent(challenge.getSaved(),"
+                                + " challenge.getTarget()))"),
+        @Mapping(target = "hasImage", constant = "false"),
+        @Mapping(target = "placeholder", ignore = true),
+        @Mapping(target = "imageUrl", ignore = true)
+    })
     ChallengeDTO toDTO(Challenge challenge);
 
+    /**
+     * Converts from Challenge entity to DTO, with the preview of its image
+     * @param challenge Challenge entity
+     * @param image Preview of the challenge's image, or null if it has none
+     * @return Converted DTO
+     */
+    @Mappings({
+        @Mapping(
+                target = "completion",
+                expression =
+                        "java(ApplicationUtil.percent(challenge.getSaved(),"
+                                + " challenge.getTarget()))"),
+        @Mapping(target = "hasImage", expression = "java(image != null)"),
+        @Mapping(target = "placeholder", source = "image.placeholder"),
+        @Mapping(target = "imageUrl", source = "image.url")
+    })
+    ChallengeDTO toDTO(Challenge challenge, ImagePreviewDTO image);
+
+    /**
+     * Adds the preview of its image to a challenge that was projected without one
+     * @param challenge Projected challenge
+     * @param image Preview of the challenge's image, or null if it has none
+     * @return DTO with the preview
+     */
+    @Mappings({
+        @Mapping(target = "hasImage", expression = "java(image != null)"),
+        @Mapping(target = "placeholder", source = "image.placeholder"),
+        @Mapping(target = "imageUrl", source = "image.url")
+    })
+    ChallengeDTO withImage(ChallengeDTO challenge, ImagePreviewDTO image);
+
     /**
      * Converts from challenge DTO to entity. Ignore null values. Calculates completion value as
      * percentage of saved amount to target amount. Type is capitalized only on first letter.
@@ -49,6 +87,7 @@ public interface ChallengeMapper {
         @Mapping(target = "id", ignore = true),
         @Mapping(target = "createdOn", ignore = true),
         @Mapping(target = "completedOn", ignore = true),
+        @Mapping(target = "typeId", ignore = true),
         @Mapping(
                 target = "completion",
                 expression =
@@ -71,6 +110,7 @@ public interface ChallengeMapper {
         @Mapping(target = "id", ignore = true),
         @Mapping(target = "createdOn", ignore = true),
         @Mapping(target = "completedOn", ignore = true),
+        @Mapping(target = "typeId", ignore = true),
         @Mapping(
                 target = "completion",
                 expression =
@@ -86,11 +126,7 @@ public interface ChallengeMapper {
      */
     @Named(value = "getType")
     default String getType(String type) {
-        if (type == null) return null;
-
-        return type.trim().length() > 1
-                ? type.substring(0, 1).toUpperCase() + type.substring(1).toLowerCase()
-                : type.toUpperCase();
+        return ApplicationUtil.formatType(type);
     }
 
     /**
@@ -102,6 +138,7 @@ public interface ChallengeMapper {
     default void updateType(@MappingTarget Challenge challenge, ChallengeUpdateDTO challengeDTO) {
         if (challengeDTO.type() == null) {
             challenge.setType(null);
+            challenge.setTypeId(null);
         }
     }
 }
@@ -4,6 +4,7 @@ import org.mapstruct.*;
 import org.mapstruct.factory.Mappers;
 import org.ntnu.idi.idatt2106.sparesti.sparestibackend.dto.config.ChallengeTypeConfigDTO;
 import org.ntnu.idi.idatt2106.sparesti.sparestibackend.model.ChallengeTypeConfig;
+import org.ntnu.idi.idatt2106.sparesti.sparestibackend.util.ApplicationUtil;
 
 /**
  * Mapper interface for converting back and forth
@@ -34,6 +35,8 @@ public interface ChallengeTypeConfigMapper {
      * @return Converted entity
      */
     @Mapping(target = "type", source = "type", qualifiedByName = "getType")
+    @Mapping(target = "typeId", ignore = true)
+    @Mapping(target = "user", ignore = true)
     ChallengeTypeConfig toEntity(ChallengeTypeConfigDTO challengeTypeConfigDTO);
 
     /**
@@ -42,6 +45,8 @@ public interface ChallengeTypeConfigMapper {
      * @param challengeTypeConfigDTO DTO with new changes
      * @return Updated entity
      */
+    @Mapping(target = "typeId", ignore = true)
+    @Mapping(target = "user", ignore = true)
     ChallengeTypeConfig updateEntity(
             @MappingTarget ChallengeTypeConfig challengeTypeConfig,
             ChallengeTypeConfigDTO challengeTypeConfigDTO);
@@ -53,8 +58,6 @@ public interface ChallengeTypeConfigMapper {
      */
     @Named(value = "getType")
     default String getType(String type) {
-        return type.trim().length() > 1
-                ? type.substring(0, 1).toUpperCase() + type.substring(1).toLowerCase()
-                : type.toUpperCase();
+        return ApplicationUtil.formatType(type);
     }
 }
@@ -11,6 +11,7 @@ import org.mapstruct.factory.Mappers;
 import org.ntnu.idi.idatt2106.sparesti.sparestibackend.dto.goal.GoalCreateDTO;
 import org.ntnu.idi.idatt2106.sparesti.sparestibackend.dto.goal.GoalResponseDTO;
 import org.ntnu.idi.idatt2106.sparesti.sparestibackend.dto.goal.GoalUpdateDTO;
+import org.ntnu.idi.idatt2106.sparesti.sparestibackend.dto.image.ImagePreviewDTO;
 import org.ntnu.idi.idatt2106.sparesti.sparestibackend.model.Goal;
 import org.ntnu.idi.idatt2106.sparesti.sparestibackend.model.User;
 import org.ntnu.idi.idatt2106.sparesti.sparestibackend.util.ApplicationUtil;
@@ -32,15 +33,49 @@ public interface GoalMapper {
     GoalMapper INSTANCE = Mappers.getMapper(GoalMapper.class);
 
     /**
-     *  Maps Goal entity to DTO
+     *  Maps Goal entity to DTO, for a goal without an image
      * @param goal Goal entity
      * @return Mapped DTO
      */
-    @Mapping(
-            target = "completion",
-            expression = "java( ApplicationUtil.percent(goal.getSaved(), goal.getTarget()) )")
+    @Mappings({
+        @Mapping(
+                target = "completion",
+                expression = "java( ApplicationUtil.percent(goal.getSaved(), goal.getTarget()) )"),
+        @Mapping(target = "hasImage", constant = "false"),
+        @Mapping(target = "placeholder", ignore = true),
+        @Mapping(target = "imageUrl", ignore = true)
+    })
     GoalResponseDTO toDTO(Goal goal);
 
+    /**
+     * Maps Goal entity to DTO, with the preview of its image
+     * @param goal Goal entity
+     * @param image Preview of the goal's image, or null if it has none
+     * @return Mapped DTO
+     */
+    @Mappings({
+        @Mapping(
+                target = "completion",
+                expression = "java( ApplicationUtil.percent(goal.getSaved(), goal.getTarget()) )"),
+        @Mapping(target = "hasImage", expression = "java( image != null )"),
+        @Mapping(target = "placeholder", source = "image.placeholder"),
+        @Mapping(target = "imageUrl", source = "image.url")
+    })
+    GoalResponseDTO toDTO(Goal goal, ImagePreviewDTO image);
+
+    /**
+     * Adds the preview of its image to a goal that was projected without one
+     * @param goal Projected goal
+     * @param image Preview of the goal's image, or null if it has none
+     * @return DTO with the preview
+     */
+    @Mappings({
+        @Mapping(target = "hasImage", expression = "java( image != null )"),
+        @Mapping(target = "placeholder", source = "image.placeholder"),
+        @Mapping(target = "imageUrl", source = "image.url")
+    })
+    GoalResponseDTO withImage(GoalResponseDTO goal, ImagePreviewDTO image);
+
     /**
      * Maps DTO to Goal entity
      * @param goalDTO Goal DTO
@@ -3,6 +3,7 @@ package org.ntnu.idi.idatt2106.sparesti.sparestibackend.mapper;
 import java.time.ZonedDateTime;
 import org.mapstruct.*;
 import org.mapstruct.factory.Mappers;
+import org.ntnu.idi.idatt2106.sparesti.sparestibackend.dto.image.ImagePreviewDTO;
 import org.ntnu.idi.idatt2106.sparesti.sparestibackend.dto.user.StreakResponse;
 import org.ntnu.idi.idatt2106.sparesti.sparestibackend.dto.user.UserResponse;
 import org.ntnu.idi.idatt2106.sparesti.sparestibackend.dto.user.UserUpdateDTO;
@@ -27,13 +28,36 @@ public interface UserMapper {
     UserMapper INSTANCE = Mappers.getMapper(UserMapper.class);
 
     /**
-     * Maps from User entity to DTO
+     * Maps from User entity to DTO, for a user without a profile picture
      * @param user User entity
      * @return Mapped DTO
      */
-    @Mapping(target = "hasPasskey", expression = "java( user.getHandle() != null ? true : false )")
+    @Mappings({
+        @Mapping(
+                target = "hasPasskey",
+                expression = "java( user.getHandle() != null ? true : false )"),
+        @Mapping(target = "hasImage", constant = "false"),
+        @Mapping(target = "placeholder", ignore = true),
+        @Mapping(target = "imageUrl", ignore = true)
+    })
     UserResponse toDTO(User user);
 
+    /**
+     * Maps from User entity to DTO, with the preview of the profile picture
+     * @param user User entity
+     * @param image Preview of the profile picture, or null if the user has none
+     * @return Mapped DTO
+     */
+    @Mappings({
+        @Mapping(
+                target = "hasPasskey",
+                expression = "java( user.getHandle() != null ? true : false )"),
+        @Mapping(target = "hasImage", expression = "java( image != null )"),
+        @Mapping(target = "placeholder", source = "image.placeholder"),
+        @Mapping(target = "imageUrl", source = "image.url")
+    })
+    UserResponse toDTO(User user, ImagePreviewDTO image);
+
     /**
      * Updates User entity from DTO
      * @param user User entity
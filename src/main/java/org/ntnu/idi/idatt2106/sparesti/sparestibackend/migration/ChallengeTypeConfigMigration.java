@@ -0,0 +1,67 @@
+package org.ntnu.idi.idatt2106.sparesti.sparestibackend.migration;
+
+import java.sql.Connection;
+import java.sql.Statement;
+import lombok.extern.slf4j.Slf4j;
+import org.flywaydb.core.api.migration.Context;
+import org.springframework.stereotype.Component;
+
+/**
+ * Migrates the challenge type configs from the element collection table of the challenge
+ * config to the table of the ChallengeTypeConfig entity. The element collection table has no
+ * id column, and Hibernate can not add an identity primary key to a table that already has
+ * rows. The migration therefore creates the new table, copies the rows of every user into it
+ * and swaps the tables. Hibernate adds the foreign key and unique constraint afterwards.
+ *
+ * <p>The element collection had no unique constraint on the user and type, so duplicates
+ * that only differ in their amounts are merged, keeping the highest amounts.</p>
+ *
+ * @author L.M.L. Nilsen
+ * @version 1.0
+ * @since 3.5.24
+ */
+@Slf4j
+@Component
+public class ChallengeTypeConfigMigration extends SchemaMigration {
+
+    private static final String TABLE = "challengetype_config";
+
+    /**
+     * Creates the migration
+     */
+    public ChallengeTypeConfigMigration() {
+        super("1", "Give challenge type configs an identity key");
+    }
+
+    @Override
+    public void migrate(Context context) throws Exception {
+        Connection connection = context.getConnection();
+        if (!hasTable(connection, TABLE) || hasColumn(connection, TABLE, "id")) {
+            return;
+        }
+        String typeId = hasColumn(connection, TABLE, "type_id") ? "MAX(type_id)" : "NULL";
+        try (Statement statement = connection.createStatement()) {
+            // Left behind if an earlier attempt failed before the swap
+            statement.execute("DROP TABLE IF EXISTS challengetype_config_new");
+            statement.execute(
+                    "CREATE TABLE challengetype_config_new (id BIGINT NOT NULL AUTO_INCREMENT,"
+                            + " user_id BIGINT NOT NULL, type VARCHAR(255) NOT NULL, type_id"
+                            + " INTEGER, general_amount DECIMAL(38,2) NOT NULL, specific_amount"
+                            + " DECIMAL(38,2) NOT NULL, PRIMARY KEY (id))");
+            int copied =
+                    statement.executeUpdate(
+                            "INSERT INTO challengetype_config_new (user_id, type, type_id,"
+                                    + " general_amount, specific_amount) SELECT user_id, type, "
+                                    + typeId
+                                    + ", MAX(general_amount), MAX(specific_amount) FROM"
+                                    + " challengetype_config GROUP BY user_id, type ORDER BY"
+                                    + " user_id, type");
+            statement.execute(
+                    "ALTER TABLE challengetype_config RENAME TO challengetype_config_old");
+            statement.execute(
+                    "ALTER TABLE challengetype_config_new RENAME TO challengetype_config");
+            statement.execute("DROP TABLE challengetype_config_old");
+            log.info("Migrated {} challenge type configs to the entity table", copied);
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package org.ntnu.idi.idatt2106.sparesti.sparestibackend.migration;
+
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Locale;
+import org.flywaydb.core.api.MigrationVersion;
+import org.flywaydb.core.api.migration.JavaMigration;
+
+/**
+ * Base class for migrations of existing databases. Flyway runs the migrations before Hibernate
+ * updates the schema, so they can reshape tables that Hibernate can not alter by itself. A
+ * fresh database has no tables when the migrations run, so every migration checks the schema
+ * it expects before it changes anything.
+ *
+ * @author L.M.L. Nilsen
+ * @version 1.0
+ * @since 3.5.24
+ */
+public abstract class SchemaMigration implements JavaMigration {
+
+    private final MigrationVersion version;
+
+    private final String description;
+
+    /**
+     * Creates a migration
+     * @param version Version of the migration, which decides the order migrations run in
+     * @param description Description shown in the schema history
+     */
+    protected SchemaMigration(String version, String description) {
+        this.version = MigrationVersion.fromVersion(version);
+        this.description = description;
+    }
+
+    @Override
+    public MigrationVersion getVersion() {
+        return version;
+    }
+
+    @Override
+    public String getDescription() {
+        return description;
+    }
+
+    @Override
+    public Integer getChecksum() {
+        return null;
+    }
+
+    /**
+     * DDL commits implicitly on MySQL, so the migrations are not run in a transaction
+     * @return False
+     */
+    @Override
+    public boolean canExecuteInTransaction() {
+        return false;
+    }
+
+    /**
+     * Checks if a table exists in the current schema
+     * @param connection Connection to the database
+     * @param table Name of the table, as Hibernate names it
+     * @return True, if the table exists
+     * @throws SQLException Upon errors reading the metadata
+     */
+    protected static boolean hasTable(Connection connection, String table) throws SQLException {
+        DatabaseMetaData metaData = connection.getMetaData();
+        try (ResultSet tables =
+                metaData.getTables(
+                        connection.getCatalog(),
+                        connection.getSchema(),
+                        identifier(metaData, table),
+                        new String[] {"TABLE"})) {
+            return tables.next();
+        }
+    }
+
+    /**
+     * Checks if a table has a column
+     * @param connection Connection to the database
+     * @param table Name of the table, as Hibernate names it
+     * @param column Name of the column, as Hibernate names it
+     * @return True, if the column exists
+     * @throws SQLException Upon errors reading the metadata
+     */
+    protected static boolean hasColumn(Connection connection, String table, String column)
+            throws SQLException {
+        DatabaseMetaData metaData = connection.getMetaData();
+        try (ResultSet columns =
+                metaData.getColumns(
+                        connection.getCatalog(),
+                        connection.getSchema(),
+                        identifier(metaData, table),
+                        identifier(metaData, column))) {
+            return columns.next();
+        }
+    }
+
+    /**
+     * Converts a name to the case the database stores unquoted identifiers in. Hibernate
+     * writes its identifiers in lower case, which H2 folds to upper case.
+     * @param metaData Metadata of the database
+     * @param name Name in lower case
+     * @return Name as stored by the database
+     * @throws SQLException Upon errors reading the metadata
+     */
+    private static String identifier(DatabaseMetaData metaData, String name) throws SQLException {
+        return metaData.storesUpperCaseIdentifiers()
+                ? name.toUpperCase(Locale.ROOT)
+                : name.toLowerCase(Locale.ROOT);
+    }
+}
@@ -10,6 +10,7 @@ import java.time.ZonedDateTime;
 import lombok.*;
 import org.hibernate.annotations.ColumnDefault;
 import org.hibernate.annotations.CreationTimestamp;
+import org.ntnu.idi.idatt2106.sparesti.sparestibackend.util.ApplicationUtil;
 
 /**
  * Represents a saving challenge within the system.
@@ -22,7 +23,17 @@ import org.hibernate.annotations.CreationTimestamp;
 @Data
 @AllArgsConstructor
 @NoArgsConstructor(access = AccessLevel.PROTECTED)
-@Table(name = "CHALLENGE")
+@Table(
+        name = "CHALLENGE",
+        indexes = {
+            @Index(
+                    name = "IDX_CHALLENGE_USER_TYPE_COMPLETED",
+                    columnList = "USER_ID, TYPE_ID, COMPLETED_ON"),
+            @Index(name = "IDX_CHALLENGE_USER_COMPLETED", columnList = "USER_ID, COMPLETED_ON"),
+            @Index(name = "IDX_CHALLENGE_USER_DUE", columnList = "USER_ID, DUE"),
+            @Index(name = "IDX_CHALLENGE_USER_CREATION", columnList = "USER_ID, CREATION"),
+            @Index(name = "IDX_CHALLENGE_USER_COMPLETION", columnList = "USER_ID, COMPLETION")
+        })
 public class Challenge {
 
     /**
@@ -84,12 +95,14 @@ public class Challenge {
     /**
      * The timestamp when the challenge was completed. This field is optional and manually set.
      */
+    @Column(name = "COMPLETED_ON")
     @Temporal(TemporalType.TIMESTAMP)
     private ZonedDateTime completedOn;
 
     /**
      * The due date for the challenge to be completed. This field is optional.
      */
+    @Column(name = "DUE")
     @Temporal(TemporalType.TIMESTAMP)
     private ZonedDateTime due;
 
@@ -99,6 +112,13 @@ public class Challenge {
     @Column(name = "TYPE")
     private String type;
 
+    /**
+     * Key of the challenge type in the challenge type dimension. Type based lookups and grouping
+     * is done on this key instead of the type name. This field is optional.
+     */
+    @Column(name = "TYPE_ID")
+    private Integer typeId;
+
     /**
      * The user who owns this challenge. This field is not updatable and is mandatory.
      */
@@ -109,8 +129,22 @@ public class Challenge {
     private User user;
 
     /**
-     * A transient field calculating the completion percentage of the challenge based on the saved and target amounts.
-     * This field is not persisted in the database.
+     * The completion percentage of the challenge based on the saved and target amounts.
+     * This field is persisted, so challenges can be filtered and sorted on it, and is
+     * recalculated whenever the challenge is persisted or updated. Challenges saved before the
+     * column existed have no completion until it is calculated on startup.
+     */
+    @Column(name = "COMPLETION", precision = 7, scale = 3)
+    private BigDecimal completion;
+
+    /**
+     * Recalculates the completion percentage from the saved and target amounts
      */
-    @Transient private BigDecimal completion;
+    @PrePersist
+    @PreUpdate
+    private void updateCompletion() {
+        if (saved != null && target != null && target.signum() > 0) {
+            completion = ApplicationUtil.percent(saved, target);
+        }
+    }
 }
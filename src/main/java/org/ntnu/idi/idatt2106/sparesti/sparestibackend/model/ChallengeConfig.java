@@ -49,10 +49,10 @@ public class ChallengeConfig {
 
     /**
      * A collection of {@link ChallengeTypeConfig} objects that define specific configurations for different types of challenges.
-     * This set is not updatable directly through setters to maintain integrity.
+     * This set is not updatable directly through setters to maintain integrity. The type configs are owned by the
+     * user, and are persisted individually through their own repository.
      */
-    @ElementCollection(fetch = FetchType.EAGER)
-    @CollectionTable(name = "CHALLENGETYPE_CONFIG")
+    @OneToMany(mappedBy = "user", fetch = FetchType.EAGER)
     @Setter(AccessLevel.NONE)
     Set<ChallengeTypeConfig> challengeTypeConfigs = new HashSet<>();
 }
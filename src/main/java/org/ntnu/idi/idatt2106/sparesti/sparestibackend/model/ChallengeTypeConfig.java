@@ -7,17 +7,17 @@ import java.math.BigDecimal;
 import lombok.*;
 
 /**
- * Embedded class that represents configuration settings specific to a type of challenge within the system.
+ * Entity that represents configuration settings specific to a type of challenge within the system.
  * This configuration includes financial thresholds associated with a challenge type, which are used to tailor
  * the challenge parameters to the user's spending habits and goals.
  *
- * <p>This class is designed to be embedded within another entity and is not a standalone table. It includes
- * unique constraints to ensure that each user can have only one configuration per challenge type.</p>
+ * <p>Each type config is a child row of the user's challenge config with its own identity, so a single type
+ * can be inserted, updated or deleted without rewriting the others. It includes unique constraints to ensure
+ * that each user can have only one configuration per challenge type.</p>
  *
  * @author Y.A Marouga
  */
-@Embeddable
-@AllArgsConstructor
+@Entity
 @NoArgsConstructor(access = AccessLevel.PROTECTED)
 @Data
 @Table(
@@ -25,6 +25,25 @@ import lombok.*;
         name = "CHALLENGETYPE_CONFIG")
 public class ChallengeTypeConfig {
 
+    /**
+     * Unique identifier for the type config. This field is auto-generated and not settable.
+     * It is not part of equality, so configs are compared by their values.
+     */
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Setter(AccessLevel.NONE)
+    @EqualsAndHashCode.Exclude
+    private Long id;
+
+    /**
+     * The user who owns this type config. This field is mandatory.
+     */
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "USER_ID", nullable = false)
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    private User user;
+
     /**
      * The type of challenge this configuration pertains to, which cannot be updated once set.
      * It is limited to 20 characters to ensure concise and relevant descriptors.
@@ -34,6 +53,14 @@ public class ChallengeTypeConfig {
     @Size(max = 20, message = "Type can have max 20 characters")
     private String type;
 
+    /**
+     * Key of the type in the challenge type dimension. It is derived from the type,
+     * and is therefore not part of equality.
+     */
+    @Column(name = "TYPE_ID")
+    @EqualsAndHashCode.Exclude
+    private Integer typeId;
+
     /**
      * The average amount a user spends on this challenge type in a typical week.
      * This field helps in setting realistic and personalized challenge goals.
@@ -49,4 +76,16 @@ public class ChallengeTypeConfig {
     @Column(nullable = false)
     @NotNull
     private BigDecimal specificAmount;
+
+    /**
+     * Creates a challenge type config. The type key is resolved when the config is persisted.
+     * @param type The type of challenge
+     * @param generalAmount Average amount spent on the type per week
+     * @param specificAmount Average amount spent on the type per purchase
+     */
+    public ChallengeTypeConfig(String type, BigDecimal generalAmount, BigDecimal specificAmount) {
+        this.type = type;
+        this.generalAmount = generalAmount;
+        this.specificAmount = specificAmount;
+    }
 }
@@ -0,0 +1,46 @@
+package org.ntnu.idi.idatt2106.sparesti.sparestibackend.model;
+
+import jakarta.persistence.*;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.*;
+
+/**
+ * Dimension entity for challenge types. Each canonical type name is stored once
+ * and referenced from challenges and challenge type configs by its integer key.
+ *
+ * @author Yasin M.
+ * @version 1.0
+ * @since 2.5.24
+ */
+@Entity
+@Getter
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@Table(
+        name = "CHALLENGE_TYPE",
+        uniqueConstraints = {@UniqueConstraint(columnNames = {"NAME"})})
+public class ChallengeTypeEntity {
+
+    /**
+     * Small integer key of the type. This field is auto-generated.
+     */
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Integer id;
+
+    /**
+     * Canonical name of the type, trimmed and capitalized on the first letter only.
+     */
+    @Column(nullable = false, name = "NAME", updatable = false, length = 20)
+    @NotNull
+    @Size(max = 20, message = "Type can have max 20 characters")
+    private String name;
+
+    /**
+     * Creates a new challenge type
+     * @param name Canonical name of the type
+     */
+    public ChallengeTypeEntity(String name) {
+        this.name = name;
+    }
+}
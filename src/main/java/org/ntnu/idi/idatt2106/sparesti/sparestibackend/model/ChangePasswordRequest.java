@@ -9,6 +9,7 @@ import org.hibernate.annotations.CreationTimestamp;
 /**
  * Represents a request to change a user's password. This entity stores the unique identifiers
  * and timestamp of the password change request to manage and validate user requests securely.
+ * The reset token itself is never stored, only its keyed digest.
  *
  * @author L.M.L Nilsen and H.L XU
  */
@@ -18,10 +19,11 @@ import org.hibernate.annotations.CreationTimestamp;
 @Setter
 @Getter
 @Entity
+@Table(indexes = @Index(name = "IDX_CHANGE_PASSWORD_REQUEST_EXPIRES_AT", columnList = "EXPIRES_AT"))
 public class ChangePasswordRequest {
 
     /**
-     * Unique identifier for the password change request. This is typically a token or string that can be used to validate the request.
+     * Unique identifier for the password change request. This is the HMAC-SHA256 digest of the reset token that was mailed to the user.
      * It must be non-null and is marked as unique to ensure no duplicate requests are present.
      */
     @NotNull
@@ -36,6 +38,14 @@ public class ChangePasswordRequest {
     @CreationTimestamp
     private LocalDateTime time;
 
+    /**
+     * The time when the password change request expires. Expired requests are rejected, and deleted by a scheduled purge.
+     * The column is nullable, so it can be added to a table with existing requests. Requests without an expiry time were
+     * made before requests expired, and are treated as expired.
+     */
+    @Column(name = "EXPIRES_AT")
+    private LocalDateTime expiresAt;
+
     /**
      * The user ID associated with this password change request. This field serves as the primary key of the entity and is unique to each request.
      * It links the request specifically to a user in the system.
@@ -0,0 +1,68 @@
+package org.ntnu.idi.idatt2106.sparesti.sparestibackend.model;
+
+import jakarta.persistence.*;
+import jakarta.validation.constraints.NotNull;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import lombok.*;
+
+/**
+ * Progress of the job that queues the weekly savings digests of one week. Users are processed
+ * in id order, so the last processed id is enough to resume the job after a restart without
+ * sending any digest twice.
+ *
+ * @author L.M.L. Nilsen
+ * @version 1.0
+ * @since 3.5.24
+ */
+@Entity
+@Getter
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@Table(name = "DIGEST_RUN")
+public class DigestRun {
+
+    /**
+     * First day of the week the digests summarize.
+     */
+    @Id
+    @Column(name = "WEEK_START")
+    private LocalDate weekStart;
+
+    /**
+     * Id of the last user whose digest has been queued, or 0 if none have.
+     */
+    @NotNull
+    @Column(nullable = false)
+    private Long lastUserId;
+
+    /**
+     * Number of digests that have been queued.
+     */
+    @NotNull
+    @Column(nullable = false)
+    private Long queued;
+
+    /**
+     * When the job was first started.
+     */
+    @NotNull
+    @Column(nullable = false, updatable = false)
+    private LocalDateTime startedAt;
+
+    /**
+     * When every digest had been queued, or null if the job has not finished.
+     */
+    private LocalDateTime finishedAt;
+
+    /**
+     * Constructor for a job that has not queued any digests
+     * @param weekStart First day of the week the digests summarize
+     * @param startedAt When the job was started
+     */
+    public DigestRun(LocalDate weekStart, LocalDateTime startedAt) {
+        this.weekStart = weekStart;
+        this.lastUserId = 0L;
+        this.queued = 0L;
+        this.startedAt = startedAt;
+    }
+}
@@ -11,6 +11,7 @@ import java.time.ZonedDateTime;
 import lombok.*;
 import org.hibernate.annotations.ColumnDefault;
 import org.hibernate.annotations.CreationTimestamp;
+import org.ntnu.idi.idatt2106.sparesti.sparestibackend.util.ApplicationUtil;
 
 /**
  * Represents a financial goal set by a user.
@@ -24,7 +25,16 @@ import org.hibernate.annotations.CreationTimestamp;
 @NoArgsConstructor(access = AccessLevel.PROTECTED)
 @Entity
 @Data
-@Table(name = "GOAL")
+@Table(
+        name = "GOAL",
+        indexes = {
+            @Index(
+                    name = "IDX_GOAL_USER_COMPLETED_PRIORITY",
+                    columnList = "USER_ID, COMPLETED_ON, PRIORITY"),
+            @Index(name = "IDX_GOAL_USER_DUE", columnList = "USER_ID, DUE"),
+            @Index(name = "IDX_GOAL_USER_CREATION", columnList = "USER_ID, CREATION"),
+            @Index(name = "IDX_GOAL_USER_COMPLETION", columnList = "USER_ID, COMPLETION")
+        })
 public class Goal implements Comparable<Goal> {
 
     /**
@@ -85,17 +95,23 @@ public class Goal implements Comparable<Goal> {
     /**
      * The due date for achieving the goal, if applicable. This is optional and can be set to manage goal deadlines.
      */
+    @Column(name = "DUE")
     @Temporal(TemporalType.TIMESTAMP)
     private ZonedDateTime due;
 
     /**
-     * A transient field that calculates the completion percentage of the goal. This field is not persisted in the database.
+     * The completion percentage of the goal. This field is persisted, so goals can be filtered and sorted on it,
+     * and is recalculated whenever the goal is persisted or updated. Goals saved before the column existed have no
+     * completion until it is calculated on startup.
      */
-    @Transient @PositiveOrZero private BigDecimal completion;
+    @Column(name = "COMPLETION", precision = 7, scale = 3)
+    @PositiveOrZero
+    private BigDecimal completion;
 
     /**
      * The date when the goal was completed. This field is optional and can be set once the goal is fully achieved.
      */
+    @Column(name = "COMPLETED_ON")
     @Temporal(TemporalType.TIMESTAMP)
     private ZonedDateTime completedOn;
 
@@ -108,6 +124,17 @@ public class Goal implements Comparable<Goal> {
     @Setter(AccessLevel.NONE)
     private User user;
 
+    /**
+     * Recalculates the completion percentage from the saved and target amounts
+     */
+    @PrePersist
+    @PreUpdate
+    private void updateCompletion() {
+        if (saved != null && target != null && target.signum() > 0) {
+            completion = ApplicationUtil.percent(saved, target);
+        }
+    }
+
     /**
      * Compares this goal with another to order goals based on their priority.
      * Higher priorities are considered greater in this comparison.
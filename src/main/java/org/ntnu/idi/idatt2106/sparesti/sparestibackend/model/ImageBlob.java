@@ -0,0 +1,94 @@
+package org.ntnu.idi.idatt2106.sparesti.sparestibackend.model;
+
+import jakarta.persistence.*;
+import jakarta.validation.constraints.NotNull;
+import java.time.ZonedDateTime;
+import lombok.*;
+
+/**
+ * A stored file, addressed by the SHA-256 checksum of its contents. Images with equal contents
+ * share one blob, which counts the {@link StoredImage} metadata that references it, and is
+ * deleted together with its file when the last reference is released.
+ *
+ * @author L.M.L. Nilsen
+ * @version 1.0
+ * @since 3.5.24
+ */
+@Entity
+@Getter
+@Setter
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@Table(name = "IMAGE_BLOB")
+public class ImageBlob {
+
+    /**
+     * Unique identifier for the blob. This field is auto-generated and not settable.
+     */
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Setter(AccessLevel.NONE)
+    private Long id;
+
+    /**
+     * Hex encoded SHA-256 checksum of the file, which is unique among blobs.
+     */
+    @NotNull
+    @Column(name = "CHECKSUM", nullable = false, updatable = false, unique = true, length = 64)
+    @Setter(AccessLevel.NONE)
+    private String checksum;
+
+    /**
+     * Path of the file, relative to the storage root.
+     */
+    @NotNull
+    @Column(nullable = false)
+    private String path;
+
+    /**
+     * MIME type of the file.
+     */
+    @NotNull
+    @Column(nullable = false, length = 50)
+    private String contentType;
+
+    /**
+     * Size of the file in bytes.
+     */
+    @NotNull
+    @Column(nullable = false)
+    private Long size;
+
+    /**
+     * Number of image metadata entries that reference the blob.
+     */
+    @NotNull
+    @Column(name = "REF_COUNT", nullable = false)
+    private Integer refCount;
+
+    /**
+     * When the checksum of the file was last verified, or null if it never has been.
+     */
+    private ZonedDateTime verifiedAt;
+
+    /**
+     * Whether the file was missing or did not match its checksum when last verified.
+     */
+    @NotNull
+    @Column(nullable = false)
+    private Boolean corrupt = false;
+
+    /**
+     * Creates a blob with a single reference
+     * @param checksum Hex encoded SHA-256 checksum of the file
+     * @param path Path of the file, relative to the storage root
+     * @param contentType MIME type of the file
+     * @param size Size of the file in bytes
+     */
+    public ImageBlob(String checksum, String path, String contentType, Long size) {
+        this.checksum = checksum;
+        this.path = path;
+        this.contentType = contentType;
+        this.size = size;
+        this.refCount = 1;
+    }
+}
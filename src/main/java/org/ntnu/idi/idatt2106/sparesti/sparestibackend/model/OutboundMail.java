@@ -0,0 +1,123 @@
+package org.ntnu.idi.idatt2106.sparesti.sparestibackend.model;
+
+import jakarta.persistence.*;
+import jakarta.validation.constraints.NotNull;
+import java.time.LocalDateTime;
+import lombok.*;
+import org.hibernate.annotations.CreationTimestamp;
+import org.ntnu.idi.idatt2106.sparesti.sparestibackend.model.enums.MailStatus;
+
+/**
+ * A mail in the outbound mail queue. Mails are rendered and stored when they are requested, and
+ * sent in the background, so requests never wait for the SMTP server. A mail is deleted once it
+ * has been sent, or by the purge job once it has been kept for the retention period. The body of
+ * a password reset mail holds a placeholder instead of the reset token, which is derived from
+ * the id of the reset request when the mail is sent.
+ *
+ * @author L.M.L. Nilsen
+ * @version 1.0
+ * @since 3.5.24
+ */
+@Entity
+@Builder
+@Getter
+@Setter
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@AllArgsConstructor
+@Table(
+        name = "OUTBOUND_MAIL",
+        indexes = {
+            @Index(name = "IDX_OUTBOUND_MAIL_DUE", columnList = "STATUS, NEXT_ATTEMPT_AT"),
+            @Index(name = "IDX_OUTBOUND_MAIL_CREATED_AT", columnList = "CREATED_AT")
+        })
+public class OutboundMail {
+
+    /**
+     * Longest error message that is stored
+     */
+    public static final int ERROR_LENGTH = 1000;
+
+    /**
+     * Placeholder that the reset token replaces in the body of a password reset mail
+     */
+    public static final String RESET_ID_PLACEHOLDER = "{resetID}";
+
+    /**
+     * Unique identifier for the mail. This field is auto-generated and not settable.
+     */
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Setter(AccessLevel.NONE)
+    private Long id;
+
+    /**
+     * Address the mail is sent to. This field is mandatory.
+     */
+    @NotNull
+    @Column(nullable = false, updatable = false)
+    @Setter(AccessLevel.NONE)
+    private String recipient;
+
+    /**
+     * Subject of the mail. This field is mandatory.
+     */
+    @NotNull
+    @Column(nullable = false, updatable = false)
+    @Setter(AccessLevel.NONE)
+    private String subject;
+
+    /**
+     * Rendered text of the mail. This field is mandatory.
+     */
+    @NotNull
+    @Column(nullable = false, updatable = false, length = 4000)
+    @Setter(AccessLevel.NONE)
+    private String body;
+
+    /**
+     * Id of the password reset request that the reset token of the mail is derived from, or null
+     * if the mail has no reset link.
+     */
+    @Column(length = 36, updatable = false)
+    @Setter(AccessLevel.NONE)
+    private String resetRequestId;
+
+    /**
+     * Whether the mail is waiting to be sent, or has failed. This field is mandatory.
+     */
+    @NotNull
+    @Builder.Default
+    @Enumerated(EnumType.STRING)
+    @Column(name = "STATUS", nullable = false, length = 10)
+    private MailStatus status = MailStatus.PENDING;
+
+    /**
+     * Number of failed attempts to send the mail.
+     */
+    @NotNull
+    @Builder.Default
+    @Column(nullable = false)
+    private Integer attempts = 0;
+
+    /**
+     * When the mail may be sent next. A worker that claims the mail moves it into the future,
+     * so other workers leave it alone, and it is sent again if the worker dies.
+     */
+    @NotNull
+    @Column(name = "NEXT_ATTEMPT_AT", nullable = false)
+    private LocalDateTime nextAttemptAt;
+
+    /**
+     * Error of the last failed attempt, if any.
+     */
+    @Column(length = ERROR_LENGTH)
+    private String lastError;
+
+    /**
+     * When the mail was queued.
+     */
+    @CreationTimestamp
+    @Column(name = "CREATED_AT", updatable = false)
+    @Setter(AccessLevel.NONE)
+    private LocalDateTime createdAt;
+}
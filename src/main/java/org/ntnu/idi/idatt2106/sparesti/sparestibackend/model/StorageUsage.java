@@ -0,0 +1,46 @@
+package org.ntnu.idi.idatt2106.sparesti.sparestibackend.model;
+
+import jakarta.persistence.*;
+import jakarta.validation.constraints.NotNull;
+import lombok.*;
+
+/**
+ * Number of bytes a user stores in their original images, which is checked against the
+ * storage quota. The counter is only changed through atomic updates in
+ * {@link org.ntnu.idi.idatt2106.sparesti.sparestibackend.repository.StorageUsageRepository},
+ * so concurrent uploads never overwrite each other's changes.
+ *
+ * @author L.M.L. Nilsen
+ * @version 1.0
+ * @since 3.5.24
+ */
+@Entity
+@Getter
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@Table(name = "STORAGE_USAGE")
+public class StorageUsage {
+
+    /**
+     * Id of the user whose usage is counted.
+     */
+    @Id
+    @Column(name = "USER_ID")
+    private Long userId;
+
+    /**
+     * Number of bytes stored by the user, including space reserved by uploads in progress.
+     */
+    @NotNull
+    @Column(nullable = false)
+    private Long bytes;
+
+    /**
+     * Constructor for the usage of a user
+     * @param userId Id of the user
+     * @param bytes Number of bytes stored by the user
+     */
+    public StorageUsage(Long userId, Long bytes) {
+        this.userId = userId;
+        this.bytes = bytes;
+    }
+}
@@ -0,0 +1,146 @@
+package org.ntnu.idi.idatt2106.sparesti.sparestibackend.model;
+
+import jakarta.persistence.*;
+import jakarta.validation.constraints.NotNull;
+import java.time.ZonedDateTime;
+import lombok.*;
+import org.ntnu.idi.idatt2106.sparesti.sparestibackend.model.enums.ImageKind;
+import org.ntnu.idi.idatt2106.sparesti.sparestibackend.model.enums.ImageSize;
+
+/**
+ * Metadata of an uploaded image or one of its renditions. Lets the storage service resolve the
+ * file of a user, goal or challenge and its content type with a single lookup, instead of
+ * probing the file system. The contents are stored in a content-addressed {@link ImageBlob}.
+ *
+ * @author L.M.L. Nilsen
+ * @version 1.0
+ * @since 3.5.24
+ */
+@Entity
+@Getter
+@Setter
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@Table(
+        name = "STORED_IMAGE",
+        uniqueConstraints = {
+            @UniqueConstraint(columnNames = {"USER_ID", "KIND", "ENTITY_ID", "RENDITION"})
+        })
+public class StoredImage {
+
+    /**
+     * Longest placeholder that can be stored
+     */
+    public static final int PLACEHOLDER_LENGTH = 2048;
+
+    /**
+     * Unique identifier for the image. This field is auto-generated and not settable.
+     */
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Setter(AccessLevel.NONE)
+    private Long id;
+
+    /**
+     * The user who owns the image. This field is mandatory.
+     */
+    @NotNull
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
+    @JoinColumn(name = "USER_ID", nullable = false, updatable = false)
+    @Setter(AccessLevel.NONE)
+    private User user;
+
+    /**
+     * What the image belongs to. This field is mandatory.
+     */
+    @NotNull
+    @Enumerated(EnumType.STRING)
+    @Column(name = "KIND", nullable = false, updatable = false, length = 10)
+    @Setter(AccessLevel.NONE)
+    private ImageKind kind;
+
+    /**
+     * Id of the goal or challenge the image belongs to, or 0 for profile pictures.
+     */
+    @NotNull
+    @Column(name = "ENTITY_ID", nullable = false, updatable = false)
+    @Setter(AccessLevel.NONE)
+    private Long entityId;
+
+    /**
+     * Which rendition of the image this is. The original is stored on upload, and the other
+     * renditions are generated in the background.
+     */
+    @NotNull
+    @Enumerated(EnumType.STRING)
+    @Column(name = "RENDITION", nullable = false, updatable = false, length = 10)
+    @Setter(AccessLevel.NONE)
+    private ImageSize rendition;
+
+    /**
+     * The blob with the contents of the image, which may be shared with other images.
+     */
+    @NotNull
+    @ManyToOne(fetch = FetchType.EAGER, optional = false)
+    @JoinColumn(name = "BLOB_ID", nullable = false)
+    private ImageBlob blob;
+
+    /**
+     * Data URI of a tiny preview of the image, which clients can show while the image loads.
+     * Only set on originals, once the renditions have been generated.
+     */
+    @Column(length = PLACEHOLDER_LENGTH)
+    private String placeholder;
+
+    /**
+     * When the file was last written.
+     */
+    @NotNull
+    @Column(nullable = false)
+    private ZonedDateTime updatedAt;
+
+    /**
+     * Creates metadata for a new image
+     * @param user The user who owns the image
+     * @param kind What the image belongs to
+     * @param entityId Id of the goal or challenge, or 0 for profile pictures
+     * @param rendition Which rendition of the image this is
+     */
+    public StoredImage(User user, ImageKind kind, Long entityId, ImageSize rendition) {
+        this.user = user;
+        this.kind = kind;
+        this.entityId = entityId;
+        this.rendition = rendition;
+    }
+
+    /**
+     * Gets the path of the file
+     * @return Path of the blob's file, relative to the storage root
+     */
+    public String getPath() {
+        return blob.getPath();
+    }
+
+    /**
+     * Gets the MIME type of the file
+     * @return MIME type of the blob's file
+     */
+    public String getContentType() {
+        return blob.getContentType();
+    }
+
+    /**
+     * Gets the size of the file
+     * @return Size of the blob's file in bytes
+     */
+    public Long getSize() {
+        return blob.getSize();
+    }
+
+    /**
+     * Gets the checksum of the file
+     * @return Hex encoded SHA-256 checksum of the blob's file
+     */
+    public String getChecksum() {
+        return blob.getChecksum();
+    }
+}
@@ -0,0 +1,64 @@
+package org.ntnu.idi.idatt2106.sparesti.sparestibackend.model.enums;
+
+import java.util.Arrays;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * The image formats that can be uploaded. The format of an upload is found from the magic
+ * bytes at the start of the file, not from its file name.
+ *
+ * @author L.M.L. Nilsen
+ * @version 1.0
+ * @since 3.5.24
+ */
+@Getter
+@RequiredArgsConstructor
+public enum ImageFormat {
+    /**
+     * Portable Network Graphics
+     */
+    PNG(".png", "png", new byte[] {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n'}),
+
+    /**
+     * JPEG, which starts with a start of image marker followed by another marker
+     */
+    JPEG(".jpg", "jpeg", new byte[] {(byte) 0xFF, (byte) 0xD8, (byte) 0xFF}),
+
+    /**
+     * Graphics Interchange Format, version 87a or 89a
+     */
+    GIF(".gif", "gif", new byte[] {'G', 'I', 'F', '8'});
+
+    /**
+     * Number of bytes needed to recognize every format
+     */
+    public static final int SIGNATURE_LENGTH = 8;
+
+    private final String extension;
+
+    /**
+     * Name of the format in ImageIO
+     */
+    private final String readerFormat;
+
+    @Getter(AccessLevel.NONE)
+    private final byte[] signature;
+
+    /**
+     * Finds the format of a file from its first bytes
+     * @param header The first bytes of the file, at most {@link #SIGNATURE_LENGTH} are used
+     * @return The image format, or null if the bytes do not start a supported image
+     */
+    public static ImageFormat sniff(byte[] header) {
+        for (ImageFormat format : values()) {
+            int length = format.signature.length;
+            if (header.length >= length
+                    && Arrays.equals(header, 0, length, format.signature, 0, length)) {
+                return format;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,45 @@
+package org.ntnu.idi.idatt2106.sparesti.sparestibackend.model.enums;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Classifies what a stored image belongs to. The suffix is the one used in image file names,
+ * e.g. {goalId}-G.png
+ *
+ * @author L.M.L. Nilsen
+ * @version 1.0
+ * @since 3.5.24
+ */
+@Getter
+@RequiredArgsConstructor
+public enum ImageKind {
+    /**
+     * Profile picture of a user
+     */
+    PROFILE("-P"),
+
+    /**
+     * Picture of a saving goal
+     */
+    GOAL("-G"),
+
+    /**
+     * Picture of a saving challenge
+     */
+    CHALLENGE("-C");
+
+    private final String suffix;
+
+    /**
+     * Finds the kind of image from a file name without extension
+     * @param identifier File name without extension, e.g. 1-G
+     * @return The image kind, or null if the name has no known suffix
+     */
+    public static ImageKind fromIdentifier(String identifier) {
+        for (ImageKind kind : values()) {
+            if (identifier.endsWith(kind.suffix)) return kind;
+        }
+        return null;
+    }
+}
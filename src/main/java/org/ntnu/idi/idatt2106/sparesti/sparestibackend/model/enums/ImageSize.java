@@ -0,0 +1,35 @@
+package org.ntnu.idi.idatt2106.sparesti.sparestibackend.model.enums;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Renditions that are generated for uploaded images
+ *
+ * @author L.M.L. Nilsen
+ * @version 1.0
+ * @since 3.5.24
+ */
+@Getter
+@RequiredArgsConstructor
+public enum ImageSize {
+    /**
+     * Thumbnail for list screens, at most 128 pixels on the longest edge
+     */
+    THUMB(128),
+
+    /**
+     * Medium size for detail screens, at most 512 pixels on the longest edge
+     */
+    MEDIUM(512),
+
+    /**
+     * The full size image
+     */
+    ORIGINAL(0);
+
+    /**
+     * Maximum length of the longest edge in pixels, or 0 if the image is not scaled
+     */
+    private final int maxEdge;
+}
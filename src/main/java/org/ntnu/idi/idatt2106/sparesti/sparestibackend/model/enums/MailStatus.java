@@ -0,0 +1,20 @@
+package org.ntnu.idi.idatt2106.sparesti.sparestibackend.model.enums;
+
+/**
+ * States of a mail in the outbound mail queue
+ *
+ * @author L.M.L. Nilsen
+ * @version 1.0
+ * @since 3.5.24
+ */
+public enum MailStatus {
+    /**
+     * The mail is waiting to be sent, or to be retried
+     */
+    PENDING,
+
+    /**
+     * Every attempt to send the mail failed, and it is kept for inspection
+     */
+    FAILED
+}
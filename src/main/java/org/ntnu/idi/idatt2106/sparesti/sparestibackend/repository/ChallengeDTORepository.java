@@ -0,0 +1,36 @@
+package org.ntnu.idi.idatt2106.sparesti.sparestibackend.repository;
+
+import java.util.List;
+import org.ntnu.idi.idatt2106.sparesti.sparestibackend.dto.challenge.ChallengeDTO;
+import org.ntnu.idi.idatt2106.sparesti.sparestibackend.model.Challenge;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+/**
+ * Read queries that select challenges straight into DTOs, without creating managed entities. The
+ * DTOs have no image previews, which are added by the caller.
+ *
+ * @author L.M.L. Nilsen
+ * @version 1.0
+ * @since 3.5.24
+ */
+public interface ChallengeDTORepository {
+
+    /**
+     * Finds a page of DTOs of the challenges that match a specification
+     * @param spec Specification the challenges must match
+     * @param pageable Configures the page and its sorting
+     * @return Page of DTOs
+     */
+    Page<ChallengeDTO> findDTOs(Specification<Challenge> spec, Pageable pageable);
+
+    /**
+     * Finds DTOs of all challenges that match a specification
+     * @param spec Specification the challenges must match
+     * @param sort Sorting of the DTOs
+     * @return List of DTOs
+     */
+    List<ChallengeDTO> findDTOs(Specification<Challenge> spec, Sort sort);
+}
@@ -0,0 +1,70 @@
+package org.ntnu.idi.idatt2106.sparesti.sparestibackend.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Selection;
+import java.util.List;
+import org.ntnu.idi.idatt2106.sparesti.sparestibackend.dto.challenge.ChallengeDTO;
+import org.ntnu.idi.idatt2106.sparesti.sparestibackend.model.Challenge;
+import org.ntnu.idi.idatt2106.sparesti.sparestibackend.repository.specification.SpecificationProjections;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+/**
+ * Implementation of {@link ChallengeDTORepository}, which selects the columns of the challenges
+ * with a constructor expression. The completion is read from its persisted column.
+ *
+ * @author L.M.L. Nilsen
+ * @version 1.0
+ * @since 3.5.24
+ */
+public class ChallengeDTORepositoryImpl implements ChallengeDTORepository {
+
+    @PersistenceContext private EntityManager entityManager;
+
+    @Override
+    public Page<ChallengeDTO> findDTOs(Specification<Challenge> spec, Pageable pageable) {
+        return SpecificationProjections.findPage(
+                entityManager,
+                Challenge.class,
+                ChallengeDTO.class,
+                ChallengeDTORepositoryImpl::columns,
+                spec,
+                pageable);
+    }
+
+    @Override
+    public List<ChallengeDTO> findDTOs(Specification<Challenge> spec, Sort sort) {
+        return SpecificationProjections.findAll(
+                entityManager,
+                Challenge.class,
+                ChallengeDTO.class,
+                ChallengeDTORepositoryImpl::columns,
+                spec,
+                sort);
+    }
+
+    /**
+     * Selects the columns that are passed to the constructor of the DTO
+     * @param challenge Root of the query
+     * @return The columns, in the order of the constructor's parameters
+     */
+    private static Selection<?>[] columns(Root<Challenge> challenge) {
+        return new Selection<?>[] {
+            challenge.get("id"),
+            challenge.get("title"),
+            challenge.get("saved"),
+            challenge.get("target"),
+            challenge.get("perPurchase"),
+            challenge.get("completion"),
+            challenge.get("description"),
+            challenge.get("createdOn"),
+            challenge.get("completedOn"),
+            challenge.get("due"),
+            challenge.get("type")
+        };
+    }
+}
@@ -1,13 +1,21 @@
 package org.ntnu.idi.idatt2106.sparesti.sparestibackend.repository;
 
+import java.time.ZonedDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import org.ntnu.idi.idatt2106.sparesti.sparestibackend.dto.challenge.ChallengeTypeStatsDTO;
 import org.ntnu.idi.idatt2106.sparesti.sparestibackend.model.Challenge;
 import org.ntnu.idi.idatt2106.sparesti.sparestibackend.model.User;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 /**
  * Repository interface that communicates with the data layer relating to the Challenge entity.
@@ -17,7 +25,10 @@ import org.springframework.stereotype.Repository;
  * @since 22.4.2024
  */
 @Repository
-public interface ChallengeRepository extends JpaRepository<Challenge, Long> {
+public interface ChallengeRepository
+        extends JpaRepository<Challenge, Long>,
+                JpaSpecificationExecutor<Challenge>,
+                ChallengeDTORepository {
 
     /**
      * Gets a page of saving challenges of a user.
@@ -50,6 +61,14 @@ public interface ChallengeRepository extends JpaRepository<Challenge, Long> {
      */
     List<Challenge> findAllByCompletedOnIsNullAndUser(User user);
 
+    /**
+     * Determines whether a user has an active saving challenge that is past its due date
+     * @param user User who owns the challenges
+     * @param now Time the due dates are compared to
+     * @return True, if an active challenge of the user is overdue
+     */
+    boolean existsByUserAndCompletedOnIsNullAndDueBefore(User user, ZonedDateTime now);
+
     /**
      * Finds a page of completed saving challenges of a user (completion date is set, therefore not "null")
      * @param user User who owns the challenges
@@ -57,4 +76,86 @@ public interface ChallengeRepository extends JpaRepository<Challenge, Long> {
      * @return Page of completed challenges
      */
     Page<Challenge> findAllByCompletedOnIsNotNullAndUser(User user, Pageable pageable);
+
+    /**
+     * Finds the distinct type keys of a user's active saving challenges
+     * @param user User who owns the challenges
+     * @return Set of type keys that currently have an active challenge
+     */
+    @Query(
+            "SELECT DISTINCT c.typeId FROM Challenge c WHERE c.user = :user AND c.completedOn IS"
+                    + " NULL AND c.typeId IS NOT NULL")
+    Set<Integer> findActiveTypeIdsByUser(User user);
+
+    /**
+     * Aggregates per-type statistics of a user's challenges. Challenges without a type are not included.
+     * @param user User who owns the challenges
+     * @return List of statistics, one per challenge type, ordered by type name
+     */
+    @Query(
+            "SELECT new"
+                + " org.ntnu.idi.idatt2106.sparesti.sparestibackend.dto.challenge.ChallengeTypeStatsDTO(t.name,"
+                + " COUNT(c), COUNT(c.completedOn), SUM(c.saved), AVG((c.completedOn - c.createdOn)"
+                + " BY SECOND), SUM(CASE WHEN c.completedOn IS NULL AND c.due < CURRENT_TIMESTAMP"
+                + " THEN 1 WHEN c.completedOn > c.due THEN 1 ELSE 0 END)) FROM Challenge c JOIN"
+                + " ChallengeTypeEntity t ON t.id = c.typeId WHERE c.user = :user GROUP BY"
+                + " c.typeId, t.name ORDER BY t.name")
+    List<ChallengeTypeStatsDTO> findTypeStatsByUser(User user);
+
+    /**
+     * Aggregates per-type statistics of all challenges on the platform. Challenges without a type are not included.
+     * @return List of statistics, one per challenge type, ordered by type name
+     */
+    @Query(
+            "SELECT new"
+                + " org.ntnu.idi.idatt2106.sparesti.sparestibackend.dto.challenge.ChallengeTypeStatsDTO(t.name,"
+                + " COUNT(c), COUNT(c.completedOn), SUM(c.saved), AVG((c.completedOn - c.createdOn)"
+                + " BY SECOND), SUM(CASE WHEN c.completedOn IS NULL AND c.due < CURRENT_TIMESTAMP"
+                + " THEN 1 WHEN c.completedOn > c.due THEN 1 ELSE 0 END)) FROM Challenge c JOIN"
+                + " ChallengeTypeEntity t ON t.id = c.typeId GROUP BY c.typeId, t.name ORDER BY"
+                + " t.name")
+    List<ChallengeTypeStatsDTO> findTypeStats();
+
+    /**
+     * Finds the distinct type names of challenges that have yet to be assigned a type key
+     * @return List of type names without a type key
+     */
+    @Query(
+            "SELECT DISTINCT c.type FROM Challenge c WHERE c.type IS NOT NULL AND c.typeId IS"
+                    + " NULL")
+    List<String> findTypesWithoutTypeId();
+
+    /**
+     * Assigns a type key and canonical type name to all challenges with the given type name
+     * that are missing a type key
+     * @param type Type name as stored on the challenges
+     * @param name Canonical name of the type
+     * @param typeId Key of the type
+     * @return Number of updated challenges
+     */
+    @Transactional
+    @Modifying
+    @Query(
+            "UPDATE Challenge c SET c.type = :name, c.typeId = :typeId WHERE c.type = :type AND"
+                    + " c.typeId IS NULL")
+    int assignTypeId(String type, String name, Integer typeId);
+
+    /**
+     * Finds which of the given ids belong to existing challenges
+     * @param ids Ids to look up
+     * @return Set of the ids that exist
+     */
+    @Query("SELECT c.id FROM Challenge c WHERE c.id IN :ids")
+    Set<Long> findExistingIds(Collection<Long> ids);
+
+    /**
+     * Calculates the completion of challenges that were persisted before completion was a column
+     * @return Number of updated challenges
+     */
+    @Transactional
+    @Modifying
+    @Query(
+            "UPDATE Challenge c SET c.completion = ROUND(c.saved * 100 / c.target, 3) WHERE"
+                    + " c.completion IS NULL AND c.target > 0")
+    int fillMissingCompletion();
 }
@@ -0,0 +1,40 @@
+package org.ntnu.idi.idatt2106.sparesti.sparestibackend.repository;
+
+import java.util.List;
+import org.ntnu.idi.idatt2106.sparesti.sparestibackend.model.ChallengeTypeConfig;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Repository interface that communicates with the data layer relating to the ChallengeTypeConfig entity.
+ *
+ * @author Yasin M.
+ * @version 1.0
+ * @since 2.5.24
+ */
+@Repository
+public interface ChallengeTypeConfigRepository extends JpaRepository<ChallengeTypeConfig, Long> {
+
+    /**
+     * Finds the distinct types of type configs that have yet to be assigned a type key
+     * @return List of types without a type key
+     */
+    @Query("SELECT DISTINCT c.type FROM ChallengeTypeConfig c WHERE c.typeId IS NULL")
+    List<String> findTypesWithoutTypeId();
+
+    /**
+     * Assigns a type key to all type configs with the given type that are missing a type key
+     * @param type Type as stored on the type configs
+     * @param typeId Key of the type
+     * @return Number of updated type configs
+     */
+    @Transactional
+    @Modifying
+    @Query(
+            "UPDATE ChallengeTypeConfig c SET c.typeId = :typeId WHERE c.type = :type AND c.typeId"
+                    + " IS NULL")
+    int assignTypeId(String type, Integer typeId);
+}
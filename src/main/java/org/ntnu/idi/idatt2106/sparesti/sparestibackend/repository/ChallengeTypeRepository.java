@@ -0,0 +1,24 @@
+package org.ntnu.idi.idatt2106.sparesti.sparestibackend.repository;
+
+import java.util.Optional;
+import org.ntnu.idi.idatt2106.sparesti.sparestibackend.model.ChallengeTypeEntity;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Repository interface that communicates with the data layer relating to the challenge type dimension.
+ *
+ * @author Yasin M.
+ * @version 1.0
+ * @since 2.5.24
+ */
+@Repository
+public interface ChallengeTypeRepository extends JpaRepository<ChallengeTypeEntity, Integer> {
+
+    /**
+     * Finds a challenge type by its canonical name
+     * @param name Canonical name of the type
+     * @return Optional wrapper around the challenge type
+     */
+    Optional<ChallengeTypeEntity> findByName(String name);
+}
@@ -1,9 +1,13 @@
 package org.ntnu.idi.idatt2106.sparesti.sparestibackend.repository;
 
-import java.util.Optional;
+import java.time.LocalDateTime;
+import java.util.List;
 import org.ntnu.idi.idatt2106.sparesti.sparestibackend.model.ChangePasswordRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.transaction.annotation.Transactional;
 
 /**
  * Repository interface for communicating with the data layer in relation to the ChangePasswordRequest entity.
@@ -16,17 +20,28 @@ public interface ChangePasswordRequestRepository
         extends JpaRepository<ChangePasswordRequest, Long> {
 
     /**
-     * Finds a change password request based on its user ID
-     * @param userID Id of user that initiated the change password request
-     * @return Optional wrapped around the object if it exists, else returns an empty Optional
+     * Finds the user IDs of expired change password requests, and of requests without an expiry
+     * time, oldest first
+     * @param now Current time
+     * @param pageable Pageable object that limits the number of IDs
+     * @return List of user IDs
      */
-    Optional<ChangePasswordRequest> findChangePasswordRequestByUserID(Long userID);
+    @Query(
+            "SELECT cpr.userID FROM ChangePasswordRequest cpr WHERE cpr.expiresAt IS NULL OR"
+                    + " cpr.expiresAt <= :now ORDER BY cpr.expiresAt NULLS FIRST")
+    List<Long> findExpiredUserIds(LocalDateTime now, Pageable pageable);
 
     /**
-     * Finds the ID of a change password request using the object's user IDc:w
-     * @param userId Id of user that initiated the change password request
-     * @return Optional wrapped around the ID if it exists, else returns an empty Optional
+     * Deletes change password requests that have expired, or have no expiry time, unless they
+     * have been replaced
+     * @param userIds User IDs of the requests
+     * @param now Current time
+     * @return Number of deleted requests
      */
-    @Query("SELECT cpr.id FROM ChangePasswordRequest cpr WHERE cpr.userID = :userId")
-    Optional<String> findIdByUserId(Long userId);
+    @Transactional
+    @Modifying
+    @Query(
+            "DELETE FROM ChangePasswordRequest cpr WHERE cpr.userID IN :userIds AND"
+                    + " (cpr.expiresAt IS NULL OR cpr.expiresAt <= :now)")
+    int deleteExpired(List<Long> userIds, LocalDateTime now);
 }
@@ -0,0 +1,53 @@
+package org.ntnu.idi.idatt2106.sparesti.sparestibackend.repository;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import org.ntnu.idi.idatt2106.sparesti.sparestibackend.model.DigestRun;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Repository interface that communicates with the data layer relating to the progress of the
+ * weekly digest job. Progress is only changed with conditional updates, so two instances of the
+ * job never queue the same digests.
+ *
+ * @author L.M.L. Nilsen
+ * @version 1.0
+ * @since 3.5.24
+ */
+@Repository
+public interface DigestRunRepository extends JpaRepository<DigestRun, LocalDate> {
+
+    /**
+     * Records that a batch of digests has been queued, unless the progress has changed since
+     * it was read
+     * @param weekStart First day of the week of the job
+     * @param expectedLastUserId Id of the last processed user that was read
+     * @param lastUserId Id of the last user of the batch
+     * @param queued Number of digests in the batch
+     * @return 1 if the progress was recorded, or 0 if it has changed or the job has finished
+     */
+    @Transactional
+    @Modifying
+    @Query(
+            "UPDATE DigestRun r SET r.lastUserId = :lastUserId, r.queued = r.queued + :queued"
+                    + " WHERE r.weekStart = :weekStart AND r.lastUserId = :expectedLastUserId AND"
+                    + " r.finishedAt IS NULL")
+    int advance(LocalDate weekStart, long expectedLastUserId, long lastUserId, long queued);
+
+    /**
+     * Marks a job as finished
+     * @param weekStart First day of the week of the job
+     * @param finishedAt When the job finished
+     * @return 1 if the job was marked, or 0 if it had already finished
+     */
+    @Transactional
+    @Modifying
+    @Query(
+            "UPDATE DigestRun r SET r.finishedAt = :finishedAt WHERE r.weekStart = :weekStart AND"
+                    + " r.finishedAt IS NULL")
+    int finish(LocalDate weekStart, LocalDateTime finishedAt);
+}
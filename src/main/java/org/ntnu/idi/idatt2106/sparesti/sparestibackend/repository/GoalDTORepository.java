@@ -0,0 +1,36 @@
+package org.ntnu.idi.idatt2106.sparesti.sparestibackend.repository;
+
+import java.util.List;
+import org.ntnu.idi.idatt2106.sparesti.sparestibackend.dto.goal.GoalResponseDTO;
+import org.ntnu.idi.idatt2106.sparesti.sparestibackend.model.Goal;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+/**
+ * Read queries that select goals straight into DTOs, without creating managed entities. The
+ * DTOs have no image previews, which are added by the caller.
+ *
+ * @author L.M.L. Nilsen
+ * @version 1.0
+ * @since 3.5.24
+ */
+public interface GoalDTORepository {
+
+    /**
+     * Finds a page of DTOs of the goals that match a specification
+     * @param spec Specification the goals must match
+     * @param pageable Configures the page and its sorting
+     * @return Page of DTOs
+     */
+    Page<GoalResponseDTO> findDTOs(Specification<Goal> spec, Pageable pageable);
+
+    /**
+     * Finds DTOs of all goals that match a specification
+     * @param spec Specification the goals must match
+     * @param sort Sorting of the DTOs
+     * @return List of DTOs
+     */
+    List<GoalResponseDTO> findDTOs(Specification<Goal> spec, Sort sort);
+}
@@ -0,0 +1,69 @@
+package org.ntnu.idi.idatt2106.sparesti.sparestibackend.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Selection;
+import java.util.List;
+import org.ntnu.idi.idatt2106.sparesti.sparestibackend.dto.goal.GoalResponseDTO;
+import org.ntnu.idi.idatt2106.sparesti.sparestibackend.model.Goal;
+import org.ntnu.idi.idatt2106.sparesti.sparestibackend.repository.specification.SpecificationProjections;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+/**
+ * Implementation of {@link GoalDTORepository}, which selects the columns of the goals
+ * with a constructor expression. The completion is read from its persisted column.
+ *
+ * @author L.M.L. Nilsen
+ * @version 1.0
+ * @since 3.5.24
+ */
+public class GoalDTORepositoryImpl implements GoalDTORepository {
+
+    @PersistenceContext private EntityManager entityManager;
+
+    @Override
+    public Page<GoalResponseDTO> findDTOs(Specification<Goal> spec, Pageable pageable) {
+        return SpecificationProjections.findPage(
+                entityManager,
+                Goal.class,
+                GoalResponseDTO.class,
+                GoalDTORepositoryImpl::columns,
+                spec,
+                pageable);
+    }
+
+    @Override
+    public List<GoalResponseDTO> findDTOs(Specification<Goal> spec, Sort sort) {
+        return SpecificationProjections.findAll(
+                entityManager,
+                Goal.class,
+                GoalResponseDTO.class,
+                GoalDTORepositoryImpl::columns,
+                spec,
+                sort);
+    }
+
+    /**
+     * Selects the columns that are passed to the constructor of the DTO
+     * @param goal Root of the query
+     * @return The columns, in the order of the constructor's parameters
+     */
+    private static Selection<?>[] columns(Root<Goal> goal) {
+        return new Selection<?>[] {
+            goal.get("id"),
+            goal.get("title"),
+            goal.get("saved"),
+            goal.get("target"),
+            goal.get("completion"),
+            goal.get("description"),
+            goal.get("priority"),
+            goal.get("createdOn"),
+            goal.get("completedOn"),
+            goal.get("due")
+        };
+    }
+}
@@ -1,12 +1,17 @@
 package org.ntnu.idi.idatt2106.sparesti.sparestibackend.repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 import org.ntnu.idi.idatt2106.sparesti.sparestibackend.model.Goal;
 import org.ntnu.idi.idatt2106.sparesti.sparestibackend.model.User;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.transaction.annotation.Transactional;
 
 /**
@@ -16,7 +21,8 @@ import org.springframework.transaction.annotation.Transactional;
  * @version 1.0
  * @since 22.4.24
  */
-public interface GoalRepository extends JpaRepository<Goal, Long> {
+public interface GoalRepository
+        extends JpaRepository<Goal, Long>, JpaSpecificationExecutor<Goal>, GoalDTORepository {
 
     /**
      * Finds a page of all saving goal entities of a user
@@ -35,6 +41,13 @@ public interface GoalRepository extends JpaRepository<Goal, Long> {
      */
     Optional<Goal> findByIdAndUser(Long id, User user);
 
+    /**
+     * Counts the active saving goals of a user (completion date is not set, therefore "null")
+     * @param user User who owns the goals
+     * @return Number of active goals
+     */
+    long countByCompletedOnIsNullAndUser(User user);
+
     /**
      * Finds all saving goals of a user that are active (completedOn is null)
      * @param user The user, owning the goals
@@ -65,4 +78,23 @@ public interface GoalRepository extends JpaRepository<Goal, Long> {
      */
     @Transactional
     void deleteByIdAndUser(Long id, User user);
+
+    /**
+     * Finds which of the given ids belong to existing goals
+     * @param ids Ids to look up
+     * @return Set of the ids that exist
+     */
+    @Query("SELECT g.id FROM Goal g WHERE g.id IN :ids")
+    Set<Long> findExistingIds(Collection<Long> ids);
+
+    /**
+     * Calculates the completion of goals that were persisted before completion was a column
+     * @return Number of updated goals
+     */
+    @Transactional
+    @Modifying
+    @Query(
+            "UPDATE Goal g SET g.completion = ROUND(g.saved * 100 / g.target, 3) WHERE"
+                    + " g.completion IS NULL AND g.target > 0")
+    int fillMissingCompletion();
 }
@@ -0,0 +1,141 @@
+package org.ntnu.idi.idatt2106.sparesti.sparestibackend.repository;
+
+import java.time.ZonedDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import org.ntnu.idi.idatt2106.sparesti.sparestibackend.model.ImageBlob;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Repository interface that communicates with the data layer relating to content-addressed
+ * image blobs. The reference counts are changed with single UPDATE statements, so they are
+ * never read and written back. A blob without references is claimed for deletion by setting
+ * its reference count to -1, after which no reference to it can be counted.
+ *
+ * @author L.M.L. Nilsen
+ * @version 1.0
+ * @since 3.5.24
+ */
+@Repository
+public interface ImageBlobRepository extends JpaRepository<ImageBlob, Long> {
+
+    /**
+     * Finds the blob with the given contents
+     * @param checksum Hex encoded SHA-256 checksum of the contents
+     * @return Optional wrapper around the blob
+     */
+    Optional<ImageBlob> findByChecksum(String checksum);
+
+    /**
+     * Finds blobs in id order, starting after a given id. Used to walk all blobs in pages
+     * without the cost of an offset.
+     * @param id Id to start after
+     * @param pageable Pageable object that limits the number of blobs
+     * @return List of blobs
+     */
+    List<ImageBlob> findAllByIdGreaterThanOrderByIdAsc(Long id, Pageable pageable);
+
+    /**
+     * Finds which of the given file keys belong to a blob
+     * @param paths Keys of files in the storage backend
+     * @return Set of the keys that belong to a blob
+     */
+    @Query("SELECT b.path FROM ImageBlob b WHERE b.path IN :paths")
+    Set<String> findExistingPaths(Collection<String> paths);
+
+    /**
+     * Counts a new reference to a blob
+     * @param id Id of the blob
+     * @return 1 if the reference was counted, or 0 if the blob no longer exists or is being
+     * deleted
+     */
+    @Transactional
+    @Modifying
+    @Query(
+            "UPDATE ImageBlob b SET b.refCount = b.refCount + 1 WHERE b.id = :id AND b.refCount >="
+                    + " 0")
+    int addReference(Long id);
+
+    /**
+     * Counts a new reference to a blob whose file has been stored again
+     * @param id Id of the blob
+     * @param path Path of the stored file
+     * @param contentType MIME type of the stored file
+     * @return 1 if the reference was counted, or 0 if the blob no longer exists or is being
+     * deleted
+     */
+    @Transactional
+    @Modifying
+    @Query(
+            "UPDATE ImageBlob b SET b.refCount = b.refCount + 1, b.path = :path, b.contentType"
+                    + " = :contentType, b.corrupt = false WHERE b.id = :id AND b.refCount >= 0")
+    int restore(Long id, String path, String contentType);
+
+    /**
+     * Uncounts a reference to a blob
+     * @param id Id of the blob
+     * @return 1 if the reference was uncounted, or 0 if the blob no longer exists or has no
+     * references
+     */
+    @Transactional
+    @Modifying
+    @Query(
+            "UPDATE ImageBlob b SET b.refCount = b.refCount - 1 WHERE b.id = :id AND b.refCount"
+                    + " > 0")
+    int removeReference(Long id);
+
+    /**
+     * Claims a blob for deletion, unless a reference to it has been counted
+     * @param id Id of the blob
+     * @return 1 if the blob was claimed, or 0 if it is referenced, already claimed or no longer
+     * exists
+     */
+    @Transactional
+    @Modifying
+    @Query("UPDATE ImageBlob b SET b.refCount = -1 WHERE b.id = :id AND b.refCount = 0")
+    int claimForDeletion(Long id);
+
+    /**
+     * Deletes a blob that has been claimed for deletion
+     * @param id Id of the blob
+     * @return 1 if the blob was deleted, or 0 if it is not claimed or no longer exists
+     */
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM ImageBlob b WHERE b.id = :id AND b.refCount = -1")
+    int deleteClaimed(Long id);
+
+    /**
+     * Gives up the deletion of a claimed blob that is still used, counting one reference to it.
+     * The blob is flagged as corrupt, as its file may already have been deleted.
+     * @param id Id of the blob
+     * @return 1 if the blob was kept, or 0 if it is not claimed or no longer exists
+     */
+    @Transactional
+    @Modifying
+    @Query(
+            "UPDATE ImageBlob b SET b.refCount = 1, b.corrupt = true WHERE b.id = :id AND"
+                    + " b.refCount = -1")
+    int keepClaimed(Long id);
+
+    /**
+     * Records the result of verifying the checksum of a blob
+     * @param id Id of the blob
+     * @param corrupt Whether the file was missing or did not match the checksum
+     * @param verifiedAt When the file was verified
+     * @return 1 if the result was recorded, or 0 if the blob no longer exists
+     */
+    @Transactional
+    @Modifying
+    @Query(
+            "UPDATE ImageBlob b SET b.corrupt = :corrupt, b.verifiedAt = :verifiedAt WHERE b.id"
+                    + " = :id")
+    int markVerified(Long id, boolean corrupt, ZonedDateTime verifiedAt);
+}
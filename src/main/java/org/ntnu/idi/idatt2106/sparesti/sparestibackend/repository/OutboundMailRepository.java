@@ -0,0 +1,95 @@
+package org.ntnu.idi.idatt2106.sparesti.sparestibackend.repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import org.ntnu.idi.idatt2106.sparesti.sparestibackend.model.OutboundMail;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Repository interface that communicates with the data layer relating to the outbound mail
+ * queue. Workers claim mails with a single conditional UPDATE, so several workers, or several
+ * instances of the application, never send the same mail.
+ *
+ * @author L.M.L. Nilsen
+ * @version 1.0
+ * @since 3.5.24
+ */
+@Repository
+public interface OutboundMailRepository extends JpaRepository<OutboundMail, Long> {
+
+    /**
+     * Finds the ids of mails that are due to be sent, oldest first
+     * @param now Current time
+     * @param pageable How many ids to find
+     * @return List of ids
+     */
+    @Query(
+            "SELECT m.id FROM OutboundMail m WHERE m.status ="
+                    + " org.ntnu.idi.idatt2106.sparesti.sparestibackend.model.enums.MailStatus"
+                    + ".PENDING AND m.nextAttemptAt <= :now ORDER BY m.nextAttemptAt, m.id")
+    List<Long> findDueIds(LocalDateTime now, Pageable pageable);
+
+    /**
+     * Claims a mail for sending, unless another worker has claimed it
+     * @param id Id of the mail
+     * @param now Current time
+     * @param leaseUntil When the mail is due again if it has not been sent by then
+     * @return 1 if the mail was claimed, or 0 if it is no longer due
+     */
+    @Transactional
+    @Modifying
+    @Query(
+            "UPDATE OutboundMail m SET m.nextAttemptAt = :leaseUntil WHERE m.id = :id AND"
+                    + " m.status ="
+                    + " org.ntnu.idi.idatt2106.sparesti.sparestibackend.model.enums.MailStatus"
+                    + ".PENDING AND m.nextAttemptAt <= :now")
+    int claim(Long id, LocalDateTime now, LocalDateTime leaseUntil);
+
+    /**
+     * Moves mails that were claimed, but not attempted, to a later time without counting an
+     * attempt
+     * @param ids Ids of the mails
+     * @param nextAttemptAt When the mails may be sent
+     * @return Number of mails that were moved
+     */
+    @Transactional
+    @Modifying
+    @Query("UPDATE OutboundMail m SET m.nextAttemptAt = :nextAttemptAt WHERE m.id IN :ids")
+    int postpone(List<Long> ids, LocalDateTime nextAttemptAt);
+
+    /**
+     * Finds the ids of mails that were queued before a time, and that have failed or are not
+     * being sent, oldest first
+     * @param queuedBefore Time that the mails were queued before
+     * @param now Current time
+     * @param pageable How many ids to find
+     * @return List of ids
+     */
+    @Query(
+            "SELECT m.id FROM OutboundMail m WHERE m.createdAt < :queuedBefore AND (m.status ="
+                    + " org.ntnu.idi.idatt2106.sparesti.sparestibackend.model.enums.MailStatus"
+                    + ".FAILED OR m.nextAttemptAt <= :now) ORDER BY m.createdAt")
+    List<Long> findPurgeableIds(LocalDateTime queuedBefore, LocalDateTime now, Pageable pageable);
+
+    /**
+     * Deletes mails that were queued before a time, unless a worker has claimed them since they
+     * were found
+     * @param ids Ids of the mails
+     * @param queuedBefore Time that the mails were queued before
+     * @param now Current time
+     * @return Number of deleted mails
+     */
+    @Transactional
+    @Modifying
+    @Query(
+            "DELETE FROM OutboundMail m WHERE m.id IN :ids AND m.createdAt < :queuedBefore AND"
+                    + " (m.status ="
+                    + " org.ntnu.idi.idatt2106.sparesti.sparestibackend.model.enums.MailStatus"
+                    + ".FAILED OR m.nextAttemptAt <= :now)")
+    int deletePurgeable(List<Long> ids, LocalDateTime queuedBefore, LocalDateTime now);
+}
@@ -0,0 +1,70 @@
+package org.ntnu.idi.idatt2106.sparesti.sparestibackend.repository;
+
+import java.util.Collection;
+import java.util.List;
+import org.ntnu.idi.idatt2106.sparesti.sparestibackend.model.StorageUsage;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Repository interface that communicates with the data layer relating to the storage usage
+ * of users. The counters are changed with single UPDATE statements, so they are never read
+ * and written back.
+ *
+ * @author L.M.L. Nilsen
+ * @version 1.0
+ * @since 3.5.24
+ */
+@Repository
+public interface StorageUsageRepository extends JpaRepository<StorageUsage, Long> {
+
+    /**
+     * Adds to the usage of a user if the result stays within a limit
+     * @param userId Id of the user
+     * @param bytes Number of bytes to add
+     * @param limit Largest usage allowed after adding
+     * @return 1 if the bytes were added, or 0 if the user has no counter or it would exceed
+     * the limit
+     */
+    @Transactional
+    @Modifying
+    @Query(
+            "UPDATE StorageUsage u SET u.bytes = u.bytes + :bytes WHERE u.userId = :userId AND"
+                    + " u.bytes + :bytes <= :limit")
+    int addWithinLimit(Long userId, long bytes, long limit);
+
+    /**
+     * Adds to the usage of a user, which may be negative to subtract
+     * @param userId Id of the user
+     * @param bytes Number of bytes to add
+     * @return 1 if the bytes were added, or 0 if the user has no counter
+     */
+    @Transactional
+    @Modifying
+    @Query("UPDATE StorageUsage u SET u.bytes = u.bytes + :bytes WHERE u.userId = :userId")
+    int add(Long userId, long bytes);
+
+    /**
+     * Corrects the usage of a user, unless it has changed since it was read
+     * @param userId Id of the user
+     * @param expected Usage that was read
+     * @param bytes Correct usage
+     * @return 1 if the usage was corrected, or 0 if it has changed
+     */
+    @Transactional
+    @Modifying
+    @Query(
+            "UPDATE StorageUsage u SET u.bytes = :bytes WHERE u.userId = :userId AND u.bytes ="
+                    + " :expected")
+    int correct(Long userId, long expected, long bytes);
+
+    /**
+     * Finds the usage counters of some users
+     * @param userIds Ids of the users
+     * @return List of the counters that exist
+     */
+    List<StorageUsage> findAllByUserIdIn(Collection<Long> userIds);
+}
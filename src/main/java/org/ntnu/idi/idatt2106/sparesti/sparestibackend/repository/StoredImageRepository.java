@@ -0,0 +1,158 @@
+package org.ntnu.idi.idatt2106.sparesti.sparestibackend.repository;
+
+import java.time.ZonedDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import org.ntnu.idi.idatt2106.sparesti.sparestibackend.dto.image.StoredImagePreview;
+import org.ntnu.idi.idatt2106.sparesti.sparestibackend.model.ImageBlob;
+import org.ntnu.idi.idatt2106.sparesti.sparestibackend.model.StorageUsage;
+import org.ntnu.idi.idatt2106.sparesti.sparestibackend.model.StoredImage;
+import org.ntnu.idi.idatt2106.sparesti.sparestibackend.model.enums.ImageKind;
+import org.ntnu.idi.idatt2106.sparesti.sparestibackend.model.enums.ImageSize;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Repository interface that communicates with the data layer relating to stored image metadata.
+ * The blob of an image is only replaced or deleted if it has not changed since it was read, so
+ * the reference to each blob is released exactly once.
+ *
+ * @author L.M.L. Nilsen
+ * @version 1.0
+ * @since 3.5.24
+ */
+@Repository
+public interface StoredImageRepository extends JpaRepository<StoredImage, Long> {
+
+    /**
+     * Finds a rendition of the image of a user's goal, challenge or profile
+     * @param userId Id of the user who owns the image
+     * @param kind What the image belongs to
+     * @param entityId Id of the goal or challenge, or 0 for profile pictures
+     * @param rendition Which rendition of the image to find
+     * @return Optional wrapper around the image metadata
+     */
+    Optional<StoredImage> findByUserIdAndKindAndEntityIdAndRendition(
+            Long userId, ImageKind kind, Long entityId, ImageSize rendition);
+
+    /**
+     * Finds all renditions of the image of a user's goal, challenge or profile
+     * @param userId Id of the user who owns the image
+     * @param kind What the image belongs to
+     * @param entityId Id of the goal or challenge, or 0 for profile pictures
+     * @return List of image metadata, one per rendition
+     */
+    List<StoredImage> findAllByUserIdAndKindAndEntityId(Long userId, ImageKind kind, Long entityId);
+
+    /**
+     * Finds images of a kind in id order, starting after a given id. Used to walk all images
+     * in pages without the cost of an offset.
+     * @param kind What the images belong to
+     * @param id Id to start after
+     * @param pageable Pageable object that limits the number of images
+     * @return List of image metadata
+     */
+    List<StoredImage> findAllByKindAndIdGreaterThanOrderByIdAsc(
+            ImageKind kind, Long id, Pageable pageable);
+
+    /**
+     * Finds the previews of the images of some of a user's goals, challenges or profile
+     * @param userId Id of the user who owns the images
+     * @param kind What the images belong to
+     * @param entityIds Ids of the goals or challenges, or 0 for profile pictures
+     * @param rendition Which rendition holds the preview
+     * @return List of the previewed columns, one per goal or challenge that has an image
+     */
+    @Query(
+            "SELECT new org.ntnu.idi.idatt2106.sparesti.sparestibackend.dto.image"
+                    + ".StoredImagePreview(i.entityId, i.placeholder, i.blob.path) FROM"
+                    + " StoredImage i WHERE i.user.id = :userId AND i.kind = :kind AND i.entityId"
+                    + " IN :entityIds AND i.rendition = :rendition")
+    List<StoredImagePreview> findPreviews(
+            Long userId, ImageKind kind, Collection<Long> entityIds, ImageSize rendition);
+
+    /**
+     * Sums the sizes of a rendition of the images of some users
+     * @param userIds Ids of the users
+     * @param rendition Which rendition to sum
+     * @return The summed sizes as usage, one per user that has an image
+     */
+    @Query(
+            "SELECT new org.ntnu.idi.idatt2106.sparesti.sparestibackend.model"
+                    + ".StorageUsage(i.user.id, SUM(i.blob.size)) FROM StoredImage i WHERE"
+                    + " i.user.id IN :userIds AND i.rendition = :rendition GROUP BY i.user.id")
+    List<StorageUsage> sumSizes(Collection<Long> userIds, ImageSize rendition);
+
+    /**
+     * Finds some renditions of the images of some of a user's goals and challenges. Only images
+     * owned by the user are found, so their ownership is verified by this single query.
+     * @param userId Id of the user who owns the images
+     * @param goalIds Ids of the goals
+     * @param challengeIds Ids of the challenges
+     * @param renditions Which renditions to find
+     * @return List of image metadata, with their blobs
+     */
+    @Query(
+            "SELECT i FROM StoredImage i JOIN FETCH i.blob WHERE i.user.id = :userId AND"
+                    + " i.rendition IN :renditions AND ((i.kind ="
+                    + " org.ntnu.idi.idatt2106.sparesti.sparestibackend.model.enums.ImageKind"
+                    + ".GOAL AND i.entityId IN :goalIds) OR (i.kind ="
+                    + " org.ntnu.idi.idatt2106.sparesti.sparestibackend.model.enums.ImageKind"
+                    + ".CHALLENGE AND i.entityId IN :challengeIds))")
+    List<StoredImage> findImagesOfGoalsAndChallenges(
+            Long userId,
+            Collection<Long> goalIds,
+            Collection<Long> challengeIds,
+            Collection<ImageSize> renditions);
+
+    /**
+     * Points an image to another blob, unless its blob has changed since it was read
+     * @param id Id of the image
+     * @param expected The blob that was read
+     * @param blob The new blob
+     * @param placeholder Data URI of the placeholder of the new blob, or null
+     * @param updatedAt When the new blob was written
+     * @return 1 if the blob was replaced, or 0 if the image has changed or no longer exists
+     */
+    @Transactional
+    @Modifying
+    @Query(
+            "UPDATE StoredImage i SET i.blob = :blob, i.placeholder = :placeholder, i.updatedAt"
+                    + " = :updatedAt WHERE i.id = :id AND i.blob = :expected")
+    int replaceBlob(
+            Long id,
+            ImageBlob expected,
+            ImageBlob blob,
+            String placeholder,
+            ZonedDateTime updatedAt);
+
+    /**
+     * Sets the placeholder of an image, unless its blob has changed since it was read
+     * @param id Id of the image
+     * @param blob The blob the placeholder was generated from
+     * @param placeholder Data URI of the placeholder
+     * @return 1 if the placeholder was set, or 0 if the image has changed or no longer exists
+     */
+    @Transactional
+    @Modifying
+    @Query(
+            "UPDATE StoredImage i SET i.placeholder = :placeholder WHERE i.id = :id AND i.blob ="
+                    + " :blob")
+    int setPlaceholder(Long id, ImageBlob blob, String placeholder);
+
+    /**
+     * Deletes an image, unless its blob has changed since it was read
+     * @param id Id of the image
+     * @param blob The blob that was read
+     * @return 1 if the image was deleted, or 0 if it has changed or no longer exists
+     */
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM StoredImage i WHERE i.id = :id AND i.blob = :blob")
+    int deleteIfBlob(Long id, ImageBlob blob);
+}
@@ -1,9 +1,15 @@
 package org.ntnu.idi.idatt2106.sparesti.sparestibackend.repository;
 
 import com.yubico.webauthn.data.ByteArray;
+import java.time.ZonedDateTime;
+import java.util.List;
 import java.util.Optional;
+import org.ntnu.idi.idatt2106.sparesti.sparestibackend.dto.user.UserIdentityDTO;
+import org.ntnu.idi.idatt2106.sparesti.sparestibackend.dto.user.WeeklyDigestDTO;
 import org.ntnu.idi.idatt2106.sparesti.sparestibackend.model.User;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 
 /**
  * Repository interface for communicating with the data layer related to the user entity
@@ -28,10 +34,76 @@ public interface UserRepository extends JpaRepository<User, Long> {
      */
     Optional<User> findByEmail(String email);
 
+    /**
+     * Determines whether a user with the given email exists
+     * @param email Email
+     * @return True, if a user with the given email exists
+     */
+    boolean existsByEmail(String email);
+
+    /**
+     * Finds the id of the user with a given email, without loading the user
+     * @param email Email
+     * @return Optional id of the user
+     */
+    @Query("SELECT u.id FROM User u WHERE u.email = :email")
+    Optional<Long> findIdByEmail(String email);
+
+    /**
+     * Finds the username of the user with a given email, without loading the user
+     * @param email Email
+     * @return Optional username of the user
+     */
+    @Query("SELECT u.username FROM User u WHERE u.email = :email")
+    Optional<String> findUsernameByEmail(String email);
+
+    /**
+     * Finds the username and email of the users that have either the given username or the
+     * given email, so both can be checked for uniqueness with one query. At most two users
+     * are found, since both columns are unique.
+     * @param username Username
+     * @param email Email
+     * @return List of the matching users' usernames and emails
+     */
+    @Query(
+            "SELECT new org.ntnu.idi.idatt2106.sparesti.sparestibackend.dto.user.UserIdentityDTO("
+                    + "u.username, u.email) FROM User u WHERE u.username = :username OR u.email ="
+                    + " :email")
+    List<UserIdentityDTO> findIdentitiesByUsernameOrEmail(String username, String email);
+
     /**
      * Finds a user based on their handle, which acts as a unique identifier for the user
      * @param handle Unique identifier of the user, used for biometric registration/login
      * @return User with the matching handle
      */
     User findByHandle(ByteArray handle);
+
+    /**
+     * Finds user ids in order, starting after a given id. Used to walk all users in pages
+     * without loading them.
+     * @param id Id to start after
+     * @param pageable Pageable object that limits the number of ids
+     * @return List of user ids
+     */
+    @Query("SELECT u.id FROM User u WHERE u.id > :id ORDER BY u.id")
+    List<Long> findIdsAfter(Long id, Pageable pageable);
+
+    /**
+     * Finds the numbers of the weekly savings digest of users in id order, starting after a
+     * given id. The challenges completed during the week are counted and summed in the same
+     * query, so no users or challenges are loaded.
+     * @param id Id to start after
+     * @param from Start of the week
+     * @param to End of the week, exclusive
+     * @param pageable Pageable object that limits the number of users
+     * @return List of digests
+     */
+    @Query(
+            "SELECT new org.ntnu.idi.idatt2106.sparesti.sparestibackend.dto.user.WeeklyDigestDTO("
+                    + "u.id, u.firstName, u.email, u.streak, u.savedAmount, COUNT(c), SUM(c.saved))"
+                    + " FROM User u LEFT JOIN u.challenges c ON c.completedOn >= :from AND"
+                    + " c.completedOn < :to WHERE u.id > :id GROUP BY u.id, u.firstName, u.email,"
+                    + " u.streak, u.savedAmount ORDER BY u.id")
+    List<WeeklyDigestDTO> findWeeklyDigestsAfter(
+            Long id, ZonedDateTime from, ZonedDateTime to, Pageable pageable);
 }
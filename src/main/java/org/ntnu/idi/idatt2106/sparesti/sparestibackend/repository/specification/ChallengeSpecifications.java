@@ -0,0 +1,91 @@
+package org.ntnu.idi.idatt2106.sparesti.sparestibackend.repository.specification;
+
+import org.ntnu.idi.idatt2106.sparesti.sparestibackend.dto.challenge.ChallengeFilterDTO;
+import org.ntnu.idi.idatt2106.sparesti.sparestibackend.model.Challenge;
+import org.ntnu.idi.idatt2106.sparesti.sparestibackend.model.User;
+import org.springframework.data.jpa.domain.Specification;
+
+/**
+ * Specifications for querying the Challenge entity with the JPA Criteria API
+ *
+ * @author Harry X.
+ * @version 1.0
+ * @since 2.5.24
+ */
+public final class ChallengeSpecifications {
+
+    private ChallengeSpecifications() {}
+
+    /**
+     * Creates a specification for a user's challenges that match a filter
+     * @param user User who owns the challenges
+     * @param filter Filter with optional conditions
+     * @param typeId Key of the type to filter on, or null for all types
+     * @return Specification combining all conditions of the filter
+     */
+    public static Specification<Challenge> filter(
+            User user, ChallengeFilterDTO filter, Integer typeId) {
+        return Specification.where(ofUser(user))
+                .and(hasTypeId(typeId))
+                .and(RangeSpecifications.between("due", filter.dueFrom(), filter.dueTo()))
+                .and(
+                        RangeSpecifications.between(
+                                "createdOn", filter.createdFrom(), filter.createdTo()))
+                .and(
+                        RangeSpecifications.between(
+                                "completion", filter.completionFrom(), filter.completionTo()));
+    }
+
+    /**
+     * Creates a condition that a challenge belongs to a user
+     * @param user User who owns the challenges
+     * @return Specification for the owner
+     */
+    public static Specification<Challenge> ofUser(User user) {
+        return (root, query, builder) -> builder.equal(root.get("user"), user);
+    }
+
+    /**
+     * Creates a condition that a challenge has a type
+     * @param typeId Key of the type, or null for no condition
+     * @return Specification for the type, or null if no type key is given
+     */
+    public static Specification<Challenge> hasTypeId(Integer typeId) {
+        if (typeId == null) return null;
+
+        return (root, query, builder) -> builder.equal(root.get("typeId"), typeId);
+    }
+
+    /**
+     * Creates a condition that a challenge is a specific challenge of a user
+     * @param user User that owns the challenge
+     * @param id Id of the challenge
+     * @return Specification for the challenge
+     */
+    public static Specification<Challenge> withId(User user, Long id) {
+        return Specification.where(ofUser(user))
+                .and((root, query, builder) -> builder.equal(root.get("id"), id));
+    }
+
+    /**
+     * Creates a condition that a challenge is an active challenge of a user (completion date is
+     * not set, therefore "null")
+     * @param user User that owns the challenges
+     * @return Specification for the active challenges
+     */
+    public static Specification<Challenge> active(User user) {
+        return Specification.where(ofUser(user))
+                .and((root, query, builder) -> builder.isNull(root.get("completedOn")));
+    }
+
+    /**
+     * Creates a condition that a challenge is a completed challenge of a user (completion date is
+     * set, therefore not "null")
+     * @param user User that owns the challenges
+     * @return Specification for the completed challenges
+     */
+    public static Specification<Challenge> completed(User user) {
+        return Specification.where(ofUser(user))
+                .and((root, query, builder) -> builder.isNotNull(root.get("completedOn")));
+    }
+}
@@ -0,0 +1,77 @@
+package org.ntnu.idi.idatt2106.sparesti.sparestibackend.repository.specification;
+
+import org.ntnu.idi.idatt2106.sparesti.sparestibackend.dto.goal.GoalFilterDTO;
+import org.ntnu.idi.idatt2106.sparesti.sparestibackend.model.Goal;
+import org.ntnu.idi.idatt2106.sparesti.sparestibackend.model.User;
+import org.springframework.data.jpa.domain.Specification;
+
+/**
+ * Specifications for querying the Goal entity with the JPA Criteria API
+ *
+ * @author Harry X.
+ * @version 1.0
+ * @since 2.5.24
+ */
+public final class GoalSpecifications {
+
+    private GoalSpecifications() {}
+
+    /**
+     * Creates a specification for a user's goals that match a filter
+     * @param user User who owns the goals
+     * @param filter Filter with optional conditions
+     * @return Specification combining all conditions of the filter
+     */
+    public static Specification<Goal> filter(User user, GoalFilterDTO filter) {
+        return Specification.where(ofUser(user))
+                .and(RangeSpecifications.between("due", filter.dueFrom(), filter.dueTo()))
+                .and(
+                        RangeSpecifications.between(
+                                "createdOn", filter.createdFrom(), filter.createdTo()))
+                .and(
+                        RangeSpecifications.between(
+                                "completion", filter.completionFrom(), filter.completionTo()));
+    }
+
+    /**
+     * Creates a condition that a goal belongs to a user
+     * @param user User who owns the goals
+     * @return Specification for the owner
+     */
+    public static Specification<Goal> ofUser(User user) {
+        return (root, query, builder) -> builder.equal(root.get("user"), user);
+    }
+
+    /**
+     * Creates a condition that a goal is a specific goal of a user
+     * @param user User that owns the goal
+     * @param id Id of the goal
+     * @return Specification for the goal
+     */
+    public static Specification<Goal> withId(User user, Long id) {
+        return Specification.where(ofUser(user))
+                .and((root, query, builder) -> builder.equal(root.get("id"), id));
+    }
+
+    /**
+     * Creates a condition that a goal is an active goal of a user (completion date is not set,
+     * therefore "null")
+     * @param user User that owns the goals
+     * @return Specification for the active goals
+     */
+    public static Specification<Goal> active(User user) {
+        return Specification.where(ofUser(user))
+                .and((root, query, builder) -> builder.isNull(root.get("completedOn")));
+    }
+
+    /**
+     * Creates a condition that a goal is a completed goal of a user (completion date is set,
+     * therefore not "null")
+     * @param user User that owns the goals
+     * @return Specification for the completed goals
+     */
+    public static Specification<Goal> completed(User user) {
+        return Specification.where(ofUser(user))
+                .and((root, query, builder) -> builder.isNotNull(root.get("completedOn")));
+    }
+}
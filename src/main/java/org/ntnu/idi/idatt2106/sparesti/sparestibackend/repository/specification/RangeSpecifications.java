@@ -0,0 +1,36 @@
+package org.ntnu.idi.idatt2106.sparesti.sparestibackend.repository.specification;
+
+import org.springframework.data.jpa.domain.Specification;
+
+/**
+ * Helper for building range conditions shared by the entity specifications
+ *
+ * @author Harry X.
+ * @version 1.0
+ * @since 2.5.24
+ */
+final class RangeSpecifications {
+
+    private RangeSpecifications() {}
+
+    /**
+     * Creates a condition that an attribute is within an inclusive range. A null bound is left
+     * open.
+     * @param attribute Name of the attribute
+     * @param from Lower bound, may be null
+     * @param to Upper bound, may be null
+     * @param <E> Type of the entity
+     * @param <T> Type of the attribute
+     * @return Specification for the range, or null if both bounds are null
+     */
+    static <E, T extends Comparable<? super T>> Specification<E> between(
+            String attribute, T from, T to) {
+        if (from == null && to == null) return null;
+
+        return (root, query, builder) -> {
+            if (from == null) return builder.lessThanOrEqualTo(root.<T>get(attribute), to);
+            if (to == null) return builder.greaterThanOrEqualTo(root.<T>get(attribute), from);
+            return builder.between(root.<T>get(attribute), from, to);
+        };
+    }
+}
@@ -0,0 +1,136 @@
+package org.ntnu.idi.idatt2106.sparesti.sparestibackend.repository.specification;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.TypedQuery;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Selection;
+import java.util.List;
+import java.util.function.Function;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+import org.springframework.data.support.PageableExecutionUtils;
+
+/**
+ * Runs specifications as queries that select DTOs with a constructor expression, so only the
+ * selected columns are read and no managed entities or dirty-checking snapshots are created
+ *
+ * @author L.M.L. Nilsen
+ * @version 1.0
+ * @since 3.5.24
+ */
+public final class SpecificationProjections {
+
+    private SpecificationProjections() {}
+
+    /**
+     * Finds a page of DTOs of the entities that match a specification. The total is only
+     * counted when it cannot be told from the page itself.
+     * @param entityManager Entity manager that runs the queries
+     * @param entityType Type of the entity
+     * @param dtoType Type of the DTO, which must have a constructor that takes the columns
+     * @param columns Selects the columns that are passed to the constructor of the DTO
+     * @param spec Specification the entities must match, or null for all entities
+     * @param pageable Configures the page and its sorting
+     * @param <E> Type of the entity
+     * @param <D> Type of the DTO
+     * @return Page of DTOs
+     */
+    public static <E, D> Page<D> findPage(
+            EntityManager entityManager,
+            Class<E> entityType,
+            Class<D> dtoType,
+            Function<Root<E>, Selection<?>[]> columns,
+            Specification<E> spec,
+            Pageable pageable) {
+        TypedQuery<D> query =
+                createQuery(entityManager, entityType, dtoType, columns, spec, pageable.getSort());
+        if (pageable.isPaged()) {
+            query.setFirstResult((int) pageable.getOffset());
+            query.setMaxResults(pageable.getPageSize());
+        }
+        return PageableExecutionUtils.getPage(
+                query.getResultList(), pageable, () -> count(entityManager, entityType, spec));
+    }
+
+    /**
+     * Finds DTOs of all entities that match a specification
+     * @param entityManager Entity manager that runs the query
+     * @param entityType Type of the entity
+     * @param dtoType Type of the DTO, which must have a constructor that takes the columns
+     * @param columns Selects the columns that are passed to the constructor of the DTO
+     * @param spec Specification the entities must match, or null for all entities
+     * @param sort Sorting of the DTOs
+     * @param <E> Type of the entity
+     * @param <D> Type of the DTO
+     * @return List of DTOs
+     */
+    public static <E, D> List<D> findAll(
+            EntityManager entityManager,
+            Class<E> entityType,
+            Class<D> dtoType,
+            Function<Root<E>, Selection<?>[]> columns,
+            Specification<E> spec,
+            Sort sort) {
+        return createQuery(entityManager, entityType, dtoType, columns, spec, sort).getResultList();
+    }
+
+    /**
+     * Creates a query that selects DTOs of the entities that match a specification
+     * @param entityManager Entity manager that creates the query
+     * @param entityType Type of the entity
+     * @param dtoType Type of the DTO
+     * @param columns Selects the columns that are passed to the constructor of the DTO
+     * @param spec Specification the entities must match, or null for all entities
+     * @param sort Sorting of the DTOs
+     * @param <E> Type of the entity
+     * @param <D> Type of the DTO
+     * @return The query
+     */
+    private static <E, D> TypedQuery<D> createQuery(
+            EntityManager entityManager,
+            Class<E> entityType,
+            Class<D> dtoType,
+            Function<Root<E>, Selection<?>[]> columns,
+            Specification<E> spec,
+            Sort sort) {
+        CriteriaBuilder builder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<D> query = builder.createQuery(dtoType);
+        Root<E> root = query.from(entityType);
+        Predicate predicate = spec == null ? null : spec.toPredicate(root, query, builder);
+        if (predicate != null) {
+            query.where(predicate);
+        }
+        query.select(builder.construct(dtoType, columns.apply(root)));
+        if (sort.isSorted()) {
+            query.orderBy(QueryUtils.toOrders(sort, root, builder));
+        }
+        return entityManager.createQuery(query);
+    }
+
+    /**
+     * Counts the entities that match a specification
+     * @param entityManager Entity manager that runs the query
+     * @param entityType Type of the entity
+     * @param spec Specification the entities must match, or null for all entities
+     * @param <E> Type of the entity
+     * @return Number of matching entities
+     */
+    private static <E> long count(
+            EntityManager entityManager, Class<E> entityType, Specification<E> spec) {
+        CriteriaBuilder builder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Long> query = builder.createQuery(Long.class);
+        Root<E> root = query.from(entityType);
+        Predicate predicate = spec == null ? null : spec.toPredicate(root, query, builder);
+        if (predicate != null) {
+            query.where(predicate);
+        }
+        query.select(builder.count(root));
+        return entityManager.createQuery(query).getSingleResult();
+    }
+}
@@ -8,6 +8,7 @@ import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.constraints.NotNull;
 import java.io.IOException;
 import lombok.RequiredArgsConstructor;
+import org.ntnu.idi.idatt2106.sparesti.sparestibackend.util.ImageUrlSigner;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.http.HttpStatus;
@@ -33,6 +34,16 @@ public class JWTAuthorizationFilter extends OncePerRequestFilter {
     private final UserDetailsService userDetailsService;
     private final Logger logger = LoggerFactory.getLogger(this.getClass());
 
+    /**
+     * Skips requests for signed image URLs, which are authorized by their signature alone
+     * @param request HTTP request
+     * @return true if the request is for a signed image URL
+     */
+    @Override
+    protected boolean shouldNotFilter(@NotNull HttpServletRequest request) {
+        return request.getServletPath().startsWith(ImageUrlSigner.PATH);
+    }
+
     /**
      * The JWT filter
      * @param request HTTP request
@@ -1,6 +1,8 @@
 package org.ntnu.idi.idatt2106.sparesti.sparestibackend.security;
 
 import lombok.RequiredArgsConstructor;
+import org.ntnu.idi.idatt2106.sparesti.sparestibackend.model.enums.Role;
+import org.ntnu.idi.idatt2106.sparesti.sparestibackend.util.ImageUrlSigner;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.authentication.AuthenticationProvider;
@@ -52,6 +54,10 @@ public class SecurityConfiguration {
                                                 "/swagger-ui/**",
                                                 "/v3/api-docs/**")
                                         .permitAll()
+                                        .requestMatchers(ImageUrlSigner.PATH + "**")
+                                        .permitAll()
+                                        .requestMatchers("/challenges/stats/platform")
+                                        .hasAuthority(Role.ADMIN.name())
                                         .anyRequest()
                                         .authenticated())
                 .sessionManagement(
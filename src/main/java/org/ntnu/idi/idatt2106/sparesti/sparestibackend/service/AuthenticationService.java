@@ -32,6 +32,7 @@ import org.ntnu.idi.idatt2106.sparesti.sparestibackend.validation.ObjectValidato
 import org.ntnu.idi.idatt2106.sparesti.sparestibackend.validation.user.UserValidator;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.http.HttpStatus;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.BadCredentialsException;
@@ -75,7 +76,8 @@ public class AuthenticationService {
     /**
      * Registers a new, valid user. For a user to be valid, they have to
      * have a valid and unique username, a valid and unique email, valid first name and last names,
-     * and a strong password.
+     * and a strong password. Both unique fields are checked with one query, and a username or
+     * email taken by a concurrent registration is caught by the unique constraints of the table.
      *
      * @param request Wrapper for user information used for registering
      * @return Jwt tokens for the registered user
@@ -89,7 +91,13 @@ public class AuthenticationService {
         String encodedPassword = passwordEncoder.encode(request.password());
         User user = RegisterMapper.INSTANCE.toEntity(request, Role.USER, encodedPassword);
         logger.info("Saving user with username '{}'", user.getUsername());
-        userService.save(user);
+        try {
+            userService.save(user);
+        } catch (DataIntegrityViolationException e) {
+            // Username or email was taken after validation, so the unique constraints rejected it
+            registerRequestValidator.validate(request);
+            throw e;
+        }
         logger.info("Generating tokens");
         String jwtAccessToken = jwtService.generateToken(user, ONE_DAY_IN_MINUTES);
         String jwtRefreshToken = jwtService.generateToken(user, ONE_WEEK_IN_MINUTES);
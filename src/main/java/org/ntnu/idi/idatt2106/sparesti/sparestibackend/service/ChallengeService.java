@@ -3,26 +3,46 @@ package org.ntnu.idi.idatt2106.sparesti.sparestibackend.service;
 import java.math.BigDecimal;
 import java.time.ZonedDateTime;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.ntnu.idi.idatt2106.sparesti.sparestibackend.config.CacheConfig;
 import org.ntnu.idi.idatt2106.sparesti.sparestibackend.dto.challenge.ChallengeCreateDTO;
 import org.ntnu.idi.idatt2106.sparesti.sparestibackend.dto.challenge.ChallengeDTO;
+import org.ntnu.idi.idatt2106.sparesti.sparestibackend.dto.challenge.ChallengeFilterDTO;
+import org.ntnu.idi.idatt2106.sparesti.sparestibackend.dto.challenge.ChallengeTypeStatsDTO;
 import org.ntnu.idi.idatt2106.sparesti.sparestibackend.dto.challenge.ChallengeUpdateDTO;
+import org.ntnu.idi.idatt2106.sparesti.sparestibackend.dto.image.ImagePreviewDTO;
 import org.ntnu.idi.idatt2106.sparesti.sparestibackend.exception.challenge.ChallengeAlreadyCompletedException;
 import org.ntnu.idi.idatt2106.sparesti.sparestibackend.exception.challenge.ChallengeNotFoundException;
 import org.ntnu.idi.idatt2106.sparesti.sparestibackend.exception.config.ChallengeConfigNotFoundException;
+import org.ntnu.idi.idatt2106.sparesti.sparestibackend.exception.validation.BadInputException;
 import org.ntnu.idi.idatt2106.sparesti.sparestibackend.exception.validation.ObjectNotValidException;
 import org.ntnu.idi.idatt2106.sparesti.sparestibackend.mapper.ChallengeMapper;
 import org.ntnu.idi.idatt2106.sparesti.sparestibackend.model.Challenge;
 import org.ntnu.idi.idatt2106.sparesti.sparestibackend.model.ChallengeTypeConfig;
+import org.ntnu.idi.idatt2106.sparesti.sparestibackend.model.ChallengeTypeEntity;
 import org.ntnu.idi.idatt2106.sparesti.sparestibackend.model.Goal;
 import org.ntnu.idi.idatt2106.sparesti.sparestibackend.model.User;
+import org.ntnu.idi.idatt2106.sparesti.sparestibackend.model.enums.ImageKind;
 import org.ntnu.idi.idatt2106.sparesti.sparestibackend.repository.ChallengeRepository;
+import org.ntnu.idi.idatt2106.sparesti.sparestibackend.repository.specification.ChallengeSpecifications;
+import org.ntnu.idi.idatt2106.sparesti.sparestibackend.util.ApplicationUtil;
+import org.ntnu.idi.idatt2106.sparesti.sparestibackend.util.Money;
 import org.ntnu.idi.idatt2106.sparesti.sparestibackend.validation.ObjectValidator;
 import org.ntnu.idi.idatt2106.sparesti.sparestibackend.validation.challenge.ChallengeValidator;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.annotation.Caching;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 
 /**
@@ -33,6 +53,7 @@ import org.springframework.stereotype.Service;
  *
  * @author Y.A. Marouga, H.L Xu and L.M.L Nilsen
  */
+@Slf4j
 @Service
 @RequiredArgsConstructor
 public class ChallengeService {
@@ -41,6 +62,16 @@ public class ChallengeService {
     private final ObjectValidator<ChallengeUpdateDTO> updateChallengeValidator;
     private final ChallengeValidator createChallengeValidator;
     private final GoalService goalService;
+    private final ChallengeTypeService challengeTypeService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ImagePreviewService imagePreviewService;
+
+    /**
+     * Properties that challenge pages can be sorted on. Each is backed by an index on the user
+     * and the property.
+     */
+    private static final Set<String> SORTABLE_PROPERTIES =
+            Set.of("id", "due", "createdOn", "completion");
 
     /**
      * Creates and persists a new challenge based on provided DTO and user details.
@@ -52,22 +83,27 @@ public class ChallengeService {
      * @throws ChallengeNotFoundException if the challenge configuration is not found.
      * @throws ObjectNotValidException if the challenge details are not valid as per validation constraints.
      */
+    @Caching(
+            evict = {
+                @CacheEvict(value = CacheConfig.CHALLENGE_STATS, key = "#user.id"),
+                @CacheEvict(value = CacheConfig.PLATFORM_CHALLENGE_STATS, allEntries = true)
+            })
     public ChallengeDTO save(ChallengeCreateDTO challengeCreateDTO, User user)
             throws ChallengeNotFoundException, ObjectNotValidException {
         createChallengeValidator.validate(challengeCreateDTO);
         Challenge newChallenge = ChallengeMapper.INSTANCE.toEntity(challengeCreateDTO, user);
+        assignType(newChallenge);
 
         Challenge persistedChallenge = challengeRepository.save(newChallenge);
 
-        double increment = persistedChallenge.getSaved().doubleValue();
-        if (increment > 0) {
-            cascadeToGoal(user, increment);
+        Money saved = Money.of(persistedChallenge.getSaved());
+        if (saved.isPositive()) {
+            cascadeToGoal(user, saved);
         }
 
-        if (persistedChallenge.getSaved().doubleValue()
-                == persistedChallenge.getTarget().doubleValue()) {
+        if (saved.equals(Money.of(persistedChallenge.getTarget()))) {
             persistedChallenge.setCompletedOn(ZonedDateTime.now());
-            updateUserSavedAmount(user, persistedChallenge.getSaved().doubleValue());
+            updateUserSavedAmount(user, saved);
 
             updateStreak(persistedChallenge);
             Challenge completedChallenge = challengeRepository.save(persistedChallenge);
@@ -87,6 +123,11 @@ public class ChallengeService {
      * @throws ObjectNotValidException if the update details are not valid.
      * @throws ChallengeAlreadyCompletedException if the challenge is already completed.
      */
+    @Caching(
+            evict = {
+                @CacheEvict(value = CacheConfig.CHALLENGE_STATS, key = "#user.id"),
+                @CacheEvict(value = CacheConfig.PLATFORM_CHALLENGE_STATS, allEntries = true)
+            })
     public ChallengeDTO updateChallenge(Long id, ChallengeUpdateDTO challengeUpdateDTO, User user)
             throws ChallengeNotFoundException, ObjectNotValidException {
         updateChallengeValidator.validate(challengeUpdateDTO);
@@ -95,26 +136,52 @@ public class ChallengeService {
             throw new ChallengeAlreadyCompletedException(challenge.getId());
         }
 
-        double increment =
-                challengeUpdateDTO.saved().doubleValue() - challenge.getSaved().doubleValue();
+        Money increment =
+                Money.of(challengeUpdateDTO.saved()).minus(Money.of(challenge.getSaved()));
         Challenge updatedChallenge =
                 ChallengeMapper.INSTANCE.updateEntity(challenge, challengeUpdateDTO);
+        assignType(updatedChallenge);
 
-        if (increment > 0) {
+        if (increment.isPositive()) {
             cascadeToGoal(user, increment);
         }
 
-        if (updatedChallenge.getSaved().doubleValue()
-                >= updatedChallenge.getTarget().doubleValue()) {
+        if (Money.of(updatedChallenge.getSaved())
+                .isAtLeast(Money.of(updatedChallenge.getTarget()))) {
             return completeChallenge(updatedChallenge.getId(), user);
         }
 
         Challenge persistedChallenge = challengeRepository.save(updatedChallenge);
-        return ChallengeMapper.INSTANCE.toDTO(persistedChallenge);
+        return toDTO(persistedChallenge, user);
+    }
+
+    /**
+     * Resolves the type of a challenge to its key in the challenge type dimension,
+     * and sets the type to its canonical name.
+     *
+     * @param challenge The challenge whose type is resolved.
+     */
+    private void assignType(Challenge challenge) {
+        ChallengeTypeEntity challengeType = challengeTypeService.resolve(challenge.getType());
+        challenge.setType(challengeType == null ? null : challengeType.getName());
+        challenge.setTypeId(challengeType == null ? null : challengeType.getId());
+    }
+
+    /**
+     * Calculates the completion of challenges that were saved before completion was persisted,
+     * so that every challenge can be projected and sorted on its completion.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void fillMissingCompletion() {
+        int updated = challengeRepository.fillMissingCompletion();
+        if (updated > 0) {
+            log.info("Calculated the completion of {} challenges", updated);
+        }
     }
 
     /**
-     * Retrieves a specific challenge by ID and user.
+     * Retrieves a specific challenge by ID and user. The challenge is projected straight into
+     * a DTO.
      *
      * @param challengeId The ID of the challenge.
      * @param user The user associated with the challenge.
@@ -123,19 +190,71 @@ public class ChallengeService {
      */
     public ChallengeDTO getChallenge(Long challengeId, User user)
             throws ChallengeNotFoundException {
-        return ChallengeMapper.INSTANCE.toDTO(privateGetChallenge(challengeId, user));
+        return challengeRepository
+                .findDTOs(ChallengeSpecifications.withId(user, challengeId), Sort.unsorted())
+                .stream()
+                .findFirst()
+                .map(
+                        challenge ->
+                                ChallengeMapper.INSTANCE.withImage(
+                                        challenge,
+                                        imagePreviewService.findPreview(
+                                                user.getId(), ImageKind.CHALLENGE, challengeId)))
+                .orElseThrow(() -> new ChallengeNotFoundException(challengeId));
     }
 
     /**
      * Deletes a challenge by ID and user, ensuring it is no longer present in the database.
+     * The image of the challenge is deleted in the background.
      *
      * @param challengeId The ID of the challenge to delete.
      * @param user The user associated with the challenge.
      * @throws ChallengeNotFoundException if no such challenge exists to delete.
      */
+    @Caching(
+            evict = {
+                @CacheEvict(value = CacheConfig.CHALLENGE_STATS, key = "#user.id"),
+                @CacheEvict(value = CacheConfig.PLATFORM_CHALLENGE_STATS, allEntries = true)
+            })
     public void deleteChallenge(Long challengeId, User user) throws ChallengeNotFoundException {
         Challenge challenge = privateGetChallenge(challengeId, user);
         challengeRepository.delete(challenge);
+        eventPublisher.publishEvent(
+                new ImageOwnerDeletedEvent(user.getId(), ImageKind.CHALLENGE, challengeId));
+    }
+
+    /**
+     * Maps a challenge to a DTO with the preview of its image
+     *
+     * @param challenge The challenge.
+     * @param user The user who owns the challenge.
+     * @return Mapped ChallengeDTO.
+     */
+    private ChallengeDTO toDTO(Challenge challenge, User user) {
+        return ChallengeMapper.INSTANCE.toDTO(
+                challenge,
+                imagePreviewService.findPreview(
+                        user.getId(), ImageKind.CHALLENGE, challenge.getId()));
+    }
+
+    /**
+     * Adds the previews of their images to a page of projected challenges, which are found
+     * with a single query.
+     *
+     * @param challenges The page of projected challenges.
+     * @param user The user who owns the challenges.
+     * @return Page of ChallengeDTOs with their previews.
+     */
+    private Page<ChallengeDTO> withPreviews(Page<ChallengeDTO> challenges, User user) {
+        Map<Long, ImagePreviewDTO> previews =
+                imagePreviewService.findPreviews(
+                        user.getId(),
+                        ImageKind.CHALLENGE,
+                        challenges.map(ChallengeDTO::id).getContent());
+        return challenges.map(
+                challenge ->
+                        ChallengeMapper.INSTANCE.withImage(
+                                challenge, previews.get(challenge.id())));
     }
 
     /**
@@ -153,16 +272,36 @@ public class ChallengeService {
     }
 
     /**
-     * Retrieves all challenges associated with a specific user and paginates the results.
+     * Retrieves the challenges of a specific user that match a filter, and paginates the results.
+     * Sorting is restricted to indexed properties.
      *
      * @param user The user whose challenges are to be retrieved.
+     * @param filter Filter with optional conditions on type, due date, created date and completion.
      * @param pageable Pagination and sorting details.
      * @return A page of ChallengeDTOs representing the user's challenges.
-     * @throws ChallengeNotFoundException If no challenges are found for the user, this exception may be thrown.
+     * @throws BadInputException If the page is sorted on a property that is not allowed,
+     * or a range of the filter is invalid.
      */
-    public Page<ChallengeDTO> getChallengesByUser(User user, Pageable pageable)
-            throws ChallengeNotFoundException {
-        return challengeRepository.findByUser(user, pageable).map(ChallengeMapper.INSTANCE::toDTO);
+    public Page<ChallengeDTO> getChallengesByUser(
+            User user, ChallengeFilterDTO filter, Pageable pageable) throws BadInputException {
+        ApplicationUtil.validateSort(pageable, SORTABLE_PROPERTIES);
+        ApplicationUtil.validateRange(filter.dueFrom(), filter.dueTo(), "forfallsdato");
+        ApplicationUtil.validateRange(filter.createdFrom(), filter.createdTo(), "opprettelsesdato");
+        ApplicationUtil.validateRange(filter.completionFrom(), filter.completionTo(), "fullføring");
+
+        Integer typeId = null;
+        if (filter.type() != null && !filter.type().isBlank()) {
+            Optional<Integer> existingTypeId = challengeTypeService.findId(filter.type());
+            if (existingTypeId.isEmpty()) {
+                return Page.empty(pageable);
+            }
+            typeId = existingTypeId.get();
+        }
+
+        return withPreviews(
+                challengeRepository.findDTOs(
+                        ChallengeSpecifications.filter(user, filter, typeId), pageable),
+                user);
     }
 
     /**
@@ -173,9 +312,8 @@ public class ChallengeService {
      * @return A page of ChallengeDTOs of active challenges.
      */
     public Page<ChallengeDTO> getActiveChallenges(User user, Pageable pageable) {
-        return challengeRepository
-                .findAllByCompletedOnIsNullAndUser(user, pageable)
-                .map(ChallengeMapper.INSTANCE::toDTO);
+        return withPreviews(
+                challengeRepository.findDTOs(ChallengeSpecifications.active(user), pageable), user);
     }
 
     /**
@@ -186,9 +324,9 @@ public class ChallengeService {
      * @return A page of ChallengeDTOs of completed challenges.
      */
     public Page<ChallengeDTO> getCompletedChallenges(User user, Pageable pageable) {
-        return challengeRepository
-                .findAllByCompletedOnIsNotNullAndUser(user, pageable)
-                .map(ChallengeMapper.INSTANCE::toDTO);
+        return withPreviews(
+                challengeRepository.findDTOs(ChallengeSpecifications.completed(user), pageable),
+                user);
     }
 
     /**
@@ -200,6 +338,11 @@ public class ChallengeService {
      * @return ChallengeDTO representing the completed challenge.
      * @throws ChallengeAlreadyCompletedException If the challenge is already marked as completed.
      */
+    @Caching(
+            evict = {
+                @CacheEvict(value = CacheConfig.CHALLENGE_STATS, key = "#user.id"),
+                @CacheEvict(value = CacheConfig.PLATFORM_CHALLENGE_STATS, allEntries = true)
+            })
     public ChallengeDTO completeChallenge(Long challengeId, User user) {
         Challenge challenge = privateGetChallenge(challengeId, user);
 
@@ -208,11 +351,37 @@ public class ChallengeService {
         }
 
         challenge.setCompletedOn(ZonedDateTime.now());
-        updateUserSavedAmount(user, challenge.getSaved().doubleValue());
+        updateUserSavedAmount(user, Money.of(challenge.getSaved()));
 
         updateStreak(challenge);
         Challenge completedChallenge = challengeRepository.save(challenge);
-        return ChallengeMapper.INSTANCE.toDTO(completedChallenge);
+        return toDTO(completedChallenge, user);
+    }
+
+    /**
+     * Gets per-type statistics of a user's challenges. The result is cached per user, and
+     * evicted whenever one of the user's challenges is created, updated, completed or deleted.
+     * Challenges also become overdue as time passes, so cached results expire after a few
+     * minutes.
+     *
+     * @param user The user whose challenge statistics are retrieved.
+     * @return List of statistics, one per challenge type.
+     */
+    @Cacheable(value = CacheConfig.CHALLENGE_STATS, key = "#user.id")
+    public List<ChallengeTypeStatsDTO> getChallengeStats(User user) {
+        return challengeRepository.findTypeStatsByUser(user);
+    }
+
+    /**
+     * Gets per-type statistics of all challenges on the platform. The result is cached, and
+     * evicted whenever any challenge is created, updated, completed or deleted. Like the
+     * statistics of a user, the cached result expires after a few minutes.
+     *
+     * @return List of statistics, one per challenge type.
+     */
+    @Cacheable(value = CacheConfig.PLATFORM_CHALLENGE_STATS, key = "'all'")
+    public List<ChallengeTypeStatsDTO> getPlatformChallengeStats() {
+        return challengeRepository.findTypeStats();
     }
 
     /**
@@ -222,8 +391,8 @@ public class ChallengeService {
      * @param user The user whose goals are to be updated.
      * @param increment The amount by which the user's saved funds have increased.
      */
-    private void cascadeToGoal(User user, double increment) {
-        while (increment > 0) {
+    private void cascadeToGoal(User user, Money increment) {
+        while (increment.isPositive()) {
             Optional<Goal> optionalGoal =
                     user.getGoals().stream()
                             .filter(goal -> goal.getCompletedOn() == null)
@@ -235,10 +404,11 @@ public class ChallengeService {
 
             Goal goal = optionalGoal.get();
             assert goal.getPriority() == 1;
-            double goalDifference = goal.getTarget().doubleValue() - goal.getSaved().doubleValue();
+            Money goalSaved = Money.of(goal.getSaved());
+            Money goalDifference = Money.of(goal.getTarget()).minus(goalSaved);
             // Set saved value to original value + overflow
-            if (increment < goalDifference) {
-                goal.setSaved(BigDecimal.valueOf(goal.getSaved().doubleValue() + increment));
+            if (!increment.isAtLeast(goalDifference)) {
+                goal.setSaved(goalSaved.plus(increment).toBigDecimal());
             }
             // if overflow >= goalDifference, complete goal
             else {
@@ -246,12 +416,13 @@ public class ChallengeService {
                 goalService.completeGoal(goal.getId(), user);
             }
 
-            increment = increment - goalDifference;
+            increment = increment.minus(goalDifference);
         }
     }
 
     /**
      * Updates the user's streak based on challenge completion relative to its due date and other active challenges.
+     * Overdue active challenges are found with an existence query, without loading them.
      *
      * @param challenge The challenge being used to update the streak.
      */
@@ -260,14 +431,8 @@ public class ChallengeService {
 
         boolean resetStreak =
                 challenge.getCompletedOn().isAfter(challenge.getDue())
-                        || user.getChallenges().stream()
-                                .anyMatch(
-                                        _challenge ->
-                                                _challenge.getDue() != null
-                                                        && _challenge.getCompletedOn() == null
-                                                        && _challenge
-                                                                .getDue()
-                                                                .isBefore(ZonedDateTime.now()));
+                        || challengeRepository.existsByUserAndCompletedOnIsNullAndDueBefore(
+                                user, ZonedDateTime.now());
 
         if (resetStreak) {
             user.setStreak(0L);
@@ -286,8 +451,8 @@ public class ChallengeService {
      * @param user The user whose saved amount is being updated.
      * @param increment The amount added to the user's saved total.
      */
-    private void updateUserSavedAmount(User user, double increment) {
-        user.setSavedAmount(BigDecimal.valueOf(user.getSavedAmount().doubleValue() + increment));
+    private void updateUserSavedAmount(User user, Money increment) {
+        user.setSavedAmount(Money.of(user.getSavedAmount()).plus(increment).toBigDecimal());
     }
 
     /**
@@ -299,63 +464,63 @@ public class ChallengeService {
         if (user.getUserConfig().getChallengeConfig().getMotivation() == null) {
             throw new ChallengeConfigNotFoundException(user.getId());
         }
-        List<String> types = getAvailableTypes(user);
-        return generateChallenges(types, user);
+        List<ChallengeTypeConfig> typeConfigs = getAvailableTypeConfigs(user);
+        return generateChallenges(typeConfigs, user);
     }
 
     /**
-     * Gets the types that challenges can be generated for. An available type is a type
-     * defined in the user config that currently has no active challenges.
+     * Gets the type configs that challenges can be generated for. An available type is a type
+     * defined in the user config that currently has no active challenges. The active types are
+     * fetched as type keys in a single query.
      * @param user The user that the config is based on.
-     * @return List of types as strings
+     * @return List of available type configs
      */
-    private List<String> getAvailableTypes(User user) {
+    private List<ChallengeTypeConfig> getAvailableTypeConfigs(User user) {
+        Set<Integer> activeTypeIds = challengeRepository.findActiveTypeIdsByUser(user);
         return user.getUserConfig().getChallengeConfig().getChallengeTypeConfigs().stream()
-                .map(ChallengeTypeConfig::getType)
-                .distinct()
-                .filter(
-                        type ->
-                                !challengeRepository
-                                        .findAllByCompletedOnIsNullAndUser(user)
-                                        .stream()
-                                        .map(Challenge::getType)
-                                        .filter(Objects::nonNull)
-                                        .toList()
-                                        .contains(type))
+                .filter(config -> !activeTypeIds.contains(getTypeId(config)))
                 .toList();
     }
 
+    /**
+     * Gets the type key of a type config. Type configs that have yet to be assigned a key by the
+     * startup backfill are looked up by their type, without writing to the managed config or
+     * creating the type, so generating challenges stays read-only.
+     * @param config The type config
+     * @return Key of the type, or null if the type is not in the type dimension
+     */
+    private Integer getTypeId(ChallengeTypeConfig config) {
+        if (config.getTypeId() != null) return config.getTypeId();
+        return challengeTypeService.findId(config.getType()).orElse(null);
+    }
+
     /**
      * Generates a list of randomized challenges. The randomization is in the target amount
      * and due date
-     * @param availableTypes Types that challenges are generated for.
+     * @param availableTypeConfigs Type configs that challenges are generated for.
      * @param user The user who challenges is generated for.
      * @return List of generated challenges with slight randomization.
      */
-    private List<ChallengeDTO> generateChallenges(List<String> availableTypes, User user) {
+    private List<ChallengeDTO> generateChallenges(
+            List<ChallengeTypeConfig> availableTypeConfigs, User user) {
         double motivationValue = user.getUserConfig().getChallengeConfig().getMotivation().getVal();
 
-        return availableTypes.stream()
-                .map(type -> generateChallenge(user, type, motivationValue))
+        return availableTypeConfigs.stream()
+                .map(config -> generateChallenge(user, config, motivationValue))
                 .filter(Objects::nonNull)
                 .toList();
     }
 
     /**
-     * Generates a single challenge based on a type from user config
+     * Generates a single challenge based on a type config from user config
      * @param user User who challenge is generated for
-     * @param type Challenge type
+     * @param challengeTypeConfig Config of the challenge type
      * @param motivationValue Willingness for saving
      * @return Generated challenge of a given type
      */
-    private ChallengeDTO generateChallenge(User user, String type, double motivationValue) {
-
-        // Finding challenge type config from available types
-        ChallengeTypeConfig challengeTypeConfig =
-                user.getUserConfig().getChallengeConfig().getChallengeTypeConfigs().stream()
-                        .filter(config -> config.getType().equalsIgnoreCase(type))
-                        .findFirst()
-                        .get();
+    private ChallengeDTO generateChallenge(
+            User user, ChallengeTypeConfig challengeTypeConfig, double motivationValue) {
+        String type = challengeTypeConfig.getType();
 
         double amountPerWeek = challengeTypeConfig.getGeneralAmount().doubleValue();
         double amountPerUnit = challengeTypeConfig.getSpecificAmount().doubleValue();
@@ -368,9 +533,16 @@ public class ChallengeService {
             return null;
         } else {
             double targetValue = Math.round(units * motivationValue) * amountPerUnit;
-            String title = type.substring(0, 1).toUpperCase() + type.substring(1).toLowerCase();
+            String title = ApplicationUtil.formatType(type);
             return createChallenge(
-                    title, amountPerUnit, amountPerWeek, weeks, targetValue, type, user);
+                    title,
+                    amountPerUnit,
+                    amountPerWeek,
+                    weeks,
+                    targetValue,
+                    type,
+                    getTypeId(challengeTypeConfig),
+                    user);
         }
     }
 
@@ -385,6 +557,7 @@ public class ChallengeService {
      * @param weeks The duration of the challenge, in weeks.
      * @param targetValue The financial target value that the challenge aims to achieve.
      * @param type The type of challenge, which could be a category or specific tag related to the user's activities.
+     * @param typeId Key of the challenge type in the challenge type dimension.
      * @param user The user who is initiating the challenge.
      * @return A ChallengeDTO that encapsulates the newly created challenge's details.
      */
@@ -395,6 +568,7 @@ public class ChallengeService {
             int weeks,
             double targetValue,
             String type,
+            Integer typeId,
             User user) {
         double unitsPerWeek = amountPerWeek / amountPerUnit;
         double targetUnits = targetValue / amountPerUnit;
@@ -429,6 +603,7 @@ public class ChallengeService {
                         null,
                         ZonedDateTime.now().plusDays(days),
                         type,
+                        typeId,
                         user,
                         BigDecimal.ZERO);
         return ChallengeMapper.INSTANCE.toDTO(challenge);
@@ -0,0 +1,164 @@
+package org.ntnu.idi.idatt2106.sparesti.sparestibackend.service;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.ntnu.idi.idatt2106.sparesti.sparestibackend.model.ChallengeTypeEntity;
+import org.ntnu.idi.idatt2106.sparesti.sparestibackend.repository.ChallengeRepository;
+import org.ntnu.idi.idatt2106.sparesti.sparestibackend.repository.ChallengeTypeConfigRepository;
+import org.ntnu.idi.idatt2106.sparesti.sparestibackend.repository.ChallengeTypeRepository;
+import org.ntnu.idi.idatt2106.sparesti.sparestibackend.util.ApplicationUtil;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Service class for resolving challenge types to their integer keys in the challenge type
+ * dimension. Resolved types are kept in an in-memory cache, so a type name is only looked up
+ * in the database the first time it is seen.
+ *
+ * @author Yasin M.
+ * @version 1.0
+ * @since 2.5.24
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ChallengeTypeService {
+
+    private final ChallengeTypeRepository challengeTypeRepository;
+
+    private final ChallengeRepository challengeRepository;
+
+    private final ChallengeTypeConfigRepository challengeTypeConfigRepository;
+
+    private final Map<String, ChallengeTypeEntity> typesByName = new ConcurrentHashMap<>();
+
+    private final Map<Integer, ChallengeTypeEntity> typesById = new ConcurrentHashMap<>();
+
+    /**
+     * Loads the existing challenge types into the cache and assigns type keys to
+     * challenges and type configs that were persisted before the type dimension existed.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void initialize() {
+        challengeTypeRepository.findAll().forEach(this::cache);
+        int updated = 0;
+        for (String type : challengeRepository.findTypesWithoutTypeId()) {
+            ChallengeTypeEntity challengeType = resolve(type);
+            if (challengeType != null) {
+                updated +=
+                        challengeRepository.assignTypeId(
+                                type, challengeType.getName(), challengeType.getId());
+            }
+        }
+        for (String type : challengeTypeConfigRepository.findTypesWithoutTypeId()) {
+            Integer typeId = resolveId(type);
+            if (typeId != null) {
+                updated += challengeTypeConfigRepository.assignTypeId(type, typeId);
+            }
+        }
+        log.info(
+                "Loaded {} challenge types, assigned type keys to {} challenges and type configs",
+                typesById.size(),
+                updated);
+    }
+
+    /**
+     * Resolves a type to its entry in the type dimension. The entry is created if the
+     * canonical type name has not been seen before. Runs outside any surrounding
+     * transaction, so a concurrent insert of the same type does not roll back the caller.
+     * @param type Unformatted type
+     * @return The challenge type, or null if the type is null or blank
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public ChallengeTypeEntity resolve(String type) {
+        if (type == null || type.isBlank()) return null;
+
+        String name = ApplicationUtil.formatType(type);
+        ChallengeTypeEntity cached = typesByName.get(name);
+        if (cached != null) return cached;
+
+        ChallengeTypeEntity challengeType =
+                challengeTypeRepository.findByName(name).orElseGet(() -> create(name));
+        cache(challengeType);
+        return challengeType;
+    }
+
+    /**
+     * Resolves a type to its integer key, creating the type if needed
+     * @param type Unformatted type
+     * @return Key of the type, or null if the type is null or blank
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public Integer resolveId(String type) {
+        ChallengeTypeEntity challengeType = resolve(type);
+        return challengeType == null ? null : challengeType.getId();
+    }
+
+    /**
+     * Finds the key of an existing type without creating it
+     * @param type Unformatted type
+     * @return Optional wrapper around the key of the type
+     */
+    public Optional<Integer> findId(String type) {
+        if (type == null || type.isBlank()) return Optional.empty();
+
+        String name = ApplicationUtil.formatType(type);
+        ChallengeTypeEntity cached = typesByName.get(name);
+        if (cached != null) return Optional.of(cached.getId());
+
+        Optional<ChallengeTypeEntity> challengeType = challengeTypeRepository.findByName(name);
+        challengeType.ifPresent(this::cache);
+        return challengeType.map(ChallengeTypeEntity::getId);
+    }
+
+    /**
+     * Gets the canonical name of a type from its key
+     * @param typeId Key of the type
+     * @return Canonical type name, or null if no type has the key
+     */
+    public String nameOf(Integer typeId) {
+        if (typeId == null) return null;
+
+        ChallengeTypeEntity cached = typesById.get(typeId);
+        if (cached != null) return cached.getName();
+
+        return challengeTypeRepository
+                .findById(typeId)
+                .map(
+                        challengeType -> {
+                            cache(challengeType);
+                            return challengeType.getName();
+                        })
+                .orElse(null);
+    }
+
+    /**
+     * Persists a new type. If another request inserted the same type in the meantime,
+     * the existing type is read back instead.
+     * @param name Canonical type name
+     * @return The persisted type
+     */
+    private ChallengeTypeEntity create(String name) {
+        try {
+            return challengeTypeRepository.saveAndFlush(new ChallengeTypeEntity(name));
+        } catch (DataIntegrityViolationException e) {
+            return challengeTypeRepository.findByName(name).orElseThrow(() -> e);
+        }
+    }
+
+    /**
+     * Adds a type to the cache
+     * @param challengeType The type
+     */
+    private void cache(ChallengeTypeEntity challengeType) {
+        typesByName.put(challengeType.getName(), challengeType);
+        typesById.put(challengeType.getId(), challengeType);
+    }
+}
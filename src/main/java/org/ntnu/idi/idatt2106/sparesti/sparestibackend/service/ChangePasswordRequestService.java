@@ -1,76 +1,132 @@
 package org.ntnu.idi.idatt2106.sparesti.sparestibackend.service;
 
-import java.time.Duration;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
 import java.time.LocalDateTime;
-import java.util.Properties;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 import java.util.UUID;
-import javax.mail.*;
-import javax.mail.internet.InternetAddress;
-import javax.mail.internet.MimeMessage;
-import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.ntnu.idi.idatt2106.sparesti.sparestibackend.dto.user.ChangePasswordRequestRequest;
 import org.ntnu.idi.idatt2106.sparesti.sparestibackend.dto.user.ResetPasswordRequest;
 import org.ntnu.idi.idatt2106.sparesti.sparestibackend.exception.validation.BadInputException;
 import org.ntnu.idi.idatt2106.sparesti.sparestibackend.model.ChangePasswordRequest;
+import org.ntnu.idi.idatt2106.sparesti.sparestibackend.model.OutboundMail;
 import org.ntnu.idi.idatt2106.sparesti.sparestibackend.repository.ChangePasswordRequestRepository;
+import org.ntnu.idi.idatt2106.sparesti.sparestibackend.util.MailProperties;
+import org.ntnu.idi.idatt2106.sparesti.sparestibackend.util.MailTemplate;
+import org.ntnu.idi.idatt2106.sparesti.sparestibackend.util.PasswordResetProperties;
+import org.ntnu.idi.idatt2106.sparesti.sparestibackend.util.PasswordResetTokens;
 import org.ntnu.idi.idatt2106.sparesti.sparestibackend.validation.ObjectValidator;
 import org.ntnu.idi.idatt2106.sparesti.sparestibackend.validation.RegexValidator;
-import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
 /**
  * Service for managing password change requests and related operations, such as sending password
  * reset emails and updating user passwords. This service validates requests, manages email
  * interactions, and ensures user authentication changes are handled securely.
+ * Reset tokens are stored as their HMAC-SHA256 digest, which is cheap to compute and compare,
+ * and useless to anyone who reads the database without the key. The queued email only holds
+ * the id of the request, which the token is derived from when the email is sent.
  *
  * @author L.M.L Nilsen
  */
+@Slf4j
 @Service
-@RequiredArgsConstructor
 public class ChangePasswordRequestService {
 
+    private static final String RESET_PASSWORD_SUBJECT = "Reset Password";
+
+    private static final MailTemplate RESET_PASSWORD_TEMPLATE =
+            MailTemplate.compile(
+                    "Hei🐷\n\n"
+                            + "Trykk på linken for å endre passordet ditt og logg på SpareSti!\n"
+                            + "\n{url}?resetID={resetID}&userID={userID}");
+
     private final UserService userService;
+    private final MailQueueService mailQueueService;
+    private final MailProperties mailProperties;
+    private final PasswordResetProperties passwordResetProperties;
+    private final PasswordResetTokens passwordResetTokens;
     private final ChangePasswordRequestRepository changePasswordRequestRepository;
-    private final PasswordEncoder passwordEncoder;
 
     private final ObjectValidator<ChangePasswordRequestRequest>
             changePasswordRequestRequestValidator;
     private final ObjectValidator<ResetPasswordRequest> resetPasswordRequestValidator;
 
     /**
-     * Sends a password reset email to the user if the email provided is valid and exists in the system.
-     * This method generates a unique key for password reset, before sending it via email.
-     * The method also encodes the unique key and stores it in the database.
+     * Creates the service
+     * @param userService Service for users
+     * @param mailQueueService Service that queues the reset emails
+     * @param mailProperties Mail properties
+     * @param passwordResetProperties Password reset properties
+     * @param passwordResetTokens Derives and digests reset tokens
+     * @param changePasswordRequestRepository Repository for password change requests
+     * @param changePasswordRequestRequestValidator Validator of password change requests
+     * @param resetPasswordRequestValidator Validator of password resets
+     */
+    public ChangePasswordRequestService(
+            UserService userService,
+            MailQueueService mailQueueService,
+            MailProperties mailProperties,
+            PasswordResetProperties passwordResetProperties,
+            PasswordResetTokens passwordResetTokens,
+            ChangePasswordRequestRepository changePasswordRequestRepository,
+            ObjectValidator<ChangePasswordRequestRequest> changePasswordRequestRequestValidator,
+            ObjectValidator<ResetPasswordRequest> resetPasswordRequestValidator) {
+        this.userService = userService;
+        this.mailQueueService = mailQueueService;
+        this.mailProperties = mailProperties;
+        this.passwordResetProperties = passwordResetProperties;
+        this.passwordResetTokens = passwordResetTokens;
+        this.changePasswordRequestRepository = changePasswordRequestRepository;
+        this.changePasswordRequestRequestValidator = changePasswordRequestRequestValidator;
+        this.resetPasswordRequestValidator = resetPasswordRequestValidator;
+    }
+
+    /**
+     * Queues a password reset email to the user if the email provided is valid and exists in the system.
+     * This method generates a random request id, and queues an email that links to the reset token
+     * derived from it. The email is sent in the background, so the request never waits for the mail
+     * server, and the link is rendered when it is sent, so the queue never holds a usable token.
+     * The method also stores the digest of the token in the database.
      *
      * @param request DTO containing the email address for the password reset request.
-     * @throws MessagingException If there is an error while attempting to send the email.
      * @throws BadInputException If the provided email address is not valid.
      */
-    public void sendForgotPasswordEmail(ChangePasswordRequestRequest request)
-            throws MessagingException {
+    public void sendForgotPasswordEmail(ChangePasswordRequestRequest request) {
         changePasswordRequestRequestValidator.validate(request);
         if (!RegexValidator.isEmailValid(request.email())) {
             throw new BadInputException("The email address is invalid.");
         }
-        if (!userService.userExistByEmail(request.email())) {
+        Optional<Long> userID = userService.findUserIdByEmail(request.email());
+        if (userID.isEmpty()) {
             return;
         }
 
-        UUID uniqueKey = UUID.randomUUID();
-        String encodedUniqueKey = passwordEncoder.encode(uniqueKey.toString());
+        String requestId = UUID.randomUUID().toString();
 
-        save(request.email(), encodedUniqueKey);
+        save(userID.get(), passwordResetTokens.token(requestId));
 
-        try {
-            sendEmail(request.email(), uniqueKey.toString());
-        } catch (MessagingException e) {
-            throw new MessagingException("Server error");
-        }
+        mailQueueService.enqueue(
+                new MailMessage(
+                        request.email(),
+                        RESET_PASSWORD_SUBJECT,
+                        RESET_PASSWORD_TEMPLATE.render(
+                                Map.of(
+                                        "url", mailProperties.getResetPasswordUrl(),
+                                        "resetID", OutboundMail.RESET_ID_PLACEHOLDER,
+                                        "userID", userID.get().toString())),
+                        requestId));
     }
 
     /**
      * Resets the user's password if the reset request is valid, the user exists, and the request
-     * was made within 24 hours of the change request.
+     * has not expired. The request is found with a single lookup, and deleted once it has been used.
+     * Requests without an expiry time are treated as expired.
      * Also validates the strength of the new password.
      *
      * @param request DTO containing the user ID, reset ID, and new password.
@@ -78,14 +134,11 @@ public class ChangePasswordRequestService {
      */
     public void resetPassword(ResetPasswordRequest request) {
         resetPasswordRequestValidator.validate(request);
-        if (!changePasswordRequestExistsByUserID(request.userID())) {
-            return;
-        }
-        if (!isLessThan24HoursAgo(
-                changePasswordRequestRepository
-                        .findChangePasswordRequestByUserID(request.userID())
-                        .get()
-                        .getTime())) {
+        Optional<ChangePasswordRequest> changePasswordRequest =
+                changePasswordRequestRepository.findById(request.userID());
+        if (changePasswordRequest.isEmpty()
+                || changePasswordRequest.get().getExpiresAt() == null
+                || !changePasswordRequest.get().getExpiresAt().isAfter(LocalDateTime.now())) {
             return;
         }
         if (!RegexValidator.isPasswordStrong(request.newPassword())) {
@@ -93,108 +146,61 @@ public class ChangePasswordRequestService {
                     "Password must be at least 8 characters long, include numbers, upper and lower"
                             + " case letters, and at least one special character");
         }
-        if (passwordEncoder.matches(
-                request.resetID(),
-                changePasswordRequestRepository.findIdByUserId(request.userID()).get())) {
+        String digest = passwordResetTokens.digest(request.resetID());
+        if (MessageDigest.isEqual(
+                digest.getBytes(StandardCharsets.US_ASCII),
+                changePasswordRequest.get().getId().getBytes(StandardCharsets.US_ASCII))) {
             userService.updatePassword(request.userID(), request.newPassword());
+            changePasswordRequestRepository.delete(changePasswordRequest.get());
         }
     }
 
-    /**
-     * Checked if the given LocalDateTime is less than 24 hours ago.
-     *
-     * @param dateTime The LocalDateTime to check.
-     * @return true if the dateTime is less than 24 hours ago, false otherwise.
-     */
-    public static boolean isLessThan24HoursAgo(LocalDateTime dateTime) {
-        LocalDateTime now = LocalDateTime.now();
-        Duration duration = Duration.between(dateTime, now);
-
-        return duration.toHours() < 24 && !duration.isNegative();
-    }
-
     /**
      * Saves a password reset request in the database. If an existing request is found for the user,
      * it is replaced with the new request.
      *
      * @param email The user's email address associated with the password reset request.
-     * @param encodedUniqueKey The encoded unique key for the password reset, used to verify the request.
+     * @param uniqueKey The unique key for the password reset, whose digest is stored to verify the request.
      */
-    public void save(String email, String encodedUniqueKey) {
-        if (userService.userExistByEmail(email)) {
-
-            Long userID = userService.findUserByEmail(email).getId();
-            ChangePasswordRequest cpr =
-                    ChangePasswordRequest.builder().id(encodedUniqueKey).userID(userID).build();
-
-            if (changePasswordRequestExistsByUserID(userID)) {
-                changePasswordRequestRepository.deleteById(cpr.getUserID());
-            }
-            changePasswordRequestRepository.save(cpr);
-        }
-    }
-
-    /**
-     * Checks if a password reset request exists in the database for a given user ID.
-     *
-     * @param userID The user ID to check for existing password reset requests.
-     * @return true if a password reset request exists, false otherwise.
-     */
-    private boolean changePasswordRequestExistsByUserID(Long userID) {
-        return changePasswordRequestRepository
-                .findChangePasswordRequestByUserID(userID)
-                .isPresent();
+    public void save(String email, String uniqueKey) {
+        userService.findUserIdByEmail(email).ifPresent(userID -> save(userID, uniqueKey));
     }
 
     /**
-     * Sends an email with a password reset link. This method configures and sends an email
-     * to the specified address with a unique reset link that the user can use to reset their password.
+     * Saves a password reset request in the database, replacing the user's existing request.
      *
-     * @param email The email address to which the reset link will be sent.
-     * @param uniqueKey The unique key that validates the password reset request.
-     * @throws MessagingException If there are issues configuring or sending the email.
+     * @param userID The id of the user who requested the password reset.
+     * @param uniqueKey The unique key for the password reset, whose digest is stored to verify the request.
      */
-    private void sendEmail(String email, String uniqueKey) throws MessagingException {
-        Session session = createEmailSession();
-
-        Message message = new MimeMessage(session);
-        message.setFrom(new InternetAddress(email)); // Assuming 'email' is a valid email
-        message.setRecipients(Message.RecipientType.TO, InternetAddress.parse(email));
-        message.setSubject("Reset Password");
-
-        String userID = userService.findUserByEmail(email).getId().toString();
-        message.setText(
-                "Hei🐷\n\n"
-                        + "Trykk på linken for å endre passordet ditt og logg på SpareSti!\n"
-                        + "\nhttp://localhost:5173/forgotPassword?resetID="
-                        + uniqueKey
-                        + "&userID="
-                        + userID);
-
-        Transport.send(message);
+    private void save(Long userID, String uniqueKey) {
+        LocalDateTime now = LocalDateTime.now();
+        ChangePasswordRequest cpr =
+                changePasswordRequestRepository
+                        .findById(userID)
+                        .orElseGet(() -> ChangePasswordRequest.builder().userID(userID).build());
+        cpr.setId(passwordResetTokens.digest(uniqueKey));
+        cpr.setTime(now);
+        cpr.setExpiresAt(now.plus(passwordResetProperties.getTokenTtl()));
+        changePasswordRequestRepository.save(cpr);
     }
 
     /**
-     * Creates and configures a mail session using SMTP settings to send emails.
-     * This setup includes the SMTP server details and the credentials used for authentication.
-     *
-     * @return A configured Session object ready for sending emails.
+     * Deletes expired password reset requests, and requests without an expiry time, in batches.
+     * Runs every hour unless the password-reset.purge-cron property says otherwise.
      */
-    private Session createEmailSession() {
-        Properties prop = new Properties();
-        prop.put("mail.smtp.host", "smtp.gmail.com");
-        prop.put("mail.smtp.port", "587");
-        prop.put("mail.smtp.auth", "true");
-        prop.put("mail.smtp.starttls.enable", "true");
-
-        return Session.getInstance(
-                prop,
-                new Authenticator() {
-                    @Override
-                    protected PasswordAuthentication getPasswordAuthentication() {
-                        return new PasswordAuthentication(
-                                System.getenv("EMAIL_USERNAME"), System.getenv("EMAIL_PASSWORD"));
-                    }
-                });
+    @Scheduled(cron = "${password-reset.purge-cron:0 15 * * * *}")
+    public void purgeExpired() {
+        LocalDateTime now = LocalDateTime.now();
+        int batchSize = passwordResetProperties.getPurgeBatchSize();
+        int purged = 0;
+        List<Long> userIds;
+        do {
+            userIds =
+                    changePasswordRequestRepository.findExpiredUserIds(
+                            now, PageRequest.of(0, batchSize));
+            if (userIds.isEmpty()) break;
+            purged += changePasswordRequestRepository.deleteExpired(userIds, now);
+        } while (userIds.size() == batchSize);
+        log.info("Purged {} expired password reset requests", purged);
     }
 }
@@ -1,69 +1,194 @@
 package org.ntnu.idi.idatt2106.sparesti.sparestibackend.service;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import java.io.BufferedInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.nio.file.StandardCopyOption;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Stream;
+import lombok.extern.slf4j.Slf4j;
+import org.ntnu.idi.idatt2106.sparesti.sparestibackend.exception.storage.FileTooLargeException;
 import org.ntnu.idi.idatt2106.sparesti.sparestibackend.exception.storage.StorageException;
 import org.ntnu.idi.idatt2106.sparesti.sparestibackend.exception.storage.StorageFileNotFoundException;
+import org.ntnu.idi.idatt2106.sparesti.sparestibackend.exception.storage.StorageQuotaExceededException;
+import org.ntnu.idi.idatt2106.sparesti.sparestibackend.model.Challenge;
+import org.ntnu.idi.idatt2106.sparesti.sparestibackend.model.Goal;
+import org.ntnu.idi.idatt2106.sparesti.sparestibackend.model.ImageBlob;
+import org.ntnu.idi.idatt2106.sparesti.sparestibackend.model.StoredImage;
 import org.ntnu.idi.idatt2106.sparesti.sparestibackend.model.User;
+import org.ntnu.idi.idatt2106.sparesti.sparestibackend.model.enums.ImageFormat;
+import org.ntnu.idi.idatt2106.sparesti.sparestibackend.model.enums.ImageKind;
+import org.ntnu.idi.idatt2106.sparesti.sparestibackend.model.enums.ImageSize;
 import org.ntnu.idi.idatt2106.sparesti.sparestibackend.repository.ChallengeRepository;
 import org.ntnu.idi.idatt2106.sparesti.sparestibackend.repository.GoalRepository;
+import org.ntnu.idi.idatt2106.sparesti.sparestibackend.repository.StoredImageRepository;
+import org.ntnu.idi.idatt2106.sparesti.sparestibackend.repository.UserRepository;
 import org.ntnu.idi.idatt2106.sparesti.sparestibackend.util.StorageProperties;
+import org.ntnu.idi.idatt2106.sparesti.sparestibackend.validation.ImageUploadValidator;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.InputStreamResource;
 import org.springframework.core.io.Resource;
-import org.springframework.core.io.UrlResource;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
 /**
  * Service responsible for uploading and getting images for users, challenges and goals.
+ * The location, content type and checksum of every image is stored as {@link StoredImage}
+ * metadata, with a bounded in-memory cache in front of it, so an image is resolved with a single
+ * lookup instead of probing the file system for each supported extension. The files are
+ * stored as content-addressed blobs by {@link ImageBlobService}, so equal images are stored
+ * once. Each upload publishes an {@link ImageUploadedEvent}, which triggers generation of the
+ * scaled renditions. The sizes of original images count towards the storage quota of their
+ * owner, which is checked by {@link StorageQuotaService} before an upload is stored.
+ * <p>
+ * The metadata only points to another blob, or is deleted, if its blob has not changed since
+ * it was read, so each reference to a blob is released once even when an upload races with
+ * the generation of renditions.
  *
  * @author L.M.L. Nilsen
  * @version 1.0
  * @since 1.5.24
  */
+@Slf4j
 @Service
 public class FileSystemStorageService {
 
+    /**
+     * Largest number of images that can be requested at once
+     */
+    public static final int MAX_BATCH_SIZE = 50;
+
+    /**
+     * Number of times the metadata of an image is tried changed when it is changed concurrently
+     */
+    private static final int UPDATE_ATTEMPTS = 3;
+
     private final UserService userService;
+    private final UserRepository userRepository;
     private final ChallengeRepository challengeRepository;
     private final GoalRepository goalRepository;
+    private final StoredImageRepository storedImageRepository;
+    private final ImageBlobService imageBlobService;
+    private final StorageQuotaService storageQuotaService;
+    private final ImageUploadValidator imageUploadValidator;
+    private final ApplicationEventPublisher eventPublisher;
     private final StorageProperties properties;
     private final Path rootLocation;
 
+    /**
+     * Image metadata that has been looked up, keyed by owner, kind, entity id and rendition.
+     * Entries expire, as changes made by other instances are not evicted from it.
+     */
+    private final Cache<ImageKey, StoredImage> imageCache;
+
     /**
      * Constructor for FileSystemStorageService
      * @param userService User service for communicating with users
+     * @param userRepository User repo for finding owners of existing profile pictures
      * @param challengeRepository Challenge repo for finding challenges
      * @param goalRepository Goal repo for finding goals
+     * @param storedImageRepository Repo for image metadata
+     * @param imageBlobService Service that stores the files as blobs
+     * @param storageQuotaService Service that counts the storage usage of users
+     * @param imageUploadValidator Validator for uploaded images
+     * @param eventPublisher Publisher for image upload events
      * @param properties Storage properties
      */
     public FileSystemStorageService(
             UserService userService,
+            UserRepository userRepository,
             ChallengeRepository challengeRepository,
             GoalRepository goalRepository,
+            StoredImageRepository storedImageRepository,
+            ImageBlobService imageBlobService,
+            StorageQuotaService storageQuotaService,
+            ImageUploadValidator imageUploadValidator,
+            ApplicationEventPublisher eventPublisher,
             StorageProperties properties) {
         this.userService = userService;
+        this.userRepository = userRepository;
         this.challengeRepository = challengeRepository;
         this.goalRepository = goalRepository;
+        this.storedImageRepository = storedImageRepository;
+        this.imageBlobService = imageBlobService;
+        this.storageQuotaService = storageQuotaService;
+        this.imageUploadValidator = imageUploadValidator;
+        this.eventPublisher = eventPublisher;
         this.properties = properties;
-        this.rootLocation = Paths.get(properties.getLocation().trim());
+        this.rootLocation = Paths.get(properties.getLocation().trim()).toAbsolutePath().normalize();
+        this.imageCache =
+                Caffeine.newBuilder()
+                        .maximumSize(properties.getMetadataCacheSize())
+                        .expireAfterWrite(properties.getMetadataCacheTtl())
+                        .build();
+    }
+
+    /**
+     * Creates the storage folder, and registers metadata for images that were uploaded before
+     * metadata was stored. The folder is only walked while no metadata exists, i.e. on the
+     * first start after the upgrade.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void initialize() {
+        try {
+            Files.createDirectories(rootLocation);
+        } catch (IOException e) {
+            log.warn("Could not create storage folder {}", rootLocation, e);
+            return;
+        }
+        if (storedImageRepository.count() > 0) return;
+
+        List<Path> files;
+        try (Stream<Path> stream = Files.list(rootLocation)) {
+            files = stream.filter(Files::isRegularFile).toList();
+        } catch (IOException e) {
+            log.warn("Could not list storage folder {}", rootLocation, e);
+            return;
+        }
+        int registered = 0;
+        for (Path file : files) {
+            try {
+                if (registerExistingFile(file)) registered++;
+            } catch (IOException | StorageException e) {
+                log.warn("Could not register image {}", file, e);
+            }
+        }
+        log.info("Registered metadata for {} existing images", registered);
     }
 
     /**
      * Save a valid image for a user, challenge or goal depending on the filename.
-     * If the filename has the format {username}-P.png the image belongs to a user,
-     * {goalId}-G.png for goals and {challengeId}-C.png for a challenge.
-     * The valid filetypes are png, jpg, jpeg and gif.
+     * If the filename has the format {username}-P the image belongs to a user,
+     * {goalId}-G for goals and {challengeId}-C for a challenge.
+     * The valid filetypes are png, jpg and gif, which are recognized from the first bytes of
+     * the file rather than its name. The size is checked while the file is streamed to storage,
+     * and the dimensions are read from the image header before the image is decoded.
      *
      * @param file The image file that is getting saved.
      * @param identifier The filename without the extension.
      * @param userDetails UserDetails for user who wants to save image.
      * @throws IOException If the file is empty.
-     * @throws StorageException If the file type is unsupported, or the filename format is wrong.
+     * @throws StorageException If the file type is unsupported, the image is too large,
+     * or the filename format is wrong.
+     * @throws FileTooLargeException If the file is larger than allowed for its kind.
+     * @throws StorageQuotaExceededException If the file would exceed the user's storage quota.
      */
     public void save(MultipartFile file, String identifier, UserDetails userDetails)
             throws IOException {
@@ -72,22 +197,27 @@ public class FileSystemStorageService {
         }
 
         User user = userService.findUserByUsername(userDetails.getUsername());
-        String originalFilename = file.getOriginalFilename();
-        String fileExtension = originalFilename.substring(originalFilename.lastIndexOf('.'));
-        if (!isValidExtension(fileExtension)) {
-            throw new StorageException("Unsupported file type.");
-        }
-        String newFilename = identifier + fileExtension;
-
-        if (!isValidFilename(identifier)) {
+        ImageKind kind = ImageKind.fromIdentifier(identifier);
+        if (kind == null) {
             throw new StorageException("Incorrect file name format.");
         }
 
-        if (!identifier.contains("-P")) {
-            long id = extractId(identifier);
-            checkOwnershipAndSave(file, user, id, newFilename);
-        } else {
-            checkOwnershipAndSave(file, user, 0L, newFilename);
+        long id = kind == ImageKind.PROFILE ? 0L : extractId(identifier);
+        checkOwnership(kind, id, user);
+
+        long maxSize = imageUploadValidator.maxSize(kind);
+        if (file.getSize() > maxSize) {
+            throw new FileTooLargeException(maxSize);
+        }
+        try (InputStream inputStream = new BufferedInputStream(file.getInputStream())) {
+            ImageFormat format = imageUploadValidator.sniff(inputStream);
+            store(
+                    imageUploadValidator.limit(inputStream, maxSize),
+                    file.getSize(),
+                    user,
+                    kind,
+                    id,
+                    format);
         }
     }
 
@@ -101,17 +231,6 @@ public class FileSystemStorageService {
         return extension.matches("\\.(png|jpg|jpeg|gif)");
     }
 
-    /**
-     * Checks if a filename is supported.
-     * The supported filenames are {username}-P.extension,
-     * {goalId}-G.extension and {challengeId}-C.extension
-     * @param filename The filename being checked
-     * @return true or false depending on if the filename is valid.
-     */
-    private boolean isValidFilename(String filename) {
-        return filename.contains("-P") || filename.contains("-C") || filename.contains("-G");
-    }
-
     /**
      * Extracts the ID from a filename.
      * The id can be either a username,
@@ -129,86 +248,506 @@ public class FileSystemStorageService {
     }
 
     /**
-     * Checks the ownership of goal or challenge, before saving the file.
+     * Checks the ownership of goal or challenge.
      * Used so that only the user that owns the challenge or goal with the given ID can save images for it.
-     * @param file The file to save.
-     * @param user The user wanting to save the file.
+     * @param kind What the image belongs to.
      * @param id The ID of the challenge or goal.
-     * @param newFilename The new filename of the file that is being stored.
-     * @throws IOException If method has problems writing file.
+     * @param user The user wanting to save the file.
      * @throws StorageException If the challenge or goal does not belong to the user trying to save it.
      */
-    private void checkOwnershipAndSave(MultipartFile file, User user, long id, String newFilename)
-            throws IOException {
-        if (newFilename.contains("-C")
-                && !challengeRepository.findByIdAndUser(id, user).isPresent()) {
+    private void checkOwnership(ImageKind kind, long id, User user) throws StorageException {
+        if (kind == ImageKind.CHALLENGE
+                && challengeRepository.findByIdAndUser(id, user).isEmpty()) {
             throw new StorageException("The challenge does not belong to you.");
-        } else if (newFilename.contains("-G")
-                && !goalRepository.findByIdAndUser(id, user).isPresent()) {
+        } else if (kind == ImageKind.GOAL && goalRepository.findByIdAndUser(id, user).isEmpty()) {
             throw new StorageException("The goal does not belong to you.");
         }
+    }
+
+    /**
+     * Stores the file as a blob and points the image metadata to it. The blob of the previous
+     * image is released after the metadata has been updated. Renditions of the previous image
+     * are deleted, so the new original is served until its renditions have been generated.
+     * <p>
+     * The difference in size from the previous image is reserved from the user's quota before
+     * the file is stored, and the reservation is released if storing fails.
+     * @param inputStream The contents of the file to save.
+     * @param size The size of the file, as declared by the upload.
+     * @param user The user who owns the image.
+     * @param kind What the image belongs to.
+     * @param id The ID of the challenge or goal, or 0 for profile pictures.
+     * @param format The format of the image.
+     * @throws IOException If method has problems writing file.
+     * @throws StorageQuotaExceededException If the file would exceed the user's storage quota.
+     */
+    private void store(
+            InputStream inputStream,
+            long size,
+            User user,
+            ImageKind kind,
+            long id,
+            ImageFormat format)
+            throws IOException {
+        long previousSize =
+                storedImageRepository
+                        .findByUserIdAndKindAndEntityIdAndRendition(
+                                user.getId(), kind, id, ImageSize.ORIGINAL)
+                        .map(StoredImage::getSize)
+                        .orElse(0L);
+        long reserved = size - previousSize;
+        storageQuotaService.reserve(user.getId(), reserved);
+
+        ImageBlob blob;
+        Replacement replacement;
+        try {
+            blob =
+                    imageBlobService.store(
+                            inputStream,
+                            format.getExtension(),
+                            file -> imageUploadValidator.checkDimensions(file, format));
+        } catch (IOException | RuntimeException e) {
+            storageQuotaService.add(user.getId(), -reserved);
+            throw e;
+        }
+        try {
+            replacement = pointToBlob(user.getId(), kind, id, ImageSize.ORIGINAL, blob);
+        } catch (RuntimeException e) {
+            storageQuotaService.add(user.getId(), -reserved);
+            imageBlobService.release(blob);
+            throw e;
+        }
+        ImageBlob previousBlob = replacement.previousBlob();
+        // Corrects the reservation if the stored file or the replaced image differ from it
+        storageQuotaService.add(
+                user.getId(),
+                blob.getSize() - (previousBlob == null ? 0 : previousBlob.getSize()) - reserved);
+        imageCache.invalidate(new ImageKey(user.getId(), kind, id, ImageSize.ORIGINAL));
+        if (previousBlob != null) {
+            imageBlobService.release(previousBlob);
+        }
+        deleteRenditions(user.getId(), kind, id);
 
-        String[] possibleExtensions = {".png", ".jpg", ".jpeg", ".gif"};
-        String baseFilename = newFilename.split("\\.")[0];
-        for (String ext : possibleExtensions) {
-            Path testPath = rootLocation.resolve(baseFilename + ext);
-            Files.deleteIfExists(testPath);
+        eventPublisher.publishEvent(
+                new ImageUploadedEvent(
+                        replacement.imageId(),
+                        user.getId(),
+                        kind,
+                        id,
+                        blob.getPath(),
+                        blob.getSize(),
+                        blob.getChecksum()));
+    }
+
+    /**
+     * Points the metadata of a rendition to a blob, and creates the metadata if there is none.
+     * The blob is only replaced if it has not changed since it was read, and the metadata is
+     * read again if it was changed or created concurrently.
+     * @param userId Id of the user who owns the image
+     * @param kind What the image belongs to
+     * @param id The ID of the challenge or goal, or 0 for profile pictures
+     * @param rendition Which rendition the blob is
+     * @param blob The blob
+     * @return Id of the metadata, and the blob it pointed to before
+     * @throws StorageException If the metadata kept changing concurrently
+     */
+    private Replacement pointToBlob(
+            Long userId, ImageKind kind, long id, ImageSize rendition, ImageBlob blob) {
+        for (int attempt = 0; attempt < UPDATE_ATTEMPTS; attempt++) {
+            StoredImage image =
+                    storedImageRepository
+                            .findByUserIdAndKindAndEntityIdAndRendition(userId, kind, id, rendition)
+                            .orElse(null);
+            if (image != null) {
+                if (storedImageRepository.replaceBlob(
+                                image.getId(), image.getBlob(), blob, null, ZonedDateTime.now())
+                        == 1) {
+                    return new Replacement(image.getId(), image.getBlob());
+                }
+                continue;
+            }
+
+            image = new StoredImage(userRepository.getReferenceById(userId), kind, id, rendition);
+            image.setBlob(blob);
+            image.setUpdatedAt(ZonedDateTime.now());
+            try {
+                return new Replacement(storedImageRepository.saveAndFlush(image).getId(), null);
+            } catch (DataIntegrityViolationException e) {
+                log.debug("Image {} {} was created concurrently, replacing it instead", kind, id);
+            }
         }
+        throw new StorageException("The image was changed by another request, please try again.");
+    }
 
-        Path destinationFile =
-                rootLocation.resolve(Paths.get(newFilename)).normalize().toAbsolutePath();
-        try (InputStream inputStream = file.getInputStream()) {
-            Files.copy(inputStream, destinationFile, StandardCopyOption.REPLACE_EXISTING);
+    /**
+     * Deletes the metadata of an image and releases its blob, unless the metadata has been
+     * changed since it was read
+     * @param image Metadata of the image
+     * @return true if the metadata was deleted
+     * @throws IOException If the file could not be deleted
+     */
+    private boolean delete(StoredImage image) throws IOException {
+        if (storedImageRepository.deleteIfBlob(image.getId(), image.getBlob()) == 0) {
+            return false;
         }
+        imageBlobService.release(image.getBlob());
+        return true;
     }
 
     /**
-     * Gets an image for a user, challenge or goal.
+     * Deletes the scaled renditions of an image, releases their blobs, and removes them from
+     * the cache. A rendition that is replaced while it is deleted was generated from the
+     * previous image, and is deleted by {@link #storeRendition} once it sees the new original.
+     * @param userId Id of the user who owns the image
+     * @param kind What the image belongs to
+     * @param id The ID of the challenge or goal, or 0 for profile pictures
+     * @throws IOException If a file could not be deleted
+     */
+    private void deleteRenditions(Long userId, ImageKind kind, long id) throws IOException {
+        for (StoredImage rendition :
+                storedImageRepository.findAllByUserIdAndKindAndEntityId(userId, kind, id)) {
+            if (rendition.getRendition() != ImageSize.ORIGINAL) {
+                delete(rendition);
+            }
+        }
+        for (ImageSize size : ImageSize.values()) {
+            if (size != ImageSize.ORIGINAL) {
+                imageCache.invalidate(new ImageKey(userId, kind, id, size));
+            }
+        }
+    }
+
+    /**
+     * Deletes an image with all its renditions, and releases their blobs. Used when the goal
+     * or challenge the image belongs to has been deleted. Renditions that are replaced while
+     * they are deleted are read again.
+     * @param userId Id of the user who owns the image
+     * @param kind What the image belongs to
+     * @param id The ID of the challenge or goal, or 0 for profile pictures
+     * @return Number of deleted renditions, including the original
+     * @throws IOException If a file could not be deleted
+     */
+    public int deleteImage(Long userId, ImageKind kind, long id) throws IOException {
+        int deleted = 0;
+        for (int attempt = 0; attempt < UPDATE_ATTEMPTS; attempt++) {
+            List<StoredImage> images =
+                    storedImageRepository.findAllByUserIdAndKindAndEntityId(userId, kind, id);
+            if (images.isEmpty()) break;
+
+            for (StoredImage image : images) {
+                if (!delete(image)) continue;
+
+                deleted++;
+                if (image.getRendition() == ImageSize.ORIGINAL) {
+                    storageQuotaService.add(userId, -image.getSize());
+                }
+            }
+        }
+        for (ImageSize size : ImageSize.values()) {
+            imageCache.invalidate(new ImageKey(userId, kind, id, size));
+        }
+        return deleted;
+    }
+
+    /**
+     * Stores a rendition of an uploaded image as a blob, and releases the blob it replaces.
+     * Blob files are moved into place from a temporary file, so they are never served half
+     * written. Nothing is stored if the original has been replaced since the rendition was
+     * generated from it, and a scaled rendition is deleted again if the original is replaced
+     * while it is stored.
+     * @param source The upload the rendition was generated from
+     * @param rendition Which rendition the data is
+     * @param data The encoded rendition
+     * @param extension File extension of the rendition, without the dot
+     * @return true if the rendition was stored, false if the original has been replaced
+     * @throws IOException If the file could not be written
+     */
+    public boolean storeRendition(
+            ImageUploadedEvent source, ImageSize rendition, byte[] data, String extension)
+            throws IOException {
+        StoredImage original = findOriginal(source);
+        if (original == null) return false;
+
+        ImageBlob blob = imageBlobService.store(data, "." + extension);
+        ImageKey key = new ImageKey(source.userId(), source.kind(), source.entityId(), rendition);
+        if (rendition == ImageSize.ORIGINAL) {
+            if (storedImageRepository.replaceBlob(
+                            original.getId(),
+                            original.getBlob(),
+                            blob,
+                            original.getPlaceholder(),
+                            ZonedDateTime.now())
+                    == 0) {
+                imageBlobService.release(blob);
+                return false;
+            }
+            imageCache.invalidate(key);
+            storageQuotaService.add(source.userId(), blob.getSize() - original.getSize());
+            imageBlobService.release(original.getBlob());
+            return true;
+        }
+
+        Replacement replacement;
+        try {
+            replacement =
+                    pointToBlob(source.userId(), source.kind(), source.entityId(), rendition, blob);
+        } catch (RuntimeException e) {
+            imageBlobService.release(blob);
+            throw e;
+        }
+        imageCache.invalidate(key);
+        if (replacement.previousBlob() != null) {
+            imageBlobService.release(replacement.previousBlob());
+        }
+        if (findOriginal(source) == null) {
+            // The renditions of the original were deleted while this one was stored
+            if (storedImageRepository.deleteIfBlob(replacement.imageId(), blob) == 1) {
+                imageCache.invalidate(key);
+                imageBlobService.release(blob);
+            }
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Stores the placeholder of an uploaded image. Nothing is stored if the original has been
+     * replaced since the placeholder was generated from it, or the placeholder is too long.
+     * @param source The upload the placeholder was generated from
+     * @param placeholder Data URI of the placeholder
+     * @return true if the original has not been replaced
+     */
+    public boolean storePlaceholder(ImageUploadedEvent source, String placeholder) {
+        StoredImage original = findOriginal(source);
+        if (original == null) return false;
+
+        if (placeholder.length() > StoredImage.PLACEHOLDER_LENGTH) {
+            log.warn("Placeholder of image {} is too long to store", source.path());
+            return true;
+        }
+        if (storedImageRepository.setPlaceholder(original.getId(), original.getBlob(), placeholder)
+                == 0) {
+            return false;
+        }
+        imageCache.invalidate(
+                new ImageKey(
+                        source.userId(), source.kind(), source.entityId(), ImageSize.ORIGINAL));
+        return true;
+    }
+
+    /**
+     * Finds the original an upload was stored as, unless it has been replaced or deleted
+     * @param source The upload
+     * @return Metadata of the original, or null if it has been replaced or deleted
+     */
+    private StoredImage findOriginal(ImageUploadedEvent source) {
+        return storedImageRepository
+                .findById(source.imageId())
+                .filter(original -> original.getChecksum().equals(source.checksum()))
+                .orElse(null);
+    }
+
+    /**
+     * Finds the metadata of an image for a user, challenge or goal. Only images uploaded by the
+     * user are found, so the ownership of the goal or challenge does not have to be checked again.
      * @param baseFilename The name of the file, without the file extension.
      * @param userDetails The UserDetails of the user wanting to get an image.
-     * @return Returns the file as a Resource.
-     * @throws StorageException If the challenge or goal does not belong to the user.
+     * @return Metadata of the original image
+     * @throws StorageException If the filename format is wrong.
+     * @throws StorageFileNotFoundException If the user has no such image.
      */
-    public Resource getImage(String baseFilename, UserDetails userDetails) {
+    public StoredImage findImage(String baseFilename, UserDetails userDetails)
+            throws StorageException {
+        return findImage(baseFilename, ImageSize.ORIGINAL, userDetails);
+    }
+
+    /**
+     * Finds the metadata of a rendition of an image for a user, challenge or goal. If the
+     * rendition has not been generated yet, the original image is found instead.
+     * @param baseFilename The name of the file, without the file extension.
+     * @param size Which rendition to find.
+     * @param userDetails The UserDetails of the user wanting to get an image.
+     * @return Metadata of the rendition, or of the original image
+     * @throws StorageException If the filename format is wrong.
+     * @throws StorageFileNotFoundException If the user has no such image.
+     */
+    public StoredImage findImage(String baseFilename, ImageSize size, UserDetails userDetails)
+            throws StorageException {
+        ImageKind kind = ImageKind.fromIdentifier(baseFilename);
+        if (kind == null) {
+            throw new StorageException("Incorrect file name format.");
+        }
+        long id = kind == ImageKind.PROFILE ? 0L : extractId(baseFilename);
         User user = userService.findUserByUsername(userDetails.getUsername());
-        String[] possibleExtensions = {".png", ".jpg", ".jpeg", ".gif"};
-
-        Path file = null;
-        for (String ext : possibleExtensions) {
-            Path testPath = rootLocation.resolve(baseFilename + ext);
-            if (Files.exists(testPath)) {
-                file = testPath;
-                break;
-            }
+
+        ImageKey key = new ImageKey(user.getId(), kind, id, size);
+        StoredImage image = imageCache.getIfPresent(key);
+        if (image != null) return image;
+
+        image =
+                storedImageRepository
+                        .findByUserIdAndKindAndEntityIdAndRendition(user.getId(), kind, id, size)
+                        .orElse(null);
+        if (image == null && size != ImageSize.ORIGINAL) {
+            image = findImage(baseFilename, ImageSize.ORIGINAL, userDetails);
         }
-        if (!isValidFilename(baseFilename)) {
-            throw new StorageException("Incorrect file name format.");
+        if (image == null) {
+            throw new StorageFileNotFoundException("Could not read file: " + baseFilename);
         }
-        long id = 0L;
-        if (!baseFilename.contains("-P")) {
-            id = extractId(baseFilename);
+        imageCache.put(key, image);
+        return image;
+    }
+
+    /**
+     * Finds the metadata of a rendition of the images of some of a user's goals and challenges.
+     * The images are found with a single query, which only finds images uploaded by the user,
+     * so the ownership of the goals and challenges is verified for all of them at once. Images
+     * whose rendition has not been generated yet are found as the original image.
+     * @param goalIds Ids of the goals
+     * @param challengeIds Ids of the challenges
+     * @param size Which rendition to find
+     * @param userDetails The UserDetails of the user wanting to get the images
+     * @return Metadata of the goal and challenge images that exist, goals first, in the order
+     * of the ids
+     * @throws StorageException If more than {@link #MAX_BATCH_SIZE} images are requested
+     */
+    public List<StoredImage> findImages(
+            List<Long> goalIds, List<Long> challengeIds, ImageSize size, UserDetails userDetails)
+            throws StorageException {
+        if (goalIds.size() + challengeIds.size() > MAX_BATCH_SIZE) {
+            throw new StorageException(
+                    "At most " + MAX_BATCH_SIZE + " images can be requested at once.");
         }
+        if (goalIds.isEmpty() && challengeIds.isEmpty()) return List.of();
+        User user = userService.findUserByUsername(userDetails.getUsername());
 
-        if (baseFilename.contains("-P")) {
-        } else if (baseFilename.contains("-C")
-                && !challengeRepository.findByIdAndUser(id, user).isPresent()) {
-            throw new StorageException("The challenge does not belong to you.");
-        } else if (baseFilename.contains("-G")
-                && !goalRepository.findByIdAndUser(id, user).isPresent()) {
-            throw new StorageException("The goal does not belong to you.");
+        Map<ImageKey, StoredImage> found = new HashMap<>();
+        for (StoredImage image :
+                storedImageRepository.findImagesOfGoalsAndChallenges(
+                        user.getId(),
+                        goalIds,
+                        challengeIds,
+                        EnumSet.of(size, ImageSize.ORIGINAL))) {
+            found.put(
+                    new ImageKey(
+                            user.getId(),
+                            image.getKind(),
+                            image.getEntityId(),
+                            image.getRendition()),
+                    image);
+        }
+
+        List<StoredImage> images = new ArrayList<>();
+        for (ImageKind kind : List.of(ImageKind.GOAL, ImageKind.CHALLENGE)) {
+            for (Long id : new LinkedHashSet<>(kind == ImageKind.GOAL ? goalIds : challengeIds)) {
+                StoredImage image = found.get(new ImageKey(user.getId(), kind, id, size));
+                if (image == null) {
+                    image = found.get(new ImageKey(user.getId(), kind, id, ImageSize.ORIGINAL));
+                }
+                if (image != null) images.add(image);
+            }
         }
+        return images;
+    }
 
-        Resource resource;
+    /**
+     * Gets an image for a user, challenge or goal.
+     * @param baseFilename The name of the file, without the file extension.
+     * @param userDetails The UserDetails of the user wanting to get an image.
+     * @return Returns the file as a Resource.
+     * @throws StorageException If the user has no such image, or it could not be read.
+     */
+    public Resource getImage(String baseFilename, UserDetails userDetails) {
+        return loadAsResource(findImage(baseFilename, userDetails));
+    }
+
+    /**
+     * Opens a stored file for reading
+     * @param path Key of the file in the storage backend
+     * @return Stream of the file contents
+     * @throws IOException If the file could not be opened
+     */
+    public InputStream openFile(String path) throws IOException {
+        return imageBlobService.open(path);
+    }
+
+    /**
+     * Gets the file of an image as a resource
+     * @param image Metadata of the image
+     * @return The file as a Resource
+     * @throws StorageFileNotFoundException If the file could not be read
+     */
+    public Resource loadAsResource(StoredImage image) throws StorageFileNotFoundException {
+        Optional<Path> file = imageBlobService.localFile(image.getPath());
+        if (file.isPresent()) {
+            return new FileSystemResource(file.get());
+        }
         try {
-            resource = new UrlResource(file.toUri());
-        } catch (Exception e) {
-            throw new StorageFileNotFoundException("File not found.");
+            return new InputStreamResource(imageBlobService.open(image.getPath()));
+        } catch (IOException e) {
+            throw new StorageFileNotFoundException("Could not read file: " + image.getPath());
         }
+    }
 
-        if (!resource.exists() || !resource.isReadable()) {
-            throw new StorageFileNotFoundException("Could not read file: " + baseFilename);
+    /**
+     * Registers metadata for an image file that has none. The file is moved into a blob.
+     * @param file The image file
+     * @return true if metadata was registered, false if the file is not a known image
+     * @throws IOException If the file could not be read
+     */
+    private boolean registerExistingFile(Path file) throws IOException {
+        String filename = file.getFileName().toString();
+        int extensionStart = filename.lastIndexOf('.');
+        if (extensionStart < 0 || !isValidExtension(filename.substring(extensionStart))) {
+            return false;
         }
+        String identifier = filename.substring(0, extensionStart);
+        ImageKind kind = ImageKind.fromIdentifier(identifier);
+        if (kind == null) return false;
 
-        return resource;
+        long id = kind == ImageKind.PROFILE ? 0L : extractId(identifier);
+        Optional<User> owner =
+                switch (kind) {
+                    case PROFILE ->
+                            userRepository.findByUsername(
+                                    identifier.substring(
+                                            0, identifier.length() - kind.getSuffix().length()));
+                    case GOAL -> goalRepository.findById(id).map(Goal::getUser);
+                    case CHALLENGE -> challengeRepository.findById(id).map(Challenge::getUser);
+                };
+        if (owner.isEmpty()
+                || storedImageRepository
+                        .findByUserIdAndKindAndEntityIdAndRendition(
+                                owner.get().getId(), kind, id, ImageSize.ORIGINAL)
+                        .isPresent()) {
+            return false;
+        }
+
+        StoredImage image = new StoredImage(owner.get(), kind, id, ImageSize.ORIGINAL);
+        image.setUpdatedAt(
+                ZonedDateTime.ofInstant(
+                        Files.getLastModifiedTime(file).toInstant(), ZoneId.systemDefault()));
+        try (InputStream inputStream = Files.newInputStream(file)) {
+            image.setBlob(imageBlobService.store(inputStream, filename.substring(extensionStart)));
+        }
+        storedImageRepository.save(image);
+        storageQuotaService.add(owner.get().getId(), image.getSize());
+        Files.delete(file);
+        return true;
     }
+
+    /**
+     * Key of an image in the metadata cache
+     * @param userId Id of the user who owns the image
+     * @param kind What the image belongs to
+     * @param entityId Id of the goal or challenge, or 0 for profile pictures
+     * @param rendition Which rendition of the image
+     */
+    private record ImageKey(Long userId, ImageKind kind, long entityId, ImageSize rendition) {}
+
+    /**
+     * Result of pointing image metadata to a blob
+     * @param imageId Id of the metadata
+     * @param previousBlob The blob the metadata pointed to before, or null if it was created
+     */
+    private record Replacement(Long imageId, ImageBlob previousBlob) {}
 }
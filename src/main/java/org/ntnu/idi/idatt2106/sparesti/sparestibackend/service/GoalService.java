@@ -3,21 +3,35 @@ package org.ntnu.idi.idatt2106.sparesti.sparestibackend.service;
 import java.time.ZonedDateTime;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.ntnu.idi.idatt2106.sparesti.sparestibackend.dto.goal.GoalCreateDTO;
+import org.ntnu.idi.idatt2106.sparesti.sparestibackend.dto.goal.GoalFilterDTO;
 import org.ntnu.idi.idatt2106.sparesti.sparestibackend.dto.goal.GoalResponseDTO;
 import org.ntnu.idi.idatt2106.sparesti.sparestibackend.dto.goal.GoalUpdateDTO;
+import org.ntnu.idi.idatt2106.sparesti.sparestibackend.dto.image.ImagePreviewDTO;
 import org.ntnu.idi.idatt2106.sparesti.sparestibackend.exception.goal.ActiveGoalLimitExceededException;
 import org.ntnu.idi.idatt2106.sparesti.sparestibackend.exception.goal.GoalNotFoundException;
+import org.ntnu.idi.idatt2106.sparesti.sparestibackend.exception.validation.BadInputException;
 import org.ntnu.idi.idatt2106.sparesti.sparestibackend.exception.validation.ObjectNotValidException;
 import org.ntnu.idi.idatt2106.sparesti.sparestibackend.mapper.GoalMapper;
 import org.ntnu.idi.idatt2106.sparesti.sparestibackend.model.Goal;
 import org.ntnu.idi.idatt2106.sparesti.sparestibackend.model.User;
+import org.ntnu.idi.idatt2106.sparesti.sparestibackend.model.enums.ImageKind;
 import org.ntnu.idi.idatt2106.sparesti.sparestibackend.repository.GoalRepository;
+import org.ntnu.idi.idatt2106.sparesti.sparestibackend.repository.specification.GoalSpecifications;
+import org.ntnu.idi.idatt2106.sparesti.sparestibackend.util.ApplicationUtil;
+import org.ntnu.idi.idatt2106.sparesti.sparestibackend.util.Money;
 import org.ntnu.idi.idatt2106.sparesti.sparestibackend.validation.ObjectValidator;
 import org.ntnu.idi.idatt2106.sparesti.sparestibackend.validation.goal.GoalValidator;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 
 /**
@@ -27,6 +41,7 @@ import org.springframework.stereotype.Service;
  * @version 1.0
  * @since 22.4.2024
  */
+@Slf4j
 @Service
 @RequiredArgsConstructor
 public class GoalService {
@@ -35,27 +50,67 @@ public class GoalService {
 
     private static final int ACTIVE_GOAL_LIMIT = 10;
 
+    /**
+     * Properties that goal pages can be sorted on. Each is backed by an index that starts with
+     * the user.
+     */
+    private static final Set<String> SORTABLE_PROPERTIES =
+            Set.of("id", "priority", "due", "createdOn", "completion");
+
     private final ObjectValidator<GoalUpdateDTO> updateValidator;
     private final GoalValidator createValidator;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ImagePreviewService imagePreviewService;
+
+    /**
+     * Calculates the completion of goals that were saved before completion was persisted, so
+     * that every goal can be projected and sorted on its completion
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void fillMissingCompletion() {
+        int updated = goalRepository.fillMissingCompletion();
+        if (updated > 0) {
+            log.info("Calculated the completion of {} goals", updated);
+        }
+    }
 
     /**
-     * Finds a user's saving goal specified by its ID
+     * Finds a user's saving goal specified by its ID. The goal is projected straight into a DTO.
      * @param id Identifies goal
      * @param user User that owns the goal
-     * @return Mapped GoalDTO from the Goal entity
+     * @return The goal as a DTO
      */
     public GoalResponseDTO findUserGoal(Long id, User user) {
-        return GoalMapper.INSTANCE.toDTO(findGoalByIdAndUser(id, user));
+        return goalRepository
+                .findDTOs(GoalSpecifications.withId(user, id), Sort.unsorted())
+                .stream()
+                .findFirst()
+                .map(
+                        goal ->
+                                GoalMapper.INSTANCE.withImage(
+                                        goal,
+                                        imagePreviewService.findPreview(
+                                                user.getId(), ImageKind.GOAL, id)))
+                .orElseThrow(() -> new GoalNotFoundException(id));
     }
 
     /**
-     * Gets a page of a user's saving goals
+     * Gets a page of a user's saving goals that match a filter
      * @param user User that owns the goals
+     * @param filter Filter with optional conditions on due date, created date and completion
      * @param pageable Pageable object that configures the page dimensions
      * @return Page of goals
+     * @throws BadInputException If the page is sorted on a property that is not allowed,
+     * or a range of the filter is invalid
      */
-    public Page<GoalResponseDTO> getUserGoals(User user, Pageable pageable) {
-        return goalRepository.findAllByUser(user, pageable).map(GoalMapper.INSTANCE::toDTO);
+    public Page<GoalResponseDTO> getUserGoals(User user, GoalFilterDTO filter, Pageable pageable)
+            throws BadInputException {
+        ApplicationUtil.validateSort(pageable, SORTABLE_PROPERTIES);
+        ApplicationUtil.validateRange(filter.dueFrom(), filter.dueTo(), "forfallsdato");
+        ApplicationUtil.validateRange(filter.createdFrom(), filter.createdTo(), "opprettelsesdato");
+        ApplicationUtil.validateRange(filter.completionFrom(), filter.completionTo(), "fullføring");
+        return withPreviews(
+                goalRepository.findDTOs(GoalSpecifications.filter(user, filter), pageable), user);
     }
 
     /**
@@ -70,7 +125,7 @@ public class GoalService {
             throws ObjectNotValidException, ActiveGoalLimitExceededException {
         createValidator.validate(goalDTO);
         Goal goal = GoalMapper.INSTANCE.toEntity(goalDTO, user);
-        if (goal.getSaved().doubleValue() >= goal.getTarget().doubleValue()) {
+        if (Money.of(goal.getSaved()).isAtLeast(Money.of(goal.getTarget()))) {
             goal.setCompletedOn(ZonedDateTime.now());
             goal.setPriority(ACTIVE_GOAL_LIMIT + 1L);
             return GoalMapper.INSTANCE.toDTO(goalRepository.save(goal));
@@ -85,12 +140,13 @@ public class GoalService {
     }
 
     /**
-     * Assigns a goal a default priority which is the active goal list size
+     * Assigns a goal a default priority which is the number of active goals plus one. The goals
+     * are counted in the database, without loading them.
      * @param user User that owns the goal
      * @return Goal priority value
      */
     private long getDefaultPriority(User user) {
-        return getActiveUserGoals(user).size() + 1;
+        return goalRepository.countByCompletedOnIsNullAndUser(user) + 1;
     }
 
     /**
@@ -106,10 +162,10 @@ public class GoalService {
         updateValidator.validate(goalDTO);
         Goal currentGoal = findGoalByIdAndUser(id, user);
         Goal updatedGoal = GoalMapper.INSTANCE.updateEntity(currentGoal, goalDTO);
-        if (updatedGoal.getSaved().doubleValue() >= updatedGoal.getTarget().doubleValue()) {
+        if (Money.of(updatedGoal.getSaved()).isAtLeast(Money.of(updatedGoal.getTarget()))) {
             completeGoal(updatedGoal.getId(), user);
         }
-        return GoalMapper.INSTANCE.toDTO(goalRepository.save(updatedGoal));
+        return toDTO(goalRepository.save(updatedGoal), user);
     }
 
     /**
@@ -130,9 +186,8 @@ public class GoalService {
      * @return List of active user goals
      */
     public List<GoalResponseDTO> getActiveUserGoals(User user) {
-        return goalRepository.findAllByCompletedOnIsNullAndUser(user).stream()
-                .map(GoalMapper.INSTANCE::toDTO)
-                .toList();
+        return withPreviews(
+                goalRepository.findDTOs(GoalSpecifications.active(user), Sort.unsorted()), user);
     }
 
     /**
@@ -142,9 +197,8 @@ public class GoalService {
      * @return Page of a user's completed goals
      */
     public Page<GoalResponseDTO> getCompletedUserGoals(User user, Pageable pageable) {
-        return goalRepository
-                .findAllByCompletedOnIsNotNullAndUser(user, pageable)
-                .map(GoalMapper.INSTANCE::toDTO);
+        return withPreviews(
+                goalRepository.findDTOs(GoalSpecifications.completed(user), pageable), user);
     }
 
     /**
@@ -156,7 +210,7 @@ public class GoalService {
     public GoalResponseDTO completeGoal(Long goalId, User user) {
         Goal completedGoal = setCompleted(goalId, user);
         setNewPriorities(user);
-        return GoalMapper.INSTANCE.toDTO(completedGoal);
+        return toDTO(completedGoal, user);
     }
 
     /**
@@ -197,19 +251,19 @@ public class GoalService {
             updatedGoalsList.add(goal);
         }
 
-        return goalRepository.saveAll(updatedGoalsList).stream()
-                .map(GoalMapper.INSTANCE::toDTO)
-                .toList();
+        return toDTOs(goalRepository.saveAll(updatedGoalsList), user);
     }
 
     /**
-     * Deletes a goal of a user, specified by its ID
+     * Deletes a goal of a user, specified by its ID. The image of the goal is deleted in the
+     * background.
      * @param id Identifies a goal
      * @param user User that owns the goal
      */
     public void deleteUserGoal(Long id, User user) {
         goalRepository.deleteByIdAndUser(id, user);
         setNewPriorities(user);
+        eventPublisher.publishEvent(new ImageOwnerDeletedEvent(user.getId(), ImageKind.GOAL, id));
     }
 
     /**
@@ -225,4 +279,66 @@ public class GoalService {
         }
         goalRepository.saveAll(activeGoals);
     }
+
+    /**
+     * Maps a goal to a DTO with the preview of its image
+     * @param goal The goal
+     * @param user User that owns the goal
+     * @return Mapped DTO
+     */
+    private GoalResponseDTO toDTO(Goal goal, User user) {
+        return GoalMapper.INSTANCE.toDTO(
+                goal, imagePreviewService.findPreview(user.getId(), ImageKind.GOAL, goal.getId()));
+    }
+
+    /**
+     * Maps goals to DTOs with the previews of their images, which are found with one query
+     * @param goals The goals
+     * @param user User that owns the goals
+     * @return List of mapped DTOs
+     */
+    private List<GoalResponseDTO> toDTOs(List<Goal> goals, User user) {
+        Map<Long, ImagePreviewDTO> previews =
+                findPreviews(goals.stream().map(Goal::getId).toList(), user);
+        return goals.stream()
+                .map(goal -> GoalMapper.INSTANCE.toDTO(goal, previews.get(goal.getId())))
+                .toList();
+    }
+
+    /**
+     * Adds the previews of their images to projected goals, which are found with one query
+     * @param goals The projected goals
+     * @param user User that owns the goals
+     * @return List of goals with their previews
+     */
+    private List<GoalResponseDTO> withPreviews(List<GoalResponseDTO> goals, User user) {
+        Map<Long, ImagePreviewDTO> previews =
+                findPreviews(goals.stream().map(GoalResponseDTO::id).toList(), user);
+        return goals.stream()
+                .map(goal -> GoalMapper.INSTANCE.withImage(goal, previews.get(goal.id())))
+                .toList();
+    }
+
+    /**
+     * Adds the previews of their images to a page of projected goals, which are found with one
+     * query
+     * @param goals The page of projected goals
+     * @param user User that owns the goals
+     * @return Page of goals with their previews
+     */
+    private Page<GoalResponseDTO> withPreviews(Page<GoalResponseDTO> goals, User user) {
+        Map<Long, ImagePreviewDTO> previews =
+                findPreviews(goals.map(GoalResponseDTO::id).getContent(), user);
+        return goals.map(goal -> GoalMapper.INSTANCE.withImage(goal, previews.get(goal.id())));
+    }
+
+    /**
+     * Finds the previews of the images of goals
+     * @param goalIds Ids of the goals
+     * @param user User that owns the goals
+     * @return Map from the id of each goal that has an image to its preview
+     */
+    private Map<Long, ImagePreviewDTO> findPreviews(List<Long> goalIds, User user) {
+        return imagePreviewService.findPreviews(user.getId(), ImageKind.GOAL, goalIds);
+    }
 }
@@ -0,0 +1,426 @@
+package org.ntnu.idi.idatt2106.sparesti.sparestibackend.service;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.ntnu.idi.idatt2106.sparesti.sparestibackend.exception.storage.StorageException;
+import org.ntnu.idi.idatt2106.sparesti.sparestibackend.model.ImageBlob;
+import org.ntnu.idi.idatt2106.sparesti.sparestibackend.repository.ImageBlobRepository;
+import org.ntnu.idi.idatt2106.sparesti.sparestibackend.service.storage.StorageBackend;
+import org.ntnu.idi.idatt2106.sparesti.sparestibackend.service.storage.StorageBackend.StoredFile;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+/**
+ * Service that stores image files as content-addressed blobs in the {@link StorageBackend}.
+ * A file is named by the SHA-256 checksum of its contents, which is computed while the file is
+ * streamed to a staging file, so equal uploads are stored once and shared through a reference
+ * count. A scheduled scrub verifies the checksums of all stored files.
+ * <p>
+ * Reference counts are changed with atomic updates in the database, so they stay correct when
+ * several instances share it. A blob without references is first claimed for deletion with a
+ * conditional update, so a blob that another upload acquires in the meantime is kept. Its file
+ * is deleted while the claimed row still holds its checksum, so an upload of the same contents
+ * can neither reference the blob nor store the file again until the row is gone.
+ *
+ * @author L.M.L. Nilsen
+ * @version 1.0
+ * @since 3.5.24
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ImageBlobService {
+
+    /**
+     * MIME types of the supported file extensions
+     */
+    private static final Map<String, String> CONTENT_TYPES =
+            Map.of(
+                    ".png", "image/png",
+                    ".jpg", "image/jpeg",
+                    ".jpeg", "image/jpeg",
+                    ".gif", "image/gif");
+
+    private static final int SCRUB_BATCH_SIZE = 100;
+
+    /**
+     * Number of times a reference is tried acquired when the blob is changed concurrently
+     */
+    private static final int ACQUIRE_ATTEMPTS = 3;
+
+    /**
+     * Number of listed files that are looked up at a time when collecting orphaned files
+     */
+    private static final int COLLECT_BATCH_SIZE = 100;
+
+    /**
+     * Keys of blob files, which are named by their checksum
+     */
+    private static final Pattern BLOB_KEY = Pattern.compile("[0-9a-f]{64}\\.[a-z]+");
+
+    private final ImageBlobRepository imageBlobRepository;
+    private final StorageBackend storageBackend;
+
+    /**
+     * Streams a file to a staging file while computing its checksum, and acquires a reference
+     * to the blob with those contents. The staging file becomes the blob if there is none.
+     * @param inputStream The contents of the file
+     * @param extension File extension of the file, with the dot
+     * @return The blob, with the new reference counted
+     * @throws IOException If the file could not be written
+     */
+    public ImageBlob store(InputStream inputStream, String extension) throws IOException {
+        return store(inputStream, extension, file -> {});
+    }
+
+    /**
+     * Streams a file to a staging file while computing its checksum, checks the written file,
+     * and acquires a reference to the blob with those contents. The staging file becomes the
+     * blob if there is none.
+     * @param inputStream The contents of the file
+     * @param extension File extension of the file, with the dot
+     * @param check Check of the written file, which rejects it by throwing
+     * @return The blob, with the new reference counted
+     * @throws IOException If the file could not be written
+     */
+    public ImageBlob store(InputStream inputStream, String extension, FileCheck check)
+            throws IOException {
+        Path tempFile = storageBackend.createStagingFile();
+        try {
+            MessageDigest digest = sha256();
+            long size;
+            try (InputStream digestStream = new DigestInputStream(inputStream, digest)) {
+                size = Files.copy(digestStream, tempFile, StandardCopyOption.REPLACE_EXISTING);
+            }
+            check.check(tempFile);
+            return acquire(tempFile, HexFormat.of().formatHex(digest.digest()), size, extension);
+        } finally {
+            Files.deleteIfExists(tempFile);
+        }
+    }
+
+    /**
+     * Stores data as a blob, or acquires a reference to the blob with the same contents
+     * @param data The contents of the file
+     * @param extension File extension of the file, with the dot
+     * @return The blob, with the new reference counted
+     * @throws IOException If the file could not be written
+     */
+    public ImageBlob store(byte[] data, String extension) throws IOException {
+        return store(new ByteArrayInputStream(data), extension);
+    }
+
+    /**
+     * Acquires a reference to the blob with the given checksum. If there is no such blob, or
+     * its file has gone missing, the staging file is stored as the blob's file. If a concurrent
+     * upload of the same contents creates the blob first, or the blob is claimed for deletion or
+     * deleted after it was read, the blob is looked up again.
+     * @param tempFile Staging file with the contents
+     * @param checksum Hex encoded SHA-256 checksum of the contents
+     * @param size Size of the contents in bytes
+     * @param extension File extension of the file, with the dot
+     * @return The blob, with the new reference counted
+     * @throws IOException If the file could not be stored
+     * @throws StorageException If the blob kept changing concurrently
+     */
+    private ImageBlob acquire(Path tempFile, String checksum, long size, String extension)
+            throws IOException {
+        String path = checksum + extension;
+        boolean stored = false;
+        for (int attempt = 0; attempt < ACQUIRE_ATTEMPTS; attempt++) {
+            ImageBlob blob = imageBlobRepository.findByChecksum(checksum).orElse(null);
+            if (blob != null && storageBackend.exists(blob.getPath())) {
+                if (imageBlobRepository.addReference(blob.getId()) == 1) return reload(blob);
+                continue;
+            }
+
+            if (!stored) {
+                storageBackend.put(path, tempFile);
+                stored = true;
+            }
+            if (blob != null) {
+                if (imageBlobRepository.restore(blob.getId(), path, contentTypeOf(path)) == 1) {
+                    log.warn("Restored missing file of blob {}", blob.getPath());
+                    return reload(blob);
+                }
+                continue;
+            }
+            try {
+                return imageBlobRepository.saveAndFlush(
+                        new ImageBlob(checksum, path, contentTypeOf(path), size));
+            } catch (DataIntegrityViolationException e) {
+                log.debug("Blob {} was created concurrently, acquiring it instead", path);
+            }
+        }
+        throw new StorageException("The file could not be stored, please try again.");
+    }
+
+    /**
+     * Reads a blob again after its reference count or file has been changed
+     * @param blob The blob as it was read
+     * @return The blob as it is stored
+     */
+    private ImageBlob reload(ImageBlob blob) {
+        return imageBlobRepository.findById(blob.getId()).orElse(blob);
+    }
+
+    /**
+     * Releases a reference to a blob. The blob and its file are deleted when the last reference
+     * is released, unless another reference is acquired before the blob is claimed for deletion.
+     * The file is deleted before the blob, so a concurrent upload of the same contents stores
+     * its file only after the old one is gone.
+     * @param blob The blob
+     * @throws IOException If the file could not be deleted
+     */
+    public void release(ImageBlob blob) throws IOException {
+        ImageBlob current = imageBlobRepository.findById(blob.getId()).orElse(null);
+        if (current == null
+                || imageBlobRepository.removeReference(current.getId()) == 0
+                || imageBlobRepository.claimForDeletion(current.getId()) == 0) {
+            return;
+        }
+        try {
+            storageBackend.delete(current.getPath());
+        } finally {
+            deleteClaimed(current);
+        }
+    }
+
+    /**
+     * Deletes a blob that has been claimed for deletion. A blob that an image still refers to is
+     * kept, and flagged so that its file is restored by the next upload of the same contents.
+     * @param blob The claimed blob
+     */
+    private void deleteClaimed(ImageBlob blob) {
+        try {
+            imageBlobRepository.deleteClaimed(blob.getId());
+        } catch (DataIntegrityViolationException e) {
+            log.error("Blob {} is still used by an image, keeping it", blob.getPath(), e);
+            imageBlobRepository.keepClaimed(blob.getId());
+        }
+    }
+
+    /**
+     * Verifies the checksum of every blob, and flags blobs whose file is missing or has changed.
+     * Blobs are read in batches in id order.
+     * Runs every night unless the storage.scrub-cron property says otherwise.
+     */
+    @Scheduled(cron = "${storage.scrub-cron:0 0 3 * * *}")
+    public void scrub() {
+        long lastId = 0;
+        int verified = 0;
+        int corrupt = 0;
+        List<ImageBlob> blobs;
+        do {
+            blobs =
+                    imageBlobRepository.findAllByIdGreaterThanOrderByIdAsc(
+                            lastId, PageRequest.of(0, SCRUB_BATCH_SIZE));
+            for (ImageBlob blob : blobs) {
+                lastId = blob.getId();
+                boolean intact = isIntact(blob);
+                if (!intact) {
+                    log.error("Blob {} is missing or does not match its checksum", blob.getPath());
+                    corrupt++;
+                }
+                markVerified(blob.getId(), intact);
+                verified++;
+            }
+        } while (blobs.size() == SCRUB_BATCH_SIZE);
+        log.info("Scrubbed {} blobs, {} corrupt", verified, corrupt);
+    }
+
+    /**
+     * Checks that the file of a blob exists and matches its checksum
+     * @param blob The blob
+     * @return true if the file is intact
+     */
+    private boolean isIntact(ImageBlob blob) {
+        MessageDigest digest = sha256();
+        try (InputStream inputStream =
+                new DigestInputStream(storageBackend.open(blob.getPath()), digest)) {
+            inputStream.transferTo(OutputStream.nullOutputStream());
+        } catch (IOException | StorageException e) {
+            return false;
+        }
+        return blob.getChecksum().equals(HexFormat.of().formatHex(digest.digest()));
+    }
+
+    /**
+     * Records the result of verifying a blob. Only the result is written, so a reference
+     * acquired while its file was hashed is not lost.
+     * @param id Id of the blob
+     * @param intact Whether the file matched the checksum
+     */
+    private void markVerified(Long id, boolean intact) {
+        imageBlobRepository.markVerified(id, !intact, ZonedDateTime.now());
+    }
+
+    /**
+     * Deletes blob files that no blob refers to, e.g. files left behind when the metadata of an
+     * upload was never committed. The stored files are listed as a stream and looked up in
+     * batches, so the listing is never held in memory.
+     * @param olderThan Only files last modified before this are deleted, as the file of a new
+     * blob is stored before the blob itself
+     * @return Number of deleted files
+     * @throws IOException If the stored files could not be listed
+     */
+    public int collectOrphanedFiles(Instant olderThan) throws IOException {
+        int deleted = 0;
+        try (Stream<StoredFile> files = storageBackend.list()) {
+            Iterator<String> keys =
+                    files.filter(file -> file.lastModified().isBefore(olderThan))
+                            .map(StoredFile::key)
+                            .filter(ImageBlobService::isBlobKey)
+                            .iterator();
+            List<String> batch = new ArrayList<>(COLLECT_BATCH_SIZE);
+            while (keys.hasNext()) {
+                batch.add(keys.next());
+                if (batch.size() == COLLECT_BATCH_SIZE || !keys.hasNext()) {
+                    deleted += deleteUnreferenced(batch);
+                    batch.clear();
+                }
+            }
+        }
+        return deleted;
+    }
+
+    /**
+     * Deletes the files of a batch that no blob refers to. Only files older than the grace
+     * period are listed, so the file of a blob that is being created is not deleted.
+     * @param keys Keys of the files
+     * @return Number of deleted files
+     * @throws IOException If a file could not be deleted
+     */
+    private int deleteUnreferenced(List<String> keys) throws IOException {
+        Set<String> referenced = imageBlobRepository.findExistingPaths(keys);
+        int deleted = 0;
+        for (String key : keys) {
+            if (!referenced.contains(key)) {
+                log.info("Deleting orphaned file {}", key);
+                storageBackend.delete(key);
+                deleted++;
+            }
+        }
+        return deleted;
+    }
+
+    /**
+     * Deletes staging files left behind by uploads that were interrupted
+     * @param olderThan Only staging files last modified before this are deleted
+     * @return Number of deleted staging files
+     * @throws IOException If the staging files could not be listed
+     */
+    public int deleteStagingFiles(Instant olderThan) throws IOException {
+        return storageBackend.deleteStagingFiles(olderThan);
+    }
+
+    /**
+     * Opens the file of a blob for reading
+     * @param path Key of the blob's file
+     * @return Stream of the file contents
+     * @throws IOException If the file could not be opened
+     */
+    public InputStream open(String path) throws IOException {
+        return storageBackend.open(path);
+    }
+
+    /**
+     * Opens a byte range of the file of a blob for reading
+     * @param path Key of the blob's file
+     * @param start First byte of the range
+     * @param length Number of bytes in the range
+     * @return Stream of the bytes in the range
+     * @throws IOException If the file could not be opened
+     */
+    public InputStream open(String path, long start, long length) throws IOException {
+        return storageBackend.open(path, start, length);
+    }
+
+    /**
+     * Gets the size of the file of a blob, without looking up the blob
+     * @param path Key of the blob's file
+     * @return Size of the file in bytes
+     * @throws java.nio.file.NoSuchFileException If the file does not exist
+     * @throws IOException If the backend could not be reached
+     */
+    public long size(String path) throws IOException {
+        return storageBackend.size(path);
+    }
+
+    /**
+     * Gets the local file of a blob, which can be sent without copying it through the heap
+     * @param path Key of the blob's file
+     * @return The local file, or empty if the backend is not on the local file system
+     */
+    public Optional<Path> localFile(String path) {
+        return storageBackend.localFile(path);
+    }
+
+    /**
+     * Checks if a key has the format of a blob file, the checksum and the file extension
+     * @param key The key
+     * @return true if the key can name a blob file
+     */
+    public static boolean isBlobKey(String key) {
+        return BLOB_KEY.matcher(key).matches();
+    }
+
+    /**
+     * Gets the MIME type of a filename from its extension
+     * @param filename The filename
+     * @return MIME type of the file
+     */
+    public static String contentTypeOf(String filename) {
+        String extension = filename.substring(filename.lastIndexOf('.'));
+        return CONTENT_TYPES.getOrDefault(extension, "application/octet-stream");
+    }
+
+    /**
+     * Check of a file before it is stored as a blob
+     */
+    @FunctionalInterface
+    public interface FileCheck {
+
+        /**
+         * Checks a file
+         * @param file The file
+         * @throws IOException If the file could not be read
+         */
+        void check(Path file) throws IOException;
+    }
+
+    /**
+     * Creates a SHA-256 message digest
+     * @return The message digest
+     */
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not supported", e);
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package org.ntnu.idi.idatt2106.sparesti.sparestibackend.service;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.ntnu.idi.idatt2106.sparesti.sparestibackend.config.AsyncConfig;
+import org.ntnu.idi.idatt2106.sparesti.sparestibackend.model.StoredImage;
+import org.ntnu.idi.idatt2106.sparesti.sparestibackend.model.enums.ImageKind;
+import org.ntnu.idi.idatt2106.sparesti.sparestibackend.repository.ChallengeRepository;
+import org.ntnu.idi.idatt2106.sparesti.sparestibackend.repository.GoalRepository;
+import org.ntnu.idi.idatt2106.sparesti.sparestibackend.repository.StoredImageRepository;
+import org.ntnu.idi.idatt2106.sparesti.sparestibackend.util.StorageProperties;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Service that deletes images nothing refers to any more. The image of a deleted goal or
+ * challenge is deleted in the background as soon as the deletion is committed. A scheduled
+ * job reconciles the stored images against the existing goals and challenges, and the stored
+ * files against the blobs, which catches images whose eager cleanup was dropped or failed.
+ * Nothing younger than the configured grace period is deleted by the job. Profile pictures
+ * are not collected, as their metadata is removed together with the user.
+ *
+ * @author L.M.L. Nilsen
+ * @version 1.0
+ * @since 3.5.24
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ImageGarbageCollector {
+
+    private static final int BATCH_SIZE = 100;
+
+    private final FileSystemStorageService fileSystemStorageService;
+    private final ImageBlobService imageBlobService;
+    private final StoredImageRepository storedImageRepository;
+    private final GoalRepository goalRepository;
+    private final ChallengeRepository challengeRepository;
+    private final StorageProperties properties;
+
+    /**
+     * Deletes the image of a deleted goal or challenge. Runs on the image executor once the
+     * deletion has been committed. If the task is discarded because the executor is busy, the
+     * image is deleted by the next scheduled run.
+     * @param event The deletion of the goal or challenge
+     */
+    @Async(AsyncConfig.IMAGE_EXECUTOR)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void deleteImageOfOwner(ImageOwnerDeletedEvent event) {
+        try {
+            fileSystemStorageService.deleteImage(event.userId(), event.kind(), event.entityId());
+        } catch (IOException | RuntimeException e) {
+            log.warn(
+                    "Could not delete image of {} {}, it is left to the scheduled cleanup",
+                    event.kind(),
+                    event.entityId(),
+                    e);
+        }
+    }
+
+    /**
+     * Deletes images of goals and challenges that no longer exist, files that no blob refers
+     * to, and staging files left behind by interrupted uploads. Runs every night unless the
+     * storage.gc-cron property says otherwise.
+     */
+    @Scheduled(cron = "${storage.gc-cron:0 30 3 * * *}")
+    public void collect() {
+        Instant olderThan = Instant.now().minus(properties.getOrphanGracePeriod());
+        int images =
+                collectImages(ImageKind.GOAL, goalRepository::findExistingIds, olderThan)
+                        + collectImages(
+                                ImageKind.CHALLENGE,
+                                challengeRepository::findExistingIds,
+                                olderThan);
+
+        int files = 0;
+        int stagingFiles = 0;
+        try {
+            files = imageBlobService.collectOrphanedFiles(olderThan);
+            stagingFiles = imageBlobService.deleteStagingFiles(olderThan);
+        } catch (IOException | RuntimeException e) {
+            log.warn("Could not collect orphaned files", e);
+        }
+        log.info(
+                "Deleted {} orphaned images, {} orphaned files and {} staging files",
+                images,
+                files,
+                stagingFiles);
+    }
+
+    /**
+     * Deletes the images of a kind whose goal or challenge no longer exists. Images are read in
+     * batches in id order, and the existence of the goals or challenges of each batch is looked
+     * up with a single query.
+     * @param kind What the images belong to
+     * @param findExistingIds Finds which of a set of goal or challenge ids exist
+     * @param olderThan Only images last written before this are deleted
+     * @return Number of deleted renditions
+     */
+    private int collectImages(
+            ImageKind kind,
+            Function<Collection<Long>, Set<Long>> findExistingIds,
+            Instant olderThan) {
+        long lastId = 0;
+        int deleted = 0;
+        List<StoredImage> images;
+        do {
+            images =
+                    storedImageRepository.findAllByKindAndIdGreaterThanOrderByIdAsc(
+                            kind, lastId, PageRequest.of(0, BATCH_SIZE));
+            if (images.isEmpty()) break;
+            lastId = images.get(images.size() - 1).getId();
+
+            Set<Long> existingIds =
+                    findExistingIds.apply(
+                            images.stream()
+                                    .map(StoredImage::getEntityId)
+                                    .collect(Collectors.toSet()));
+            for (StoredImage image : images) {
+                if (existingIds.contains(image.getEntityId())
+                        || !image.getUpdatedAt().toInstant().isBefore(olderThan)) {
+                    continue;
+                }
+                try {
+                    deleted +=
+                            fileSystemStorageService.deleteImage(
+                                    image.getUser().getId(), kind, image.getEntityId());
+                } catch (IOException | RuntimeException e) {
+                    log.warn("Could not delete orphaned image {}", image.getId(), e);
+                }
+            }
+        } while (images.size() == BATCH_SIZE);
+        return deleted;
+    }
+}
@@ -0,0 +1,15 @@
+package org.ntnu.idi.idatt2106.sparesti.sparestibackend.service;
+
+import org.ntnu.idi.idatt2106.sparesti.sparestibackend.model.enums.ImageKind;
+
+/**
+ * Event published when a goal or challenge that may have an image has been deleted
+ *
+ * @param userId Id of the user who owned the goal or challenge
+ * @param kind What the image belongs to
+ * @param entityId Id of the deleted goal or challenge
+ * @author L.M.L. Nilsen
+ * @version 1.0
+ * @since 3.5.24
+ */
+public record ImageOwnerDeletedEvent(Long userId, ImageKind kind, long entityId) {}
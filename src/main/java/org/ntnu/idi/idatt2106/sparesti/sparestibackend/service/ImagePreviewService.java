@@ -0,0 +1,68 @@
+package org.ntnu.idi.idatt2106.sparesti.sparestibackend.service;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import lombok.RequiredArgsConstructor;
+import org.ntnu.idi.idatt2106.sparesti.sparestibackend.dto.image.ImagePreviewDTO;
+import org.ntnu.idi.idatt2106.sparesti.sparestibackend.dto.image.StoredImagePreview;
+import org.ntnu.idi.idatt2106.sparesti.sparestibackend.model.enums.ImageKind;
+import org.ntnu.idi.idatt2106.sparesti.sparestibackend.model.enums.ImageSize;
+import org.ntnu.idi.idatt2106.sparesti.sparestibackend.repository.StoredImageRepository;
+import org.ntnu.idi.idatt2106.sparesti.sparestibackend.util.ImageUrlSigner;
+import org.springframework.stereotype.Service;
+
+/**
+ * Service that finds the previews of images, which are returned inline with goals, challenges
+ * and users. Lets clients know whether an item has an image, and show its placeholder, without
+ * requesting the image. The previews of a list of items are found with a single query.
+ *
+ * @author L.M.L. Nilsen
+ * @version 1.0
+ * @since 3.5.24
+ */
+@Service
+@RequiredArgsConstructor
+public class ImagePreviewService {
+
+    private final StoredImageRepository storedImageRepository;
+    private final ImageUrlSigner imageUrlSigner;
+
+    /**
+     * Finds the preview of the image of a user's goal, challenge or profile
+     * @param userId Id of the user who owns the image
+     * @param kind What the image belongs to
+     * @param entityId Id of the goal or challenge, or 0 for profile pictures
+     * @return The preview, or null if there is no image
+     */
+    public ImagePreviewDTO findPreview(Long userId, ImageKind kind, Long entityId) {
+        return findPreviews(userId, kind, List.of(entityId)).get(entityId);
+    }
+
+    /**
+     * Finds the previews of the images of some of a user's goals or challenges
+     * @param userId Id of the user who owns the images
+     * @param kind What the images belong to
+     * @param entityIds Ids of the goals or challenges
+     * @return Map from the id of each goal or challenge that has an image to its preview
+     */
+    public Map<Long, ImagePreviewDTO> findPreviews(
+            Long userId, ImageKind kind, Collection<Long> entityIds) {
+        if (entityIds.isEmpty()) return Map.of();
+        return storedImageRepository
+                .findPreviews(userId, kind, entityIds, ImageSize.ORIGINAL)
+                .stream()
+                .collect(Collectors.toMap(StoredImagePreview::entityId, this::toDTO));
+    }
+
+    /**
+     * Creates the preview of an image, with a signed URL of its file
+     * @param preview The previewed columns of the image
+     * @return The preview
+     */
+    private ImagePreviewDTO toDTO(StoredImagePreview preview) {
+        return new ImagePreviewDTO(
+                preview.entityId(), preview.placeholder(), imageUrlSigner.sign(preview.path()));
+    }
+}
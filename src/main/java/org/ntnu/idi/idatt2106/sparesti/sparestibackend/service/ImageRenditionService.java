@@ -0,0 +1,171 @@
+package org.ntnu.idi.idatt2106.sparesti.sparestibackend.service;
+
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Base64;
+import java.util.List;
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageOutputStream;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.ntnu.idi.idatt2106.sparesti.sparestibackend.config.AsyncConfig;
+import org.ntnu.idi.idatt2106.sparesti.sparestibackend.model.enums.ImageSize;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Service;
+
+/**
+ * Service that generates the renditions of uploaded images in the background. Each rendition
+ * is decoded and encoded again with ImageIO, which leaves out metadata such as EXIF location
+ * data. Until a rendition exists, the original image is served in its place. A tiny preview
+ * of the image is generated first, which is returned inline with the goal, challenge or user
+ * the image belongs to.
+ *
+ * @author L.M.L. Nilsen
+ * @version 1.0
+ * @since 3.5.24
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ImageRenditionService {
+
+    private static final float JPEG_QUALITY = 0.85f;
+
+    private static final List<ImageSize> SCALED_SIZES = List.of(ImageSize.THUMB, ImageSize.MEDIUM);
+
+    /**
+     * Length of the longest edge of placeholders, in pixels
+     */
+    private static final int PLACEHOLDER_EDGE = 16;
+
+    private final FileSystemStorageService fileSystemStorageService;
+
+    /**
+     * Generates the placeholder and the scaled renditions of an uploaded image, and replaces the
+     * original with a recompressed copy without metadata. Animated GIFs keep their original, as ImageIO only
+     * decodes the first frame. Generation stops if the image is replaced in the meantime.
+     * @param event The upload of the original image
+     */
+    @Async(AsyncConfig.IMAGE_EXECUTOR)
+    @EventListener
+    public void createRenditions(ImageUploadedEvent event) {
+        try {
+            BufferedImage source;
+            try (InputStream inputStream = fileSystemStorageService.openFile(event.path())) {
+                source = ImageIO.read(inputStream);
+            }
+            if (source == null) {
+                log.warn("Could not decode image {}", event.path());
+                return;
+            }
+
+            String extension = event.path().substring(event.path().lastIndexOf('.') + 1);
+            String format = extension.equals("png") || extension.equals("gif") ? "png" : "jpg";
+            if (!fileSystemStorageService.storePlaceholder(event, placeholder(source, format))) {
+                return;
+            }
+            for (ImageSize size : SCALED_SIZES) {
+                byte[] data = encode(scale(source, size.getMaxEdge(), format), format);
+                if (!fileSystemStorageService.storeRendition(event, size, data, format)) return;
+            }
+
+            if (!extension.equals("gif")) {
+                byte[] data = encode(scale(source, 0, format), format);
+                // Recompressed PNGs can be larger than the upload, which is then kept
+                if (format.equals("jpg") || data.length < event.size()) {
+                    fileSystemStorageService.storeRendition(
+                            event, ImageSize.ORIGINAL, data, extension);
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            log.warn("Could not create renditions of image {}", event.path(), e);
+        }
+    }
+
+    /**
+     * Creates a placeholder of an image, which is small enough to be sent inline as a data URI
+     * @param source The image
+     * @param format Format the placeholder is encoded as, png or jpg
+     * @return Data URI of the placeholder
+     * @throws IOException If the placeholder could not be encoded
+     */
+    private String placeholder(BufferedImage source, String format) throws IOException {
+        byte[] data = encode(scale(source, PLACEHOLDER_EDGE, format), format);
+        String contentType = format.equals("png") ? "image/png" : "image/jpeg";
+        return "data:" + contentType + ";base64," + Base64.getEncoder().encodeToString(data);
+    }
+
+    /**
+     * Scales an image down so its longest edge is at most the given length. The image is
+     * halved in steps before the last scaling, which keeps the quality of large reductions.
+     * Images are never scaled up.
+     * @param source The image
+     * @param maxEdge Maximum length of the longest edge, or 0 to keep the size
+     * @param format Format the image will be encoded as, png or jpg
+     * @return The scaled image
+     */
+    private BufferedImage scale(BufferedImage source, int maxEdge, String format) {
+        int longestEdge = Math.max(source.getWidth(), source.getHeight());
+        double factor = maxEdge > 0 && longestEdge > maxEdge ? (double) maxEdge / longestEdge : 1;
+        int targetWidth = Math.max(1, (int) Math.round(source.getWidth() * factor));
+        int targetHeight = Math.max(1, (int) Math.round(source.getHeight() * factor));
+        int type = format.equals("png") ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB;
+
+        BufferedImage image = source;
+        int width = source.getWidth();
+        int height = source.getHeight();
+        do {
+            width = Math.max(targetWidth, width / 2);
+            height = Math.max(targetHeight, height / 2);
+            if (factor == 1) {
+                width = targetWidth;
+                height = targetHeight;
+            }
+            BufferedImage step = new BufferedImage(width, height, type);
+            Graphics2D graphics = step.createGraphics();
+            graphics.setRenderingHint(
+                    RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            graphics.setRenderingHint(
+                    RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            graphics.drawImage(image, 0, 0, width, height, null);
+            graphics.dispose();
+            image = step;
+        } while (width != targetWidth || height != targetHeight);
+        return image;
+    }
+
+    /**
+     * Encodes an image
+     * @param image The image
+     * @param format png, or jpg for JPEG with a fixed quality
+     * @return The encoded image
+     * @throws IOException If the image could not be encoded
+     */
+    private byte[] encode(BufferedImage image, String format) throws IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        if (format.equals("png")) {
+            ImageIO.write(image, "png", outputStream);
+            return outputStream.toByteArray();
+        }
+
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        try (ImageOutputStream imageOutputStream = ImageIO.createImageOutputStream(outputStream)) {
+            writer.setOutput(imageOutputStream);
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(JPEG_QUALITY);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+        return outputStream.toByteArray();
+    }
+}
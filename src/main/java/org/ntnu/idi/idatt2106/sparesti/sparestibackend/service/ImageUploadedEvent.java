@@ -0,0 +1,26 @@
+package org.ntnu.idi.idatt2106.sparesti.sparestibackend.service;
+
+import org.ntnu.idi.idatt2106.sparesti.sparestibackend.model.enums.ImageKind;
+
+/**
+ * Event published when an original image has been stored
+ *
+ * @param imageId Id of the metadata of the original image
+ * @param userId Id of the user who owns the image
+ * @param kind What the image belongs to
+ * @param entityId Id of the goal or challenge, or 0 for profile pictures
+ * @param path Path of the original file, relative to the storage root
+ * @param size Size of the original file in bytes
+ * @param checksum Checksum of the original file, used to detect that it has been replaced
+ * @author L.M.L. Nilsen
+ * @version 1.0
+ * @since 3.5.24
+ */
+public record ImageUploadedEvent(
+        Long imageId,
+        Long userId,
+        ImageKind kind,
+        long entityId,
+        String path,
+        long size,
+        String checksum) {}
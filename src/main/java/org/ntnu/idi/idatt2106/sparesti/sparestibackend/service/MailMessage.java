@@ -0,0 +1,26 @@
+package org.ntnu.idi.idatt2106.sparesti.sparestibackend.service;
+
+/**
+ * A rendered mail that is ready to be queued
+ *
+ * @param recipient Address the mail is sent to
+ * @param subject Subject of the mail
+ * @param body Text of the mail
+ * @param resetRequestId Id of the password reset request whose token replaces the reset id
+ * placeholder of the text when the mail is sent, or null if the mail has no reset link
+ * @author L.M.L. Nilsen
+ * @version 1.0
+ * @since 3.5.24
+ */
+public record MailMessage(String recipient, String subject, String body, String resetRequestId) {
+
+    /**
+     * Constructor for a mail without a password reset link
+     * @param recipient Address the mail is sent to
+     * @param subject Subject of the mail
+     * @param body Text of the mail
+     */
+    public MailMessage(String recipient, String subject, String body) {
+        this(recipient, subject, body, null);
+    }
+}
@@ -0,0 +1,117 @@
+package org.ntnu.idi.idatt2106.sparesti.sparestibackend.service;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.ntnu.idi.idatt2106.sparesti.sparestibackend.model.OutboundMail;
+import org.ntnu.idi.idatt2106.sparesti.sparestibackend.repository.OutboundMailRepository;
+import org.ntnu.idi.idatt2106.sparesti.sparestibackend.util.MailProperties;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+/**
+ * Service for sending mail through the outbound mail queue. Mails are stored in the queue and
+ * sent by {@link OutboundMailWorker} in the background, so the caller never waits for the SMTP
+ * server, and mails that could not be sent are retried, also after a restart.
+ *
+ * @author L.M.L. Nilsen
+ * @version 1.0
+ * @since 3.5.24
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class MailQueueService {
+
+    private final OutboundMailRepository outboundMailRepository;
+    private final OutboundMailWorker outboundMailWorker;
+    private final MailProperties properties;
+    private final ApplicationEventPublisher eventPublisher;
+
+    /**
+     * Adds a mail to the queue. A worker is woken to send it as soon as the surrounding
+     * transaction, if any, has been committed.
+     * @param recipient Address the mail is sent to
+     * @param subject Subject of the mail
+     * @param body Text of the mail
+     */
+    public void enqueue(String recipient, String subject, String body) {
+        enqueue(new MailMessage(recipient, subject, body));
+    }
+
+    /**
+     * Adds a mail to the queue. A worker is woken to send it as soon as the surrounding
+     * transaction, if any, has been committed.
+     * @param message The mail
+     */
+    public void enqueue(MailMessage message) {
+        enqueueAll(List.of(message));
+    }
+
+    /**
+     * Adds several mails to the queue, and wakes a worker once, as soon as the surrounding
+     * transaction, if any, has been committed. The busy workers send the mails at the rate the
+     * mail.rate-limit property allows.
+     * @param messages The mails
+     */
+    public void enqueueAll(List<MailMessage> messages) {
+        if (messages.isEmpty()) return;
+        LocalDateTime now = LocalDateTime.now();
+        List<OutboundMail> mails =
+                outboundMailRepository.saveAll(
+                        messages.stream()
+                                .map(
+                                        message ->
+                                                OutboundMail.builder()
+                                                        .recipient(message.recipient())
+                                                        .subject(message.subject())
+                                                        .body(message.body())
+                                                        .resetRequestId(message.resetRequestId())
+                                                        .nextAttemptAt(now)
+                                                        .build())
+                                .toList());
+        Long lastId = mails.get(mails.size() - 1).getId();
+        log.info("Queued {} mails up to mail {}", mails.size(), lastId);
+        eventPublisher.publishEvent(new MailQueuedEvent(lastId));
+    }
+
+    /**
+     * Wakes the workers, which send the mails that are due to be retried, and mails whose
+     * worker died or was discarded. Runs every 30 seconds unless the mail.poll-interval
+     * property, in milliseconds, says otherwise.
+     */
+    @Scheduled(
+            fixedDelayString = "${mail.poll-interval:30000}",
+            initialDelayString = "${mail.poll-interval:30000}")
+    public void poll() {
+        for (int i = 0; i < properties.getWorkers(); i++) {
+            outboundMailWorker.drain();
+        }
+    }
+
+    /**
+     * Deletes mails that were queued longer ago than the mail.retention property allows, in
+     * batches. These are mails that failed, and mails that could not be sent in time, whose
+     * content is stale. Mails that a worker is sending are left alone. Runs every hour unless
+     * the mail.purge-cron property says otherwise.
+     */
+    @Scheduled(cron = "${mail.purge-cron:0 45 * * * *}")
+    public void purge() {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime queuedBefore = now.minus(properties.getRetention());
+        int batchSize = properties.getPurgeBatchSize();
+        int purged = 0;
+        List<Long> ids;
+        do {
+            ids =
+                    outboundMailRepository.findPurgeableIds(
+                            queuedBefore, now, PageRequest.of(0, batchSize));
+            if (ids.isEmpty()) break;
+            purged += outboundMailRepository.deletePurgeable(ids, queuedBefore, now);
+        } while (ids.size() == batchSize);
+        log.info("Purged {} old mails from the outbound mail queue", purged);
+    }
+}
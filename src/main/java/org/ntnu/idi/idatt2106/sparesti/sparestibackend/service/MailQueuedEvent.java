@@ -0,0 +1,11 @@
+package org.ntnu.idi.idatt2106.sparesti.sparestibackend.service;
+
+/**
+ * Event published when a mail has been added to the outbound mail queue
+ *
+ * @param mailId Id of the queued mail
+ * @author L.M.L. Nilsen
+ * @version 1.0
+ * @since 3.5.24
+ */
+public record MailQueuedEvent(Long mailId) {}
@@ -0,0 +1,250 @@
+package org.ntnu.idi.idatt2106.sparesti.sparestibackend.service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.mail.Message;
+import javax.mail.MessagingException;
+import javax.mail.SendFailedException;
+import javax.mail.Session;
+import javax.mail.Transport;
+import javax.mail.internet.InternetAddress;
+import javax.mail.internet.MimeMessage;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.ntnu.idi.idatt2106.sparesti.sparestibackend.config.AsyncConfig;
+import org.ntnu.idi.idatt2106.sparesti.sparestibackend.model.OutboundMail;
+import org.ntnu.idi.idatt2106.sparesti.sparestibackend.model.enums.MailStatus;
+import org.ntnu.idi.idatt2106.sparesti.sparestibackend.repository.OutboundMailRepository;
+import org.ntnu.idi.idatt2106.sparesti.sparestibackend.util.MailProperties;
+import org.ntnu.idi.idatt2106.sparesti.sparestibackend.util.PasswordResetTokens;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Worker that drains the outbound mail queue on the mail executor. A worker claims a batch of
+ * due mails at a time, and sends them over one SMTP connection, which is kept open until the
+ * queue is empty, instead of connecting for every mail. The workers share a rate limit, so bulk
+ * mail is spread out instead of tripping the limits of the SMTP server. A mail that fails is
+ * retried with exponential backoff, until it has failed the configured number of times.
+ *
+ * @author L.M.L. Nilsen
+ * @version 1.0
+ * @since 3.5.24
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class OutboundMailWorker {
+
+    private final OutboundMailRepository outboundMailRepository;
+    private final Session mailSession;
+    private final MailProperties properties;
+    private final PasswordResetTokens passwordResetTokens;
+
+    private final AtomicLong nextSendAt = new AtomicLong(System.nanoTime());
+
+    /**
+     * Sends a queued mail, together with any other due mails, once the transaction that queued
+     * it has been committed. If the task is discarded because the workers are busy, the mail is
+     * sent by the busy workers.
+     * @param event The queued mail
+     */
+    @Async(AsyncConfig.MAIL_EXECUTOR)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onMailQueued(MailQueuedEvent event) {
+        drainQueue();
+    }
+
+    /**
+     * Sends mails until no more are due
+     */
+    @Async(AsyncConfig.MAIL_EXECUTOR)
+    public void drain() {
+        drainQueue();
+    }
+
+    /**
+     * Claims and sends batches of due mails until no more are due. Claimed mails that are not
+     * attempted because the SMTP server is unreachable are postponed until the failed mail is
+     * retried.
+     */
+    private void drainQueue() {
+        Transport transport = null;
+        try {
+            List<OutboundMail> batch;
+            while (!(batch = claimBatch()).isEmpty()) {
+                for (int i = 0; i < batch.size(); i++) {
+                    OutboundMail mail = batch.get(i);
+                    try {
+                        if (transport == null) {
+                            transport = connect();
+                        }
+                        MimeMessage message = createMessage(mail);
+                        throttle();
+                        transport.sendMessage(message, message.getAllRecipients());
+                        outboundMailRepository.delete(mail);
+                        log.info("Sent mail {}", mail.getId());
+                    } catch (SendFailedException e) {
+                        retryLater(mail, e);
+                    } catch (MessagingException e) {
+                        LocalDateTime nextAttemptAt = retryLater(mail, e);
+                        postpone(batch.subList(i + 1, batch.size()), nextAttemptAt);
+                        return;
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            // The claimed mails are sent by another worker once their lease expires
+            Thread.currentThread().interrupt();
+        } catch (RuntimeException e) {
+            log.error("Could not drain the outbound mail queue", e);
+        } finally {
+            close(transport);
+        }
+    }
+
+    /**
+     * Waits for the next free slot of the rate limit, which is shared by all workers
+     * @throws InterruptedException If the worker is interrupted while waiting
+     */
+    private void throttle() throws InterruptedException {
+        if (properties.getRateLimit() <= 0) return;
+        long interval = TimeUnit.SECONDS.toNanos(1) / properties.getRateLimit();
+        long now = System.nanoTime();
+        long slot =
+                Math.max(
+                        now,
+                        nextSendAt.getAndAccumulate(
+                                now, (next, time) -> Math.max(next, time) + interval));
+        TimeUnit.NANOSECONDS.sleep(slot - now);
+    }
+
+    /**
+     * Claims the next batch of due mails
+     * @return The claimed mails, or an empty list if no mails are due
+     */
+    private List<OutboundMail> claimBatch() {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime leaseUntil = now.plus(properties.getLease());
+        List<Long> claimed = new ArrayList<>();
+        for (Long id :
+                outboundMailRepository.findDueIds(
+                        now, PageRequest.of(0, properties.getBatchSize()))) {
+            if (outboundMailRepository.claim(id, now, leaseUntil) > 0) {
+                claimed.add(id);
+            }
+        }
+        return claimed.isEmpty() ? List.of() : outboundMailRepository.findAllById(claimed);
+    }
+
+    /**
+     * Opens a connection to the SMTP server, and logs in if authentication is enabled
+     * @return The connected transport
+     * @throws MessagingException If the server could not be reached, or refused the login
+     */
+    private Transport connect() throws MessagingException {
+        Transport transport = mailSession.getTransport("smtp");
+        if (properties.isAuth()) {
+            transport.connect(properties.getUsername(), properties.getPassword());
+        } else {
+            transport.connect();
+        }
+        return transport;
+    }
+
+    /**
+     * Creates the message of a queued mail. The reset link of a password reset mail is rendered
+     * here, so the token is never stored in the queue.
+     * @param mail The queued mail
+     * @return The message
+     * @throws MessagingException If an address is invalid
+     */
+    private MimeMessage createMessage(OutboundMail mail) throws MessagingException {
+        MimeMessage message = new MimeMessage(mailSession);
+        message.setFrom(new InternetAddress(properties.getFrom()));
+        message.setRecipients(Message.RecipientType.TO, InternetAddress.parse(mail.getRecipient()));
+        message.setSubject(mail.getSubject(), "UTF-8");
+        String body = mail.getBody();
+        if (mail.getResetRequestId() != null) {
+            body =
+                    body.replace(
+                            OutboundMail.RESET_ID_PLACEHOLDER,
+                            passwordResetTokens.token(mail.getResetRequestId()));
+        }
+        message.setText(body, "UTF-8");
+        return message;
+    }
+
+    /**
+     * Counts a failed attempt to send a mail, and schedules the next attempt, or marks the mail
+     * as failed if it has no attempts left
+     * @param mail The mail that failed
+     * @param e Why it failed
+     * @return When the mail is retried
+     */
+    private LocalDateTime retryLater(OutboundMail mail, MessagingException e) {
+        int attempts = mail.getAttempts() + 1;
+        LocalDateTime nextAttemptAt = LocalDateTime.now().plus(backoff(attempts));
+        mail.setAttempts(attempts);
+        mail.setNextAttemptAt(nextAttemptAt);
+        String error = String.valueOf(e.getMessage());
+        mail.setLastError(error.substring(0, Math.min(error.length(), OutboundMail.ERROR_LENGTH)));
+        if (attempts >= properties.getMaxAttempts()) {
+            mail.setStatus(MailStatus.FAILED);
+            log.error("Giving up on mail {} after {} attempts", mail.getId(), attempts, e);
+        } else {
+            log.warn(
+                    "Could not send mail {}, retrying at {}: {}",
+                    mail.getId(),
+                    nextAttemptAt,
+                    e.getMessage());
+        }
+        outboundMailRepository.save(mail);
+        return nextAttemptAt;
+    }
+
+    /**
+     * Computes how long to wait before the next attempt
+     * @param attempts Number of failed attempts
+     * @return The initial backoff doubled for each failed attempt after the first, at most the
+     * maximum backoff
+     */
+    private Duration backoff(int attempts) {
+        Duration backoff =
+                properties.getInitialBackoff().multipliedBy(1L << Math.min(attempts - 1, 20));
+        return backoff.compareTo(properties.getMaxBackoff()) > 0
+                ? properties.getMaxBackoff()
+                : backoff;
+    }
+
+    /**
+     * Postpones claimed mails that were not attempted, without counting an attempt
+     * @param mails The mails
+     * @param nextAttemptAt When the mails may be sent
+     */
+    private void postpone(List<OutboundMail> mails, LocalDateTime nextAttemptAt) {
+        if (!mails.isEmpty()) {
+            outboundMailRepository.postpone(
+                    mails.stream().map(OutboundMail::getId).toList(), nextAttemptAt);
+        }
+    }
+
+    /**
+     * Closes a connection to the SMTP server
+     * @param transport The transport, or null if no connection was opened
+     */
+    private static void close(Transport transport) {
+        if (transport == null) return;
+        try {
+            transport.close();
+        } catch (MessagingException e) {
+            log.warn("Could not close the SMTP connection", e);
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package org.ntnu.idi.idatt2106.sparesti.sparestibackend.service;
+
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.ntnu.idi.idatt2106.sparesti.sparestibackend.dto.user.StorageUsageResponse;
+import org.ntnu.idi.idatt2106.sparesti.sparestibackend.exception.storage.StorageQuotaExceededException;
+import org.ntnu.idi.idatt2106.sparesti.sparestibackend.model.StorageUsage;
+import org.ntnu.idi.idatt2106.sparesti.sparestibackend.model.enums.ImageSize;
+import org.ntnu.idi.idatt2106.sparesti.sparestibackend.repository.StorageUsageRepository;
+import org.ntnu.idi.idatt2106.sparesti.sparestibackend.repository.StoredImageRepository;
+import org.ntnu.idi.idatt2106.sparesti.sparestibackend.repository.UserRepository;
+import org.ntnu.idi.idatt2106.sparesti.sparestibackend.util.StorageProperties;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+/**
+ * Service that enforces the storage quota of each user. The bytes a user stores in their
+ * original images are kept in a counter, which is changed with atomic updates whenever an
+ * image is uploaded, replaced or deleted, so checking the quota never sums the images. An
+ * upload reserves its size before any bytes are stored, and the reservation only succeeds if
+ * it stays within the quota.
+ * <p>
+ * A scheduled job recomputes the usage from the stored images, and corrects counters that
+ * have drifted, e.g. after a failed cleanup or concurrent replacements of the same image.
+ *
+ * @author L.M.L. Nilsen
+ * @version 1.0
+ * @since 3.5.24
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class StorageQuotaService {
+
+    private static final int RECONCILE_BATCH_SIZE = 100;
+
+    private final StorageUsageRepository storageUsageRepository;
+    private final StoredImageRepository storedImageRepository;
+    private final UserRepository userRepository;
+    private final StorageProperties properties;
+
+    /**
+     * Reserves space for an upload. Negative sizes, from replacing an image with a smaller
+     * one, always succeed.
+     * @param userId Id of the user who uploads
+     * @param bytes Number of bytes to reserve
+     * @throws StorageQuotaExceededException If the reservation would exceed the quota
+     */
+    public void reserve(Long userId, long bytes) throws StorageQuotaExceededException {
+        if (bytes <= 0) {
+            add(userId, bytes);
+            return;
+        }
+        long quota = properties.getQuota().toBytes();
+        createCounter(userId);
+        if (storageUsageRepository.addWithinLimit(userId, bytes, quota) == 0) {
+            throw new StorageQuotaExceededException(quota);
+        }
+    }
+
+    /**
+     * Adds to the usage of a user without checking the quota, e.g. to release a reservation
+     * or to count a deleted image
+     * @param userId Id of the user
+     * @param bytes Number of bytes to add, or a negative number to subtract
+     */
+    public void add(Long userId, long bytes) {
+        if (bytes == 0) return;
+        createCounter(userId);
+        storageUsageRepository.add(userId, bytes);
+    }
+
+    /**
+     * Gets the usage and quota of a user
+     * @param userId Id of the user
+     * @return The usage and quota
+     */
+    public StorageUsageResponse getUsage(Long userId) {
+        long used = storageUsageRepository.findById(userId).map(StorageUsage::getBytes).orElse(0L);
+        return new StorageUsageResponse(Math.max(0, used), properties.getQuota().toBytes());
+    }
+
+    /**
+     * Creates the usage counter of a user if it does not exist
+     * @param userId Id of the user
+     */
+    private void createCounter(Long userId) {
+        if (storageUsageRepository.existsById(userId)) return;
+        try {
+            storageUsageRepository.save(new StorageUsage(userId, 0L));
+        } catch (DataIntegrityViolationException e) {
+            // Created by a concurrent upload
+        }
+    }
+
+    /**
+     * Recomputes the usage of every user from their stored images, and corrects the counters
+     * that differ. Users are read in batches in id order, with one query for the usage and one
+     * for the counters of each batch. A counter that changes while it is checked is left for
+     * the next run. Runs every night unless the storage.quota-reconcile-cron property says
+     * otherwise.
+     */
+    @Scheduled(cron = "${storage.quota-reconcile-cron:0 0 4 * * *}")
+    public void reconcile() {
+        long lastId = 0;
+        int corrected = 0;
+        List<Long> userIds;
+        do {
+            userIds = userRepository.findIdsAfter(lastId, PageRequest.of(0, RECONCILE_BATCH_SIZE));
+            if (userIds.isEmpty()) break;
+            lastId = userIds.get(userIds.size() - 1);
+
+            Map<Long, Long> actual =
+                    usageByUser(storedImageRepository.sumSizes(userIds, ImageSize.ORIGINAL));
+            Map<Long, Long> counted =
+                    usageByUser(storageUsageRepository.findAllByUserIdIn(userIds));
+            for (Long userId : userIds) {
+                long bytes = actual.getOrDefault(userId, 0L);
+                Long counter = counted.get(userId);
+                if (counter == null) {
+                    if (bytes == 0) continue;
+                    createCounter(userId);
+                    counter = 0L;
+                }
+                if (counter != bytes
+                        && storageUsageRepository.correct(userId, counter, bytes) > 0) {
+                    log.info(
+                            "Corrected storage usage of user {} from {} to {}",
+                            userId,
+                            counter,
+                            bytes);
+                    corrected++;
+                }
+            }
+        } while (userIds.size() == RECONCILE_BATCH_SIZE);
+        log.info("Reconciled storage usage, corrected {} users", corrected);
+    }
+
+    /**
+     * Maps usage to the id of its user
+     * @param usage List of usage
+     * @return Map from user id to number of bytes
+     */
+    private static Map<Long, Long> usageByUser(List<StorageUsage> usage) {
+        return usage.stream()
+                .collect(Collectors.toMap(StorageUsage::getUserId, StorageUsage::getBytes));
+    }
+}
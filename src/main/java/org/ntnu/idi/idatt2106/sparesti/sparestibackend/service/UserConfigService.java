@@ -1,20 +1,36 @@
 package org.ntnu.idi.idatt2106.sparesti.sparestibackend.service;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import lombok.RequiredArgsConstructor;
 import org.ntnu.idi.idatt2106.sparesti.sparestibackend.dto.config.ChallengeConfigDTO;
+import org.ntnu.idi.idatt2106.sparesti.sparestibackend.dto.config.ChallengeTypeConfigDTO;
 import org.ntnu.idi.idatt2106.sparesti.sparestibackend.dto.config.UserConfigDTO;
 import org.ntnu.idi.idatt2106.sparesti.sparestibackend.exception.config.ChallengeConfigAlreadyExistsException;
 import org.ntnu.idi.idatt2106.sparesti.sparestibackend.exception.config.ChallengeConfigNotFoundException;
+import org.ntnu.idi.idatt2106.sparesti.sparestibackend.exception.config.ChallengeTypeConfigNotFoundException;
 import org.ntnu.idi.idatt2106.sparesti.sparestibackend.exception.config.ConfigNotFoundException;
 import org.ntnu.idi.idatt2106.sparesti.sparestibackend.exception.user.UserNotFoundException;
+import org.ntnu.idi.idatt2106.sparesti.sparestibackend.exception.validation.BadInputException;
 import org.ntnu.idi.idatt2106.sparesti.sparestibackend.exception.validation.ObjectNotValidException;
 import org.ntnu.idi.idatt2106.sparesti.sparestibackend.mapper.ChallengeConfigMapper;
+import org.ntnu.idi.idatt2106.sparesti.sparestibackend.mapper.ChallengeTypeConfigMapper;
 import org.ntnu.idi.idatt2106.sparesti.sparestibackend.mapper.UserConfigMapper;
 import org.ntnu.idi.idatt2106.sparesti.sparestibackend.model.ChallengeConfig;
+import org.ntnu.idi.idatt2106.sparesti.sparestibackend.model.ChallengeTypeConfig;
 import org.ntnu.idi.idatt2106.sparesti.sparestibackend.model.User;
+import org.ntnu.idi.idatt2106.sparesti.sparestibackend.repository.ChallengeTypeConfigRepository;
 import org.ntnu.idi.idatt2106.sparesti.sparestibackend.repository.UserRepository;
+import org.ntnu.idi.idatt2106.sparesti.sparestibackend.util.ApplicationUtil;
+import org.ntnu.idi.idatt2106.sparesti.sparestibackend.validation.ObjectValidator;
 import org.ntnu.idi.idatt2106.sparesti.sparestibackend.validation.user.ChallengeConfigValidator;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 /**
  * Service class for handling business logic related to Userconfig entity and DTO's
@@ -31,6 +47,12 @@ public class UserConfigService {
 
     private final ChallengeConfigValidator challengeConfigValidator;
 
+    private final ChallengeTypeService challengeTypeService;
+
+    private final ChallengeTypeConfigRepository challengeTypeConfigRepository;
+
+    private final ObjectValidator<ChallengeTypeConfigDTO> challengeTypeConfigValidator;
+
     /**
      * Gets the config of a user
      * @param username Username of user
@@ -61,6 +83,7 @@ public class UserConfigService {
      * @throws UserNotFoundException If the user could not be found by the username
      * @throws ObjectNotValidException If the config dto fields are invalid
      */
+    @Transactional
     public ChallengeConfigDTO createChallengeConfig(
             String username, ChallengeConfigDTO challengeConfigDTO)
             throws UserNotFoundException, ObjectNotValidException {
@@ -73,6 +96,8 @@ public class UserConfigService {
 
         ChallengeConfig challengeConfig =
                 ChallengeConfigMapper.INSTANCE.toEntity(challengeConfigDTO);
+        challengeConfig.getChallengeTypeConfigs().forEach(typeConfig -> prepare(typeConfig, user));
+        challengeTypeConfigRepository.saveAll(challengeConfig.getChallengeTypeConfigs());
         user.getUserConfig().setChallengeConfig(challengeConfig);
 
         User persistedUser = userRepository.save(user);
@@ -101,14 +126,16 @@ public class UserConfigService {
     }
 
     /**
-     * Method will reset all challenge type configs. make sure to send intact challenge type configs in the dto.
-     * This behaviour can be disabled, by ignoring the challenge type dtos in the mapper.
+     * Updates the challenge config of a user. The challenge type configs in the dto replace the
+     * current ones, but only the difference is persisted: new types are inserted, types with
+     * changed amounts are updated, and types missing from the dto are deleted.
      * @param username Username of user
      * @param challengeConfigDTO Challenge config with new changes
      * @return Updated challenge config
      * @throws UserNotFoundException If the user could not be found from the username
      * @throws ObjectNotValidException If the dto fields are invalid
      */
+    @Transactional
     public ChallengeConfigDTO updateChallengeConfig(
             String username, ChallengeConfigDTO challengeConfigDTO)
             throws UserNotFoundException, ObjectNotValidException {
@@ -122,12 +149,198 @@ public class UserConfigService {
         ChallengeConfig challengeConfig = user.getUserConfig().getChallengeConfig();
         ChallengeConfig updatedChallengeConfig =
                 ChallengeConfigMapper.INSTANCE.updateEntity(challengeConfig, challengeConfigDTO);
+        syncTypeConfigs(user, updatedChallengeConfig, challengeConfigDTO.challengeTypeConfigs());
         user.getUserConfig().setChallengeConfig(updatedChallengeConfig);
         userRepository.save(user);
 
         return ChallengeConfigMapper.INSTANCE.toDTO(updatedChallengeConfig);
     }
 
+    /**
+     * Creates or updates a single challenge type config of a user, leaving the other types untouched
+     * @param username Username of user
+     * @param challengeTypeConfigDTO The type config to create or update
+     * @return The created or updated type config
+     * @throws UserNotFoundException If the user could not be found from the username
+     * @throws ChallengeConfigNotFoundException If the user has yet to set up their challenge config
+     * @throws ObjectNotValidException If the dto fields are invalid
+     */
+    @Transactional
+    public ChallengeTypeConfigDTO upsertChallengeTypeConfig(
+            String username, ChallengeTypeConfigDTO challengeTypeConfigDTO)
+            throws UserNotFoundException,
+                    ChallengeConfigNotFoundException,
+                    ObjectNotValidException {
+        challengeTypeConfigValidator.validate(challengeTypeConfigDTO);
+        User user = findUserByUsername(username);
+
+        if (!challengeConfigExists(user)) {
+            throw new ChallengeConfigNotFoundException(user.getId());
+        }
+
+        ChallengeConfig challengeConfig = user.getUserConfig().getChallengeConfig();
+        Map<String, ChallengeTypeConfig> typeConfigs = getTypeConfigsByType(challengeConfig);
+        ChallengeTypeConfig current =
+                typeConfigs.get(ApplicationUtil.formatType(challengeTypeConfigDTO.type()));
+
+        ChallengeTypeConfig persisted;
+        if (current == null) {
+            ChallengeTypeConfig typeConfig =
+                    ChallengeTypeConfigMapper.INSTANCE.toEntity(challengeTypeConfigDTO);
+            prepare(typeConfig, user);
+            persisted = challengeTypeConfigRepository.save(typeConfig);
+        } else {
+            ChallengeTypeConfigMapper.INSTANCE.updateEntity(current, challengeTypeConfigDTO);
+            persisted = challengeTypeConfigRepository.save(current);
+        }
+        typeConfigs.put(ApplicationUtil.formatType(persisted.getType()), persisted);
+        replaceTypeConfigs(challengeConfig, typeConfigs.values());
+
+        return ChallengeTypeConfigMapper.INSTANCE.toDTO(persisted);
+    }
+
+    /**
+     * Deletes a single challenge type config of a user. The last type config of a
+     * challenge config can not be deleted.
+     * @param username Username of user
+     * @param type Type of the config that is deleted
+     * @throws UserNotFoundException If the user could not be found from the username
+     * @throws ChallengeConfigNotFoundException If the user has yet to set up their challenge config
+     * @throws ChallengeTypeConfigNotFoundException If the user has no config for the type
+     * @throws BadInputException If the type config is the last one of the user
+     */
+    @Transactional
+    public void deleteChallengeTypeConfig(String username, String type)
+            throws UserNotFoundException,
+                    ChallengeConfigNotFoundException,
+                    ChallengeTypeConfigNotFoundException,
+                    BadInputException {
+        User user = findUserByUsername(username);
+
+        if (!challengeConfigExists(user)) {
+            throw new ChallengeConfigNotFoundException(user.getId());
+        }
+
+        ChallengeConfig challengeConfig = user.getUserConfig().getChallengeConfig();
+        Map<String, ChallengeTypeConfig> typeConfigs = getTypeConfigsByType(challengeConfig);
+        ChallengeTypeConfig typeConfig = typeConfigs.remove(ApplicationUtil.formatType(type));
+
+        if (typeConfig == null) {
+            throw new ChallengeTypeConfigNotFoundException(type);
+        }
+        if (typeConfigs.isEmpty()) {
+            throw new BadInputException("Minst én utfordringstype er påkrevd");
+        }
+
+        challengeTypeConfigRepository.deleteAllByIdInBatch(List.of(typeConfig.getId()));
+        replaceTypeConfigs(challengeConfig, typeConfigs.values());
+    }
+
+    /**
+     * Persists the difference between the current challenge type configs and the requested ones.
+     * Requested types are compared by their canonical form, so types that only differ in case or
+     * surrounding whitespace are rejected before anything is written. Unchanged type configs are
+     * left untouched, deleted ones are removed in a single statement, and new and changed ones are
+     * saved with one call. New type configs are still inserted one statement each, as their ids
+     * are generated by the database.
+     * @param user User that owns the type configs
+     * @param challengeConfig The current challenge config
+     * @param typeConfigDTOs The requested type configs
+     * @throws BadInputException If two requested types have the same canonical form
+     */
+    private void syncTypeConfigs(
+            User user,
+            ChallengeConfig challengeConfig,
+            Set<ChallengeTypeConfigDTO> typeConfigDTOs) {
+        Map<String, ChallengeTypeConfigDTO> requested = new LinkedHashMap<>();
+        for (ChallengeTypeConfigDTO typeConfigDTO : typeConfigDTOs) {
+            if (requested.put(ApplicationUtil.formatType(typeConfigDTO.type()), typeConfigDTO)
+                    != null) {
+                throw new BadInputException("Duplikate typer er ikke tillatt");
+            }
+        }
+
+        Map<String, ChallengeTypeConfig> current = getTypeConfigsByType(challengeConfig);
+        Map<String, ChallengeTypeConfig> result = new HashMap<>();
+        List<ChallengeTypeConfig> changed = new ArrayList<>();
+
+        for (Map.Entry<String, ChallengeTypeConfigDTO> entry : requested.entrySet()) {
+            String type = entry.getKey();
+            ChallengeTypeConfigDTO typeConfigDTO = entry.getValue();
+            ChallengeTypeConfig typeConfig = current.remove(type);
+            if (typeConfig == null) {
+                typeConfig = ChallengeTypeConfigMapper.INSTANCE.toEntity(typeConfigDTO);
+                prepare(typeConfig, user);
+                changed.add(typeConfig);
+            } else if (isChanged(typeConfig, typeConfigDTO)) {
+                ChallengeTypeConfigMapper.INSTANCE.updateEntity(typeConfig, typeConfigDTO);
+                changed.add(typeConfig);
+            }
+            result.put(type, typeConfig);
+        }
+
+        if (!current.isEmpty()) {
+            challengeTypeConfigRepository.deleteAllByIdInBatch(
+                    current.values().stream().map(ChallengeTypeConfig::getId).toList());
+        }
+        if (!changed.isEmpty()) {
+            challengeTypeConfigRepository.saveAll(changed);
+        }
+        replaceTypeConfigs(challengeConfig, result.values());
+    }
+
+    /**
+     * Checks if the amounts of a type config differ from the amounts in a dto
+     * @param typeConfig The current type config
+     * @param typeConfigDTO The requested type config
+     * @return True, if any of the amounts have changed
+     */
+    private boolean isChanged(
+            ChallengeTypeConfig typeConfig, ChallengeTypeConfigDTO typeConfigDTO) {
+        return typeConfig.getGeneralAmount().compareTo(typeConfigDTO.generalAmount()) != 0
+                || typeConfig.getSpecificAmount().compareTo(typeConfigDTO.specificAmount()) != 0;
+    }
+
+    /**
+     * Prepares a new type config for persisting, by setting its owner and type key
+     * @param typeConfig The new type config
+     * @param user User that owns the type config
+     */
+    private void prepare(ChallengeTypeConfig typeConfig, User user) {
+        typeConfig.setUser(user);
+        typeConfig.setTypeId(challengeTypeService.resolveId(typeConfig.getType()));
+    }
+
+    /**
+     * Maps the type configs of a challenge config by their canonical type
+     * @param challengeConfig The challenge config
+     * @return Map from canonical type to type config
+     */
+    private Map<String, ChallengeTypeConfig> getTypeConfigsByType(ChallengeConfig challengeConfig) {
+        Map<String, ChallengeTypeConfig> typeConfigs = new HashMap<>();
+        challengeConfig
+                .getChallengeTypeConfigs()
+                .forEach(
+                        typeConfig ->
+                                typeConfigs.put(
+                                        ApplicationUtil.formatType(typeConfig.getType()),
+                                        typeConfig));
+        return typeConfigs;
+    }
+
+    /**
+     * Replaces the in-memory type configs of a challenge config. The set is rebuilt, since
+     * the hash of a type config changes when its amounts are updated.
+     * @param challengeConfig The challenge config
+     * @param typeConfigs The new type configs
+     */
+    private void replaceTypeConfigs(
+            ChallengeConfig challengeConfig, Collection<ChallengeTypeConfig> typeConfigs) {
+        List<ChallengeTypeConfig> copy = new ArrayList<>(typeConfigs);
+        challengeConfig.getChallengeTypeConfigs().clear();
+        challengeConfig.getChallengeTypeConfigs().addAll(copy);
+    }
+
     /**
      * Checks if challenge config exists for user
      * @param user The user
@@ -1,6 +1,7 @@
 package org.ntnu.idi.idatt2106.sparesti.sparestibackend.service;
 
 import java.time.ZonedDateTime;
+import java.util.Optional;
 import lombok.RequiredArgsConstructor;
 import org.ntnu.idi.idatt2106.sparesti.sparestibackend.dto.user.StreakResponse;
 import org.ntnu.idi.idatt2106.sparesti.sparestibackend.dto.user.UserResponse;
@@ -11,6 +12,7 @@ import org.ntnu.idi.idatt2106.sparesti.sparestibackend.exception.validation.BadI
 import org.ntnu.idi.idatt2106.sparesti.sparestibackend.mapper.UserMapper;
 import org.ntnu.idi.idatt2106.sparesti.sparestibackend.model.Challenge;
 import org.ntnu.idi.idatt2106.sparesti.sparestibackend.model.User;
+import org.ntnu.idi.idatt2106.sparesti.sparestibackend.model.enums.ImageKind;
 import org.ntnu.idi.idatt2106.sparesti.sparestibackend.repository.UserRepository;
 import org.ntnu.idi.idatt2106.sparesti.sparestibackend.validation.user.UserValidator;
 import org.springframework.security.crypto.password.PasswordEncoder;
@@ -31,6 +33,7 @@ public class UserService {
     private final UserRepository userRepository;
     private final PasswordEncoder passwordEncoder;
     private final UserValidator<UserUpdateDTO> userUpdateValidator;
+    private final ImagePreviewService imagePreviewService;
 
     /**
      * Persists a user entity
@@ -59,7 +62,7 @@ public class UserService {
      * @return User with matching username
      */
     public UserResponse findUserByUsernameToDTO(String username) {
-        return UserMapper.INSTANCE.toDTO(
+        return toDTO(
                 userRepository
                         .findByUsername(username)
                         .orElseThrow(() -> new UserNotFoundException(username)));
@@ -96,7 +99,7 @@ public class UserService {
         }
         UserMapper.INSTANCE.updateEntity(user, updateDTO, newPassword);
         userRepository.save(user);
-        return UserMapper.INSTANCE.toDTO(user);
+        return toDTO(user);
     }
 
     /**
@@ -105,7 +108,16 @@ public class UserService {
      * @return True, if a user with the given email exists
      */
     public boolean userExistByEmail(String email) {
-        return userRepository.findByEmail(email).isPresent();
+        return userRepository.existsByEmail(email);
+    }
+
+    /**
+     * Finds the id of the user with a given email, without loading the user
+     * @param email Email
+     * @return Optional id of the user
+     */
+    public Optional<Long> findUserIdByEmail(String email) {
+        return userRepository.findIdByEmail(email);
     }
 
     /**
@@ -156,4 +168,14 @@ public class UserService {
 
         return UserMapper.INSTANCE.toStreakResponse(user, firstDue);
     }
+
+    /**
+     * Maps a user to a DTO with the preview of their profile picture
+     * @param user User entity
+     * @return Mapped DTO
+     */
+    private UserResponse toDTO(User user) {
+        return UserMapper.INSTANCE.toDTO(
+                user, imagePreviewService.findPreview(user.getId(), ImageKind.PROFILE, 0L));
+    }
 }
@@ -0,0 +1,210 @@
+package org.ntnu.idi.idatt2106.sparesti.sparestibackend.service;
+
+import java.math.BigDecimal;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.time.temporal.TemporalAdjusters;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.ntnu.idi.idatt2106.sparesti.sparestibackend.dto.user.WeeklyDigestDTO;
+import org.ntnu.idi.idatt2106.sparesti.sparestibackend.model.DigestRun;
+import org.ntnu.idi.idatt2106.sparesti.sparestibackend.repository.DigestRunRepository;
+import org.ntnu.idi.idatt2106.sparesti.sparestibackend.repository.UserRepository;
+import org.ntnu.idi.idatt2106.sparesti.sparestibackend.util.ApplicationUtil;
+import org.ntnu.idi.idatt2106.sparesti.sparestibackend.util.MailProperties;
+import org.ntnu.idi.idatt2106.sparesti.sparestibackend.util.MailTemplate;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Service that queues a weekly "your savings this week" digest to every user. Users are read in
+ * id order in batches, and the numbers of each batch are computed with one aggregate query,
+ * without loading any users or challenges. The digests of a batch are rendered in parallel, and
+ * queued in the same transaction that records the progress of the job, so a job that is stopped
+ * resumes after the last queued batch. The mails are sent by the outbound mail queue, at the
+ * rate the mail.rate-limit property allows.
+ *
+ * @author L.M.L. Nilsen
+ * @version 1.0
+ * @since 3.5.24
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class WeeklyDigestService {
+
+    private static final String DIGEST_SUBJECT = "Din uke med SpareSti";
+
+    private static final MailTemplate DIGEST_TEMPLATE =
+            MailTemplate.compile(
+                    "Hei {firstName}🐷\n\n"
+                            + "Denne uken fullførte du {completed} utfordringer og sparte"
+                            + " {savedThisWeek} kr.\n"
+                            + "Du har spart {savedAmount} kr totalt, og streaken din er"
+                            + " {streak}.\n\n"
+                            + "Fortsett sånn på SpareSti!");
+
+    private final UserRepository userRepository;
+    private final DigestRunRepository digestRunRepository;
+    private final MailQueueService mailQueueService;
+    private final MailProperties properties;
+    private final TransactionTemplate transactionTemplate;
+
+    /**
+     * Queues the digests of last week. Runs every hour on Mondays unless the mail.digest-cron
+     * property says otherwise, so a job that was stopped is resumed, and a finished job is
+     * skipped.
+     */
+    @Scheduled(cron = "${mail.digest-cron:0 0 7-23 * * MON}")
+    public void sendLastWeeksDigests() {
+        sendDigests(
+                LocalDate.now()
+                        .with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY))
+                        .minusWeeks(1));
+    }
+
+    /**
+     * Queues the digests of a week, starting after the last user whose digest has been queued.
+     * Stops if another instance queues the same batch first.
+     * @param weekStart First day of the week
+     */
+    public void sendDigests(LocalDate weekStart) {
+        DigestRun run = startRun(weekStart);
+        if (run.getFinishedAt() != null) {
+            log.info("Weekly digests of {} have already been queued", weekStart);
+            return;
+        }
+        ZonedDateTime from = weekStart.atStartOfDay(ZoneId.systemDefault());
+        ZonedDateTime to = from.plusWeeks(1);
+        int batchSize = properties.getDigestBatchSize();
+        long lastUserId = run.getLastUserId();
+        long queued = 0;
+        long started = System.nanoTime();
+        log.info("Queueing weekly digests of {} after user {}", weekStart, lastUserId);
+
+        List<WeeklyDigestDTO> digests;
+        do {
+            digests =
+                    userRepository.findWeeklyDigestsAfter(
+                            lastUserId, from, to, PageRequest.of(0, batchSize));
+            if (digests.isEmpty()) break;
+
+            List<MailMessage> mails = digests.parallelStream().map(this::render).toList();
+            long batchLastUserId = digests.get(digests.size() - 1).userId();
+            if (!queueBatch(weekStart, lastUserId, batchLastUserId, mails)) {
+                log.info("Weekly digests of {} are being queued by another instance", weekStart);
+                return;
+            }
+            lastUserId = batchLastUserId;
+            queued += mails.size();
+            log.info(
+                    "Queued {} weekly digests of {} up to user {}, {} per second",
+                    queued,
+                    weekStart,
+                    lastUserId,
+                    perSecond(queued, started));
+        } while (digests.size() == batchSize);
+
+        digestRunRepository.finish(weekStart, LocalDateTime.now());
+        log.info(
+                "Finished queueing {} weekly digests of {} in {} ms, {} per second",
+                queued,
+                weekStart,
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started),
+                perSecond(queued, started));
+    }
+
+    /**
+     * Queues the digests of a batch of users, and records the progress of the job in the same
+     * transaction
+     * @param weekStart First day of the week
+     * @param expectedLastUserId Id of the last user of the previous batch
+     * @param lastUserId Id of the last user of the batch
+     * @param mails The rendered digests
+     * @return true if the digests were queued, or false if another instance has queued them
+     */
+    private boolean queueBatch(
+            LocalDate weekStart,
+            long expectedLastUserId,
+            long lastUserId,
+            List<MailMessage> mails) {
+        return Boolean.TRUE.equals(
+                transactionTemplate.execute(
+                        status -> {
+                            if (digestRunRepository.advance(
+                                            weekStart, expectedLastUserId, lastUserId, mails.size())
+                                    == 0) {
+                                return false;
+                            }
+                            mailQueueService.enqueueAll(mails);
+                            return true;
+                        }));
+    }
+
+    /**
+     * Finds the progress of the job of a week, or starts the job
+     * @param weekStart First day of the week
+     * @return The progress of the job
+     */
+    private DigestRun startRun(LocalDate weekStart) {
+        return digestRunRepository
+                .findById(weekStart)
+                .orElseGet(
+                        () -> {
+                            try {
+                                return digestRunRepository.save(
+                                        new DigestRun(weekStart, LocalDateTime.now()));
+                            } catch (DataIntegrityViolationException e) {
+                                // Started by another instance
+                                return digestRunRepository.findById(weekStart).orElseThrow();
+                            }
+                        });
+    }
+
+    /**
+     * Renders the digest of a user
+     * @param digest The numbers of the digest
+     * @return The rendered mail
+     */
+    private MailMessage render(WeeklyDigestDTO digest) {
+        return new MailMessage(
+                digest.email(),
+                DIGEST_SUBJECT,
+                DIGEST_TEMPLATE.render(
+                        Map.of(
+                                "firstName", digest.firstName(),
+                                "completed", String.valueOf(digest.completedChallenges()),
+                                "savedThisWeek", formatAmount(digest.savedThisWeek()),
+                                "savedAmount", formatAmount(digest.savedAmount()),
+                                "streak", String.valueOf(digest.streak()))));
+    }
+
+    /**
+     * Formats an amount of money with two decimals
+     * @param amount The amount
+     * @return The formatted amount
+     */
+    private static String formatAmount(BigDecimal amount) {
+        return amount.setScale(2, ApplicationUtil.ROUNDING_MODE).toPlainString();
+    }
+
+    /**
+     * Computes a throughput
+     * @param count Number of processed items
+     * @param started When processing started, from {@link System#nanoTime()}
+     * @return Items per second
+     */
+    private static long perSecond(long count, long started) {
+        long elapsed = Math.max(1, System.nanoTime() - started);
+        return count * TimeUnit.SECONDS.toNanos(1) / elapsed;
+    }
+}
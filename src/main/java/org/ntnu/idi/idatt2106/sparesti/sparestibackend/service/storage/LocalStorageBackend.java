@@ -0,0 +1,260 @@
+package org.ntnu.idi.idatt2106.sparesti.sparestibackend.service.storage;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.Instant;
+import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import lombok.extern.slf4j.Slf4j;
+import org.ntnu.idi.idatt2106.sparesti.sparestibackend.exception.storage.StorageException;
+
+/**
+ * Storage backend on the local file system. Files are sharded into two levels of folders named
+ * by the first four characters of their key, e.g. ab/cd/abcdef.png, so no folder holds more
+ * than a small share of the files. Files that are still in the flat layout of earlier versions
+ * are found until {@link #reshard} has moved them.
+ *
+ * @author L.M.L. Nilsen
+ * @version 1.0
+ * @since 3.5.24
+ */
+@Slf4j
+public class LocalStorageBackend implements StorageBackend {
+
+    /**
+     * Keys that can be stored. Keys may not contain path separators or start with a dot.
+     */
+    private static final Pattern KEY = Pattern.compile("[A-Za-z0-9_-]{4}[A-Za-z0-9._-]*");
+
+    /**
+     * Names of blob files in the flat layout, which are moved by {@link #reshard}
+     */
+    private static final Pattern FLAT_BLOB = Pattern.compile("[0-9a-f]{64}\\.[a-z]+");
+
+    private final Path rootLocation;
+
+    /**
+     * Constructor for LocalStorageBackend
+     * @param rootLocation Folder the files are stored in
+     */
+    public LocalStorageBackend(Path rootLocation) {
+        this.rootLocation = rootLocation.toAbsolutePath().normalize();
+    }
+
+    @Override
+    public Path createStagingFile() throws IOException {
+        return StagingFiles.create(rootLocation);
+    }
+
+    @Override
+    public void put(String key, Path stagingFile) throws IOException {
+        Path file = resolve(key);
+        Files.createDirectories(file.getParent());
+        Files.move(
+                stagingFile,
+                file,
+                StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+        Files.deleteIfExists(flatLocation(key));
+    }
+
+    @Override
+    public boolean exists(String key) {
+        return localFile(key).isPresent();
+    }
+
+    @Override
+    public InputStream open(String key) throws IOException {
+        return Files.newInputStream(existingFile(key));
+    }
+
+    @Override
+    public InputStream open(String key, long start, long length) throws IOException {
+        FileChannel channel = FileChannel.open(existingFile(key), StandardOpenOption.READ);
+        channel.position(start);
+        return new FilterInputStream(Channels.newInputStream(channel)) {
+            private long remaining = length;
+
+            @Override
+            public int read() throws IOException {
+                if (remaining <= 0) return -1;
+                int b = super.read();
+                if (b >= 0) remaining--;
+                return b;
+            }
+
+            @Override
+            public int read(byte[] b, int off, int len) throws IOException {
+                if (remaining <= 0) return -1;
+                int read = super.read(b, off, (int) Math.min(len, remaining));
+                if (read > 0) remaining -= read;
+                return read;
+            }
+        };
+    }
+
+    @Override
+    public long size(String key) throws IOException {
+        return Files.size(existingFile(key));
+    }
+
+    @Override
+    public void delete(String key) throws IOException {
+        Files.deleteIfExists(resolve(key));
+        Files.deleteIfExists(flatLocation(key));
+    }
+
+    @Override
+    public Optional<Path> localFile(String key) {
+        Path file = resolve(key);
+        if (Files.isReadable(file)) return Optional.of(file);
+        Path flatFile = flatLocation(key);
+        return Files.isReadable(flatFile) ? Optional.of(flatFile) : Optional.empty();
+    }
+
+    /**
+     * Lists the stored files by walking the shard folders, including files that are still in
+     * the flat layout. Staging files are not listed.
+     * @return Stream of the stored files
+     * @throws IOException If the storage folder could not be walked
+     */
+    @Override
+    public Stream<StoredFile> list() throws IOException {
+        if (!Files.isDirectory(rootLocation)) return Stream.empty();
+        return Files.walk(rootLocation, 3)
+                .filter(file -> KEY.matcher(file.getFileName().toString()).matches())
+                .filter(file -> !StagingFiles.isStagingFile(file))
+                .flatMap(file -> storedFile(file).stream());
+    }
+
+    @Override
+    public int deleteStagingFiles(Instant olderThan) throws IOException {
+        return StagingFiles.deleteOlderThan(rootLocation, olderThan);
+    }
+
+    /**
+     * Reads the modification time of a stored file
+     * @param file The file
+     * @return The stored file, or empty if it is not a regular file or has been deleted
+     */
+    private Optional<StoredFile> storedFile(Path file) {
+        try {
+            BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+            if (!attributes.isRegularFile()) return Optional.empty();
+            return Optional.of(
+                    new StoredFile(
+                            file.getFileName().toString(),
+                            attributes.lastModifiedTime().toInstant()));
+        } catch (IOException e) {
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Moves blob files from the flat layout into their shard folders. The storage folder is
+     * listed as a stream, and the files are moved in parallel. Files can be served while they
+     * are moved, as both layouts are looked up.
+     * @param parallelism Number of files to move at the same time
+     * @return Number of files that were moved
+     * @throws IOException If the storage folder could not be listed
+     * @throws InterruptedException If the migration was interrupted
+     */
+    public int reshard(int parallelism) throws IOException, InterruptedException {
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try (Stream<Path> files = Files.list(rootLocation)) {
+            return pool.submit(() -> moveToShards(files.parallel())).get();
+        } catch (ExecutionException e) {
+            throw new IOException("Could not reshard " + rootLocation, e.getCause());
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Moves the blob files of a stream into their shard folders
+     * @param files Files in the storage folder
+     * @return Number of files that were moved
+     */
+    private int moveToShards(Stream<Path> files) {
+        AtomicInteger moved = new AtomicInteger();
+        files.filter(file -> FLAT_BLOB.matcher(file.getFileName().toString()).matches())
+                .forEach(
+                        file -> {
+                            if (moveToShard(file)) moved.incrementAndGet();
+                        });
+        return moved.get();
+    }
+
+    /**
+     * Moves a file from the flat layout into its shard folder
+     * @param file The file
+     * @return true if the file was moved
+     */
+    private boolean moveToShard(Path file) {
+        try {
+            Path target = resolve(file.getFileName().toString());
+            Files.createDirectories(target.getParent());
+            Files.move(file, target, StandardCopyOption.ATOMIC_MOVE);
+            return true;
+        } catch (IOException e) {
+            log.warn("Could not move {} into its shard", file, e);
+            return false;
+        }
+    }
+
+    /**
+     * Finds the file of a key in either layout
+     * @param key Key of the file
+     * @return The file
+     * @throws NoSuchFileException If no file is stored under the key
+     */
+    private Path existingFile(String key) throws NoSuchFileException {
+        return localFile(key).orElseThrow(() -> new NoSuchFileException(key));
+    }
+
+    /**
+     * Resolves the sharded location of a key
+     * @param key Key of the file
+     * @return Absolute path of the file
+     * @throws StorageException If the key is not valid
+     */
+    private Path resolve(String key) throws StorageException {
+        checkKey(key);
+        return rootLocation.resolve(key.substring(0, 2)).resolve(key.substring(2, 4)).resolve(key);
+    }
+
+    /**
+     * Resolves the location of a key in the flat layout
+     * @param key Key of the file
+     * @return Absolute path of the file
+     * @throws StorageException If the key is not valid
+     */
+    private Path flatLocation(String key) throws StorageException {
+        checkKey(key);
+        return rootLocation.resolve(key);
+    }
+
+    /**
+     * Checks that a key cannot resolve outside the storage folder
+     * @param key Key of the file
+     * @throws StorageException If the key is not valid
+     */
+    private static void checkKey(String key) throws StorageException {
+        if (!KEY.matcher(key).matches()) {
+            throw new StorageException("Cannot store file outside the storage folder.");
+        }
+    }
+}
@@ -0,0 +1,218 @@
+package org.ntnu.idi.idatt2106.sparesti.sparestibackend.service.storage;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.Optional;
+import java.util.stream.Stream;
+import org.ntnu.idi.idatt2106.sparesti.sparestibackend.util.StorageProperties;
+import org.springframework.util.StringUtils;
+import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
+import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.core.exception.SdkException;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.S3ClientBuilder;
+import software.amazon.awssdk.services.s3.S3Configuration;
+import software.amazon.awssdk.services.s3.model.DeleteObjectRequest;
+import software.amazon.awssdk.services.s3.model.GetObjectRequest;
+import software.amazon.awssdk.services.s3.model.HeadObjectRequest;
+import software.amazon.awssdk.services.s3.model.ListObjectsV2Request;
+import software.amazon.awssdk.services.s3.model.NoSuchKeyException;
+import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+import software.amazon.awssdk.services.s3.model.S3Exception;
+
+/**
+ * Storage backend on an S3-compatible object store, such as AWS S3 or MinIO. Lets several
+ * instances of the application share the stored files without a shared mount. Object stores
+ * do not slow down with many keys in one prefix, so keys are stored as they are.
+ *
+ * @author L.M.L. Nilsen
+ * @version 1.0
+ * @since 3.5.24
+ */
+public class S3StorageBackend implements StorageBackend, AutoCloseable {
+
+    private final S3Client client;
+    private final String bucket;
+    private final String prefix;
+    private final Path stagingLocation;
+
+    /**
+     * Constructor for S3StorageBackend
+     * @param client Client for the object store
+     * @param bucket Bucket the files are stored in
+     * @param prefix Prefix of the object keys, e.g. images/
+     * @param stagingLocation Local folder for staging files
+     */
+    public S3StorageBackend(S3Client client, String bucket, String prefix, Path stagingLocation) {
+        this.client = client;
+        this.bucket = bucket;
+        this.prefix = prefix == null ? "" : prefix;
+        this.stagingLocation = stagingLocation.toAbsolutePath().normalize();
+    }
+
+    /**
+     * Creates a backend with a client for the configured object store. Requests are sent
+     * without chunked encoding, as the length of every file is known before it is sent.
+     * @param properties Settings of the object store
+     * @param stagingLocation Local folder for staging files
+     * @return The backend
+     */
+    public static S3StorageBackend create(StorageProperties.S3 properties, Path stagingLocation) {
+        S3ClientBuilder builder =
+                S3Client.builder()
+                        .region(Region.of(properties.getRegion()))
+                        .serviceConfiguration(
+                                S3Configuration.builder()
+                                        .pathStyleAccessEnabled(properties.isPathStyleAccess())
+                                        .chunkedEncodingEnabled(false)
+                                        .build());
+        if (StringUtils.hasText(properties.getEndpoint())) {
+            builder.endpointOverride(URI.create(properties.getEndpoint()));
+        }
+        if (StringUtils.hasText(properties.getAccessKey())) {
+            builder.credentialsProvider(
+                    StaticCredentialsProvider.create(
+                            AwsBasicCredentials.create(
+                                    properties.getAccessKey(), properties.getSecretKey())));
+        }
+        return new S3StorageBackend(
+                builder.build(), properties.getBucket(), properties.getPrefix(), stagingLocation);
+    }
+
+    @Override
+    public Path createStagingFile() throws IOException {
+        return StagingFiles.create(stagingLocation);
+    }
+
+    @Override
+    public void put(String key, Path stagingFile) throws IOException {
+        try {
+            client.putObject(
+                    PutObjectRequest.builder().bucket(bucket).key(prefix + key).build(),
+                    RequestBody.fromFile(stagingFile));
+        } catch (SdkException e) {
+            throw new IOException("Could not store " + key, e);
+        } finally {
+            Files.deleteIfExists(stagingFile);
+        }
+    }
+
+    @Override
+    public boolean exists(String key) throws IOException {
+        try {
+            client.headObject(HeadObjectRequest.builder().bucket(bucket).key(prefix + key).build());
+            return true;
+        } catch (NoSuchKeyException e) {
+            return false;
+        } catch (S3Exception e) {
+            if (e.statusCode() == 404) return false;
+            throw new IOException("Could not look up " + key, e);
+        } catch (SdkException e) {
+            throw new IOException("Could not look up " + key, e);
+        }
+    }
+
+    @Override
+    public InputStream open(String key) throws IOException {
+        return get(key, GetObjectRequest.builder().bucket(bucket).key(prefix + key).build());
+    }
+
+    @Override
+    public InputStream open(String key, long start, long length) throws IOException {
+        return get(
+                key,
+                GetObjectRequest.builder()
+                        .bucket(bucket)
+                        .key(prefix + key)
+                        .range("bytes=" + start + "-" + (start + length - 1))
+                        .build());
+    }
+
+    /**
+     * Gets an object from the store
+     * @param key Key of the file
+     * @param request The request for the object
+     * @return Stream of the object contents
+     * @throws NoSuchFileException If no file is stored under the key
+     * @throws IOException If the object could not be fetched
+     */
+    private InputStream get(String key, GetObjectRequest request) throws IOException {
+        try {
+            return client.getObject(request);
+        } catch (NoSuchKeyException e) {
+            throw new NoSuchFileException(key);
+        } catch (SdkException e) {
+            throw new IOException("Could not read " + key, e);
+        }
+    }
+
+    @Override
+    public long size(String key) throws IOException {
+        try {
+            return client.headObject(
+                            HeadObjectRequest.builder().bucket(bucket).key(prefix + key).build())
+                    .contentLength();
+        } catch (NoSuchKeyException e) {
+            throw new NoSuchFileException(key);
+        } catch (S3Exception e) {
+            if (e.statusCode() == 404) throw new NoSuchFileException(key);
+            throw new IOException("Could not look up " + key, e);
+        } catch (SdkException e) {
+            throw new IOException("Could not look up " + key, e);
+        }
+    }
+
+    @Override
+    public void delete(String key) throws IOException {
+        try {
+            client.deleteObject(
+                    DeleteObjectRequest.builder().bucket(bucket).key(prefix + key).build());
+        } catch (SdkException e) {
+            throw new IOException("Could not delete " + key, e);
+        }
+    }
+
+    @Override
+    public Optional<Path> localFile(String key) {
+        return Optional.empty();
+    }
+
+    /**
+     * Lists the objects under the prefix. The listing is fetched one page at a time as the
+     * stream is consumed.
+     * @return Stream of the stored files
+     */
+    @Override
+    public Stream<StoredFile> list() {
+        return client
+                .listObjectsV2Paginator(
+                        ListObjectsV2Request.builder().bucket(bucket).prefix(prefix).build())
+                .contents()
+                .stream()
+                .map(
+                        object ->
+                                new StoredFile(
+                                        object.key().substring(prefix.length()),
+                                        object.lastModified()));
+    }
+
+    @Override
+    public int deleteStagingFiles(Instant olderThan) throws IOException {
+        return StagingFiles.deleteOlderThan(stagingLocation, olderThan);
+    }
+
+    /**
+     * Closes the client of the object store
+     */
+    @Override
+    public void close() {
+        client.close();
+    }
+}
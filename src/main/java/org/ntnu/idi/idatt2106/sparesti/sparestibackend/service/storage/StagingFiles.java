@@ -0,0 +1,78 @@
+package org.ntnu.idi.idatt2106.sparesti.sparestibackend.service.storage;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.List;
+import java.util.stream.Stream;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Creates and cleans up the staging files that uploads are written to before they are stored
+ * by a backend.
+ *
+ * @author L.M.L. Nilsen
+ * @version 1.0
+ * @since 3.5.24
+ */
+@Slf4j
+final class StagingFiles {
+
+    private static final String PREFIX = "upload-";
+    private static final String SUFFIX = ".tmp";
+
+    private StagingFiles() {}
+
+    /**
+     * Creates an empty staging file
+     * @param folder Folder of the staging files
+     * @return Path of the staging file
+     * @throws IOException If the file could not be created
+     */
+    static Path create(Path folder) throws IOException {
+        Files.createDirectories(folder);
+        return Files.createTempFile(folder, PREFIX, SUFFIX);
+    }
+
+    /**
+     * Checks if a file is a staging file
+     * @param file The file
+     * @return true if the file is named like a staging file
+     */
+    static boolean isStagingFile(Path file) {
+        String filename = file.getFileName().toString();
+        return filename.startsWith(PREFIX) && filename.endsWith(SUFFIX);
+    }
+
+    /**
+     * Deletes the staging files of a folder that were last modified before a given time
+     * @param folder Folder of the staging files
+     * @param olderThan Only staging files last modified before this are deleted
+     * @return Number of deleted staging files
+     * @throws IOException If the folder could not be listed
+     */
+    static int deleteOlderThan(Path folder, Instant olderThan) throws IOException {
+        if (!Files.isDirectory(folder)) return 0;
+
+        List<Path> stagingFiles;
+        try (Stream<Path> files = Files.list(folder)) {
+            stagingFiles = files.filter(StagingFiles::isStagingFile).toList();
+        }
+        int deleted = 0;
+        for (Path file : stagingFiles) {
+            try {
+                if (Files.getLastModifiedTime(file).toInstant().isBefore(olderThan)
+                        && Files.deleteIfExists(file)) {
+                    deleted++;
+                }
+            } catch (NoSuchFileException e) {
+                // Stored or deleted since the folder was listed
+            } catch (IOException e) {
+                log.warn("Could not delete staging file {}", file, e);
+            }
+        }
+        return deleted;
+    }
+}
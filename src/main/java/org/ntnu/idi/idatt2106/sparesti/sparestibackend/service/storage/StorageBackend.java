@@ -0,0 +1,109 @@
+package org.ntnu.idi.idatt2106.sparesti.sparestibackend.service.storage;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+/**
+ * Where stored files are kept. Files are addressed by a flat key, such as the file name of a
+ * blob, and each backend decides how keys are laid out. Files are written to a local staging
+ * file first, so they can be validated before they are stored.
+ *
+ * @author L.M.L. Nilsen
+ * @version 1.0
+ * @since 3.5.24
+ */
+public interface StorageBackend {
+
+    /**
+     * Creates an empty staging file, placed so that {@link #put} can store it cheaply
+     * @return Path of the staging file
+     * @throws IOException If the file could not be created
+     */
+    Path createStagingFile() throws IOException;
+
+    /**
+     * Stores the contents of a staging file under a key, replacing any file with that key.
+     * The staging file is consumed.
+     * @param key Key of the file
+     * @param stagingFile The staging file
+     * @throws IOException If the file could not be stored
+     */
+    void put(String key, Path stagingFile) throws IOException;
+
+    /**
+     * Checks if a file is stored under a key
+     * @param key Key of the file
+     * @return true if the file exists
+     * @throws IOException If the backend could not be reached
+     */
+    boolean exists(String key) throws IOException;
+
+    /**
+     * Opens a stored file for reading
+     * @param key Key of the file
+     * @return Stream of the file contents
+     * @throws java.nio.file.NoSuchFileException If no file is stored under the key
+     * @throws IOException If the file could not be opened
+     */
+    InputStream open(String key) throws IOException;
+
+    /**
+     * Opens a byte range of a stored file for reading
+     * @param key Key of the file
+     * @param start First byte of the range
+     * @param length Number of bytes in the range
+     * @return Stream of the bytes in the range
+     * @throws java.nio.file.NoSuchFileException If no file is stored under the key
+     * @throws IOException If the file could not be opened
+     */
+    InputStream open(String key, long start, long length) throws IOException;
+
+    /**
+     * Gets the size of a stored file
+     * @param key Key of the file
+     * @return Size of the file in bytes
+     * @throws java.nio.file.NoSuchFileException If no file is stored under the key
+     * @throws IOException If the backend could not be reached
+     */
+    long size(String key) throws IOException;
+
+    /**
+     * Deletes a stored file, if it exists
+     * @param key Key of the file
+     * @throws IOException If the file could not be deleted
+     */
+    void delete(String key) throws IOException;
+
+    /**
+     * Gets the local file of a key, which can be sent without copying it through the heap
+     * @param key Key of the file
+     * @return The readable local file, or empty if the backend is not on the local file system
+     */
+    Optional<Path> localFile(String key);
+
+    /**
+     * Lists the stored files. Files are listed lazily, so the stream must be closed.
+     * @return Stream of the stored files
+     * @throws IOException If the files could not be listed
+     */
+    Stream<StoredFile> list() throws IOException;
+
+    /**
+     * Deletes staging files that were left behind, e.g. by an upload that was interrupted
+     * @param olderThan Only staging files last modified before this are deleted
+     * @return Number of deleted staging files
+     * @throws IOException If the staging files could not be listed
+     */
+    int deleteStagingFiles(Instant olderThan) throws IOException;
+
+    /**
+     * A stored file
+     * @param key Key of the file
+     * @param lastModified When the file was last written
+     */
+    record StoredFile(String key, Instant lastModified) {}
+}
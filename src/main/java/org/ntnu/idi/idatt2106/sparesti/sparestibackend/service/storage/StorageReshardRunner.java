@@ -0,0 +1,60 @@
+package org.ntnu.idi.idatt2106.sparesti.sparestibackend.service.storage;
+
+import java.util.List;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.stereotype.Component;
+
+/**
+ * Migration that moves files stored in the flat layout of earlier versions into the shard
+ * folders of the local backend. Runs on startup when the application is started with
+ * --reshard-storage, optionally followed by the number of files to move in parallel, e.g.
+ * --reshard-storage=8. The application serves files from both layouts while it runs.
+ *
+ * @author L.M.L. Nilsen
+ * @version 1.0
+ * @since 3.5.24
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class StorageReshardRunner implements ApplicationRunner {
+
+    /**
+     * Command line option that starts the migration
+     */
+    public static final String OPTION = "reshard-storage";
+
+    private final ObjectProvider<LocalStorageBackend> localStorageBackend;
+
+    /**
+     * Runs the migration if it was requested on the command line
+     * @param args Command line arguments of the application
+     * @throws Exception If the storage folder could not be listed
+     */
+    @Override
+    public void run(ApplicationArguments args) throws Exception {
+        if (!args.containsOption(OPTION)) return;
+
+        LocalStorageBackend backend = localStorageBackend.getIfAvailable();
+        if (backend == null) {
+            log.warn("Resharding only applies to the local storage backend");
+            return;
+        }
+        List<String> values = args.getOptionValues(OPTION);
+        int parallelism =
+                values.isEmpty()
+                        ? Runtime.getRuntime().availableProcessors()
+                        : Integer.parseInt(values.get(0));
+
+        long start = System.currentTimeMillis();
+        int moved = backend.reshard(parallelism);
+        log.info(
+                "Moved {} files into shard folders in {} ms",
+                moved,
+                System.currentTimeMillis() - start);
+    }
+}
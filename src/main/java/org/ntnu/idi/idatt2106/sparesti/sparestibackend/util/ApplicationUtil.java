@@ -2,8 +2,12 @@ package org.ntnu.idi.idatt2106.sparesti.sparestibackend.util;
 
 import com.yubico.webauthn.data.ByteArray;
 import java.math.BigDecimal;
+import java.math.BigInteger;
 import java.math.RoundingMode;
 import java.security.SecureRandom;
+import java.util.Set;
+import org.ntnu.idi.idatt2106.sparesti.sparestibackend.exception.validation.BadInputException;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Component;
 
 /**
@@ -15,7 +19,12 @@ public class ApplicationUtil {
     /**
      * Static variable for one hundred
      */
-    public static final BigDecimal ONE_HUNDRED = new BigDecimal(100);
+    private static final BigDecimal ONE_HUNDRED = BigDecimal.valueOf(100);
+
+    /**
+     * Number of decimals of numbers that are divided as longs
+     */
+    private static final int LONG_SCALE = 2;
 
     /**
      * Static variable for rounding mode up
@@ -27,6 +36,16 @@ public class ApplicationUtil {
      */
     private static final int ROUNDING_SCALE = 3;
 
+    /**
+     * Factor that turns a fraction into thousandths of a percent
+     */
+    private static final long PERCENT_FACTOR = 100_000;
+
+    /**
+     * Largest dividend that can be scaled by the percent factor without overflowing a long
+     */
+    private static final long MAX_LONG_DIVIDEND = Long.MAX_VALUE / PERCENT_FACTOR;
+
     /**
      * Static variable for random
      */
@@ -44,12 +63,95 @@ public class ApplicationUtil {
     }
 
     /**
-     * Calculates percentage given two input numbers
+     * Calculates percentage given two input numbers, rounded half up to three decimals. Numbers
+     * with at most two decimals, like amounts of money, are divided as longs when they are small
+     * enough to not overflow. Other numbers, and a zero divisor, are divided as BigDecimals, with
+     * the same result.
      * @param quot Divident
      * @param divisor Divisor
      * @return Percentage value
+     * @throws ArithmeticException If the divisor is zero
      */
     public static BigDecimal percent(BigDecimal quot, BigDecimal divisor) {
+        if (quot.scale() <= LONG_SCALE && divisor.scale() <= LONG_SCALE && divisor.signum() != 0) {
+            BigInteger unscaledQuot = quot.setScale(LONG_SCALE).unscaledValue();
+            BigInteger unscaledDivisor = divisor.setScale(LONG_SCALE).unscaledValue();
+            if (unscaledQuot.bitLength() < Long.SIZE && unscaledDivisor.bitLength() < Long.SIZE) {
+                long longQuot = unscaledQuot.longValue();
+                long longDivisor = unscaledDivisor.longValue();
+                if (longQuot >= -MAX_LONG_DIVIDEND
+                        && longQuot <= MAX_LONG_DIVIDEND
+                        && longDivisor != Long.MIN_VALUE) {
+                    return percent(longQuot, longDivisor);
+                }
+            }
+        }
         return quot.multiply(ONE_HUNDRED).divide(divisor, ROUNDING_SCALE, ROUNDING_MODE);
     }
+
+    /**
+     * Calculates percentage given two whole numbers, rounded half up to three decimals, without
+     * allocating intermediate BigDecimals
+     * @param quot Divident
+     * @param divisor Divisor
+     * @return Percentage value
+     * @throws ArithmeticException If the divisor is zero, or a number is too large
+     */
+    public static BigDecimal percent(long quot, long divisor) {
+        long scaled = Math.multiplyExact(quot, PERCENT_FACTOR);
+        long result = scaled / divisor;
+        long remainder = Math.abs(scaled % divisor);
+        if (remainder >= Math.absExact(divisor) - remainder) {
+            result += Long.signum(scaled) * Long.signum(divisor);
+        }
+        return BigDecimal.valueOf(result, ROUNDING_SCALE);
+    }
+
+    /**
+     * Formats a challenge type to its canonical form, which is trimmed and
+     * capitalized on the first letter only
+     * @param type Unformatted type
+     * @return Canonical type name, or null if the type is null
+     */
+    public static String formatType(String type) {
+        if (type == null) return null;
+
+        String trimmed = type.trim();
+        return trimmed.length() > 1
+                ? trimmed.substring(0, 1).toUpperCase() + trimmed.substring(1).toLowerCase()
+                : trimmed.toUpperCase();
+    }
+
+    /**
+     * Checks that a page is only sorted on allowed properties
+     * @param pageable Pageable object that configures the page
+     * @param sortableProperties Properties that are allowed to sort on
+     * @throws BadInputException If the page is sorted on a property that is not allowed
+     */
+    public static void validateSort(Pageable pageable, Set<String> sortableProperties)
+            throws BadInputException {
+        pageable.getSort()
+                .forEach(
+                        order -> {
+                            if (!sortableProperties.contains(order.getProperty())) {
+                                throw new BadInputException(
+                                        "Kan ikke sortere på '" + order.getProperty() + "'");
+                            }
+                        });
+    }
+
+    /**
+     * Checks that the lower bound of a range is not greater than the upper bound
+     * @param from Lower bound, may be null
+     * @param to Upper bound, may be null
+     * @param name Name of the range, used in the error message
+     * @param <T> Type of the bounds
+     * @throws BadInputException If the lower bound is greater than the upper bound
+     */
+    public static <T extends Comparable<? super T>> void validateRange(T from, T to, String name)
+            throws BadInputException {
+        if (from != null && to != null && from.compareTo(to) > 0) {
+            throw new BadInputException("Ugyldig intervall for " + name);
+        }
+    }
 }
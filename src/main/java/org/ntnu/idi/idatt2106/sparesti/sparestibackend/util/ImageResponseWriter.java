@@ -0,0 +1,391 @@
+package org.ntnu.idi.idatt2106.sparesti.sparestibackend.util;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.ntnu.idi.idatt2106.sparesti.sparestibackend.exception.storage.StorageFileNotFoundException;
+import org.ntnu.idi.idatt2106.sparesti.sparestibackend.model.StoredImage;
+import org.ntnu.idi.idatt2106.sparesti.sparestibackend.service.ImageBlobService;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpRange;
+import org.springframework.stereotype.Component;
+import org.springframework.util.MimeTypeUtils;
+import org.springframework.web.context.request.ServletWebRequest;
+
+/**
+ * Writes stored images to HTTP responses. Responses carry a strong ETag from the checksum of
+ * the image, a Last-Modified header and a Cache-Control header. Conditional requests are
+ * checked against the image metadata, so an unchanged image is answered with 304 Not Modified
+ * without opening the file.
+ * <p>
+ * A single byte range is served as 206 Partial Content, unless an If-Range header shows that
+ * the client's copy is outdated. Large files on the local file system are handed to the
+ * servlet container with sendfile when it supports it, which is the only path where image bytes
+ * are not copied through a heap buffer. Other local files are copied with
+ * {@link FileChannel#transferTo} into a channel over the response output stream, which copies
+ * through a heap buffer. Files in a remote storage backend are streamed through a heap buffer
+ * as well, fetching only the range.
+ * <p>
+ * Blob files requested through a signed URL are written from their key alone, without
+ * looking up their metadata. Several images can be written to one multipart/mixed response,
+ * which saves list screens a request per image.
+ *
+ * @author L.M.L. Nilsen
+ * @version 1.0
+ * @since 3.5.24
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ImageResponseWriter {
+
+    /**
+     * Request attributes of Tomcat's sendfile support
+     */
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    /**
+     * Smallest response that is sent with sendfile. Smaller files are cheaper to copy.
+     */
+    private static final long SENDFILE_THRESHOLD = 48 * 1024;
+
+    private static final String CRLF = "\r\n";
+
+    private final ImageBlobService imageBlobService;
+
+    private final StorageProperties properties;
+
+    /**
+     * Writes the response for an image
+     * @param image Metadata of the image
+     * @param request The current request, checked for conditional and Range headers
+     * @param response The response to write the image to
+     * @throws IOException If the image could not be written
+     */
+    public void write(StoredImage image, HttpServletRequest request, HttpServletResponse response)
+            throws IOException {
+        write(
+                new ImageFile(
+                        image.getPath(),
+                        image.getContentType(),
+                        image.getSize(),
+                        image.getChecksum(),
+                        image.getUpdatedAt().toInstant().toEpochMilli(),
+                        cacheControl()),
+                request,
+                response);
+    }
+
+    /**
+     * Writes the response for a blob file, which is requested through a signed URL. The file is
+     * described by its key alone, so the database is not used. The checksum in the key is used
+     * as the ETag, and clients may cache the file until the URL expires.
+     * @param key Key of the blob file
+     * @param expires When the signed URL expires, as a Unix time in seconds
+     * @param request The current request, checked for conditional and Range headers
+     * @param response The response to write the file to
+     * @throws StorageFileNotFoundException If the file does not exist
+     * @throws IOException If the file could not be written
+     */
+    public void writeBlob(
+            String key, long expires, HttpServletRequest request, HttpServletResponse response)
+            throws IOException {
+        long size;
+        try {
+            size = imageBlobService.size(key);
+        } catch (NoSuchFileException e) {
+            throw new StorageFileNotFoundException("Could not read file: " + key);
+        }
+        Duration maxAge = Duration.between(Instant.now(), Instant.ofEpochSecond(expires));
+        write(
+                new ImageFile(
+                        key,
+                        ImageBlobService.contentTypeOf(key),
+                        size,
+                        key.substring(0, key.indexOf('.')),
+                        -1,
+                        CacheControl.maxAge(maxAge.isNegative() ? Duration.ZERO : maxAge)
+                                .cachePrivate()
+                                .immutable()),
+                request,
+                response);
+    }
+
+    /**
+     * Writes several images to one multipart/mixed response. Each part carries the
+     * Content-Type, Content-Length and ETag of its image, and a Content-ID with the identifier
+     * of what the image belongs to, e.g. {@code <1-G>} for goal 1. Each file is opened before
+     * the headers of its part are written, so images whose file has gone missing are left out,
+     * and the Content-Length of a local file is its size on disk.
+     * @param images Metadata of the images
+     * @param response The response to write the images to
+     * @throws IOException If an image could not be written
+     */
+    public void writeMultipart(List<StoredImage> images, HttpServletResponse response)
+            throws IOException {
+        String boundary = MimeTypeUtils.generateMultipartBoundaryString();
+        response.setStatus(HttpServletResponse.SC_OK);
+        response.setContentType("multipart/mixed; boundary=" + boundary);
+        response.setHeader(HttpHeaders.CACHE_CONTROL, cacheControl().getHeaderValue());
+
+        OutputStream outputStream = response.getOutputStream();
+        for (StoredImage image : images) {
+            Optional<Path> file = imageBlobService.localFile(image.getPath());
+            FileChannel localFile;
+            InputStream remoteFile;
+            try {
+                localFile =
+                        file.isPresent()
+                                ? FileChannel.open(file.get(), StandardOpenOption.READ)
+                                : null;
+                remoteFile = file.isEmpty() ? imageBlobService.open(image.getPath()) : null;
+            } catch (NoSuchFileException e) {
+                log.warn("Leaving out missing file {}", image.getPath());
+                continue;
+            }
+            try (localFile;
+                    remoteFile) {
+                long size = localFile != null ? localFile.size() : image.getSize();
+                String contentId = image.getEntityId() + image.getKind().getSuffix();
+                String headers =
+                        String.join(
+                                CRLF,
+                                "--" + boundary,
+                                HttpHeaders.CONTENT_TYPE + ": " + image.getContentType(),
+                                HttpHeaders.CONTENT_LENGTH + ": " + size,
+                                "Content-ID: <" + contentId + ">",
+                                HttpHeaders.ETAG + ": \"" + image.getChecksum() + "\"",
+                                "",
+                                "");
+                outputStream.write(headers.getBytes(StandardCharsets.US_ASCII));
+                if (remoteFile != null) {
+                    remoteFile.transferTo(outputStream);
+                } else {
+                    transfer(localFile, 0, size, response);
+                }
+                outputStream.write(CRLF.getBytes(StandardCharsets.US_ASCII));
+            }
+        }
+        outputStream.write(("--" + boundary + "--" + CRLF).getBytes(StandardCharsets.US_ASCII));
+    }
+
+    /**
+     * Writes the response for a file
+     * @param image The file and its metadata
+     * @param request The current request, checked for conditional and Range headers
+     * @param response The response to write the file to
+     * @throws StorageFileNotFoundException If the file does not exist
+     * @throws IOException If the file could not be written
+     */
+    private void write(ImageFile image, HttpServletRequest request, HttpServletResponse response)
+            throws IOException {
+        if (new ServletWebRequest(request, response)
+                .checkNotModified(image.etag(), image.lastModified())) {
+            return;
+        }
+
+        long size = image.size();
+        long start = 0;
+        long end = size - 1;
+        HttpRange range = requestedRange(image, request);
+        if (range != null) {
+            try {
+                start = range.getRangeStart(size);
+                end = range.getRangeEnd(size);
+                if (start >= size) {
+                    throw new IllegalArgumentException("Range starts after the image ends");
+                }
+            } catch (IllegalArgumentException e) {
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + size);
+                response.setStatus(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+                return;
+            }
+        }
+        long length = end - start + 1;
+        boolean head = HttpMethod.HEAD.matches(request.getMethod());
+
+        // Files that are not on the local file system are opened before any header is written,
+        // so a missing file can still be answered with an error
+        Optional<Path> file = imageBlobService.localFile(image.path());
+        InputStream remoteFile =
+                file.isEmpty() && !head && length > 0 ? openFile(image, start, length) : null;
+        try (remoteFile) {
+            if (range != null) {
+                response.setHeader(
+                        HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + size);
+                response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+            } else {
+                response.setStatus(HttpServletResponse.SC_OK);
+            }
+            response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+            response.setHeader(HttpHeaders.CACHE_CONTROL, image.cacheControl().getHeaderValue());
+            response.setContentType(image.contentType());
+            response.setContentLengthLong(length);
+            if (head || length == 0) {
+                return;
+            }
+
+            if (remoteFile != null) {
+                remoteFile.transferTo(response.getOutputStream());
+            } else if (length >= SENDFILE_THRESHOLD
+                    && Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+                request.setAttribute(SENDFILE_FILENAME, file.get().toString());
+                request.setAttribute(SENDFILE_START, start);
+                request.setAttribute(SENDFILE_END, end + 1);
+            } else {
+                transfer(file.get(), start, length, response);
+            }
+        }
+    }
+
+    /**
+     * Opens a byte range of a file in a remote storage backend
+     * @param image The file and its metadata
+     * @param start First byte of the range
+     * @param length Number of bytes in the range
+     * @return Stream of the bytes in the range
+     * @throws StorageFileNotFoundException If the file does not exist
+     * @throws IOException If the file could not be opened
+     */
+    private InputStream openFile(ImageFile image, long start, long length) throws IOException {
+        try {
+            return imageBlobService.open(image.path(), start, length);
+        } catch (NoSuchFileException e) {
+            throw new StorageFileNotFoundException("Could not read file: " + image.path());
+        }
+    }
+
+    /**
+     * Finds the byte range a request asks for. Malformed Range headers and requests for several
+     * ranges are answered with the whole image, which HTTP allows.
+     * @param image The file and its metadata
+     * @param request The current request
+     * @return The requested range, or null if the whole image should be sent
+     */
+    private HttpRange requestedRange(ImageFile image, HttpServletRequest request) {
+        String rangeHeader = request.getHeader(HttpHeaders.RANGE);
+        if (rangeHeader == null || !matchesIfRange(image, request)) {
+            return null;
+        }
+        try {
+            List<HttpRange> ranges = HttpRange.parseRanges(rangeHeader);
+            return ranges.size() == 1 ? ranges.get(0) : null;
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Checks the If-Range header of a request. An entity tag must match the ETag of the image
+     * exactly, and a date must equal its Last-Modified date to the second.
+     * @param image The file and its metadata
+     * @param request The current request
+     * @return true if there is no If-Range header, or it matches the image
+     */
+    private boolean matchesIfRange(ImageFile image, HttpServletRequest request) {
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        if (ifRange == null) {
+            return true;
+        }
+        if (ifRange.startsWith("\"") || ifRange.startsWith("W/")) {
+            return ifRange.equals("\"" + image.etag() + "\"");
+        }
+        try {
+            return image.lastModified() >= 0
+                    && request.getDateHeader(HttpHeaders.IF_RANGE) / 1000
+                            == image.lastModified() / 1000;
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Copies part of a file to a response with {@link FileChannel#transferTo}
+     * @param file The file
+     * @param start First byte to copy
+     * @param length Number of bytes to copy
+     * @param response The response to copy the bytes to
+     * @throws IOException If the file could not be read, or the response written
+     */
+    private void transfer(Path file, long start, long length, HttpServletResponse response)
+            throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            transfer(channel, start, length, response);
+        }
+    }
+
+    /**
+     * Copies part of an open file to a response with {@link FileChannel#transferTo}. The target is
+     * a channel over the servlet output stream, so the bytes pass through a heap buffer.
+     * @param channel The open file
+     * @param start First byte to copy
+     * @param length Number of bytes to copy
+     * @param response The response to copy the bytes to
+     * @throws IOException If the file could not be read, or the response written
+     */
+    private void transfer(
+            FileChannel channel, long start, long length, HttpServletResponse response)
+            throws IOException {
+        WritableByteChannel target = Channels.newChannel(response.getOutputStream());
+        long position = start;
+        long remaining = length;
+        while (remaining > 0) {
+            long transferred = channel.transferTo(position, remaining, target);
+            if (transferred <= 0) {
+                break;
+            }
+            position += transferred;
+            remaining -= transferred;
+        }
+    }
+
+    /**
+     * Creates the Cache-Control header of image responses. Images are only served to their
+     * owner, so shared caches may not store them.
+     * @return The Cache-Control header
+     */
+    private CacheControl cacheControl() {
+        if (properties.getCacheMaxAge().isZero()) {
+            return CacheControl.noCache().cachePrivate();
+        }
+        return CacheControl.maxAge(properties.getCacheMaxAge()).cachePrivate();
+    }
+
+    /**
+     * A file to write to a response, with the metadata of its headers
+     * @param path Key of the file in the storage backend
+     * @param contentType MIME type of the file
+     * @param size Size of the file in bytes
+     * @param etag Entity tag of the file, without quotes
+     * @param lastModified Last modification of the file in milliseconds, or -1 if it is unknown
+     * @param cacheControl Cache-Control header of the response
+     */
+    private record ImageFile(
+            String path,
+            String contentType,
+            long size,
+            String etag,
+            long lastModified,
+            CacheControl cacheControl) {}
+}
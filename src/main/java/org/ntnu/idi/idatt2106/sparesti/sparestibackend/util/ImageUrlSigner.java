@@ -0,0 +1,143 @@
+package org.ntnu.idi.idatt2106.sparesti.sparestibackend.util;
+
+import java.nio.charset.StandardCharsets;
+import java.security.InvalidKeyException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.time.Clock;
+import java.util.Base64;
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.env.Environment;
+import org.springframework.core.env.Profiles;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+/**
+ * Signs and verifies the URLs of image files, which let clients fetch an image without a JWT
+ * token until the URL expires. A signed URL has the form
+ * {@code /images/{key}?expires={expires}&signature={signature}}, where the key names a blob
+ * file, expires is a Unix time in seconds, and the signature is the unpadded base64url encoded
+ * HMAC-SHA256 of {@code {key}:{expires}} with the signing key. The signature only depends on the
+ * URL, so a static file server in front of the storage folder can verify it with the same key.
+ * <p>
+ * Expiry times are rounded up to a whole number of periods, so an image keeps the same URL
+ * while it is unchanged, and clients can cache it until it expires.
+ *
+ * @author L.M.L. Nilsen
+ * @version 1.0
+ * @since 3.5.24
+ */
+@Slf4j
+@Component
+public class ImageUrlSigner {
+
+    private static final String ALGORITHM = "HmacSHA256";
+
+    /**
+     * Path that signed image URLs start with
+     */
+    public static final String PATH = "/images/";
+
+    private final SecretKeySpec signingKey;
+
+    private final long ttlSeconds;
+
+    private final Clock clock;
+
+    /**
+     * Creates a signer with the signing key and validity of the storage properties. Outside
+     * the test profile, startup fails if no signing key is configured, as a random key would
+     * make signed URLs stop working on restart and on other instances.
+     * @param properties Storage properties
+     * @param environment Environment with the active profiles
+     * @throws IllegalStateException If no signing key is configured outside the test profile
+     */
+    @Autowired
+    public ImageUrlSigner(StorageProperties properties, Environment environment) {
+        this(properties, Clock.systemUTC(), environment.acceptsProfiles(Profiles.of("test")));
+    }
+
+    /**
+     * Creates a signer with the signing key and validity of the storage properties
+     * @param properties Storage properties
+     * @param clock Clock that expiry times are computed from
+     * @throws IllegalStateException If no signing key is configured
+     */
+    public ImageUrlSigner(StorageProperties properties, Clock clock) {
+        this(properties, clock, false);
+    }
+
+    /**
+     * Creates a signer with the signing key and validity of the storage properties
+     * @param properties Storage properties
+     * @param clock Clock that expiry times are computed from
+     * @param allowRandomKey Whether a random key is used if no signing key is configured
+     * @throws IllegalStateException If no signing key is configured, and a random key is not
+     * allowed
+     */
+    private ImageUrlSigner(StorageProperties properties, Clock clock, boolean allowRandomKey) {
+        byte[] key;
+        if (StringUtils.hasText(properties.getUrlSigningKey())) {
+            key = properties.getUrlSigningKey().getBytes(StandardCharsets.UTF_8);
+        } else if (!allowRandomKey) {
+            throw new IllegalStateException(
+                    "No URL signing key is configured, set storage.url-signing-key or"
+                            + " IMAGE_URL_SIGNING_KEY");
+        } else {
+            log.warn("No URL signing key is configured, signed image URLs use a random key");
+            key = new byte[32];
+            new SecureRandom().nextBytes(key);
+        }
+        this.signingKey = new SecretKeySpec(key, ALGORITHM);
+        this.ttlSeconds = Math.max(1, properties.getSignedUrlTtl().toSeconds());
+        this.clock = clock;
+    }
+
+    /**
+     * Creates a signed URL of an image file
+     * @param key Key of the image file
+     * @return The signed URL, relative to the root of the application
+     */
+    public String sign(String key) {
+        long now = clock.instant().getEpochSecond();
+        long expires = (now / ttlSeconds + 2) * ttlSeconds;
+        return PATH + key + "?expires=" + expires + "&signature=" + signature(key, expires);
+    }
+
+    /**
+     * Verifies the signature and expiry of a signed URL
+     * @param key Key of the image file
+     * @param expires When the URL expires, as a Unix time in seconds
+     * @param signature Signature of the URL
+     * @return true if the signature is valid and the URL has not expired
+     */
+    public boolean verify(String key, long expires, String signature) {
+        if (expires <= clock.instant().getEpochSecond()) {
+            return false;
+        }
+        return MessageDigest.isEqual(
+                signature(key, expires).getBytes(StandardCharsets.US_ASCII),
+                signature.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    /**
+     * Computes the signature of a URL
+     * @param key Key of the image file
+     * @param expires When the URL expires, as a Unix time in seconds
+     * @return The base64url encoded signature
+     */
+    private String signature(String key, long expires) {
+        try {
+            Mac mac = Mac.getInstance(ALGORITHM);
+            mac.init(signingKey);
+            byte[] digest = mac.doFinal((key + ":" + expires).getBytes(StandardCharsets.UTF_8));
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(digest);
+        } catch (NoSuchAlgorithmException | InvalidKeyException e) {
+            throw new IllegalStateException("HMAC-SHA256 is not supported", e);
+        }
+    }
+}
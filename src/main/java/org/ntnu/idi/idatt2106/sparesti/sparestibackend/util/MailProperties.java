@@ -0,0 +1,120 @@
+package org.ntnu.idi.idatt2106.sparesti.sparestibackend.util;
+
+import java.time.Duration;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Class containing the SMTP server that mails are sent through, and how the outbound mail queue
+ * is drained.
+ *
+ * @author L.M.L. Nilsen
+ * @version 1.0
+ * @since 3.5.24
+ */
+@Setter
+@Getter
+@Configuration
+@ConfigurationProperties("mail")
+public class MailProperties {
+
+    /**
+     * Host name of the SMTP server
+     */
+    private String host = "smtp.gmail.com";
+
+    /**
+     * Port of the SMTP server
+     */
+    private int port = 587;
+
+    /**
+     * Whether to log in to the SMTP server
+     */
+    private boolean auth = true;
+
+    /**
+     * Whether to upgrade the connection to TLS with STARTTLS
+     */
+    private boolean starttls = true;
+
+    /**
+     * User name of the SMTP server
+     */
+    private String username;
+
+    /**
+     * Password of the SMTP server
+     */
+    private String password;
+
+    /**
+     * Address that mails are sent from
+     */
+    private String from = "noreply@sparesti.no";
+
+    /**
+     * Page of the frontend that password reset links point to
+     */
+    private String resetPasswordUrl = "http://localhost:5173/forgotPassword";
+
+    /**
+     * How long to wait for the SMTP server to connect, and to answer each command
+     */
+    private Duration timeout = Duration.ofSeconds(10);
+
+    /**
+     * Number of workers that send mails in parallel, each over its own connection
+     */
+    private int workers = 2;
+
+    /**
+     * Largest number of mails sent each second by all workers together, or 0 for no limit.
+     * Keeps bulk mail, like the weekly digests, within the sending limits of the SMTP server.
+     */
+    private int rateLimit = 10;
+
+    /**
+     * Number of mails a worker claims at a time
+     */
+    private int batchSize = 20;
+
+    /**
+     * How long a claimed mail is left alone before another worker may send it, in case the
+     * worker that claimed it dies
+     */
+    private Duration lease = Duration.ofMinutes(5);
+
+    /**
+     * Number of attempts to send a mail before it is marked as failed
+     */
+    private int maxAttempts = 8;
+
+    /**
+     * How long to wait before the first retry. The wait doubles after every failed attempt.
+     */
+    private Duration initialBackoff = Duration.ofSeconds(30);
+
+    /**
+     * Longest wait between two attempts
+     */
+    private Duration maxBackoff = Duration.ofHours(1);
+
+    /**
+     * How long a mail is kept in the queue. Mails that failed, and mails that could not be sent
+     * in this time, are deleted by the purge job.
+     */
+    private Duration retention = Duration.ofDays(7);
+
+    /**
+     * Number of mails deleted at a time by the purge job
+     */
+    private int purgeBatchSize = 500;
+
+    /**
+     * Number of users whose weekly digests are computed and queued at a time
+     */
+    private int digestBatchSize = 200;
+}
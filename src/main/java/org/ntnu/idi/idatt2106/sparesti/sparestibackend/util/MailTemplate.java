@@ -0,0 +1,80 @@
+package org.ntnu.idi.idatt2106.sparesti.sparestibackend.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A mail text with {@code {name}} placeholders. The text is split into literals and
+ * placeholders once, when the template is compiled, so rendering only appends the parts to a
+ * builder, without searching the text or using regular expressions.
+ *
+ * @author L.M.L. Nilsen
+ * @version 1.0
+ * @since 3.5.24
+ */
+public final class MailTemplate {
+
+    private final String[] literals;
+
+    private final String[] names;
+
+    private final int length;
+
+    /**
+     * Constructor for a compiled template
+     * @param literals Literal parts of the text, one more than the placeholders
+     * @param names Names of the placeholders
+     */
+    private MailTemplate(String[] literals, String[] names) {
+        this.literals = literals;
+        this.names = names;
+        int literalLength = 0;
+        for (String literal : literals) {
+            literalLength += literal.length();
+        }
+        this.length = literalLength;
+    }
+
+    /**
+     * Compiles a template
+     * @param template Text with {@code {name}} placeholders
+     * @return The compiled template
+     * @throws IllegalArgumentException If a placeholder is not closed
+     */
+    public static MailTemplate compile(String template) {
+        List<String> literals = new ArrayList<>();
+        List<String> names = new ArrayList<>();
+        int start = 0;
+        int open;
+        while ((open = template.indexOf('{', start)) >= 0) {
+            int close = template.indexOf('}', open);
+            if (close < 0) {
+                throw new IllegalArgumentException("Unclosed placeholder in mail template");
+            }
+            literals.add(template.substring(start, open));
+            names.add(template.substring(open + 1, close));
+            start = close + 1;
+        }
+        literals.add(template.substring(start));
+        return new MailTemplate(literals.toArray(String[]::new), names.toArray(String[]::new));
+    }
+
+    /**
+     * Renders the template
+     * @param values Values of the placeholders
+     * @return The rendered text
+     * @throws IllegalArgumentException If a placeholder has no value
+     */
+    public String render(Map<String, String> values) {
+        StringBuilder text = new StringBuilder(length + 64 * names.length);
+        for (int i = 0; i < names.length; i++) {
+            String value = values.get(names[i]);
+            if (value == null) {
+                throw new IllegalArgumentException("No value for placeholder " + names[i]);
+            }
+            text.append(literals[i]).append(value);
+        }
+        return text.append(literals[names.length]).toString();
+    }
+}
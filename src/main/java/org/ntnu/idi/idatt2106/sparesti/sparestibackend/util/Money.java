@@ -0,0 +1,96 @@
+package org.ntnu.idi.idatt2106.sparesti.sparestibackend.util;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * An amount of money in øre, used for the arithmetic on saved amounts and targets. Entities and
+ * DTOs keep their amounts as BigDecimal with two decimals, and are converted to and from this
+ * type where they are read and written, so the calculations in between add and compare longs
+ * instead of allocating a BigDecimal or rounding a double for every step. All operations throw
+ * an ArithmeticException on overflow.
+ *
+ * @param ore The amount in øre
+ * @author L.M.L. Nilsen
+ * @version 1.0
+ * @since 3.5.24
+ */
+public record Money(long ore) implements Comparable<Money> {
+
+    /**
+     * Number of decimals of an amount in kroner
+     */
+    private static final int SCALE = 2;
+
+    /**
+     * No money
+     */
+    public static final Money ZERO = new Money(0);
+
+    /**
+     * Converts an amount in kroner to money, rounding to whole øre
+     * @param amount Amount in kroner
+     * @return The amount as money
+     */
+    public static Money of(BigDecimal amount) {
+        return new Money(
+                amount.setScale(SCALE, RoundingMode.HALF_UP).unscaledValue().longValueExact());
+    }
+
+    /**
+     * Converts the money to an amount in kroner, with two decimals
+     * @return The amount in kroner
+     */
+    public BigDecimal toBigDecimal() {
+        return BigDecimal.valueOf(ore, SCALE);
+    }
+
+    /**
+     * Adds money to this
+     * @param other Money to add
+     * @return The sum
+     */
+    public Money plus(Money other) {
+        return new Money(Math.addExact(ore, other.ore));
+    }
+
+    /**
+     * Subtracts money from this
+     * @param other Money to subtract
+     * @return The difference
+     */
+    public Money minus(Money other) {
+        return new Money(Math.subtractExact(ore, other.ore));
+    }
+
+    /**
+     * Determines whether this is more than zero
+     * @return True, if this is more than zero
+     */
+    public boolean isPositive() {
+        return ore > 0;
+    }
+
+    /**
+     * Determines whether this is at least as much as other money
+     * @param other Money to compare to
+     * @return True, if this is at least as much as the other money
+     */
+    public boolean isAtLeast(Money other) {
+        return ore >= other.ore;
+    }
+
+    /**
+     * Calculates how many percent this is of a whole
+     * @param whole The whole
+     * @return Percentage with three decimals
+     */
+    public BigDecimal percentOf(Money whole) {
+        return ApplicationUtil.percent(ore, whole.ore);
+    }
+
+    @Override
+    public int compareTo(Money other) {
+        return Long.compare(ore, other.ore);
+    }
+}
@@ -0,0 +1,37 @@
+package org.ntnu.idi.idatt2106.sparesti.sparestibackend.util;
+
+import java.time.Duration;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Class containing how password reset tokens are stored, and how long they are valid.
+ *
+ * @author L.M.L. Nilsen
+ * @version 1.0
+ * @since 3.5.24
+ */
+@Setter
+@Getter
+@Configuration
+@ConfigurationProperties("password-reset")
+public class PasswordResetProperties {
+
+    /**
+     * Secret key of the HMAC that reset tokens are stored as. It must be set outside the test
+     * profile, where a random key is used if it is empty.
+     */
+    private String tokenKey;
+
+    /**
+     * How long a reset token is valid
+     */
+    private Duration tokenTtl = Duration.ofHours(24);
+
+    /**
+     * Number of expired requests deleted at a time by the purge job
+     */
+    private int purgeBatchSize = 500;
+}
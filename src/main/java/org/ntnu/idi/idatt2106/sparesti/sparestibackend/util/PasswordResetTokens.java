@@ -0,0 +1,116 @@
+package org.ntnu.idi.idatt2106.sparesti.sparestibackend.util;
+
+import java.nio.charset.StandardCharsets;
+import java.security.InvalidKeyException;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.util.Base64;
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.env.Environment;
+import org.springframework.core.env.Profiles;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+/**
+ * Derives and digests password reset tokens with the token key. The token that is mailed to a
+ * user is derived from a random request id, so the outbound mail queue only stores the request
+ * id, and the link is rendered when the mail is sent. Tokens are stored as their digest. Both
+ * are the unpadded base64url encoded HMAC-SHA256 with the token key, so neither the request id
+ * nor the digest is of any use to someone who reads the database without the key.
+ *
+ * @author L.M.L. Nilsen
+ * @version 1.0
+ * @since 3.5.24
+ */
+@Slf4j
+@Component
+public class PasswordResetTokens {
+
+    private static final String ALGORITHM = "HmacSHA256";
+
+    private static final String TOKEN_PREFIX = "token:";
+
+    private final SecretKeySpec tokenKey;
+
+    /**
+     * Creates the tokens with the token key of the password reset properties. Outside the test
+     * profile, startup fails if no token key is configured, as a random key would make
+     * outstanding reset links stop working on restart and on other instances.
+     * @param properties Password reset properties
+     * @param environment Environment with the active profiles
+     * @throws IllegalStateException If no token key is configured outside the test profile
+     */
+    @Autowired
+    public PasswordResetTokens(PasswordResetProperties properties, Environment environment) {
+        this(properties, environment.acceptsProfiles(Profiles.of("test")));
+    }
+
+    /**
+     * Creates the tokens with the token key of the password reset properties
+     * @param properties Password reset properties
+     * @throws IllegalStateException If no token key is configured
+     */
+    public PasswordResetTokens(PasswordResetProperties properties) {
+        this(properties, false);
+    }
+
+    /**
+     * Creates the tokens with the token key of the password reset properties
+     * @param properties Password reset properties
+     * @param allowRandomKey Whether a random key is used if no token key is configured
+     * @throws IllegalStateException If no token key is configured, and a random key is not
+     * allowed
+     */
+    private PasswordResetTokens(PasswordResetProperties properties, boolean allowRandomKey) {
+        byte[] key;
+        if (StringUtils.hasText(properties.getTokenKey())) {
+            key = properties.getTokenKey().getBytes(StandardCharsets.UTF_8);
+        } else if (!allowRandomKey) {
+            throw new IllegalStateException(
+                    "No password reset token key is configured, set password-reset.token-key or"
+                            + " RESET_TOKEN_KEY");
+        } else {
+            log.warn("No password reset token key is configured, reset tokens use a random key");
+            key = new byte[32];
+            new SecureRandom().nextBytes(key);
+        }
+        this.tokenKey = new SecretKeySpec(key, ALGORITHM);
+    }
+
+    /**
+     * Derives the reset token of a password reset request
+     * @param requestId Random id of the request
+     * @return The token that is mailed to the user
+     */
+    public String token(String requestId) {
+        return mac(TOKEN_PREFIX + requestId);
+    }
+
+    /**
+     * Computes the digest that a reset token is stored as
+     * @param token The reset token
+     * @return The digest of the token
+     */
+    public String digest(String token) {
+        return mac(token);
+    }
+
+    /**
+     * Computes the HMAC-SHA256 of a text with the token key
+     * @param text The text
+     * @return The base64url encoded HMAC, without padding
+     */
+    private String mac(String text) {
+        try {
+            Mac mac = Mac.getInstance(ALGORITHM);
+            mac.init(tokenKey);
+            byte[] digest = mac.doFinal(text.getBytes(StandardCharsets.UTF_8));
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(digest);
+        } catch (NoSuchAlgorithmException | InvalidKeyException e) {
+            throw new IllegalStateException("HMAC-SHA256 is not supported", e);
+        }
+    }
+}
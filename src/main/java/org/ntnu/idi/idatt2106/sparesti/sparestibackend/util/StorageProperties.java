@@ -1,12 +1,18 @@
 package org.ntnu.idi.idatt2106.sparesti.sparestibackend.util;
 
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
 import lombok.Getter;
 import lombok.Setter;
+import org.ntnu.idi.idatt2106.sparesti.sparestibackend.model.enums.ImageKind;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.util.unit.DataSize;
 
 /**
- * Class containing the location of the folder for storing uploaded files.
+ * Class containing where uploaded files are stored, limits on uploaded images, and how clients
+ * may cache served images.
  *
  * @author L.M.L Nilsen
  */
@@ -17,7 +23,123 @@ import org.springframework.context.annotation.Configuration;
 public class StorageProperties {
 
     /**
-     * Folder location for storing files
+     * Which backend stores the files: local for the folder at {@link #location}, or s3 for an
+     * S3-compatible object store
+     */
+    private String backend = "local";
+
+    /**
+     * Folder location for storing files, and for staging uploads before they are stored
      */
     private String location = "/upload-dir";
+
+    /**
+     * Settings of the S3-compatible object store, used when the backend is s3
+     */
+    private S3 s3 = new S3();
+
+    /**
+     * How long clients may use a served image before revalidating it. Images are served on
+     * the same URL after being replaced, so zero means clients always revalidate, which is
+     * answered with 304 Not Modified while the image is unchanged.
+     */
+    private Duration cacheMaxAge = Duration.ZERO;
+
+    /**
+     * Secret key that signs image URLs, which let clients fetch images without a JWT token. It
+     * must be set outside the test profile, where a random key is used if it is empty.
+     */
+    private String urlSigningKey;
+
+    /**
+     * How long signed image URLs are valid. URLs expire at the end of the next whole period,
+     * so an image keeps the same URL for at least this long, and at most twice as long.
+     */
+    private Duration signedUrlTtl = Duration.ofMinutes(10);
+
+    /**
+     * Largest upload allowed for each kind of image. The multipart limit of the servlet
+     * container must be at least the largest of these.
+     */
+    private Map<ImageKind, DataSize> maxSize =
+            new EnumMap<>(
+                    Map.of(
+                            ImageKind.PROFILE, DataSize.ofMegabytes(2),
+                            ImageKind.GOAL, DataSize.ofMegabytes(5),
+                            ImageKind.CHALLENGE, DataSize.ofMegabytes(5)));
+
+    /**
+     * Number of bytes each user may store in their original images. Scaled renditions are
+     * derived from the originals, and are not counted.
+     */
+    private DataSize quota = DataSize.ofMegabytes(50);
+
+    /**
+     * Largest number of pixels an uploaded image may declare in its header. Larger images are
+     * rejected before they are decoded, as a small file can decode to a huge bitmap.
+     */
+    private long maxPixels = 40_000_000;
+
+    /**
+     * How old an unreferenced image or file must be before the garbage collection job deletes
+     * it. Protects files that are being uploaded, as a blob file is stored before its metadata.
+     */
+    private Duration orphanGracePeriod = Duration.ofHours(1);
+
+    /**
+     * Largest number of image metadata entries kept in memory by each instance
+     */
+    private long metadataCacheSize = 10_000;
+
+    /**
+     * How long image metadata is kept in memory after it was looked up. Replacing an image
+     * only updates the cache of the instance that handled it, so this bounds how long other
+     * instances may serve the previous image.
+     */
+    private Duration metadataCacheTtl = Duration.ofMinutes(10);
+
+    /**
+     * Settings of an S3-compatible object store
+     */
+    @Setter
+    @Getter
+    public static class S3 {
+
+        /**
+         * Endpoint of the object store, e.g. http://localhost:9000 for MinIO. AWS S3 is used if
+         * it is empty.
+         */
+        private String endpoint;
+
+        /**
+         * Region of the bucket
+         */
+        private String region = "us-east-1";
+
+        /**
+         * Bucket the files are stored in
+         */
+        private String bucket;
+
+        /**
+         * Prefix of the object keys, e.g. images/
+         */
+        private String prefix = "";
+
+        /**
+         * Access key. The default AWS credentials are used if it is empty.
+         */
+        private String accessKey;
+
+        /**
+         * Secret key
+         */
+        private String secretKey;
+
+        /**
+         * Whether the bucket is addressed in the path instead of the host name, which most
+         * S3-compatible stores require
+         */
+        private boolean pathStyleAccess = true;
+    }
 }
@@ -0,0 +1,158 @@
+package org.ntnu.idi.idatt2106.sparesti.sparestibackend.validation;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.Iterator;
+import javax.imageio.IIOException;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import lombok.RequiredArgsConstructor;
+import org.ntnu.idi.idatt2106.sparesti.sparestibackend.exception.storage.FileTooLargeException;
+import org.ntnu.idi.idatt2106.sparesti.sparestibackend.exception.storage.StorageException;
+import org.ntnu.idi.idatt2106.sparesti.sparestibackend.model.enums.ImageFormat;
+import org.ntnu.idi.idatt2106.sparesti.sparestibackend.model.enums.ImageKind;
+import org.ntnu.idi.idatt2106.sparesti.sparestibackend.util.StorageProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * Validates uploaded images while they are streamed to storage. The format is sniffed from the
+ * first bytes of the upload, the size is counted as the bytes are read, and the dimensions are
+ * read from the image header, so invalid files are rejected without being decoded.
+ *
+ * @author L.M.L. Nilsen
+ * @version 1.0
+ * @since 3.5.24
+ */
+@Component
+@RequiredArgsConstructor
+public class ImageUploadValidator {
+
+    private final StorageProperties properties;
+
+    /**
+     * Gets the largest upload allowed for a kind of image
+     * @param kind What the image belongs to
+     * @return The limit in bytes
+     */
+    public long maxSize(ImageKind kind) {
+        return properties.getMaxSize().get(kind).toBytes();
+    }
+
+    /**
+     * Finds the format of an upload from its magic bytes, without consuming them
+     * @param inputStream The upload, which must support mark and reset
+     * @return The image format
+     * @throws IOException If the upload could not be read
+     * @throws StorageException If the upload is not a supported image
+     */
+    public ImageFormat sniff(InputStream inputStream) throws IOException, StorageException {
+        inputStream.mark(ImageFormat.SIGNATURE_LENGTH);
+        byte[] header = inputStream.readNBytes(ImageFormat.SIGNATURE_LENGTH);
+        inputStream.reset();
+
+        ImageFormat format = ImageFormat.sniff(header);
+        if (format == null) {
+            throw new StorageException("Unsupported file type.");
+        }
+        return format;
+    }
+
+    /**
+     * Wraps an upload in a stream that fails as soon as more than the allowed bytes are read
+     * @param inputStream The upload
+     * @param maxSize The limit in bytes
+     * @return Stream that throws {@link FileTooLargeException} when the limit is exceeded
+     */
+    public InputStream limit(InputStream inputStream, long maxSize) {
+        return new SizeLimitedInputStream(inputStream, maxSize);
+    }
+
+    /**
+     * Checks the dimensions an image declares in its header. Only the header is read, so an
+     * image that would decode to a huge bitmap is rejected before it is decoded.
+     * @param file The image file
+     * @param format The format of the image
+     * @throws IOException If the file could not be read
+     * @throws StorageException If the header is invalid, or the image has too many pixels
+     */
+    public void checkDimensions(Path file, ImageFormat format)
+            throws IOException, StorageException {
+        Iterator<ImageReader> readers =
+                ImageIO.getImageReadersByFormatName(format.getReaderFormat());
+        if (!readers.hasNext()) {
+            throw new StorageException("Unsupported file type.");
+        }
+        ImageReader reader = readers.next();
+        try (ImageInputStream imageInputStream = ImageIO.createImageInputStream(file.toFile())) {
+            reader.setInput(imageInputStream, true, true);
+            long pixels = (long) reader.getWidth(0) * reader.getHeight(0);
+            if (pixels > properties.getMaxPixels()) {
+                throw new StorageException("The image has too many pixels.");
+            }
+        } catch (IIOException | IndexOutOfBoundsException e) {
+            throw new StorageException("Could not read the image.", e);
+        } finally {
+            reader.dispose();
+        }
+    }
+
+    /**
+     * Stream that counts the bytes read from it, and fails when they exceed a limit
+     */
+    private static final class SizeLimitedInputStream extends FilterInputStream {
+
+        private final long maxSize;
+        private long count;
+
+        /**
+         * Constructor for SizeLimitedInputStream
+         * @param inputStream The stream to read from
+         * @param maxSize The limit in bytes
+         */
+        private SizeLimitedInputStream(InputStream inputStream, long maxSize) {
+            super(inputStream);
+            this.maxSize = maxSize;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) count(1);
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int read = super.read(b, off, len);
+            if (read > 0) count(read);
+            return read;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long skipped = super.skip(n);
+            count(skipped);
+            return skipped;
+        }
+
+        @Override
+        public boolean markSupported() {
+            return false;
+        }
+
+        /**
+         * Counts bytes that have been read
+         * @param bytes Number of bytes
+         * @throws FileTooLargeException If the limit has been exceeded
+         */
+        private void count(long bytes) throws FileTooLargeException {
+            count += bytes;
+            if (count > maxSize) {
+                throw new FileTooLargeException(maxSize);
+            }
+        }
+    }
+}
@@ -5,7 +5,6 @@ import jakarta.validation.Validation;
 import jakarta.validation.Validator;
 import jakarta.validation.ValidatorFactory;
 import java.util.Set;
-import java.util.stream.Collectors;
 import org.ntnu.idi.idatt2106.sparesti.sparestibackend.exception.validation.ObjectNotValidException;
 import org.springframework.context.annotation.Primary;
 import org.springframework.stereotype.Component;
@@ -13,6 +12,8 @@ import org.springframework.stereotype.Component;
 /**
  * Validator class for DTO objects received from HTTP-requests
  * Its generic type allows flexibility across DTO's
+ * All validators share one validator factory, which resolves the constraint metadata of each
+ * DTO class once, and DTO classes without any constraints are not validated at all.
  *
  * @author Harry L.X
  * @version 1.0
@@ -23,12 +24,28 @@ import org.springframework.stereotype.Component;
 @Primary
 public class ObjectValidator<T> {
 
-    private final ValidatorFactory validatorFactory = Validation.buildDefaultValidatorFactory();
+    /**
+     * Validator factory shared by all validators
+     */
+    private static final ValidatorFactory VALIDATOR_FACTORY =
+            Validation.buildDefaultValidatorFactory();
 
     /**
-     * Validator object used for validation
+     * Validator shared by all validators. It is thread-safe, and caches the constraint
+     * metadata of every class it has validated.
      */
-    protected final Validator validator = validatorFactory.getValidator();
+    private static final Validator VALIDATOR = VALIDATOR_FACTORY.getValidator();
+
+    /**
+     * Whether each DTO class has any constraints, resolved once per class
+     */
+    private static final ClassValue<Boolean> CONSTRAINED =
+            new ClassValue<>() {
+                @Override
+                protected Boolean computeValue(Class<?> type) {
+                    return VALIDATOR.getConstraintsForClass(type).isBeanConstrained();
+                }
+            };
 
     /**
      * Validates the object
@@ -39,18 +56,17 @@ public class ObjectValidator<T> {
     }
 
     /**
-     * Checks that no field constraints are violated in the object
+     * Checks that no field constraints are violated in the object. The error messages of the
+     * violations are only collected if the exception is handled.
      * @param object The object of type T
      */
     protected void checkConstraints(T object) {
-        Set<ConstraintViolation<T>> violations = validator.validate(object);
+        if (object != null && !CONSTRAINED.get(object.getClass())) {
+            return;
+        }
+        Set<ConstraintViolation<T>> violations = VALIDATOR.validate(object);
         if (!violations.isEmpty()) {
-            Set<String> errorMessages =
-                    violations.stream()
-                            .map(ConstraintViolation::getMessage)
-                            .collect(Collectors.toSet());
-
-            throw new ObjectNotValidException(errorMessages);
+            throw new ObjectNotValidException(violations);
         }
     }
 }
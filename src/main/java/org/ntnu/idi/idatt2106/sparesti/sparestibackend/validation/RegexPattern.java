@@ -1,17 +1,17 @@
 package org.ntnu.idi.idatt2106.sparesti.sparestibackend.validation;
 
+import java.util.regex.Pattern;
 import lombok.Getter;
-import lombok.RequiredArgsConstructor;
 
 /**
  * Class to represent the different regexes that are used to validate input fields.
+ * Each regex is compiled once, when the enum is loaded.
  *
  * @author Harry L.X
  * @version 1.0
  * @since 25.4.24
  */
 @Getter
-@RequiredArgsConstructor
 public enum RegexPattern {
 
     /**
@@ -46,4 +46,27 @@ public enum RegexPattern {
      * The regex pattern
      */
     private final String pattern;
+
+    /**
+     * The compiled regex pattern
+     */
+    private final Pattern compiled;
+
+    /**
+     * Constructor that compiles the regex pattern
+     * @param pattern The regex pattern
+     */
+    RegexPattern(String pattern) {
+        this.pattern = pattern;
+        this.compiled = Pattern.compile(pattern);
+    }
+
+    /**
+     * Checks if the whole input matches the regex pattern
+     * @param input Input to check
+     * @return True, if the input matches
+     */
+    public boolean matches(CharSequence input) {
+        return compiled.matcher(input).matches();
+    }
 }
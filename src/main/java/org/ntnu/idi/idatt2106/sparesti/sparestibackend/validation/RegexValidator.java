@@ -1,9 +1,7 @@
 package org.ntnu.idi.idatt2106.sparesti.sparestibackend.validation;
 
-import java.util.regex.Pattern;
-
 /**
- * Validator class for regexes
+ * Validator class for regexes. The regexes are compiled once, in {@link RegexPattern}.
  *
  * @author Harry Linrui Xu
  * @version 1.0
@@ -17,7 +15,7 @@ public class RegexValidator {
      * @return True, if username is valid. Else, returns false.
      */
     public static boolean isUsernameValid(String username) {
-        return Pattern.compile(RegexPattern.USERNAME.getPattern()).matcher(username).matches();
+        return RegexPattern.USERNAME.matches(username);
     }
 
     /**
@@ -26,7 +24,7 @@ public class RegexValidator {
      * @return True, if email is valid.
      */
     public static boolean isEmailValid(String email) {
-        return Pattern.compile(RegexPattern.EMAIL.getPattern()).matcher(email).matches();
+        return RegexPattern.EMAIL.matches(email);
     }
 
     /**
@@ -35,7 +33,7 @@ public class RegexValidator {
      * @return If name is valid
      */
     public static boolean isNameValid(String name) {
-        return Pattern.compile(RegexPattern.NAME.getPattern()).matcher(name).matches();
+        return RegexPattern.NAME.matches(name);
     }
 
     /**
@@ -44,6 +42,6 @@ public class RegexValidator {
      * @return true if the password meets the criteria, false otherwise
      */
     public static boolean isPasswordStrong(String password) {
-        return Pattern.compile(RegexPattern.PASSWORD.getPattern()).matcher(password).matches();
+        return RegexPattern.PASSWORD.matches(password);
     }
 }
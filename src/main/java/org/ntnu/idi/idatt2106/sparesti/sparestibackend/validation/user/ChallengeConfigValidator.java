@@ -5,6 +5,7 @@ import lombok.RequiredArgsConstructor;
 import org.ntnu.idi.idatt2106.sparesti.sparestibackend.dto.config.ChallengeConfigDTO;
 import org.ntnu.idi.idatt2106.sparesti.sparestibackend.dto.config.ChallengeTypeConfigDTO;
 import org.ntnu.idi.idatt2106.sparesti.sparestibackend.exception.validation.BadInputException;
+import org.ntnu.idi.idatt2106.sparesti.sparestibackend.util.ApplicationUtil;
 import org.ntnu.idi.idatt2106.sparesti.sparestibackend.validation.ObjectValidator;
 import org.springframework.stereotype.Component;
 
@@ -34,14 +35,15 @@ public class ChallengeConfigValidator extends ObjectValidator<ChallengeConfigDTO
     }
 
     /**
-     * Checks there are no duplicate types
+     * Checks there are no duplicate types. Types are compared by their canonical form, which is
+     * what they are stored as.
      * @param config Challenge config DTO
      * @throws BadInputException For duplicate types
      */
     private void validateDuplicateType(ChallengeConfigDTO config) throws BadInputException {
         int nrTypes = config.challengeTypeConfigs().size();
         if (config.challengeTypeConfigs().stream()
-                        .map(configType -> configType.type().toLowerCase().trim())
+                        .map(configType -> ApplicationUtil.formatType(configType.type()))
                         .collect(Collectors.toSet())
                         .size()
                 < nrTypes) {
@@ -1,11 +1,12 @@
 package org.ntnu.idi.idatt2106.sparesti.sparestibackend.validation.user;
 
+import java.util.List;
 import lombok.RequiredArgsConstructor;
 import org.ntnu.idi.idatt2106.sparesti.sparestibackend.dto.user.RegisterRequest;
+import org.ntnu.idi.idatt2106.sparesti.sparestibackend.dto.user.UserIdentityDTO;
 import org.ntnu.idi.idatt2106.sparesti.sparestibackend.dto.user.UserUpdateDTO;
 import org.ntnu.idi.idatt2106.sparesti.sparestibackend.exception.user.UserAlreadyExistsException;
 import org.ntnu.idi.idatt2106.sparesti.sparestibackend.exception.validation.BadInputException;
-import org.ntnu.idi.idatt2106.sparesti.sparestibackend.model.User;
 import org.ntnu.idi.idatt2106.sparesti.sparestibackend.repository.UserRepository;
 import org.ntnu.idi.idatt2106.sparesti.sparestibackend.validation.ObjectValidator;
 import org.ntnu.idi.idatt2106.sparesti.sparestibackend.validation.RegexValidator;
@@ -66,14 +67,7 @@ public class UserValidator<T> extends ObjectValidator<T> {
         if (!RegexValidator.isNameValid(request.lastName())) {
             throw new BadInputException("Etternavnet '" + request.lastName() + "' er ugyldig");
         }
-        if (userExistsByUsername(request.username())) {
-            throw new UserAlreadyExistsException(
-                    "Brukernavnet '" + request.username() + "' er allerede tatt");
-        }
-        if (userExistByEmail(request.email())) {
-            throw new UserAlreadyExistsException(
-                    "Mailen '" + request.email() + "' er allerede tatt");
-        }
+        checkUniqueness(request);
         if (!RegexValidator.isPasswordStrong(request.password())) {
             throw new BadInputException(
                     "Passordet må være mellom 8 og 30 bokstaver, inkludere numre, store og små"
@@ -90,7 +84,7 @@ public class UserValidator<T> extends ObjectValidator<T> {
             if (!RegexValidator.isEmailValid(dto.email())) {
                 throw new BadInputException("Ugylid mailadresse");
             }
-            if (userExistByEmail(dto.email()) && !isEmailOwn(dto.email(), dto.username())) {
+            if (!isEmailAvailable(dto.email(), dto.username())) {
                 throw new UserAlreadyExistsException(
                         "Mailen '" + dto.email() + "' er allerede tatt");
             }
@@ -118,27 +112,36 @@ public class UserValidator<T> extends ObjectValidator<T> {
     }
 
     /**
-     * Determines whether a user with the given username exists
-     * @param username The username
-     * @return True, if the user exists.
+     * Checks that the username and email of a new user are not taken, with one query for both.
+     * The unique constraints of the user table still reject a user that is registered with the
+     * same username or email after this check.
+     * @param request DTO containing info for new user
+     * @throws UserAlreadyExistsException If the username or email is taken
      */
-    private boolean userExistsByUsername(String username) {
-        return userRepository.findByUsername(username).isPresent();
+    private void checkUniqueness(RegisterRequest request) throws UserAlreadyExistsException {
+        List<UserIdentityDTO> existing =
+                userRepository.findIdentitiesByUsernameOrEmail(request.username(), request.email());
+        if (existing.stream()
+                .anyMatch(identity -> identity.username().equalsIgnoreCase(request.username()))) {
+            throw new UserAlreadyExistsException(
+                    "Brukernavnet '" + request.username() + "' er allerede tatt");
+        }
+        if (!existing.isEmpty()) {
+            throw new UserAlreadyExistsException(
+                    "Mailen '" + request.email() + "' er allerede tatt");
+        }
     }
 
     /**
-     * Determines whether a user with the given email exists
+     * Determines whether an email is free, or already belongs to the given user
      * @param email Email
-     * @return True, if a user with the given email exists
+     * @param username Username of the user who wants the email
+     * @return True, if no other user has the email
      */
-    private boolean userExistByEmail(String email) {
-        return userRepository.findByEmail(email).isPresent();
-    }
-
-    private boolean isEmailOwn(String email, String username) {
-        User user = userRepository.findByEmail(email).orElse(null);
-        if (user == null) return false;
-
-        return user.getUsername().equals(username);
+    private boolean isEmailAvailable(String email, String username) {
+        return userRepository
+                .findUsernameByEmail(email)
+                .map(owner -> owner.equals(username))
+                .orElse(true);
     }
 }
@@ -0,0 +1,52 @@
+package org.ntnu.idi.idatt2106.sparesti.sparestibackend.config;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Policy;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCache;
+
+public class CacheConfigTest {
+
+    private final CacheManager cacheManager = new CacheConfig().cacheManager();
+
+    @Test
+    public void testChallengeStatsAreBoundedAndExpire() {
+        Policy<Object, Object> policy = policyOf(CacheConfig.CHALLENGE_STATS);
+
+        assertEquals(CacheConfig.MAX_CACHED_USERS, policy.eviction().orElseThrow().getMaximum());
+        assertEquals(CacheConfig.STATS_TIME_TO_LIVE, expireAfterWrite(policy));
+    }
+
+    @Test
+    public void testPlatformChallengeStatsExpire() {
+        Policy<Object, Object> policy = policyOf(CacheConfig.PLATFORM_CHALLENGE_STATS);
+
+        assertEquals(1, policy.eviction().orElseThrow().getMaximum());
+        assertEquals(CacheConfig.STATS_TIME_TO_LIVE, expireAfterWrite(policy));
+    }
+
+    @Test
+    public void testOtherCachesAreBoundedAndExpire() {
+        Policy<Object, Object> policy = policyOf("other");
+
+        assertNotNull(policy.eviction().orElseThrow());
+        assertEquals(CacheConfig.STATS_TIME_TO_LIVE, expireAfterWrite(policy));
+    }
+
+    private Policy<Object, Object> policyOf(String name) {
+        CaffeineCache cache = (CaffeineCache) cacheManager.getCache(name);
+        Cache<Object, Object> nativeCache = cache.getNativeCache();
+        return nativeCache.policy();
+    }
+
+    private static Duration expireAfterWrite(Policy<Object, Object> policy) {
+        return Duration.ofNanos(
+                policy.expireAfterWrite().orElseThrow().getExpiresAfter(TimeUnit.NANOSECONDS));
+    }
+}
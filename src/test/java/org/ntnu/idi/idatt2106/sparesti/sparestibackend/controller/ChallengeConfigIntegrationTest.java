@@ -6,6 +6,7 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import java.math.BigDecimal;
+import java.util.List;
 import java.util.Set;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -119,4 +120,100 @@ public class ChallengeConfigIntegrationTest {
                 .andExpect(jsonPath("$.motivation").value("MEDIUM"))
                 .andExpect(jsonPath("$.challengeTypeConfigs", hasSize(2)));
     }
+
+    @Test
+    @WithMockUser
+    void testUpdateWithTypesThatOnlyDifferInCaseOrWhitespaceIsRejected() throws Exception {
+        for (String duplicate : List.of("Mat ", " TYPE")) {
+            String type = duplicate.trim().equalsIgnoreCase("mat") ? "mat" : "type";
+            ChallengeConfigDTO challengeConfigDTO =
+                    new ChallengeConfigDTO(
+                            Experience.MEDIUM,
+                            Motivation.MEDIUM,
+                            Set.of(
+                                    new ChallengeTypeConfigDTO(
+                                            type, BigDecimal.ONE, BigDecimal.ONE),
+                                    new ChallengeTypeConfigDTO(
+                                            duplicate, BigDecimal.TEN, BigDecimal.ONE)));
+
+            mvc.perform(
+                            MockMvcRequestBuilders.put("/config/challenge")
+                                    .contentType(MediaType.APPLICATION_JSON)
+                                    .accept(MediaType.APPLICATION_JSON)
+                                    .content(objectMapper.writeValueAsString(challengeConfigDTO)))
+                    .andExpect(status().isBadRequest());
+        }
+
+        mvc.perform(
+                        MockMvcRequestBuilders.get("/config/challenge")
+                                .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.experience").value("VERY_HIGH"))
+                .andExpect(jsonPath("$.challengeTypeConfigs", hasSize(1)));
+    }
+
+    @Test
+    @WithMockUser
+    void testPatchChallengeTypeConfigAddsAndUpdatesSingleType() throws Exception {
+        ChallengeTypeConfigDTO newTypeConfigDTO =
+                new ChallengeTypeConfigDTO("coffee", BigDecimal.TEN, BigDecimal.ONE);
+
+        mvc.perform(
+                        MockMvcRequestBuilders.patch("/config/challenge/type")
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .accept(MediaType.APPLICATION_JSON)
+                                .content(objectMapper.writeValueAsString(newTypeConfigDTO)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.type").value("Coffee"));
+
+        ChallengeTypeConfigDTO updatedTypeConfigDTO =
+                new ChallengeTypeConfigDTO("Type", BigDecimal.TEN, BigDecimal.TEN);
+
+        mvc.perform(
+                        MockMvcRequestBuilders.patch("/config/challenge/type")
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .accept(MediaType.APPLICATION_JSON)
+                                .content(objectMapper.writeValueAsString(updatedTypeConfigDTO)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.generalAmount").value(10));
+
+        mvc.perform(
+                        MockMvcRequestBuilders.get("/config/challenge")
+                                .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.challengeTypeConfigs", hasSize(2)));
+    }
+
+    @Test
+    @WithMockUser
+    void testDeleteChallengeTypeConfig() throws Exception {
+        ChallengeTypeConfigDTO newTypeConfigDTO =
+                new ChallengeTypeConfigDTO("coffee", BigDecimal.TEN, BigDecimal.ONE);
+
+        mvc.perform(
+                        MockMvcRequestBuilders.patch("/config/challenge/type")
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .accept(MediaType.APPLICATION_JSON)
+                                .content(objectMapper.writeValueAsString(newTypeConfigDTO)))
+                .andExpect(status().isOk());
+
+        mvc.perform(MockMvcRequestBuilders.delete("/config/challenge/type/coffee"))
+                .andExpect(status().isNoContent());
+
+        mvc.perform(MockMvcRequestBuilders.delete("/config/challenge/type/coffee"))
+                .andExpect(status().isNotFound());
+
+        mvc.perform(
+                        MockMvcRequestBuilders.get("/config/challenge")
+                                .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.challengeTypeConfigs", hasSize(1)));
+    }
+
+    @Test
+    @WithMockUser
+    void testDeleteLastChallengeTypeConfigIsNotAllowed() throws Exception {
+        mvc.perform(MockMvcRequestBuilders.delete("/config/challenge/type/type"))
+                .andExpect(status().isBadRequest());
+    }
 }
@@ -3,16 +3,19 @@ package org.ntnu.idi.idatt2106.sparesti.sparestibackend.controller;
 import static org.hamcrest.Matchers.hasSize;
 import static org.hamcrest.Matchers.notNullValue;
 import static org.hamcrest.Matchers.nullValue;
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import java.math.BigDecimal;
 import java.time.ZonedDateTime;
+import java.util.List;
 import java.util.Set;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.ntnu.idi.idatt2106.sparesti.sparestibackend.dto.challenge.ChallengeCreateDTO;
+import org.ntnu.idi.idatt2106.sparesti.sparestibackend.dto.challenge.ChallengeDTO;
 import org.ntnu.idi.idatt2106.sparesti.sparestibackend.dto.challenge.ChallengeUpdateDTO;
 import org.ntnu.idi.idatt2106.sparesti.sparestibackend.dto.config.ChallengeConfigDTO;
 import org.ntnu.idi.idatt2106.sparesti.sparestibackend.dto.config.ChallengeTypeConfigDTO;
@@ -20,9 +23,12 @@ import org.ntnu.idi.idatt2106.sparesti.sparestibackend.dto.goal.GoalCreateDTO;
 import org.ntnu.idi.idatt2106.sparesti.sparestibackend.dto.user.RegisterRequest;
 import org.ntnu.idi.idatt2106.sparesti.sparestibackend.model.enums.Experience;
 import org.ntnu.idi.idatt2106.sparesti.sparestibackend.model.enums.Motivation;
+import org.ntnu.idi.idatt2106.sparesti.sparestibackend.repository.UserRepository;
+import org.ntnu.idi.idatt2106.sparesti.sparestibackend.service.ChallengeService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.annotation.DirtiesContext;
 import org.springframework.test.context.ActiveProfiles;
@@ -30,6 +36,7 @@ import org.springframework.test.context.TestPropertySource;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.context.WebApplicationContext;
 
 @SpringBootTest
@@ -44,6 +51,14 @@ public class ChallengeIntegrationTest {
 
     @Autowired private ObjectMapper objectMapper;
 
+    @Autowired private JdbcTemplate jdbcTemplate;
+
+    @Autowired private TransactionTemplate transactionTemplate;
+
+    @Autowired private ChallengeService challengeService;
+
+    @Autowired private UserRepository userRepository;
+
     private String jsonPostRequest;
 
     private String jsonPutRequest;
@@ -250,6 +265,45 @@ public class ChallengeIntegrationTest {
                 .andExpect(jsonPath("$", hasSize(1)));
     }
 
+    @Test
+    @WithMockUser
+    void testGeneratingChallengesForConfigsWithoutTypeKeyDoesNotWrite() throws Exception {
+        ChallengeTypeConfigDTO challengeTypeConfigDTO1 =
+                new ChallengeTypeConfigDTO("Coffee", BigDecimal.valueOf(100), BigDecimal.TEN);
+        ChallengeTypeConfigDTO challengeTypeConfigDTO2 =
+                new ChallengeTypeConfigDTO("TyPe", BigDecimal.valueOf(200), BigDecimal.TEN);
+        ChallengeConfigDTO challengeConfigDTO =
+                new ChallengeConfigDTO(
+                        Experience.VERY_HIGH,
+                        Motivation.VERY_HIGH,
+                        Set.of(challengeTypeConfigDTO1, challengeTypeConfigDTO2));
+
+        mvc.perform(
+                        MockMvcRequestBuilders.post("/config/challenge")
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .accept(MediaType.APPLICATION_JSON)
+                                .content(objectMapper.writeValueAsString(challengeConfigDTO)))
+                .andExpect(status().isOk());
+
+        // Type configs persisted before the type dimension existed have no type key
+        jdbcTemplate.update("UPDATE CHALLENGETYPE_CONFIG SET TYPE_ID = NULL");
+
+        // Generating inside a transaction flushes anything written to the managed configs
+        List<ChallengeDTO> generated =
+                transactionTemplate.execute(
+                        status ->
+                                challengeService.getGeneratedChallenges(
+                                        userRepository.findByUsername("user").orElseThrow()));
+        assertEquals(1, generated.size());
+        assertEquals("Coffee", generated.get(0).type());
+
+        assertEquals(
+                0,
+                jdbcTemplate.queryForObject(
+                        "SELECT COUNT(*) FROM CHALLENGETYPE_CONFIG WHERE TYPE_ID IS NOT NULL",
+                        Integer.class));
+    }
+
     @Test
     @WithMockUser
     void testSavedAmountIncreasesAfterCompletingChallenge() throws Exception {
@@ -564,4 +618,138 @@ public class ChallengeIntegrationTest {
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.streak").value(2));
     }
+
+    @Test
+    @WithMockUser
+    void testChallengeStatsAreGroupedByTypeAndUpdatedOnCompletion() throws Exception {
+        mvc.perform(
+                        MockMvcRequestBuilders.get("/challenges/stats")
+                                .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].type").value("Type"))
+                .andExpect(jsonPath("$[0].challenges").value(1))
+                .andExpect(jsonPath("$[0].completed").value(0))
+                .andExpect(jsonPath("$[0].totalSaved").value(1));
+
+        mvc.perform(
+                        MockMvcRequestBuilders.put("/challenges/1/complete")
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk());
+
+        mvc.perform(
+                        MockMvcRequestBuilders.get("/challenges/stats")
+                                .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].completed").value(1))
+                .andExpect(jsonPath("$[0].completionRate").value(100))
+                .andExpect(jsonPath("$[0].averageDurationDays", notNullValue()));
+    }
+
+    @Test
+    @WithMockUser
+    void testChallengesCanBeFilteredOnTypeAndCompletion() throws Exception {
+        ChallengeCreateDTO otherChallenge =
+                new ChallengeCreateDTO(
+                        "other",
+                        BigDecimal.valueOf(5),
+                        BigDecimal.TEN,
+                        BigDecimal.TEN,
+                        null,
+                        ZonedDateTime.now().plusDays(7),
+                        "Other");
+        mvc.perform(
+                        MockMvcRequestBuilders.post("/challenges")
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .accept(MediaType.APPLICATION_JSON)
+                                .content(objectMapper.writeValueAsString(otherChallenge)))
+                .andExpect(status().isOk());
+
+        mvc.perform(
+                        MockMvcRequestBuilders.get("/challenges")
+                                .param("type", "type")
+                                .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content", hasSize(1)))
+                .andExpect(jsonPath("$.content[0].type").value("Type"));
+
+        mvc.perform(
+                        MockMvcRequestBuilders.get("/challenges")
+                                .param("type", "Unknown")
+                                .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content", hasSize(0)));
+
+        mvc.perform(
+                        MockMvcRequestBuilders.get("/challenges")
+                                .param("completionFrom", "50")
+                                .param("sort", "completion,desc")
+                                .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content", hasSize(1)))
+                .andExpect(jsonPath("$.content[0].title").value("other"));
+    }
+
+    @Test
+    @WithMockUser
+    void testChallengesWithoutCompletionAreFilteredAfterBackfill() throws Exception {
+        ChallengeCreateDTO otherChallenge =
+                new ChallengeCreateDTO(
+                        "other",
+                        BigDecimal.valueOf(5),
+                        BigDecimal.TEN,
+                        BigDecimal.TEN,
+                        null,
+                        ZonedDateTime.now().plusDays(7),
+                        "Other");
+        mvc.perform(
+                        MockMvcRequestBuilders.post("/challenges")
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .accept(MediaType.APPLICATION_JSON)
+                                .content(objectMapper.writeValueAsString(otherChallenge)))
+                .andExpect(status().isOk());
+        // Challenges saved before completion was a column
+        jdbcTemplate.update("UPDATE CHALLENGE SET COMPLETION = NULL");
+
+        mvc.perform(
+                        MockMvcRequestBuilders.get("/challenges")
+                                .param("completionFrom", "50")
+                                .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content", hasSize(0)));
+
+        challengeService.fillMissingCompletion();
+
+        mvc.perform(
+                        MockMvcRequestBuilders.get("/challenges")
+                                .param("completionFrom", "50")
+                                .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content", hasSize(1)))
+                .andExpect(jsonPath("$.content[0].title").value("other"))
+                .andExpect(jsonPath("$.content[0].completion").value(50));
+        assertEquals(
+                0,
+                jdbcTemplate.queryForObject(
+                        "SELECT COUNT(*) FROM CHALLENGE WHERE COMPLETION IS NULL", Integer.class));
+    }
+
+    @Test
+    @WithMockUser
+    void testSortingChallengesOnUnsupportedPropertyIsBadRequest() throws Exception {
+        mvc.perform(
+                        MockMvcRequestBuilders.get("/challenges")
+                                .param("sort", "title")
+                                .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest());
+
+        mvc.perform(
+                        MockMvcRequestBuilders.get("/challenges")
+                                .param("completionFrom", "80")
+                                .param("completionTo", "20")
+                                .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest());
+    }
 }
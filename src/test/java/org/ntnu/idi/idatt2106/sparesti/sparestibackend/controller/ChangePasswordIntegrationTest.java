@@ -1,21 +1,40 @@
 package org.ntnu.idi.idatt2106.sparesti.sparestibackend.controller;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.icegreen.greenmail.junit5.GreenMailExtension;
+import com.icegreen.greenmail.util.GreenMailUtil;
+import com.icegreen.greenmail.util.ServerSetupTest;
+import java.time.LocalDateTime;
+import java.util.List;
 import java.util.UUID;
+import javax.mail.internet.MimeMessage;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
 import org.junit.runner.RunWith;
 import org.ntnu.idi.idatt2106.sparesti.sparestibackend.dto.user.AuthenticationRequest;
 import org.ntnu.idi.idatt2106.sparesti.sparestibackend.dto.user.ChangePasswordRequestRequest;
 import org.ntnu.idi.idatt2106.sparesti.sparestibackend.dto.user.RegisterRequest;
 import org.ntnu.idi.idatt2106.sparesti.sparestibackend.dto.user.ResetPasswordRequest;
+import org.ntnu.idi.idatt2106.sparesti.sparestibackend.model.ChangePasswordRequest;
+import org.ntnu.idi.idatt2106.sparesti.sparestibackend.model.OutboundMail;
+import org.ntnu.idi.idatt2106.sparesti.sparestibackend.model.enums.MailStatus;
+import org.ntnu.idi.idatt2106.sparesti.sparestibackend.repository.ChangePasswordRequestRepository;
+import org.ntnu.idi.idatt2106.sparesti.sparestibackend.repository.OutboundMailRepository;
 import org.ntnu.idi.idatt2106.sparesti.sparestibackend.service.ChangePasswordRequestService;
+import org.ntnu.idi.idatt2106.sparesti.sparestibackend.service.MailQueueService;
+import org.ntnu.idi.idatt2106.sparesti.sparestibackend.service.OutboundMailWorker;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.http.MediaType;
-import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.test.annotation.DirtiesContext;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.TestPropertySource;
@@ -32,6 +51,9 @@ import org.springframework.web.context.WebApplicationContext;
 @RunWith(SpringRunner.class)
 class ChangePasswordIntegrationTest {
 
+    @RegisterExtension
+    static GreenMailExtension greenMail = new GreenMailExtension(ServerSetupTest.SMTP);
+
     @Autowired private WebApplicationContext context;
 
     private MockMvc mvc;
@@ -40,7 +62,15 @@ class ChangePasswordIntegrationTest {
 
     @Autowired private ChangePasswordRequestService changePasswordRequestService;
 
-    @Autowired private PasswordEncoder passwordEncoder;
+    @Autowired private OutboundMailRepository outboundMailRepository;
+
+    @Autowired private OutboundMailWorker outboundMailWorker;
+
+    @Autowired private MailQueueService mailQueueService;
+
+    @Autowired private JdbcTemplate jdbcTemplate;
+
+    @Autowired private ChangePasswordRequestRepository changePasswordRequestRepository;
 
     @BeforeEach
     public void setup() throws Exception {
@@ -73,6 +103,129 @@ class ChangePasswordIntegrationTest {
                                 .accept(MediaType.APPLICATION_JSON)
                                 .content(jsonRequest))
                 .andExpect(status().isOk());
+
+        assertTrue(greenMail.waitForIncomingEmail(5000, 1));
+        MimeMessage mail = greenMail.getReceivedMessages()[0];
+        assertEquals("testEmail@test.com", mail.getAllRecipients()[0].toString());
+        assertEquals("Reset Password", mail.getSubject());
+        assertTrue(
+                GreenMailUtil.getBody(mail)
+                        .contains("http://localhost:5173/forgotPassword?resetID="));
+        String body = mail.getContent().toString();
+
+        // The link rendered when the mail was sent resets the password
+        String resetID = body.substring(body.indexOf("resetID=") + 8, body.indexOf("&userID="));
+        ResetPasswordRequest resetPasswordRequest =
+                new ResetPasswordRequest(resetID, 1L, "Aa12345!");
+        mvc.perform(
+                        MockMvcRequestBuilders.post("/forgotPassword/resetPassword")
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .accept(MediaType.APPLICATION_JSON)
+                                .content(objectMapper.writeValueAsString(resetPasswordRequest)))
+                .andExpect(status().isOk());
+        AuthenticationRequest authenticationRequestNewPassword =
+                new AuthenticationRequest("testUsername", "Aa12345!");
+        mvc.perform(
+                        MockMvcRequestBuilders.post("/auth/login")
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .accept(MediaType.APPLICATION_JSON)
+                                .content(
+                                        objectMapper.writeValueAsString(
+                                                authenticationRequestNewPassword)))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void testMailIsQueuedAndRetriedWhenTheMailServerIsDown() throws Exception {
+        greenMail.stop();
+        ChangePasswordRequestRequest changePasswordRequest =
+                new ChangePasswordRequestRequest("testEmail@test.com");
+        String jsonRequest = objectMapper.writeValueAsString(changePasswordRequest);
+
+        mvc.perform(
+                        MockMvcRequestBuilders.post("/forgotPassword/changePasswordRequest")
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .accept(MediaType.APPLICATION_JSON)
+                                .content(jsonRequest))
+                .andExpect(status().isOk());
+
+        // The failed attempt is counted, and the mail stays in the queue
+        OutboundMail queued = null;
+        for (int i = 0; i < 50 && (queued == null || queued.getAttempts() == 0); i++) {
+            Thread.sleep(100);
+            List<OutboundMail> mails = outboundMailRepository.findAll();
+            queued = mails.isEmpty() ? null : mails.get(0);
+        }
+        assertEquals(1, queued.getAttempts());
+        assertTrue(queued.getNextAttemptAt().isAfter(LocalDateTime.now()));
+
+        // The queue holds the id of the reset request, not the reset token
+        assertNotNull(queued.getResetRequestId());
+        assertTrue(queued.getBody().contains("resetID=" + OutboundMail.RESET_ID_PLACEHOLDER));
+
+        // The mail is sent once the server is back and the retry is due
+        greenMail.start();
+        outboundMailRepository.postpone(List.of(queued.getId()), LocalDateTime.now());
+        outboundMailWorker.drain();
+
+        assertTrue(greenMail.waitForIncomingEmail(5000, 1));
+        for (int i = 0; i < 50 && outboundMailRepository.count() > 0; i++) {
+            Thread.sleep(100);
+        }
+        assertEquals(0, outboundMailRepository.count());
+    }
+
+    @Test
+    void testRequestWithoutExpiryIsRejectedAndPurged() throws Exception {
+        UUID uniqueKey = UUID.randomUUID();
+        changePasswordRequestService.save("testEmail@test.com", uniqueKey.toString());
+        // Requests made before the column was added have no expiry time
+        jdbcTemplate.update("UPDATE CHANGE_PASSWORD_REQUEST SET EXPIRES_AT = NULL");
+
+        ResetPasswordRequest resetPasswordRequest =
+                new ResetPasswordRequest(uniqueKey.toString(), 1L, "Aa12345!");
+        mvc.perform(
+                        MockMvcRequestBuilders.post("/forgotPassword/resetPassword")
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .accept(MediaType.APPLICATION_JSON)
+                                .content(objectMapper.writeValueAsString(resetPasswordRequest)))
+                .andExpect(status().isOk());
+
+        AuthenticationRequest authenticationRequestNewPassword =
+                new AuthenticationRequest("testUsername", "Aa12345!");
+        mvc.perform(
+                        MockMvcRequestBuilders.post("/auth/login")
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .accept(MediaType.APPLICATION_JSON)
+                                .content(
+                                        objectMapper.writeValueAsString(
+                                                authenticationRequestNewPassword)))
+                .andExpect(status().isBadRequest());
+
+        changePasswordRequestService.purgeExpired();
+        assertTrue(changePasswordRequestRepository.findById(1L).isEmpty());
+    }
+
+    @Test
+    void testFailedAndOldMailsArePurged() {
+        LocalDateTime now = LocalDateTime.now();
+        queue("failed@test.com", MailStatus.FAILED, now.plusDays(1));
+        queue("old@test.com", MailStatus.PENDING, now.minusMinutes(1));
+        queue("sending@test.com", MailStatus.PENDING, now.plusMinutes(5));
+        queue("recent@test.com", MailStatus.FAILED, now.plusDays(1));
+        jdbcTemplate.update(
+                "UPDATE OUTBOUND_MAIL SET CREATED_AT = ? WHERE RECIPIENT <> ?",
+                now.minusDays(8),
+                "recent@test.com");
+
+        mailQueueService.purge();
+
+        List<String> recipients =
+                outboundMailRepository.findAll().stream().map(OutboundMail::getRecipient).toList();
+        assertFalse(recipients.contains("failed@test.com"));
+        assertFalse(recipients.contains("old@test.com"));
+        assertTrue(recipients.contains("recent@test.com"));
+        assertTrue(recipients.contains("sending@test.com"), "Claimed mails are left alone");
     }
 
     @Test
@@ -142,8 +295,7 @@ class ChangePasswordIntegrationTest {
     void testResetPasswordWithValidPassword() throws Exception {
         // ChangePasswordRequest
         UUID uniqueKey = UUID.randomUUID();
-        String encodedUniqueKey = passwordEncoder.encode(uniqueKey.toString());
-        changePasswordRequestService.save("testEmail@test.com", encodedUniqueKey);
+        changePasswordRequestService.save("testEmail@test.com", uniqueKey.toString());
 
         // ResetPassword
         ResetPasswordRequest resetPasswordRequest =
@@ -187,8 +339,7 @@ class ChangePasswordIntegrationTest {
     void testResetPasswordWithUserThatDoesNotExist() throws Exception {
         // ChangePasswordRequest
         UUID uniqueKey = UUID.randomUUID();
-        String encodedUniqueKey = passwordEncoder.encode(uniqueKey.toString());
-        changePasswordRequestService.save("testEmail@test.com", encodedUniqueKey);
+        changePasswordRequestService.save("testEmail@test.com", uniqueKey.toString());
 
         // ResetPassword
         ResetPasswordRequest resetPasswordRequest =
@@ -206,8 +357,7 @@ class ChangePasswordIntegrationTest {
     void testResetPasswordWithInvalidPassword() throws Exception {
         // ChangePasswordRequest
         UUID uniqueKey = UUID.randomUUID();
-        String encodedUniqueKey = passwordEncoder.encode(uniqueKey.toString());
-        changePasswordRequestService.save("testEmail@test.com", encodedUniqueKey);
+        changePasswordRequestService.save("testEmail@test.com", uniqueKey.toString());
 
         // ResetPassword
         ResetPasswordRequest resetPasswordRequest =
@@ -226,8 +376,7 @@ class ChangePasswordIntegrationTest {
         // ChangePasswordRequest
         UUID uniqueKeyRight = UUID.randomUUID();
         UUID uniqueKeyWrong = UUID.randomUUID();
-        String encodedUniqueKey = passwordEncoder.encode(uniqueKeyRight.toString());
-        changePasswordRequestService.save("testEmail@test.com", encodedUniqueKey);
+        changePasswordRequestService.save("testEmail@test.com", uniqueKeyRight.toString());
 
         // ResetPassword
         ResetPasswordRequest resetPasswordRequest =
@@ -253,4 +402,57 @@ class ChangePasswordIntegrationTest {
                                 .content(jsonRequestLoginNewPassword))
                 .andExpect(status().isBadRequest());
     }
+
+    @Test
+    void testExpiredRequestIsRejectedAndPurged() throws Exception {
+        UUID uniqueKey = UUID.randomUUID();
+        changePasswordRequestService.save("testEmail@test.com", uniqueKey.toString());
+        ChangePasswordRequest changePasswordRequest =
+                changePasswordRequestRepository.findById(1L).orElseThrow();
+        assertNotEquals(uniqueKey.toString(), changePasswordRequest.getId());
+        changePasswordRequest.setExpiresAt(LocalDateTime.now().minusMinutes(1));
+        changePasswordRequestRepository.save(changePasswordRequest);
+
+        // ResetPassword
+        ResetPasswordRequest resetPasswordRequest =
+                new ResetPasswordRequest(uniqueKey.toString(), 1L, "Aa12345!");
+        mvc.perform(
+                        MockMvcRequestBuilders.post("/forgotPassword/resetPassword")
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .accept(MediaType.APPLICATION_JSON)
+                                .content(objectMapper.writeValueAsString(resetPasswordRequest)))
+                .andExpect(status().isOk());
+
+        // Try to log in with new password
+        AuthenticationRequest authenticationRequestNewPassword =
+                new AuthenticationRequest("testUsername", "Aa12345!");
+        mvc.perform(
+                        MockMvcRequestBuilders.post("/auth/login")
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .accept(MediaType.APPLICATION_JSON)
+                                .content(
+                                        objectMapper.writeValueAsString(
+                                                authenticationRequestNewPassword)))
+                .andExpect(status().isBadRequest());
+
+        changePasswordRequestService.purgeExpired();
+        assertTrue(changePasswordRequestRepository.findById(1L).isEmpty());
+    }
+
+    /**
+     * Stores a mail in the queue without waking the workers
+     * @param recipient Address of the mail
+     * @param status Status of the mail
+     * @param nextAttemptAt When the mail may be sent
+     */
+    private void queue(String recipient, MailStatus status, LocalDateTime nextAttemptAt) {
+        outboundMailRepository.save(
+                OutboundMail.builder()
+                        .recipient(recipient)
+                        .subject("Subject")
+                        .body("Body")
+                        .status(status)
+                        .nextAttemptAt(nextAttemptAt)
+                        .build());
+    }
 }
@@ -3,6 +3,7 @@ package org.ntnu.idi.idatt2106.sparesti.sparestibackend.controller;
 import static org.hamcrest.Matchers.hasSize;
 import static org.hamcrest.Matchers.notNullValue;
 import static org.hamcrest.Matchers.nullValue;
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
@@ -16,9 +17,11 @@ import org.junit.jupiter.api.Test;
 import org.ntnu.idi.idatt2106.sparesti.sparestibackend.dto.goal.GoalCreateDTO;
 import org.ntnu.idi.idatt2106.sparesti.sparestibackend.dto.goal.GoalUpdateDTO;
 import org.ntnu.idi.idatt2106.sparesti.sparestibackend.dto.user.RegisterRequest;
+import org.ntnu.idi.idatt2106.sparesti.sparestibackend.service.GoalService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
@@ -51,6 +54,10 @@ public class GoalIntegrationTest {
 
     @Autowired private UserDetailsService userDetailsService;
 
+    @Autowired private JdbcTemplate jdbcTemplate;
+
+    @Autowired private GoalService goalService;
+
     @BeforeEach
     public void setup() throws Exception {
         mvc = MockMvcBuilders.webAppContextSetup(context).build();
@@ -234,7 +241,10 @@ public class GoalIntegrationTest {
                         MockMvcRequestBuilders.get("/goals/1")
                                 .contentType(MediaType.APPLICATION_JSON)
                                 .accept(MediaType.APPLICATION_JSON))
-                .andExpect(status().isNotFound());
+                .andExpect(status().isNotFound())
+                .andExpect(jsonPath("$.status").value(404))
+                .andExpect(jsonPath("$.code").value("GOAL_NOT_FOUND"))
+                .andExpect(jsonPath("$.detail").value(notNullValue()));
     }
 
     @Test
@@ -552,4 +562,101 @@ public class GoalIntegrationTest {
                 .andExpect(jsonPath("$.id").value(2L))
                 .andExpect(jsonPath("$.priority").value(1));
     }
+
+    @Test
+    @WithMockUser
+    void testGoalsCanBeFilteredOnDueAndCompletion() throws Exception {
+        mvc.perform(
+                        MockMvcRequestBuilders.post("/goals")
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .accept(MediaType.APPLICATION_JSON)
+                                .content(jsonPostRequest))
+                .andExpect(status().isOk());
+
+        GoalCreateDTO laterGoal =
+                new GoalCreateDTO(
+                        "later",
+                        new BigDecimal(1),
+                        new BigDecimal(2),
+                        "description",
+                        ZonedDateTime.now().plusDays(30));
+        mvc.perform(
+                        MockMvcRequestBuilders.post("/goals")
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .accept(MediaType.APPLICATION_JSON)
+                                .content(objectMapper.writeValueAsString(laterGoal)))
+                .andExpect(status().isOk());
+
+        String dueFrom = ZonedDateTime.now().plusDays(10).toOffsetDateTime().toString();
+        mvc.perform(
+                        MockMvcRequestBuilders.get("/goals")
+                                .param("dueFrom", dueFrom)
+                                .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content", hasSize(1)))
+                .andExpect(jsonPath("$.content[0].title").value("later"));
+
+        mvc.perform(
+                        MockMvcRequestBuilders.get("/goals")
+                                .param("completionTo", "10")
+                                .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content", hasSize(1)))
+                .andExpect(jsonPath("$.content[0].title").value("title"));
+
+        mvc.perform(
+                        MockMvcRequestBuilders.get("/goals")
+                                .param("sort", "priority,desc")
+                                .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content[0].title").value("later"));
+
+        mvc.perform(
+                        MockMvcRequestBuilders.get("/goals")
+                                .param("sort", "description")
+                                .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @WithMockUser
+    void testGoalsWithoutCompletionAreFilteredAfterBackfill() throws Exception {
+        GoalCreateDTO halfwayGoal =
+                new GoalCreateDTO(
+                        "halfway",
+                        new BigDecimal(1),
+                        new BigDecimal(2),
+                        "description",
+                        ZonedDateTime.now().plusDays(30));
+        mvc.perform(
+                        MockMvcRequestBuilders.post("/goals")
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .accept(MediaType.APPLICATION_JSON)
+                                .content(objectMapper.writeValueAsString(halfwayGoal)))
+                .andExpect(status().isOk());
+        // Goals saved before completion was a column
+        jdbcTemplate.update("UPDATE GOAL SET COMPLETION = NULL");
+
+        mvc.perform(
+                        MockMvcRequestBuilders.get("/goals")
+                                .param("completionFrom", "50")
+                                .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content", hasSize(0)));
+
+        goalService.fillMissingCompletion();
+
+        mvc.perform(
+                        MockMvcRequestBuilders.get("/goals")
+                                .param("completionFrom", "50")
+                                .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content", hasSize(1)))
+                .andExpect(jsonPath("$.content[0].title").value("halfway"))
+                .andExpect(jsonPath("$.content[0].completion").value(50));
+        assertEquals(
+                0,
+                jdbcTemplate.queryForObject(
+                        "SELECT COUNT(*) FROM GOAL WHERE COMPLETION IS NULL", Integer.class));
+    }
 }
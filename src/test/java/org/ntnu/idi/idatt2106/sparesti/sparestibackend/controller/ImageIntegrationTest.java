@@ -0,0 +1,948 @@
+package org.ntnu.idi.idatt2106.sparesti.sparestibackend.controller;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.startsWith;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.anonymous;
+import static org.springframework.security.test.web.servlet.setup.SecurityMockMvcConfigurers.springSecurity;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.jayway.jsonpath.JsonPath;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+import javax.imageio.ImageIO;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.ntnu.idi.idatt2106.sparesti.sparestibackend.config.AsyncConfig;
+import org.ntnu.idi.idatt2106.sparesti.sparestibackend.dto.goal.GoalCreateDTO;
+import org.ntnu.idi.idatt2106.sparesti.sparestibackend.dto.user.RegisterRequest;
+import org.ntnu.idi.idatt2106.sparesti.sparestibackend.exception.storage.StorageException;
+import org.ntnu.idi.idatt2106.sparesti.sparestibackend.model.ImageBlob;
+import org.ntnu.idi.idatt2106.sparesti.sparestibackend.repository.GoalRepository;
+import org.ntnu.idi.idatt2106.sparesti.sparestibackend.repository.ImageBlobRepository;
+import org.ntnu.idi.idatt2106.sparesti.sparestibackend.repository.StorageUsageRepository;
+import org.ntnu.idi.idatt2106.sparesti.sparestibackend.repository.StoredImageRepository;
+import org.ntnu.idi.idatt2106.sparesti.sparestibackend.service.ImageBlobService;
+import org.ntnu.idi.idatt2106.sparesti.sparestibackend.service.ImageGarbageCollector;
+import org.ntnu.idi.idatt2106.sparesti.sparestibackend.service.StorageQuotaService;
+import org.ntnu.idi.idatt2106.sparesti.sparestibackend.util.ImageUrlSigner;
+import org.ntnu.idi.idatt2106.sparesti.sparestibackend.util.StorageProperties;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.util.FileSystemUtils;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.context.WebApplicationContext;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@DirtiesContext(classMode = DirtiesContext.ClassMode.BEFORE_EACH_TEST_METHOD)
+@TestPropertySource(locations = "classpath:application-test.yml")
+public class ImageIntegrationTest {
+
+    @Autowired private WebApplicationContext context;
+
+    @Autowired private ObjectMapper objectMapper;
+
+    @Autowired private StorageProperties storageProperties;
+
+    @Autowired private ImageBlobRepository imageBlobRepository;
+
+    @Autowired private ImageBlobService imageBlobService;
+
+    @Autowired private ImageGarbageCollector imageGarbageCollector;
+
+    @Autowired private StoredImageRepository storedImageRepository;
+
+    @Autowired private GoalRepository goalRepository;
+
+    @Autowired private StorageUsageRepository storageUsageRepository;
+
+    @Autowired private StorageQuotaService storageQuotaService;
+
+    @Autowired
+    @Qualifier(AsyncConfig.IMAGE_EXECUTOR)
+    private ThreadPoolTaskExecutor imageExecutor;
+
+    private MockMvc mvc;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        mvc = MockMvcBuilders.webAppContextSetup(context).build();
+
+        RegisterRequest registerRequest =
+                new RegisterRequest(
+                        "testFirstName",
+                        "testLastName",
+                        "user",
+                        "testPassword123!",
+                        "testEmail@test.com");
+        mvc.perform(
+                        MockMvcRequestBuilders.post("/auth/register")
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .accept(MediaType.APPLICATION_JSON)
+                                .content(objectMapper.writeValueAsString(registerRequest)))
+                .andExpect(status().isOk());
+    }
+
+    @AfterEach
+    void tearDown() throws IOException, InterruptedException {
+        // Renditions that are still being generated would write into the folder being deleted
+        awaitImageTasks();
+        FileSystemUtils.deleteRecursively(Path.of(storageProperties.getLocation()));
+    }
+
+    @Test
+    @WithMockUser
+    void testUploadedGoalPictureIsServedWithItsContentType() throws Exception {
+        createGoal();
+        byte[] png = image("png");
+
+        mvc.perform(
+                        MockMvcRequestBuilders.multipart("/goals/picture")
+                                .file(new MockMultipartFile("file", "goal.png", null, png))
+                                .param("id", "1"))
+                .andExpect(status().isOk());
+
+        mvc.perform(MockMvcRequestBuilders.get("/goals/picture").param("id", "1"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.IMAGE_PNG))
+                .andExpect(content().bytes(png));
+    }
+
+    @Test
+    @WithMockUser
+    void testReplacingPictureWithOtherTypeRemovesOldFile() throws Exception {
+        createGoal();
+        byte[] png = image("png");
+        mvc.perform(
+                        MockMvcRequestBuilders.multipart("/goals/picture")
+                                .file(new MockMultipartFile("file", "goal.png", null, png))
+                                .param("id", "1"))
+                .andExpect(status().isOk());
+
+        mvc.perform(
+                        MockMvcRequestBuilders.multipart("/goals/picture")
+                                .file(new MockMultipartFile("file", "goal.jpg", null, image("jpg")))
+                                .param("id", "1"))
+                .andExpect(status().isOk());
+
+        mvc.perform(MockMvcRequestBuilders.get("/goals/picture").param("id", "1"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.IMAGE_JPEG));
+
+        assertFalse(Files.exists(blobFile(sha256(png) + ".png")));
+        assertTrue(imageBlobRepository.findByChecksum(sha256(png)).isEmpty());
+    }
+
+    @Test
+    @WithMockUser
+    void testEqualPicturesShareOneBlob() throws Exception {
+        createGoal();
+        createGoal();
+        byte[] gif = image("gif");
+        String checksum = sha256(gif);
+        for (String id : new String[] {"1", "2"}) {
+            mvc.perform(
+                            MockMvcRequestBuilders.multipart("/goals/picture")
+                                    .file(new MockMultipartFile("file", "goal.gif", null, gif))
+                                    .param("id", id))
+                    .andExpect(status().isOk());
+        }
+        Path blobFile = blobFile(checksum + ".gif");
+        assertTrue(Files.exists(blobFile));
+        assertEquals(2, imageBlobRepository.findByChecksum(checksum).orElseThrow().getRefCount());
+
+        for (String id : new String[] {"1", "2"}) {
+            mvc.perform(MockMvcRequestBuilders.get("/goals/picture").param("id", id))
+                    .andExpect(status().isOk())
+                    .andExpect(content().bytes(gif));
+        }
+
+        mvc.perform(
+                        MockMvcRequestBuilders.multipart("/goals/picture")
+                                .file(new MockMultipartFile("file", "goal.png", null, image("png")))
+                                .param("id", "1"))
+                .andExpect(status().isOk());
+        assertTrue(Files.exists(blobFile));
+        assertEquals(1, imageBlobRepository.findByChecksum(checksum).orElseThrow().getRefCount());
+
+        mvc.perform(
+                        MockMvcRequestBuilders.multipart("/goals/picture")
+                                .file(new MockMultipartFile("file", "goal.png", null, image("png")))
+                                .param("id", "2"))
+                .andExpect(status().isOk());
+        assertFalse(Files.exists(blobFile));
+        assertTrue(imageBlobRepository.findByChecksum(checksum).isEmpty());
+    }
+
+    @Test
+    void testConcurrentReferencesToABlobAreAllCounted() throws Exception {
+        byte[] gif = image("gif");
+        String checksum = sha256(gif);
+        int threads = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Callable<ImageBlob>> stores = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                stores.add(() -> imageBlobService.store(gif, ".gif"));
+            }
+            List<ImageBlob> blobs = new ArrayList<>();
+            for (Future<ImageBlob> future : executor.invokeAll(stores)) {
+                blobs.add(future.get());
+            }
+            ImageBlob blob = imageBlobRepository.findByChecksum(checksum).orElseThrow();
+            assertEquals(threads, blob.getRefCount());
+            assertTrue(blobs.stream().allMatch(stored -> stored.getId().equals(blob.getId())));
+
+            List<Callable<Void>> releases = new ArrayList<>();
+            for (ImageBlob stored : blobs) {
+                releases.add(
+                        () -> {
+                            imageBlobService.release(stored);
+                            return null;
+                        });
+            }
+            for (Future<Void> future : executor.invokeAll(releases)) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+        assertTrue(imageBlobRepository.findByChecksum(checksum).isEmpty());
+        assertFalse(Files.exists(blobFile(checksum + ".gif")));
+    }
+
+    @Test
+    void testReleasingABlobDoesNotDeleteTheFileOfAConcurrentUpload() throws Exception {
+        byte[] gif = image("gif");
+        String checksum = sha256(gif);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            for (int round = 0; round < 20; round++) {
+                ImageBlob released = imageBlobService.store(gif, ".gif");
+                CyclicBarrier start = new CyclicBarrier(2);
+                Future<Void> release =
+                        executor.submit(
+                                () -> {
+                                    start.await();
+                                    imageBlobService.release(released);
+                                    return null;
+                                });
+                Future<ImageBlob> store =
+                        executor.submit(
+                                () -> {
+                                    start.await();
+                                    return imageBlobService.store(gif, ".gif");
+                                });
+                release.get();
+                ImageBlob stored;
+                try {
+                    stored = store.get();
+                } catch (ExecutionException e) {
+                    assertInstanceOf(StorageException.class, e.getCause());
+                    stored = null;
+                }
+
+                ImageBlob blob = imageBlobRepository.findByChecksum(checksum).orElse(null);
+                if (stored != null) {
+                    assertNotNull(blob);
+                    assertEquals(stored.getId(), blob.getId());
+                    assertEquals(1, blob.getRefCount());
+                }
+                if (blob != null) {
+                    assertTrue(Files.exists(blobFile(blob.getPath())), "round " + round);
+                    imageBlobService.release(blob);
+                }
+            }
+        } finally {
+            executor.shutdown();
+        }
+        assertTrue(imageBlobRepository.findByChecksum(checksum).isEmpty());
+        assertFalse(Files.exists(blobFile(checksum + ".gif")));
+    }
+
+    @Test
+    @WithMockUser
+    void testScrubFlagsBlobWhoseFileChanged() throws Exception {
+        createGoal();
+        byte[] gif = image("gif");
+        mvc.perform(
+                        MockMvcRequestBuilders.multipart("/goals/picture")
+                                .file(new MockMultipartFile("file", "goal.gif", null, gif))
+                                .param("id", "1"))
+                .andExpect(status().isOk());
+
+        imageBlobService.scrub();
+        ImageBlob blob = imageBlobRepository.findByChecksum(sha256(gif)).orElseThrow();
+        assertFalse(blob.getCorrupt());
+        assertNotNull(blob.getVerifiedAt());
+
+        Files.write(blobFile(blob.getPath()), image("png"));
+        imageBlobService.scrub();
+        assertTrue(imageBlobRepository.findByChecksum(sha256(gif)).orElseThrow().getCorrupt());
+    }
+
+    @Test
+    @WithMockUser
+    void testPictureOfGoalWithoutImageIsNotFound() throws Exception {
+        createGoal();
+
+        mvc.perform(MockMvcRequestBuilders.get("/goals/picture").param("id", "1"))
+                .andExpect(status().isBadRequest());
+
+        mvc.perform(
+                        MockMvcRequestBuilders.multipart("/goals/picture")
+                                .file(new MockMultipartFile("file", "goal.png", null, image("png")))
+                                .param("id", "2"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @WithMockUser
+    void testUploadTypeIsFoundFromContentNotFilename() throws Exception {
+        createGoal();
+        byte[] png = image("png");
+        mvc.perform(
+                        MockMvcRequestBuilders.multipart("/goals/picture")
+                                .file(new MockMultipartFile("file", "goal.gif", null, png))
+                                .param("id", "1"))
+                .andExpect(status().isOk());
+
+        mvc.perform(MockMvcRequestBuilders.get("/goals/picture").param("id", "1"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.IMAGE_PNG))
+                .andExpect(content().bytes(png));
+
+        byte[] text = "<svg onload=alert(1)>".getBytes(StandardCharsets.UTF_8);
+        mvc.perform(
+                        MockMvcRequestBuilders.multipart("/goals/picture")
+                                .file(new MockMultipartFile("file", "goal.png", null, text))
+                                .param("id", "1"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @WithMockUser
+    void testTooLargeUploadsAreRejectedBeforeStoring() throws Exception {
+        createGoal();
+        byte[] tooLarge = Arrays.copyOf(image("png"), 5 * 1024 * 1024 + 1);
+        mvc.perform(
+                        MockMvcRequestBuilders.multipart("/goals/picture")
+                                .file(new MockMultipartFile("file", "goal.png", null, tooLarge))
+                                .param("id", "1"))
+                .andExpect(status().isPayloadTooLarge());
+
+        mvc.perform(
+                        MockMvcRequestBuilders.multipart("/goals/picture")
+                                .file(
+                                        new MockMultipartFile(
+                                                "file", "goal.png", null, pngHeader(20000, 20000)))
+                                .param("id", "1"))
+                .andExpect(status().isBadRequest());
+
+        assertEquals(0, imageBlobRepository.count());
+        try (Stream<Path> files = Files.list(Path.of(storageProperties.getLocation()))) {
+            assertEquals(0, files.count());
+        }
+    }
+
+    @Test
+    @WithMockUser
+    void testUnchangedPictureIsAnsweredWithNotModified() throws Exception {
+        createGoal();
+        mvc.perform(
+                        MockMvcRequestBuilders.multipart("/goals/picture")
+                                .file(new MockMultipartFile("file", "goal.png", null, image("png")))
+                                .param("id", "1"))
+                .andExpect(status().isOk());
+
+        MvcResult result =
+                mvc.perform(MockMvcRequestBuilders.get("/goals/picture").param("id", "1"))
+                        .andExpect(status().isOk())
+                        .andExpect(header().exists(HttpHeaders.ETAG))
+                        .andExpect(header().exists(HttpHeaders.LAST_MODIFIED))
+                        .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "no-cache, private"))
+                        .andReturn();
+        String etag = result.getResponse().getHeader(HttpHeaders.ETAG);
+        String lastModified = result.getResponse().getHeader(HttpHeaders.LAST_MODIFIED);
+
+        mvc.perform(
+                        MockMvcRequestBuilders.get("/goals/picture")
+                                .param("id", "1")
+                                .header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified())
+                .andExpect(content().bytes(new byte[0]));
+
+        mvc.perform(
+                        MockMvcRequestBuilders.get("/goals/picture")
+                                .param("id", "1")
+                                .header(HttpHeaders.IF_MODIFIED_SINCE, lastModified))
+                .andExpect(status().isNotModified());
+
+        mvc.perform(
+                        MockMvcRequestBuilders.multipart("/goals/picture")
+                                .file(new MockMultipartFile("file", "goal.gif", null, image("gif")))
+                                .param("id", "1"))
+                .andExpect(status().isOk());
+
+        mvc.perform(
+                        MockMvcRequestBuilders.get("/goals/picture")
+                                .param("id", "1")
+                                .header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.IMAGE_GIF));
+    }
+
+    @Test
+    @WithMockUser
+    void testByteRangeOfPictureIsServedAsPartialContent() throws Exception {
+        createGoal();
+        byte[] gif = image("gif");
+        mvc.perform(
+                        MockMvcRequestBuilders.multipart("/goals/picture")
+                                .file(new MockMultipartFile("file", "goal.gif", null, gif))
+                                .param("id", "1"))
+                .andExpect(status().isOk());
+
+        MvcResult result =
+                mvc.perform(MockMvcRequestBuilders.get("/goals/picture").param("id", "1"))
+                        .andExpect(status().isOk())
+                        .andExpect(header().string(HttpHeaders.ACCEPT_RANGES, "bytes"))
+                        .andExpect(content().bytes(gif))
+                        .andReturn();
+        String etag = result.getResponse().getHeader(HttpHeaders.ETAG);
+        byte[] firstBytes = Arrays.copyOfRange(gif, 0, 10);
+
+        mvc.perform(
+                        MockMvcRequestBuilders.get("/goals/picture")
+                                .param("id", "1")
+                                .header(HttpHeaders.RANGE, "bytes=0-9")
+                                .header(HttpHeaders.IF_RANGE, etag))
+                .andExpect(status().isPartialContent())
+                .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes 0-9/" + gif.length))
+                .andExpect(header().longValue(HttpHeaders.CONTENT_LENGTH, 10))
+                .andExpect(content().bytes(firstBytes));
+
+        mvc.perform(
+                        MockMvcRequestBuilders.get("/goals/picture")
+                                .param("id", "1")
+                                .header(HttpHeaders.RANGE, "bytes=0-9")
+                                .header(HttpHeaders.IF_RANGE, "\"outdated\""))
+                .andExpect(status().isOk())
+                .andExpect(content().bytes(gif));
+
+        mvc.perform(
+                        MockMvcRequestBuilders.get("/goals/picture")
+                                .param("id", "1")
+                                .header(HttpHeaders.RANGE, "bytes=" + gif.length + "-"))
+                .andExpect(status().isRequestedRangeNotSatisfiable())
+                .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes */" + gif.length));
+    }
+
+    @Test
+    @WithMockUser
+    void testScaledRenditionsAreServedOnceGenerated() throws Exception {
+        createGoal();
+        mvc.perform(
+                        MockMvcRequestBuilders.multipart("/goals/picture")
+                                .file(
+                                        new MockMultipartFile(
+                                                "file", "goal.png", null, image("png", 400, 200)))
+                                .param("id", "1"))
+                .andExpect(status().isOk());
+
+        assertEquals(128, awaitWidth("THUMB", 128));
+        assertEquals(400, awaitWidth("MEDIUM", 400));
+        assertEquals(400, awaitWidth("ORIGINAL", 400));
+
+        mvc.perform(
+                        MockMvcRequestBuilders.get("/goals/picture")
+                                .param("id", "1")
+                                .param("size", "HUGE"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @WithMockUser
+    void testGoalsListWhetherTheyHaveAPictureWithPlaceholder() throws Exception {
+        createGoal();
+        createGoal();
+        mvc.perform(
+                        MockMvcRequestBuilders.multipart("/goals/picture")
+                                .file(
+                                        new MockMultipartFile(
+                                                "file", "goal.png", null, image("png", 64, 48)))
+                                .param("id", "1"))
+                .andExpect(status().isOk());
+        awaitImageTasks();
+
+        mvc.perform(MockMvcRequestBuilders.get("/goals").param("sort", "id"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content[0].hasImage").value(true))
+                .andExpect(
+                        jsonPath("$.content[0].placeholder")
+                                .value(startsWith("data:image/png;base64,")))
+                .andExpect(jsonPath("$.content[1].hasImage").value(false))
+                .andExpect(jsonPath("$.content[1].placeholder").doesNotExist());
+
+        byte[] placeholder =
+                Base64.getDecoder()
+                        .decode(
+                                storedImageRepository.findAll().stream()
+                                        .filter(image -> image.getPlaceholder() != null)
+                                        .findFirst()
+                                        .orElseThrow()
+                                        .getPlaceholder()
+                                        .substring("data:image/png;base64,".length()));
+        BufferedImage preview = ImageIO.read(new ByteArrayInputStream(placeholder));
+        assertEquals(16, Math.max(preview.getWidth(), preview.getHeight()));
+
+        mvc.perform(MockMvcRequestBuilders.get("/goals/1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.hasImage").value(true));
+    }
+
+    @Test
+    @WithMockUser
+    void testSignedPictureUrlIsServedWithoutAuthentication() throws Exception {
+        createGoal();
+        byte[] gif = image("gif");
+        mvc.perform(
+                        MockMvcRequestBuilders.multipart("/goals/picture")
+                                .file(new MockMultipartFile("file", "goal.gif", null, gif))
+                                .param("id", "1"))
+                .andExpect(status().isOk());
+        awaitImageTasks();
+
+        String url =
+                JsonPath.read(
+                        mvc.perform(MockMvcRequestBuilders.get("/goals/1"))
+                                .andExpect(status().isOk())
+                                .andReturn()
+                                .getResponse()
+                                .getContentAsString(),
+                        "$.imageUrl");
+        assertTrue(url.startsWith("/images/" + sha256(gif) + ".gif?expires="));
+
+        MockMvc securedMvc =
+                MockMvcBuilders.webAppContextSetup(context).apply(springSecurity()).build();
+        securedMvc
+                .perform(MockMvcRequestBuilders.get(url).with(anonymous()))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.IMAGE_GIF))
+                .andExpect(header().string(HttpHeaders.ETAG, "\"" + sha256(gif) + "\""))
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, containsString("immutable")))
+                .andExpect(header().string("X-Content-Type-Options", "nosniff"))
+                .andExpect(content().bytes(gif));
+        String otherKeyUrl = url.replace(".gif?", ".png?");
+        securedMvc
+                .perform(MockMvcRequestBuilders.get(otherKeyUrl).with(anonymous()))
+                .andExpect(status().isForbidden());
+        String extendedUrl = url.replaceFirst("expires=\\d", "expires=9");
+        securedMvc
+                .perform(MockMvcRequestBuilders.get(extendedUrl).with(anonymous()))
+                .andExpect(status().isForbidden());
+
+        Clock anHourAgo = Clock.fixed(Instant.now().minus(Duration.ofHours(1)), ZoneOffset.UTC);
+        String expiredUrl =
+                new ImageUrlSigner(storageProperties, anHourAgo).sign(sha256(gif) + ".gif");
+        securedMvc
+                .perform(MockMvcRequestBuilders.get(expiredUrl).with(anonymous()))
+                .andExpect(status().isForbidden());
+    }
+
+    @Test
+    @WithMockUser
+    void testPicturesOfSeveralGoalsAreServedInOneResponse() throws Exception {
+        createGoal();
+        createGoal();
+        createGoal();
+        byte[] firstGif = image("gif");
+        byte[] secondGif = image("gif", 6, 6);
+        for (int id = 1; id <= 2; id++) {
+            mvc.perform(
+                            MockMvcRequestBuilders.multipart("/goals/picture")
+                                    .file(
+                                            new MockMultipartFile(
+                                                    "file",
+                                                    "goal.gif",
+                                                    null,
+                                                    id == 1 ? firstGif : secondGif))
+                                    .param("id", "" + id))
+                    .andExpect(status().isOk());
+        }
+        awaitImageTasks();
+
+        MvcResult result =
+                mvc.perform(
+                                MockMvcRequestBuilders.get("/pictures")
+                                        .param("goals", "2", "1", "3")
+                                        .param("size", "ORIGINAL"))
+                        .andExpect(status().isOk())
+                        .andExpect(
+                                header().string(
+                                                HttpHeaders.CONTENT_TYPE,
+                                                startsWith("multipart/mixed; boundary=")))
+                        .andReturn();
+        String body =
+                new String(
+                        result.getResponse().getContentAsByteArray(), StandardCharsets.ISO_8859_1);
+        int second = body.indexOf("Content-ID: <2-G>");
+        int first = body.indexOf("Content-ID: <1-G>");
+        assertTrue(second >= 0 && first > second);
+        assertFalse(body.contains("<3-G>"));
+        assertTrue(body.indexOf(new String(secondGif, StandardCharsets.ISO_8859_1)) > second);
+        assertTrue(body.indexOf(new String(firstGif, StandardCharsets.ISO_8859_1)) > first);
+
+        String[] tooManyIds = Stream.iterate("1", id -> id).limit(51).toArray(String[]::new);
+        mvc.perform(MockMvcRequestBuilders.get("/pictures").param("challenges", tooManyIds))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @WithMockUser
+    void testPicturesWhoseFileIsMissingAreLeftOutOfMultipartResponse() throws Exception {
+        createGoal();
+        createGoal();
+        byte[] firstGif = image("gif");
+        byte[] secondGif = image("gif", 6, 6);
+        for (int id = 1; id <= 2; id++) {
+            mvc.perform(
+                            MockMvcRequestBuilders.multipart("/goals/picture")
+                                    .file(
+                                            new MockMultipartFile(
+                                                    "file",
+                                                    "goal.gif",
+                                                    null,
+                                                    id == 1 ? firstGif : secondGif))
+                                    .param("id", "" + id))
+                    .andExpect(status().isOk());
+        }
+        awaitImageTasks();
+        Files.delete(blobFile(sha256(firstGif) + ".gif"));
+
+        MvcResult result =
+                mvc.perform(
+                                MockMvcRequestBuilders.get("/pictures")
+                                        .param("goals", "1", "2")
+                                        .param("size", "ORIGINAL"))
+                        .andExpect(status().isOk())
+                        .andReturn();
+        String body =
+                new String(
+                        result.getResponse().getContentAsByteArray(), StandardCharsets.ISO_8859_1);
+        assertFalse(body.contains("<1-G>"));
+        int second = body.indexOf("Content-ID: <2-G>");
+        assertTrue(second >= 0);
+        assertTrue(body.contains(HttpHeaders.CONTENT_LENGTH + ": " + secondGif.length));
+        assertTrue(body.indexOf(new String(secondGif, StandardCharsets.ISO_8859_1)) > second);
+        assertTrue(body.trim().endsWith("--"));
+    }
+
+    @Test
+    @WithMockUser
+    void testDeletingGoalDeletesItsPicture() throws Exception {
+        createGoal();
+        byte[] gif = image("gif");
+        mvc.perform(
+                        MockMvcRequestBuilders.multipart("/goals/picture")
+                                .file(new MockMultipartFile("file", "goal.gif", null, gif))
+                                .param("id", "1"))
+                .andExpect(status().isOk());
+        awaitImageTasks();
+        assertTrue(Files.exists(blobFile(sha256(gif) + ".gif")));
+
+        mvc.perform(MockMvcRequestBuilders.delete("/goals/1")).andExpect(status().isNoContent());
+        awaitImageTasks();
+
+        assertEquals(0, storedImageRepository.count());
+        assertEquals(0, imageBlobRepository.count());
+        assertFalse(Files.exists(blobFile(sha256(gif) + ".gif")));
+    }
+
+    @Test
+    @WithMockUser
+    void testGarbageCollectionDeletesOrphansAfterGracePeriod() throws Exception {
+        createGoal();
+        byte[] gif = image("gif");
+        mvc.perform(
+                        MockMvcRequestBuilders.multipart("/goals/picture")
+                                .file(new MockMultipartFile("file", "goal.gif", null, gif))
+                                .param("id", "1"))
+                .andExpect(status().isOk());
+        awaitImageTasks();
+        // Deleted without the event, as if the eager cleanup had been dropped
+        goalRepository.deleteById(1L);
+
+        FileTime yesterday = FileTime.from(Instant.now().minus(Duration.ofDays(1)));
+        Path oldOrphan = blobFile("0".repeat(64) + ".png");
+        Path newOrphan = blobFile("1".repeat(64) + ".png");
+        Path oldStagingFile = Path.of(storageProperties.getLocation(), "upload-1.tmp");
+        for (Path file : new Path[] {oldOrphan, newOrphan, oldStagingFile}) {
+            Files.createDirectories(file.getParent());
+            Files.write(file, image("png"));
+        }
+        Files.setLastModifiedTime(oldOrphan, yesterday);
+        Files.setLastModifiedTime(oldStagingFile, yesterday);
+
+        imageGarbageCollector.collect();
+        assertFalse(Files.exists(oldOrphan));
+        assertFalse(Files.exists(oldStagingFile));
+        assertTrue(Files.exists(newOrphan));
+        assertTrue(Files.exists(blobFile(sha256(gif) + ".gif")));
+        assertTrue(storedImageRepository.count() > 0);
+
+        storageProperties.setOrphanGracePeriod(Duration.ZERO);
+        imageGarbageCollector.collect();
+        assertFalse(Files.exists(newOrphan));
+        assertFalse(Files.exists(blobFile(sha256(gif) + ".gif")));
+        assertEquals(0, storedImageRepository.count());
+        assertEquals(0, imageBlobRepository.count());
+    }
+
+    @Test
+    @WithMockUser
+    void testUploadsOverQuotaAreRejectedBeforeStoring() throws Exception {
+        createGoal();
+        createGoal();
+        byte[] gif = image("gif", 24, 24);
+        storageProperties.setQuota(DataSize.ofBytes(gif.length + 10));
+        mvc.perform(
+                        MockMvcRequestBuilders.multipart("/goals/picture")
+                                .file(new MockMultipartFile("file", "goal.gif", null, gif))
+                                .param("id", "1"))
+                .andExpect(status().isOk());
+        awaitImageTasks();
+        mvc.perform(MockMvcRequestBuilders.get("/profile/storage"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.used").value(gif.length))
+                .andExpect(jsonPath("$.quota").value(gif.length + 10));
+
+        long blobs = imageBlobRepository.count();
+        mvc.perform(
+                        MockMvcRequestBuilders.multipart("/goals/picture")
+                                .file(
+                                        new MockMultipartFile(
+                                                "file", "goal.gif", null, image("gif", 32, 32)))
+                                .param("id", "2"))
+                .andExpect(status().isPayloadTooLarge());
+        assertEquals(blobs, imageBlobRepository.count());
+
+        // Replacing the picture only counts the difference in size
+        byte[] smallerGif = image("gif");
+        mvc.perform(
+                        MockMvcRequestBuilders.multipart("/goals/picture")
+                                .file(new MockMultipartFile("file", "goal.gif", null, smallerGif))
+                                .param("id", "1"))
+                .andExpect(status().isOk());
+        awaitImageTasks();
+        assertEquals(
+                smallerGif.length,
+                storageQuotaService
+                        .getUsage(storageUsageRepository.findAll().get(0).getUserId())
+                        .used());
+
+        mvc.perform(MockMvcRequestBuilders.delete("/goals/1")).andExpect(status().isNoContent());
+        awaitImageTasks();
+        mvc.perform(MockMvcRequestBuilders.get("/profile/storage"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.used").value(0));
+    }
+
+    @Test
+    @WithMockUser
+    void testReconciliationCorrectsDriftedUsage() throws Exception {
+        createGoal();
+        byte[] gif = image("gif");
+        mvc.perform(
+                        MockMvcRequestBuilders.multipart("/goals/picture")
+                                .file(new MockMultipartFile("file", "goal.gif", null, gif))
+                                .param("id", "1"))
+                .andExpect(status().isOk());
+        awaitImageTasks();
+        Long userId = storageUsageRepository.findAll().get(0).getUserId();
+        storageUsageRepository.add(userId, 1000);
+        assertEquals(gif.length + 1000, storageQuotaService.getUsage(userId).used());
+
+        storageQuotaService.reconcile();
+        assertEquals(gif.length, storageQuotaService.getUsage(userId).used());
+    }
+
+    /**
+     * Creates a goal for the current user, with ids starting at 1
+     * @throws Exception If the request fails
+     */
+    private void createGoal() throws Exception {
+        GoalCreateDTO goalCreateDTO =
+                new GoalCreateDTO(
+                        "title",
+                        BigDecimal.ZERO,
+                        BigDecimal.TEN,
+                        "description",
+                        ZonedDateTime.now().plusDays(1));
+        mvc.perform(
+                        MockMvcRequestBuilders.post("/goals")
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .accept(MediaType.APPLICATION_JSON)
+                                .content(objectMapper.writeValueAsString(goalCreateDTO)))
+                .andExpect(status().isOk());
+    }
+
+    /**
+     * Polls a rendition of the picture of goal 1 until it has the expected width, as renditions
+     * are generated in the background
+     * @param size The rendition
+     * @param expectedWidth The expected width
+     * @return Width of the last served image
+     * @throws Exception If a request fails
+     */
+    private int awaitWidth(String size, int expectedWidth) throws Exception {
+        int width = -1;
+        for (int attempt = 0; attempt < 50 && width != expectedWidth; attempt++) {
+            if (attempt > 0) Thread.sleep(100);
+            byte[] body =
+                    mvc.perform(
+                                    MockMvcRequestBuilders.get("/goals/picture")
+                                            .param("id", "1")
+                                            .param("size", size))
+                            .andExpect(status().isOk())
+                            .andReturn()
+                            .getResponse()
+                            .getContentAsByteArray();
+            width = ImageIO.read(new ByteArrayInputStream(body)).getWidth();
+        }
+        return width;
+    }
+
+    /**
+     * Waits until the image executor has finished its tasks, such as generating renditions
+     * @throws InterruptedException If the wait is interrupted
+     */
+    private void awaitImageTasks() throws InterruptedException {
+        for (int attempt = 0; attempt < 50; attempt++) {
+            if (imageExecutor.getActiveCount() == 0
+                    && imageExecutor.getThreadPoolExecutor().getQueue().isEmpty()) {
+                return;
+            }
+            Thread.sleep(100);
+        }
+    }
+
+    /**
+     * Finds the file of a blob in the sharded layout of the local storage backend
+     * @param key Key of the blob
+     * @return Path of the file
+     */
+    private Path blobFile(String key) {
+        return Path.of(storageProperties.getLocation())
+                .resolve(key.substring(0, 2))
+                .resolve(key.substring(2, 4))
+                .resolve(key);
+    }
+
+    /**
+     * Computes the checksum blobs are named by
+     * @param data The contents
+     * @return Hex encoded SHA-256 checksum
+     * @throws NoSuchAlgorithmException If SHA-256 is not supported
+     */
+    private static String sha256(byte[] data) throws NoSuchAlgorithmException {
+        return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(data));
+    }
+
+    /**
+     * Creates the start of a PNG file, which declares the given dimensions in its header
+     * @param width Declared width
+     * @param height Declared height
+     * @return The PNG signature and header chunk
+     */
+    private static byte[] pngHeader(int width, int height) {
+        ByteBuffer chunk = ByteBuffer.allocate(17);
+        chunk.put("IHDR".getBytes(StandardCharsets.US_ASCII));
+        chunk.putInt(width).putInt(height);
+        chunk.put(new byte[] {8, 2, 0, 0, 0});
+        CRC32 crc = new CRC32();
+        crc.update(chunk.array());
+
+        ByteBuffer png = ByteBuffer.allocate(33);
+        png.put(new byte[] {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n'});
+        png.putInt(13).put(chunk.array()).putInt((int) crc.getValue());
+        return png.array();
+    }
+
+    /**
+     * Encodes a small image
+     * @param format Image format, e.g. png
+     * @return The encoded image
+     * @throws IOException If the image could not be encoded
+     */
+    private static byte[] image(String format) throws IOException {
+        return image(format, 4, 4);
+    }
+
+    /**
+     * Encodes an image
+     * @param format Image format, e.g. png
+     * @param width Width of the image
+     * @param height Height of the image
+     * @return The encoded image
+     * @throws IOException If the image could not be encoded
+     */
+    private static byte[] image(String format, int width, int height) throws IOException {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        image.setRGB(1, 1, 0xFF0000);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(image, format, out);
+        return out.toByteArray();
+    }
+}
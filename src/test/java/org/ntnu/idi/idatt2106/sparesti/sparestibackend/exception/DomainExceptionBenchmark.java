@@ -0,0 +1,98 @@
+package org.ntnu.idi.idatt2106.sparesti.sparestibackend.exception;
+
+import java.util.concurrent.TimeUnit;
+import org.ntnu.idi.idatt2106.sparesti.sparestibackend.exception.goal.GoalNotFoundException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Benchmarks of throwing a domain exception, which has no stack trace, against an exception
+ * that captures one. The exceptions are thrown below a number of frames, like the frames of the
+ * filters, proxies and controllers a request passes through. Run with
+ * {@code mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=org.ntnu.idi.idatt2106.sparesti.sparestibackend.exception.DomainExceptionBenchmark}
+ *
+ * @author L.M.L. Nilsen
+ * @version 1.0
+ * @since 3.5.24
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DomainExceptionBenchmark {
+
+    /**
+     * Number of frames below which the exception is thrown
+     */
+    @Param({"20", "100"})
+    public int depth;
+
+    /**
+     * Throws and catches an exception that captures its stack trace
+     * @return The message of the exception
+     */
+    @Benchmark
+    public String stackTrace() {
+        try {
+            return throwAt(depth, false);
+        } catch (RuntimeException e) {
+            return e.getMessage();
+        }
+    }
+
+    /**
+     * Throws and catches a domain exception
+     * @return The message of the exception
+     */
+    @Benchmark
+    public String domainException() {
+        try {
+            return throwAt(depth, true);
+        } catch (RuntimeException e) {
+            return e.getMessage();
+        }
+    }
+
+    /**
+     * Calls itself until the given depth, and then throws an exception
+     * @param depth Number of frames left
+     * @param domain Whether to throw a domain exception
+     * @return Never returns normally
+     */
+    private static String throwAt(int depth, boolean domain) {
+        if (depth > 0) {
+            return throwAt(depth - 1, domain);
+        }
+        if (domain) {
+            throw new GoalNotFoundException(1L);
+        }
+        throw new RuntimeException("Goal with id '1' not found for current user");
+    }
+
+    /**
+     * Runs the benchmarks
+     * @param args Not used
+     * @throws RunnerException If a benchmark fails
+     */
+    public static void main(String[] args) throws RunnerException {
+        new Runner(
+                        new OptionsBuilder()
+                                .include(DomainExceptionBenchmark.class.getSimpleName())
+                                .build())
+                .run();
+    }
+}
@@ -139,6 +139,7 @@ public class ChallengeMapperTest {
                 ZonedDateTime.now().plusDays(7),
                 "Sample Type",
                 null,
+                null,
                 BigDecimal.ZERO);
     }
 
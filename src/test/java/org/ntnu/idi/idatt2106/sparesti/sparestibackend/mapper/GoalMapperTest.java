@@ -1,7 +1,9 @@
 package org.ntnu.idi.idatt2106.sparesti.sparestibackend.mapper;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import com.yubico.webauthn.data.ByteArray;
 import java.math.BigDecimal;
@@ -11,6 +13,7 @@ import org.junit.jupiter.api.Test;
 import org.ntnu.idi.idatt2106.sparesti.sparestibackend.dto.goal.GoalCreateDTO;
 import org.ntnu.idi.idatt2106.sparesti.sparestibackend.dto.goal.GoalResponseDTO;
 import org.ntnu.idi.idatt2106.sparesti.sparestibackend.dto.goal.GoalUpdateDTO;
+import org.ntnu.idi.idatt2106.sparesti.sparestibackend.dto.image.ImagePreviewDTO;
 import org.ntnu.idi.idatt2106.sparesti.sparestibackend.model.Account;
 import org.ntnu.idi.idatt2106.sparesti.sparestibackend.model.Goal;
 import org.ntnu.idi.idatt2106.sparesti.sparestibackend.model.User;
@@ -131,6 +134,24 @@ public class GoalMapperTest {
         assertEquals(goal.getDue(), updatedGoal.getDue());
     }
 
+    @Test
+    public void toDTOWithImagePreviewTest() {
+        ImagePreviewDTO image =
+                new ImagePreviewDTO(1L, "data:image/png;base64,", "/images/a.png?expires=1");
+        GoalResponseDTO dto = GoalMapper.INSTANCE.toDTO(goal, image);
+        assertEquals(goal.getTitle(), dto.title());
+        assertTrue(dto.hasImage());
+        assertEquals("data:image/png;base64,", dto.placeholder());
+        assertEquals("/images/a.png?expires=1", dto.imageUrl());
+
+        dto = GoalMapper.INSTANCE.toDTO(goal, null);
+        assertEquals(goal.getTitle(), dto.title());
+        assertFalse(dto.hasImage());
+        assertNull(dto.placeholder());
+        assertNull(dto.imageUrl());
+        assertFalse(GoalMapper.INSTANCE.toDTO(goal).hasImage());
+    }
+
     @Test
     public void testToEntityAndToDTOWithNull() {
         assertNull(GoalMapper.INSTANCE.toDTO(null));
@@ -0,0 +1,155 @@
+package org.ntnu.idi.idatt2106.sparesti.sparestibackend.migration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+
+public class ChallengeTypeConfigMigrationTest {
+
+    private SingleConnectionDataSource dataSource;
+
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    public void setup() {
+        dataSource =
+                new SingleConnectionDataSource(
+                        "jdbc:h2:mem:" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1", "sa", "", true);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        jdbcTemplate.execute("SHUTDOWN");
+        dataSource.destroy();
+    }
+
+    @Test
+    public void testLegacyTypeConfigsAreCopiedWithIdentityKeys() {
+        createLegacyTable(true);
+        jdbcTemplate.update(
+                "INSERT INTO challengetype_config VALUES (1, 100.00, 10.00, 'Coffee', 1),"
+                        + " (1, 50.00, 5.00, 'Snuff', 2), (2, 80.00, 8.00, 'Coffee', 1)");
+
+        migrate();
+
+        assertTrue(hasColumn("id"));
+        List<Map<String, Object>> rows =
+                jdbcTemplate.queryForList(
+                        "SELECT id, user_id, type, type_id, general_amount FROM"
+                                + " challengetype_config ORDER BY id");
+        assertEquals(3, rows.size());
+        assertEquals(1L, rows.get(0).get("USER_ID"));
+        assertEquals("Coffee", rows.get(0).get("TYPE"));
+        assertEquals(1, rows.get(0).get("TYPE_ID"));
+        assertEquals(new BigDecimal("100.00"), rows.get(0).get("GENERAL_AMOUNT"));
+        assertEquals("Snuff", rows.get(1).get("TYPE"));
+        assertEquals(2L, rows.get(2).get("USER_ID"));
+        assertEquals(
+                3, rows.stream().map(row -> row.get("ID")).distinct().count(), "Keys are unique");
+
+        // Hibernate inserts new type configs without an id
+        jdbcTemplate.update(
+                "INSERT INTO challengetype_config (user_id, type, general_amount,"
+                        + " specific_amount) VALUES (2, 'Snuff', 1, 1)");
+        assertEquals(4, count());
+    }
+
+    @Test
+    public void testDuplicateTypesOfAUserAreMerged() {
+        createLegacyTable(false);
+        jdbcTemplate.update(
+                "INSERT INTO challengetype_config VALUES (1, 100.00, 10.00, 'Coffee'),"
+                        + " (1, 120.00, 5.00, 'Coffee')");
+
+        migrate();
+
+        Map<String, Object> row =
+                jdbcTemplate.queryForMap(
+                        "SELECT type_id, general_amount, specific_amount FROM"
+                                + " challengetype_config");
+        assertNull(row.get("TYPE_ID"));
+        assertEquals(new BigDecimal("120.00"), row.get("GENERAL_AMOUNT"));
+        assertEquals(new BigDecimal("10.00"), row.get("SPECIFIC_AMOUNT"));
+    }
+
+    @Test
+    public void testMigratedTableIsLeftAlone() {
+        createLegacyTable(true);
+        jdbcTemplate.update("INSERT INTO challengetype_config VALUES (1, 1, 1, 'Coffee', 1)");
+        migrate();
+        jdbcTemplate.update("DELETE FROM \"flyway_schema_history\"");
+
+        migrate();
+
+        assertEquals(1, count());
+    }
+
+    @Test
+    public void testFreshDatabaseIsLeftAlone() {
+        migrate();
+
+        assertFalse(hasTable());
+    }
+
+    /**
+     * Creates the element collection table as Hibernate created it for ChallengeConfig
+     * @param withTypeId Whether the table has the type key column
+     */
+    private void createLegacyTable(boolean withTypeId) {
+        jdbcTemplate.execute(
+                "CREATE TABLE challengetype_config (user_id BIGINT NOT NULL, general_amount"
+                        + " DECIMAL(38,2) NOT NULL, specific_amount DECIMAL(38,2) NOT NULL, type"
+                        + " VARCHAR(255) NOT NULL"
+                        + (withTypeId ? ", type_id INTEGER" : "")
+                        + ", PRIMARY KEY (user_id, general_amount, specific_amount, type))");
+    }
+
+    /**
+     * Runs the migrations like the application does on startup
+     */
+    private void migrate() {
+        Flyway.configure()
+                .dataSource(dataSource)
+                .baselineOnMigrate(true)
+                .baselineVersion("0")
+                .javaMigrations(new ChallengeTypeConfigMigration())
+                .load()
+                .migrate();
+    }
+
+    private int count() {
+        return jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM challengetype_config", Integer.class);
+    }
+
+    private boolean hasTable() {
+        try (Connection connection = dataSource.getConnection()) {
+            return SchemaMigration.hasTable(connection, "challengetype_config");
+        } catch (SQLException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private boolean hasColumn(String column) {
+        try (Connection connection = dataSource.getConnection()) {
+            return SchemaMigration.hasColumn(connection, "challengetype_config", column);
+        } catch (SQLException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
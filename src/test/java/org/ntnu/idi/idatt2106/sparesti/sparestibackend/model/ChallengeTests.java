@@ -84,6 +84,7 @@ class ChallengeTests {
                         null,
                         null,
                         "coffe",
+                        null,
                         user,
                         new BigDecimal(1));
 
@@ -114,6 +115,7 @@ class ChallengeTests {
                         null,
                         null,
                         "coffe",
+                        null,
                         user,
                         new BigDecimal(1));
 
@@ -135,6 +137,7 @@ class ChallengeTests {
                         null,
                         null,
                         "coffe",
+                        null,
                         user,
                         new BigDecimal(1));
 
@@ -150,6 +153,7 @@ class ChallengeTests {
                         null,
                         null,
                         "coffe",
+                        null,
                         user,
                         new BigDecimal(1));
 
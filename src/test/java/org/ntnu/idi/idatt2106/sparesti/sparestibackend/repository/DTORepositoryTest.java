@@ -0,0 +1,374 @@
+package org.ntnu.idi.idatt2106.sparesti.sparestibackend.repository;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import java.math.BigDecimal;
+import java.time.ZonedDateTime;
+import java.util.List;
+import org.hibernate.Session;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.ntnu.idi.idatt2106.sparesti.sparestibackend.dto.challenge.ChallengeCreateDTO;
+import org.ntnu.idi.idatt2106.sparesti.sparestibackend.dto.challenge.ChallengeDTO;
+import org.ntnu.idi.idatt2106.sparesti.sparestibackend.dto.challenge.ChallengeFilterDTO;
+import org.ntnu.idi.idatt2106.sparesti.sparestibackend.dto.goal.GoalCreateDTO;
+import org.ntnu.idi.idatt2106.sparesti.sparestibackend.dto.goal.GoalFilterDTO;
+import org.ntnu.idi.idatt2106.sparesti.sparestibackend.dto.goal.GoalResponseDTO;
+import org.ntnu.idi.idatt2106.sparesti.sparestibackend.dto.user.RegisterRequest;
+import org.ntnu.idi.idatt2106.sparesti.sparestibackend.model.Challenge;
+import org.ntnu.idi.idatt2106.sparesti.sparestibackend.model.Goal;
+import org.ntnu.idi.idatt2106.sparesti.sparestibackend.model.User;
+import org.ntnu.idi.idatt2106.sparesti.sparestibackend.repository.specification.ChallengeSpecifications;
+import org.ntnu.idi.idatt2106.sparesti.sparestibackend.repository.specification.GoalSpecifications;
+import org.ntnu.idi.idatt2106.sparesti.sparestibackend.service.AuthenticationService;
+import org.ntnu.idi.idatt2106.sparesti.sparestibackend.service.ChallengeService;
+import org.ntnu.idi.idatt2106.sparesti.sparestibackend.service.GoalService;
+import org.ntnu.idi.idatt2106.sparesti.sparestibackend.service.UserService;
+import org.ntnu.idi.idatt2106.sparesti.sparestibackend.util.ApplicationUtil;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Compares the DTO projections of the goal and challenge repositories with the entities that
+ * Spring Data finds for the same specification and page, so the filtering, sorting, paging,
+ * counting and the order of the constructor arguments are checked against the entity queries
+ * they replace.
+ */
+@SpringBootTest(
+        properties =
+                "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+                        + "org.ntnu.idi.idatt2106.sparesti.sparestibackend.repository"
+                        + ".RecordingStatementInspector")
+@ActiveProfiles("test")
+@DirtiesContext(classMode = DirtiesContext.ClassMode.BEFORE_EACH_TEST_METHOD)
+@TestPropertySource(locations = "classpath:application-test.yml")
+public class DTORepositoryTest {
+
+    private static final int COUNT = 5;
+
+    @PersistenceContext private EntityManager entityManager;
+
+    @Autowired private TransactionTemplate transactionTemplate;
+
+    @Autowired private JdbcTemplate jdbcTemplate;
+
+    @Autowired private AuthenticationService authenticationService;
+
+    @Autowired private UserService userService;
+
+    @Autowired private GoalService goalService;
+
+    @Autowired private ChallengeService challengeService;
+
+    @Autowired private GoalRepository goalRepository;
+
+    @Autowired private ChallengeRepository challengeRepository;
+
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        user = register("user", "testEmail@test.com");
+        User other = register("other", "otherEmail@test.com");
+
+        for (int i = 0; i < COUNT; i++) {
+            // Titles alternate case, and due dates run backwards, so no sort matches the ids
+            String title = (i % 2 == 0 ? "Title" : "title") + i;
+            ZonedDateTime due = ZonedDateTime.now().plusDays(COUNT - i);
+            goalService.save(
+                    new GoalCreateDTO(
+                            title,
+                            BigDecimal.valueOf(7 * i + 1),
+                            BigDecimal.valueOf(3 * i + 33),
+                            "description" + i,
+                            due),
+                    user);
+            challengeService.save(
+                    new ChallengeCreateDTO(
+                            title,
+                            BigDecimal.valueOf(7 * i + 1),
+                            BigDecimal.valueOf(i + 40),
+                            BigDecimal.valueOf(i + 2),
+                            "description" + i,
+                            due,
+                            "Type"),
+                    user);
+        }
+        goalService.save(
+                new GoalCreateDTO(
+                        "other",
+                        BigDecimal.TEN,
+                        BigDecimal.TEN.add(BigDecimal.TEN),
+                        "other",
+                        ZonedDateTime.now().plusDays(1)),
+                other);
+        challengeService.save(
+                new ChallengeCreateDTO(
+                        "other",
+                        BigDecimal.TEN,
+                        BigDecimal.TEN.add(BigDecimal.TEN),
+                        BigDecimal.ONE,
+                        "other",
+                        ZonedDateTime.now().plusDays(1),
+                        "Type"),
+                other);
+    }
+
+    @Test
+    void testGoalDTOsAreFilteredSortedAndPagedLikeEntities() {
+        Specification<Goal> spec = GoalSpecifications.filter(user, goalFilter());
+
+        for (PageRequest page :
+                List.of(
+                        PageRequest.of(0, 2, Sort.by(Sort.Order.desc("due"))),
+                        PageRequest.of(1, 2, Sort.by("completion").descending()),
+                        PageRequest.of(0, 3, Sort.by(Sort.Order.asc("title").ignoreCase())),
+                        PageRequest.of(0, 10, Sort.by("priority")))) {
+            Page<GoalResponseDTO> dtos = goalRepository.findDTOs(spec, page);
+            Page<Goal> goals = goalRepository.findAll(spec, page);
+
+            assertEquals(goals.getTotalElements(), dtos.getTotalElements());
+            assertEquals(goals.getContent().size(), dtos.getContent().size(), page.toString());
+            for (int i = 0; i < goals.getContent().size(); i++) {
+                assertGoal(goals.getContent().get(i), dtos.getContent().get(i));
+            }
+        }
+    }
+
+    @Test
+    void testGoalDTOsAreSortedLikeEntities() {
+        Specification<Goal> spec = GoalSpecifications.ofUser(user);
+
+        for (Sort sort :
+                List.of(
+                        Sort.by(Sort.Order.asc("title").ignoreCase()),
+                        Sort.by("title"),
+                        Sort.by("due").descending().and(Sort.by("id")))) {
+            List<GoalResponseDTO> dtos = goalRepository.findDTOs(spec, sort);
+            List<Goal> goals = goalRepository.findAll(spec, sort);
+
+            assertEquals(COUNT, dtos.size());
+            for (int i = 0; i < COUNT; i++) {
+                assertGoal(goals.get(i), dtos.get(i));
+            }
+        }
+        List<String> titles =
+                goalRepository
+                        .findDTOs(spec, Sort.by(Sort.Order.asc("title").ignoreCase()))
+                        .stream()
+                        .map(GoalResponseDTO::title)
+                        .toList();
+        assertEquals(List.of("Title0", "title1", "Title2", "title3", "Title4"), titles);
+    }
+
+    @Test
+    void testChallengeDTOsAreFilteredSortedAndPagedLikeEntities() {
+        Specification<Challenge> spec =
+                ChallengeSpecifications.filter(user, challengeFilter(), null);
+
+        for (PageRequest page :
+                List.of(
+                        PageRequest.of(0, 2, Sort.by(Sort.Order.desc("due"))),
+                        PageRequest.of(1, 2, Sort.by("perPurchase").descending()),
+                        PageRequest.of(0, 3, Sort.by(Sort.Order.asc("title").ignoreCase())),
+                        PageRequest.of(0, 10, Sort.by("completion")))) {
+            Page<ChallengeDTO> dtos = challengeRepository.findDTOs(spec, page);
+            Page<Challenge> challenges = challengeRepository.findAll(spec, page);
+
+            assertEquals(challenges.getTotalElements(), dtos.getTotalElements());
+            assertEquals(challenges.getContent().size(), dtos.getContent().size(), page.toString());
+            for (int i = 0; i < challenges.getContent().size(); i++) {
+                assertChallenge(challenges.getContent().get(i), dtos.getContent().get(i));
+            }
+        }
+    }
+
+    @Test
+    void testChallengeDTOsAreSortedLikeEntities() {
+        Specification<Challenge> spec = ChallengeSpecifications.ofUser(user);
+
+        for (Sort sort :
+                List.of(
+                        Sort.by(Sort.Order.asc("title").ignoreCase()),
+                        Sort.by("target").descending(),
+                        Sort.by("due").and(Sort.by("id").descending()))) {
+            List<ChallengeDTO> dtos = challengeRepository.findDTOs(spec, sort);
+            List<Challenge> challenges = challengeRepository.findAll(spec, sort);
+
+            assertEquals(COUNT, dtos.size());
+            for (int i = 0; i < COUNT; i++) {
+                assertChallenge(challenges.get(i), dtos.get(i));
+            }
+        }
+    }
+
+    @Test
+    void testTotalIsOnlyCountedWhenThePageDoesNotTellIt() {
+        Specification<Goal> spec = GoalSpecifications.filter(user, goalFilter());
+        long matching = goalRepository.count(spec);
+
+        RecordingStatementInspector.clear();
+        Page<GoalResponseDTO> first = goalRepository.findDTOs(spec, PageRequest.of(0, 2));
+        assertEquals(matching, first.getTotalElements());
+        assertEquals(2, first.getContent().size());
+        assertEquals(1, countQueries());
+
+        RecordingStatementInspector.clear();
+        Page<GoalResponseDTO> all = goalRepository.findDTOs(spec, PageRequest.of(0, 10));
+        assertEquals(matching, all.getTotalElements());
+        assertEquals(0, countQueries());
+
+        Specification<Challenge> challengeSpec =
+                ChallengeSpecifications.filter(user, challengeFilter(), null);
+        long matchingChallenges = challengeRepository.count(challengeSpec);
+        RecordingStatementInspector.clear();
+        Page<ChallengeDTO> challenges =
+                challengeRepository.findDTOs(challengeSpec, PageRequest.of(1, 3));
+        assertEquals(matchingChallenges, challenges.getTotalElements());
+        assertEquals(0, countQueries(), "The total of a partial last page is not counted");
+    }
+
+    @Test
+    void testProjectionsCreateNoManagedEntities() {
+        transactionTemplate.executeWithoutResult(
+                status -> {
+                    Session session = entityManager.unwrap(Session.class);
+                    session.clear();
+
+                    goalRepository.findDTOs(GoalSpecifications.ofUser(user), PageRequest.of(0, 2));
+                    goalRepository.findDTOs(GoalSpecifications.ofUser(user), Sort.by("due"));
+                    challengeRepository.findDTOs(
+                            ChallengeSpecifications.ofUser(user), PageRequest.of(0, 2));
+                    challengeRepository.findDTOs(
+                            ChallengeSpecifications.ofUser(user), Sort.by("due"));
+                    assertEquals(0, session.getStatistics().getEntityCount());
+
+                    goalRepository.findAll(GoalSpecifications.ofUser(user));
+                    assertTrue(session.getStatistics().getEntityCount() > 0);
+                });
+    }
+
+    @Test
+    void testCompletionIsProjectedAfterTheBackfill() {
+        // Goals and challenges saved before the column existed have no completion
+        jdbcTemplate.update("UPDATE GOAL SET COMPLETION = NULL");
+        jdbcTemplate.update("UPDATE CHALLENGE SET COMPLETION = NULL");
+        Specification<Goal> goals = GoalSpecifications.ofUser(user);
+        Specification<Challenge> challenges = ChallengeSpecifications.ofUser(user);
+        goalRepository.findDTOs(goals, Sort.by("id")).forEach(dto -> assertNull(dto.completion()));
+        challengeRepository
+                .findDTOs(challenges, Sort.by("id"))
+                .forEach(dto -> assertNull(dto.completion()));
+
+        goalService.fillMissingCompletion();
+        challengeService.fillMissingCompletion();
+
+        List<GoalResponseDTO> goalDTOs = goalRepository.findDTOs(goals, Sort.by("id"));
+        assertEquals(COUNT, goalDTOs.size());
+        for (GoalResponseDTO dto : goalDTOs) {
+            assertEquals(
+                    0,
+                    ApplicationUtil.percent(dto.saved(), dto.target()).compareTo(dto.completion()),
+                    dto.toString());
+        }
+        List<ChallengeDTO> challengeDTOs = challengeRepository.findDTOs(challenges, Sort.by("id"));
+        assertEquals(COUNT, challengeDTOs.size());
+        for (ChallengeDTO dto : challengeDTOs) {
+            assertEquals(
+                    0,
+                    ApplicationUtil.percent(dto.saved(), dto.target()).compareTo(dto.completion()),
+                    dto.toString());
+        }
+    }
+
+    /**
+     * Registers a user
+     * @param username Username of the user
+     * @param email Email of the user
+     * @return The user
+     */
+    private User register(String username, String email) {
+        authenticationService.register(
+                new RegisterRequest(
+                        "testFirstName", "testLastName", username, "testPassword123!", email));
+        return userService.findUserByUsername(username);
+    }
+
+    private static GoalFilterDTO goalFilter() {
+        return new GoalFilterDTO(
+                ZonedDateTime.now(), null, null, null, BigDecimal.TEN, BigDecimal.valueOf(100));
+    }
+
+    private static ChallengeFilterDTO challengeFilter() {
+        return new ChallengeFilterDTO(
+                null,
+                ZonedDateTime.now(),
+                null,
+                null,
+                null,
+                BigDecimal.TEN,
+                BigDecimal.valueOf(100));
+    }
+
+    /**
+     * Checks that every column of a goal is passed to the right constructor parameter
+     * @param goal The goal
+     * @param dto The DTO of the goal
+     */
+    private static void assertGoal(Goal goal, GoalResponseDTO dto) {
+        assertEquals(goal.getId(), dto.id());
+        assertEquals(goal.getTitle(), dto.title());
+        assertEquals(goal.getSaved(), dto.saved());
+        assertEquals(goal.getTarget(), dto.target());
+        assertEquals(goal.getCompletion(), dto.completion());
+        assertEquals(goal.getDescription(), dto.description());
+        assertEquals(goal.getPriority(), dto.priority());
+        assertEquals(goal.getCreatedOn(), dto.createdOn());
+        assertEquals(goal.getCompletedOn(), dto.completedOn());
+        assertEquals(goal.getDue(), dto.due());
+        assertEquals(false, dto.hasImage());
+    }
+
+    /**
+     * Checks that every column of a challenge is passed to the right constructor parameter
+     * @param challenge The challenge
+     * @param dto The DTO of the challenge
+     */
+    private static void assertChallenge(Challenge challenge, ChallengeDTO dto) {
+        assertEquals(challenge.getId(), dto.id());
+        assertEquals(challenge.getTitle(), dto.title());
+        assertEquals(challenge.getSaved(), dto.saved());
+        assertEquals(challenge.getTarget(), dto.target());
+        assertEquals(challenge.getPerPurchase(), dto.perPurchase());
+        assertEquals(challenge.getCompletion(), dto.completion());
+        assertEquals(challenge.getDescription(), dto.description());
+        assertEquals(challenge.getCreatedOn(), dto.createdOn());
+        assertEquals(challenge.getCompletedOn(), dto.completedOn());
+        assertEquals(challenge.getDue(), dto.due());
+        assertEquals(challenge.getType(), dto.type());
+        assertEquals(false, dto.hasImage());
+    }
+
+    /**
+     * Counts the recorded count queries
+     * @return Number of count queries
+     */
+    private static long countQueries() {
+        return RecordingStatementInspector.statements().stream()
+                .filter(sql -> sql.toLowerCase().contains("count("))
+                .count();
+    }
+}
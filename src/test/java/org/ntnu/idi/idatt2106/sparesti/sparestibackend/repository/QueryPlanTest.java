@@ -0,0 +1,249 @@
+package org.ntnu.idi.idatt2106.sparesti.sparestibackend.repository;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.regex.Pattern;
+import javax.sql.DataSource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.ntnu.idi.idatt2106.sparesti.sparestibackend.dto.challenge.ChallengeCreateDTO;
+import org.ntnu.idi.idatt2106.sparesti.sparestibackend.dto.challenge.ChallengeFilterDTO;
+import org.ntnu.idi.idatt2106.sparesti.sparestibackend.dto.goal.GoalCreateDTO;
+import org.ntnu.idi.idatt2106.sparesti.sparestibackend.dto.goal.GoalFilterDTO;
+import org.ntnu.idi.idatt2106.sparesti.sparestibackend.dto.user.RegisterRequest;
+import org.ntnu.idi.idatt2106.sparesti.sparestibackend.model.User;
+import org.ntnu.idi.idatt2106.sparesti.sparestibackend.repository.specification.ChallengeSpecifications;
+import org.ntnu.idi.idatt2106.sparesti.sparestibackend.repository.specification.GoalSpecifications;
+import org.ntnu.idi.idatt2106.sparesti.sparestibackend.service.AuthenticationService;
+import org.ntnu.idi.idatt2106.sparesti.sparestibackend.service.ChallengeService;
+import org.ntnu.idi.idatt2106.sparesti.sparestibackend.service.GoalService;
+import org.ntnu.idi.idatt2106.sparesti.sparestibackend.service.UserService;
+import org.opentest4j.AssertionFailedError;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+
+/**
+ * Runs EXPLAIN on the SQL of the hot goal and challenge repository queries. Queries that the
+ * composite indexes were made for must read through the expected index, as H2 indexes the
+ * USER_ID foreign key by itself and would otherwise avoid a full table scan anyway. The other
+ * queries must not read the GOAL or CHALLENGE table with a full table scan.
+ */
+@SpringBootTest(
+        properties =
+                "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+                        + "org.ntnu.idi.idatt2106.sparesti.sparestibackend.repository"
+                        + ".RecordingStatementInspector")
+@ActiveProfiles("test")
+@DirtiesContext(classMode = DirtiesContext.ClassMode.BEFORE_EACH_TEST_METHOD)
+@TestPropertySource(locations = "classpath:application-test.yml")
+public class QueryPlanTest {
+
+    private static final Pattern HOT_TABLE_SCAN =
+            Pattern.compile("\\b(GOAL|CHALLENGE)\\.tableScan\\b", Pattern.CASE_INSENSITIVE);
+
+    @Autowired private DataSource dataSource;
+
+    @Autowired private JdbcTemplate jdbcTemplate;
+
+    @Autowired private AuthenticationService authenticationService;
+
+    @Autowired private UserService userService;
+
+    @Autowired private GoalService goalService;
+
+    @Autowired private ChallengeService challengeService;
+
+    @Autowired private GoalRepository goalRepository;
+
+    @Autowired private ChallengeRepository challengeRepository;
+
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        authenticationService.register(
+                new RegisterRequest(
+                        "testFirstName",
+                        "testLastName",
+                        "user",
+                        "testPassword123!",
+                        "testEmail@test.com"));
+        user = userService.findUserByUsername("user");
+
+        for (int i = 0; i < 3; i++) {
+            goalService.save(
+                    new GoalCreateDTO(
+                            "goal" + i,
+                            BigDecimal.ZERO,
+                            BigDecimal.TEN,
+                            null,
+                            ZonedDateTime.now().plusDays(i + 1)),
+                    user);
+            challengeService.save(
+                    new ChallengeCreateDTO(
+                            "challenge" + i,
+                            BigDecimal.ONE,
+                            BigDecimal.TEN,
+                            BigDecimal.ONE,
+                            null,
+                            ZonedDateTime.now().plusDays(i + 1),
+                            "Type"),
+                    user);
+        }
+    }
+
+    @Test
+    void testGoalQueriesUseIndexes() throws SQLException {
+        PageRequest page = PageRequest.of(0, 10);
+        GoalFilterDTO filter =
+                new GoalFilterDTO(
+                        ZonedDateTime.now(), null, null, null, BigDecimal.ZERO, BigDecimal.TEN);
+
+        assertNoHotTableScan(() -> goalRepository.findAllByUser(user, page));
+        assertNoHotTableScan(() -> goalRepository.findByIdAndUser(1L, user));
+        assertNoHotTableScan(() -> goalRepository.findAllByCompletedOnIsNotNullAndUser(user, page));
+        assertUsesIndex(
+                "IDX_GOAL_USER_COMPLETED_PRIORITY",
+                () -> goalRepository.findAllByCompletedOnIsNullAndUser(user));
+        assertUsesIndex(
+                "IDX_GOAL_USER_COMPLETED_PRIORITY",
+                () -> goalRepository.findAllByCompletedOnIsNullAndUserOrderByPriorityAsc(user));
+        assertUsesIndex(
+                "IDX_GOAL_USER_DUE",
+                () ->
+                        goalRepository.findAll(
+                                GoalSpecifications.filter(user, filter),
+                                PageRequest.of(0, 10, Sort.by("priority"))));
+    }
+
+    @Test
+    void testChallengeQueriesUseIndexes() throws SQLException {
+        PageRequest page = PageRequest.of(0, 10);
+        ChallengeFilterDTO filter =
+                new ChallengeFilterDTO(
+                        "Type",
+                        ZonedDateTime.now(),
+                        null,
+                        null,
+                        null,
+                        BigDecimal.ZERO,
+                        BigDecimal.TEN);
+
+        assertNoHotTableScan(() -> challengeRepository.findByUser(user, page));
+        assertNoHotTableScan(() -> challengeRepository.findByIdAndUser(1L, user));
+        assertNoHotTableScan(
+                () -> challengeRepository.findAllByCompletedOnIsNotNullAndUser(user, page));
+        assertNoHotTableScan(() -> challengeRepository.findTypeStatsByUser(user));
+        assertUsesIndex(
+                "IDX_CHALLENGE_USER_COMPLETED",
+                () -> challengeRepository.findAllByCompletedOnIsNullAndUser(user));
+        assertUsesIndex(
+                "IDX_CHALLENGE_USER_COMPLETED",
+                () -> challengeRepository.findAllByCompletedOnIsNullAndUser(user, page));
+        assertUsesIndex(
+                "IDX_CHALLENGE_USER_TYPE_COMPLETED",
+                () -> challengeRepository.findActiveTypeIdsByUser(user));
+        assertUsesIndex(
+                "IDX_CHALLENGE_USER_DUE",
+                () ->
+                        challengeRepository.findAll(
+                                ChallengeSpecifications.filter(user, filter, 1),
+                                PageRequest.of(0, 10, Sort.by("due"))));
+    }
+
+    @Test
+    void testIndexCheckFailsWhenTheIndexIsDropped() throws SQLException {
+        Runnable query =
+                () -> goalRepository.findAllByCompletedOnIsNullAndUserOrderByPriorityAsc(user);
+        assertUsesIndex("IDX_GOAL_USER_COMPLETED_PRIORITY", query);
+
+        jdbcTemplate.execute("DROP INDEX IDX_GOAL_USER_COMPLETED_PRIORITY");
+
+        assertThrows(
+                AssertionFailedError.class,
+                () -> assertUsesIndex("IDX_GOAL_USER_COMPLETED_PRIORITY", query));
+    }
+
+    /**
+     * Runs a repository call, and checks that every statement it sent to the database reads
+     * through an index
+     * @param index Name of the index
+     * @param query The repository call
+     * @throws SQLException If a statement could not be explained
+     */
+    private void assertUsesIndex(String index, Runnable query) throws SQLException {
+        Pattern indexScan = Pattern.compile("/\\* PUBLIC\\." + Pattern.quote(index) + ":");
+        for (String sql : record(query)) {
+            String plan = explain(sql);
+            assertTrue(
+                    indexScan.matcher(plan).find(),
+                    "Expected " + index + " in query plan:\n" + sql + "\n" + plan);
+        }
+    }
+
+    /**
+     * Runs a repository call, and explains every statement it sent to the database
+     * @param query The repository call
+     * @throws SQLException If a statement could not be explained
+     */
+    private void assertNoHotTableScan(Runnable query) throws SQLException {
+        for (String sql : record(query)) {
+            String plan = explain(sql);
+            assertFalse(
+                    HOT_TABLE_SCAN.matcher(plan).find(),
+                    "Full table scan in query plan:\n" + sql + "\n" + plan);
+        }
+    }
+
+    /**
+     * Runs a repository call, and records the statements it sent to the database
+     * @param query The repository call
+     * @return The statements
+     */
+    private List<String> record(Runnable query) {
+        RecordingStatementInspector.clear();
+        query.run();
+        List<String> statements = RecordingStatementInspector.statements();
+        assertFalse(statements.isEmpty(), "Expected the query to reach the database");
+        return statements;
+    }
+
+    /**
+     * Gets the H2 query plan of a statement. Parameters are bound to null, as only the plan is
+     * needed and the statement is not executed.
+     * @param sql The statement
+     * @return The query plan
+     * @throws SQLException If the statement could not be explained
+     */
+    private String explain(String sql) throws SQLException {
+        try (Connection connection = dataSource.getConnection();
+                PreparedStatement statement = connection.prepareStatement("EXPLAIN " + sql)) {
+            int parameters = statement.getParameterMetaData().getParameterCount();
+            for (int i = 1; i <= parameters; i++) {
+                statement.setObject(i, null);
+            }
+            StringBuilder plan = new StringBuilder();
+            try (ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    plan.append(resultSet.getString(1)).append('\n');
+                }
+            }
+            return plan.toString();
+        }
+    }
+}
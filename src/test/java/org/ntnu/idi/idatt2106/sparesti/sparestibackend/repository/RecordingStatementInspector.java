@@ -0,0 +1,35 @@
+package org.ntnu.idi.idatt2106.sparesti.sparestibackend.repository;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+/**
+ * Statement inspector that records the SQL Hibernate sends to the database, so tests can
+ * inspect the query plans of repository methods.
+ */
+public class RecordingStatementInspector implements StatementInspector {
+
+    private static final List<String> STATEMENTS = new CopyOnWriteArrayList<>();
+
+    @Override
+    public String inspect(String sql) {
+        STATEMENTS.add(sql);
+        return sql;
+    }
+
+    /**
+     * Forgets all recorded statements
+     */
+    public static void clear() {
+        STATEMENTS.clear();
+    }
+
+    /**
+     * Gets the statements recorded since the last clear
+     * @return Recorded SQL statements
+     */
+    public static List<String> statements() {
+        return List.copyOf(STATEMENTS);
+    }
+}
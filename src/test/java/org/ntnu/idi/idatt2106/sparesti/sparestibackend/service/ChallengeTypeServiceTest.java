@@ -0,0 +1,144 @@
+package org.ntnu.idi.idatt2106.sparesti.sparestibackend.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+import java.util.Optional;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.ntnu.idi.idatt2106.sparesti.sparestibackend.model.ChallengeTypeEntity;
+import org.ntnu.idi.idatt2106.sparesti.sparestibackend.repository.ChallengeRepository;
+import org.ntnu.idi.idatt2106.sparesti.sparestibackend.repository.ChallengeTypeConfigRepository;
+import org.ntnu.idi.idatt2106.sparesti.sparestibackend.repository.ChallengeTypeRepository;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.test.util.ReflectionTestUtils;
+
+public class ChallengeTypeServiceTest {
+
+    @Mock private ChallengeTypeRepository challengeTypeRepository;
+
+    @Mock private ChallengeRepository challengeRepository;
+
+    @Mock private ChallengeTypeConfigRepository challengeTypeConfigRepository;
+
+    @InjectMocks private ChallengeTypeService challengeTypeService;
+
+    private ChallengeTypeEntity coffee;
+
+    @BeforeEach
+    public void setup() {
+        MockitoAnnotations.openMocks(this);
+        coffee = type(1, "Coffee");
+    }
+
+    @Test
+    public void testResolveCreatesUnknownTypeOnceAndCachesIt() {
+        when(challengeTypeRepository.findByName("Coffee")).thenReturn(Optional.empty());
+        when(challengeTypeRepository.saveAndFlush(any())).thenReturn(coffee);
+
+        assertSame(coffee, challengeTypeService.resolve(" coffee"));
+        assertSame(coffee, challengeTypeService.resolve("COFFEE"));
+        assertEquals(1, challengeTypeService.resolveId("Coffee"));
+
+        verify(challengeTypeRepository, times(1)).findByName("Coffee");
+        verify(challengeTypeRepository, times(1)).saveAndFlush(any());
+        assertEquals("Coffee", challengeTypeService.nameOf(1));
+        verify(challengeTypeRepository, never()).findById(any());
+    }
+
+    @Test
+    public void testResolveReusesExistingType() {
+        when(challengeTypeRepository.findByName("Coffee")).thenReturn(Optional.of(coffee));
+
+        assertSame(coffee, challengeTypeService.resolve("coffee"));
+
+        verify(challengeTypeRepository, never()).saveAndFlush(any());
+    }
+
+    @Test
+    public void testResolveReadsBackTypeInsertedConcurrently() {
+        when(challengeTypeRepository.findByName("Coffee"))
+                .thenReturn(Optional.empty())
+                .thenReturn(Optional.of(coffee));
+        when(challengeTypeRepository.saveAndFlush(any()))
+                .thenThrow(new DataIntegrityViolationException("Duplicate name"));
+
+        assertSame(coffee, challengeTypeService.resolve("coffee"));
+        assertSame(coffee, challengeTypeService.resolve("coffee"));
+
+        verify(challengeTypeRepository, times(2)).findByName("Coffee");
+        verify(challengeTypeRepository, times(1)).saveAndFlush(any());
+    }
+
+    @Test
+    public void testResolveRethrowsViolationThatIsNotADuplicateName() {
+        when(challengeTypeRepository.findByName("Coffee")).thenReturn(Optional.empty());
+        when(challengeTypeRepository.saveAndFlush(any()))
+                .thenThrow(new DataIntegrityViolationException("Name too long"));
+
+        assertThrows(
+                DataIntegrityViolationException.class,
+                () -> challengeTypeService.resolve("coffee"));
+    }
+
+    @Test
+    public void testBlankTypesAreNotResolved() {
+        assertNull(challengeTypeService.resolve(null));
+        assertNull(challengeTypeService.resolve("  "));
+        assertNull(challengeTypeService.resolveId(""));
+        assertTrue(challengeTypeService.findId(" ").isEmpty());
+
+        verify(challengeTypeRepository, never()).findByName(any());
+    }
+
+    @Test
+    public void testFindIdDoesNotCreateUnknownType() {
+        when(challengeTypeRepository.findByName("Snuff")).thenReturn(Optional.empty());
+
+        assertTrue(challengeTypeService.findId("snuff").isEmpty());
+
+        verify(challengeTypeRepository, never()).saveAndFlush(any());
+    }
+
+    @Test
+    public void testInitializeAssignsKeysToRowsPersistedWithoutOne() {
+        ChallengeTypeEntity snuff = type(2, "Snuff");
+        when(challengeTypeRepository.findAll()).thenReturn(List.of(coffee));
+        when(challengeRepository.findTypesWithoutTypeId()).thenReturn(List.of("coffee", "snuff"));
+        when(challengeTypeRepository.findByName("Snuff")).thenReturn(Optional.empty());
+        when(challengeTypeRepository.saveAndFlush(any())).thenReturn(snuff);
+        when(challengeTypeConfigRepository.findTypesWithoutTypeId()).thenReturn(List.of("Coffee"));
+
+        challengeTypeService.initialize();
+
+        verify(challengeRepository).assignTypeId("coffee", "Coffee", 1);
+        verify(challengeRepository).assignTypeId("snuff", "Snuff", 2);
+        verify(challengeTypeConfigRepository).assignTypeId("Coffee", 1);
+        verify(challengeTypeRepository, never()).findByName("Coffee");
+        verify(challengeTypeRepository, times(1)).saveAndFlush(any());
+    }
+
+    /**
+     * Creates a persisted challenge type
+     * @param id Key of the type
+     * @param name Canonical name of the type
+     * @return The challenge type
+     */
+    private static ChallengeTypeEntity type(int id, String name) {
+        ChallengeTypeEntity challengeType = new ChallengeTypeEntity(name);
+        ReflectionTestUtils.setField(challengeType, "id", id);
+        return challengeType;
+    }
+}
@@ -0,0 +1,196 @@
+package org.ntnu.idi.idatt2106.sparesti.sparestibackend.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Optional;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.InOrder;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.ntnu.idi.idatt2106.sparesti.sparestibackend.exception.storage.StorageException;
+import org.ntnu.idi.idatt2106.sparesti.sparestibackend.model.ImageBlob;
+import org.ntnu.idi.idatt2106.sparesti.sparestibackend.repository.ImageBlobRepository;
+import org.ntnu.idi.idatt2106.sparesti.sparestibackend.service.storage.StorageBackend;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.test.util.ReflectionTestUtils;
+
+public class ImageBlobServiceTest {
+
+    private static final byte[] DATA = "image".getBytes(StandardCharsets.UTF_8);
+
+    @Mock private ImageBlobRepository imageBlobRepository;
+
+    @Mock private StorageBackend storageBackend;
+
+    @InjectMocks private ImageBlobService imageBlobService;
+
+    @TempDir private Path stagingFolder;
+
+    private ImageBlob blob;
+
+    @BeforeEach
+    public void setup() throws IOException {
+        MockitoAnnotations.openMocks(this);
+        when(storageBackend.createStagingFile())
+                .thenAnswer(invocation -> Files.createTempFile(stagingFolder, "upload", ".tmp"));
+        doAnswer(invocation -> Files.deleteIfExists(invocation.getArgument(1)))
+                .when(storageBackend)
+                .put(anyString(), any());
+        blob = new ImageBlob("abc", "abc.png", "image/png", 5L);
+        ReflectionTestUtils.setField(blob, "id", 1L);
+    }
+
+    @Test
+    public void testExistingBlobIsAcquiredWithAtomicIncrement() throws IOException {
+        when(imageBlobRepository.findByChecksum(anyString())).thenReturn(Optional.of(blob));
+        when(storageBackend.exists("abc.png")).thenReturn(true);
+        when(imageBlobRepository.addReference(1L)).thenReturn(1);
+        when(imageBlobRepository.findById(1L)).thenReturn(Optional.of(blob));
+
+        assertSame(blob, imageBlobService.store(DATA, ".png"));
+
+        verify(imageBlobRepository).addReference(1L);
+        verify(imageBlobRepository, never()).save(any());
+        verify(storageBackend, never()).put(anyString(), any());
+    }
+
+    @Test
+    public void testBlobCreatedConcurrentlyIsReadAgainAndAcquired() throws IOException {
+        when(imageBlobRepository.findByChecksum(anyString()))
+                .thenReturn(Optional.empty())
+                .thenReturn(Optional.of(blob));
+        when(imageBlobRepository.saveAndFlush(any()))
+                .thenThrow(new DataIntegrityViolationException("CHECKSUM"));
+        when(storageBackend.exists("abc.png")).thenReturn(true);
+        when(imageBlobRepository.addReference(1L)).thenReturn(1);
+        when(imageBlobRepository.findById(1L)).thenReturn(Optional.of(blob));
+
+        assertSame(blob, imageBlobService.store(DATA, ".png"));
+
+        verify(imageBlobRepository, times(2)).findByChecksum(anyString());
+        verify(imageBlobRepository).addReference(1L);
+    }
+
+    @Test
+    public void testBlobDeletedAfterItWasReadIsCreatedAgain() throws IOException {
+        when(imageBlobRepository.findByChecksum(anyString()))
+                .thenReturn(Optional.of(blob))
+                .thenReturn(Optional.empty());
+        when(storageBackend.exists("abc.png")).thenReturn(true);
+        when(imageBlobRepository.addReference(1L)).thenReturn(0);
+        when(imageBlobRepository.saveAndFlush(any()))
+                .thenAnswer(invocation -> invocation.getArgument(0));
+
+        ImageBlob stored = imageBlobService.store(DATA, ".png");
+
+        assertEquals(1, stored.getRefCount());
+        verify(storageBackend).put(anyString(), any());
+    }
+
+    @Test
+    public void testAcquiringGivesUpWhenTheBlobKeepsChanging() throws IOException {
+        when(imageBlobRepository.findByChecksum(anyString())).thenReturn(Optional.of(blob));
+        when(storageBackend.exists("abc.png")).thenReturn(true);
+        when(imageBlobRepository.addReference(1L)).thenReturn(0);
+
+        assertThrows(StorageException.class, () -> imageBlobService.store(DATA, ".png"));
+    }
+
+    @Test
+    public void testReleasingLastReferenceDeletesBlobAndFile() throws IOException {
+        when(imageBlobRepository.findById(1L)).thenReturn(Optional.of(blob));
+        when(imageBlobRepository.removeReference(1L)).thenReturn(1);
+        when(imageBlobRepository.claimForDeletion(1L)).thenReturn(1);
+        when(imageBlobRepository.deleteClaimed(1L)).thenReturn(1);
+
+        imageBlobService.release(blob);
+
+        InOrder inOrder = inOrder(imageBlobRepository, storageBackend);
+        inOrder.verify(imageBlobRepository).claimForDeletion(1L);
+        inOrder.verify(storageBackend).delete("abc.png");
+        inOrder.verify(imageBlobRepository).deleteClaimed(1L);
+        verify(imageBlobRepository, never()).delete(any());
+    }
+
+    @Test
+    public void testClaimedBlobIsDeletedWhenItsFileCouldNotBeDeleted() throws IOException {
+        when(imageBlobRepository.findById(1L)).thenReturn(Optional.of(blob));
+        when(imageBlobRepository.removeReference(1L)).thenReturn(1);
+        when(imageBlobRepository.claimForDeletion(1L)).thenReturn(1);
+        doThrow(new IOException("unavailable")).when(storageBackend).delete("abc.png");
+
+        assertThrows(IOException.class, () -> imageBlobService.release(blob));
+
+        verify(imageBlobRepository).deleteClaimed(1L);
+    }
+
+    @Test
+    public void testClaimedBlobStillUsedByAnImageIsKept() throws IOException {
+        when(imageBlobRepository.findById(1L)).thenReturn(Optional.of(blob));
+        when(imageBlobRepository.removeReference(1L)).thenReturn(1);
+        when(imageBlobRepository.claimForDeletion(1L)).thenReturn(1);
+        when(imageBlobRepository.deleteClaimed(1L))
+                .thenThrow(new DataIntegrityViolationException("BLOB_ID"));
+
+        imageBlobService.release(blob);
+
+        verify(imageBlobRepository).keepClaimed(1L);
+    }
+
+    @Test
+    public void testBlobClaimedForDeletionIsNotAcquired() throws IOException {
+        when(imageBlobRepository.findByChecksum(anyString()))
+                .thenReturn(Optional.of(blob))
+                .thenReturn(Optional.empty());
+        when(storageBackend.exists("abc.png")).thenReturn(false);
+        when(imageBlobRepository.restore(eq(1L), anyString(), anyString())).thenReturn(0);
+        when(imageBlobRepository.saveAndFlush(any()))
+                .thenAnswer(invocation -> invocation.getArgument(0));
+
+        ImageBlob stored = imageBlobService.store(DATA, ".png");
+
+        assertEquals(1, stored.getRefCount());
+        verify(storageBackend, times(1)).put(anyString(), any());
+    }
+
+    @Test
+    public void testBlobAcquiredWhileReleasedIsKept() throws IOException {
+        when(imageBlobRepository.findById(1L)).thenReturn(Optional.of(blob));
+        when(imageBlobRepository.removeReference(1L)).thenReturn(1);
+        when(imageBlobRepository.claimForDeletion(1L)).thenReturn(0);
+
+        imageBlobService.release(blob);
+
+        verify(storageBackend, never()).delete(anyString());
+        verify(imageBlobRepository, never()).deleteClaimed(any());
+    }
+
+    @Test
+    public void testReleasingDeletedBlobDoesNothing() throws IOException {
+        when(imageBlobRepository.findById(1L)).thenReturn(Optional.empty());
+
+        imageBlobService.release(blob);
+
+        verify(imageBlobRepository, never()).removeReference(any());
+        verify(storageBackend, never()).delete(anyString());
+    }
+}
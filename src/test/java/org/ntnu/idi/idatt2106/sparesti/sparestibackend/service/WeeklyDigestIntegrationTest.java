@@ -0,0 +1,139 @@
+package org.ntnu.idi.idatt2106.sparesti.sparestibackend.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.icegreen.greenmail.junit5.GreenMailExtension;
+import com.icegreen.greenmail.util.GreenMailUtil;
+import com.icegreen.greenmail.util.ServerSetupTest;
+import java.math.BigDecimal;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.ZonedDateTime;
+import java.time.temporal.TemporalAdjusters;
+import javax.mail.internet.MimeMessage;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.ntnu.idi.idatt2106.sparesti.sparestibackend.dto.challenge.ChallengeCreateDTO;
+import org.ntnu.idi.idatt2106.sparesti.sparestibackend.dto.user.RegisterRequest;
+import org.ntnu.idi.idatt2106.sparesti.sparestibackend.model.DigestRun;
+import org.ntnu.idi.idatt2106.sparesti.sparestibackend.repository.DigestRunRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@DirtiesContext(classMode = DirtiesContext.ClassMode.BEFORE_EACH_TEST_METHOD)
+@TestPropertySource(
+        locations = "classpath:application-test.yml",
+        properties = "mail.digest-batch-size=1")
+class WeeklyDigestIntegrationTest {
+
+    @RegisterExtension
+    static GreenMailExtension greenMail = new GreenMailExtension(ServerSetupTest.SMTP);
+
+    @Autowired private WebApplicationContext context;
+
+    @Autowired private ObjectMapper objectMapper;
+
+    @Autowired private WeeklyDigestService weeklyDigestService;
+
+    @Autowired private DigestRunRepository digestRunRepository;
+
+    private MockMvc mvc;
+
+    private final LocalDate weekStart =
+            LocalDate.now().with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+
+    @BeforeEach
+    void setUp() throws Exception {
+        mvc = MockMvcBuilders.webAppContextSetup(context).build();
+        register("user", "user@test.com");
+        register("other", "other@test.com");
+    }
+
+    @Test
+    @WithMockUser
+    void testDigestsSummarizeTheWeekOfEveryUser() throws Exception {
+        ChallengeCreateDTO challenge =
+                new ChallengeCreateDTO(
+                        "title",
+                        BigDecimal.ONE,
+                        BigDecimal.TEN,
+                        BigDecimal.TEN,
+                        null,
+                        ZonedDateTime.now().plusDays(7),
+                        "Type");
+        mvc.perform(
+                        MockMvcRequestBuilders.post("/challenges")
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .content(objectMapper.writeValueAsString(challenge)))
+                .andExpect(status().isOk());
+        mvc.perform(MockMvcRequestBuilders.put("/challenges/1/complete"))
+                .andExpect(status().isOk());
+
+        weeklyDigestService.sendDigests(weekStart);
+
+        assertTrue(greenMail.waitForIncomingEmail(5000, 2));
+        String userDigest = null;
+        String otherDigest = null;
+        for (MimeMessage mail : greenMail.getReceivedMessages()) {
+            String recipient = mail.getAllRecipients()[0].toString();
+            if (recipient.equals("user@test.com")) userDigest = GreenMailUtil.getBody(mail);
+            if (recipient.equals("other@test.com")) otherDigest = GreenMailUtil.getBody(mail);
+        }
+        assertNotNull(userDigest);
+        assertNotNull(otherDigest);
+        assertTrue(userDigest.contains("1 utfordringer og sparte 1.00 kr"));
+        assertTrue(otherDigest.contains("0 utfordringer og sparte 0.00 kr"));
+
+        DigestRun run = digestRunRepository.findById(weekStart).orElseThrow();
+        assertEquals(2, run.getQueued());
+        assertNotNull(run.getFinishedAt());
+
+        // A finished week is not sent again
+        weeklyDigestService.sendDigests(weekStart);
+        Thread.sleep(500);
+        assertEquals(2, greenMail.getReceivedMessages().length);
+    }
+
+    @Test
+    void testStoppedJobResumesAfterTheLastQueuedUser() throws Exception {
+        digestRunRepository.save(new DigestRun(weekStart, weekStart.atStartOfDay()));
+        digestRunRepository.advance(weekStart, 0, 1, 1);
+
+        weeklyDigestService.sendDigests(weekStart);
+
+        assertTrue(greenMail.waitForIncomingEmail(5000, 1));
+        Thread.sleep(500);
+        assertEquals(1, greenMail.getReceivedMessages().length);
+        assertEquals(
+                "other@test.com",
+                greenMail.getReceivedMessages()[0].getAllRecipients()[0].toString());
+        assertEquals(2, digestRunRepository.findById(weekStart).orElseThrow().getQueued());
+    }
+
+    private void register(String username, String email) throws Exception {
+        RegisterRequest registerRequest =
+                new RegisterRequest(
+                        "testFirstName", "testLastName", username, "testPassword123!", email);
+        mvc.perform(
+                        MockMvcRequestBuilders.post("/auth/register")
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .content(objectMapper.writeValueAsString(registerRequest)))
+                .andExpect(status().isOk());
+    }
+}
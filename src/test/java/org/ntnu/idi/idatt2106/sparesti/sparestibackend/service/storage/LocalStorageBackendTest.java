@@ -0,0 +1,104 @@
+package org.ntnu.idi.idatt2106.sparesti.sparestibackend.service.storage;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.ntnu.idi.idatt2106.sparesti.sparestibackend.exception.storage.StorageException;
+import org.ntnu.idi.idatt2106.sparesti.sparestibackend.service.storage.StorageBackend.StoredFile;
+
+class LocalStorageBackendTest {
+
+    private static final String KEY = "0".repeat(62) + "ab.png";
+
+    private static final String OTHER_KEY = "ff".repeat(32) + ".gif";
+
+    @TempDir Path root;
+
+    private LocalStorageBackend backend;
+
+    @BeforeEach
+    void setUp() {
+        backend = new LocalStorageBackend(root);
+    }
+
+    @Test
+    void testFilesAreStoredInShardFolders() throws IOException {
+        Path stagingFile = backend.createStagingFile();
+        Files.writeString(stagingFile, "contents");
+
+        backend.put(KEY, stagingFile);
+
+        Path file = root.resolve("00").resolve("00").resolve(KEY);
+        assertTrue(Files.exists(file));
+        assertFalse(Files.exists(stagingFile));
+        assertTrue(backend.exists(KEY));
+        assertEquals(file, backend.localFile(KEY).orElseThrow());
+        assertEquals(8, backend.size(KEY));
+        try (InputStream inputStream = backend.open(KEY)) {
+            assertArrayEquals(
+                    "contents".getBytes(StandardCharsets.UTF_8), inputStream.readAllBytes());
+        }
+
+        backend.delete(KEY);
+        assertFalse(backend.exists(KEY));
+        assertThrows(NoSuchFileException.class, () -> backend.open(KEY));
+    }
+
+    @Test
+    void testByteRangeIsRead() throws IOException {
+        Path stagingFile = backend.createStagingFile();
+        Files.writeString(stagingFile, "0123456789");
+        backend.put(KEY, stagingFile);
+
+        try (InputStream inputStream = backend.open(KEY, 2, 5)) {
+            assertEquals("23456", new String(inputStream.readAllBytes(), StandardCharsets.UTF_8));
+        }
+    }
+
+    @Test
+    void testFlatFilesAreServedUntilResharded() throws IOException, InterruptedException {
+        Files.writeString(root.resolve(KEY), "first");
+        Files.writeString(root.resolve(OTHER_KEY), "second");
+        Files.writeString(root.resolve("1-G.png"), "legacy");
+        assertTrue(backend.exists(KEY));
+
+        assertEquals(2, backend.reshard(2));
+
+        assertFalse(Files.exists(root.resolve(KEY)));
+        assertTrue(Files.exists(root.resolve("00").resolve("00").resolve(KEY)));
+        assertTrue(Files.exists(root.resolve("ff").resolve("ff").resolve(OTHER_KEY)));
+        assertTrue(Files.exists(root.resolve("1-G.png")));
+        try (InputStream inputStream = backend.open(OTHER_KEY)) {
+            assertEquals("second", new String(inputStream.readAllBytes(), StandardCharsets.UTF_8));
+        }
+    }
+
+    @Test
+    void testBothLayoutsAreListedWithoutStagingFiles() throws IOException {
+        Path stagingFile = backend.createStagingFile();
+        Files.writeString(stagingFile, "first");
+        backend.put(KEY, stagingFile);
+        Files.writeString(root.resolve(OTHER_KEY), "second");
+        backend.createStagingFile();
+
+        try (Stream<StoredFile> files = backend.list()) {
+            assertEquals(List.of(KEY, OTHER_KEY), files.map(StoredFile::key).sorted().toList());
+        }
+    }
+
+    @Test
+    void testKeysCannotLeaveTheStorageFolder() {
+        assertThrows(StorageException.class, () -> backend.open("../../etc/passwd"));
+        assertThrows(StorageException.class, () -> backend.delete("ab/../../x"));
+    }
+}
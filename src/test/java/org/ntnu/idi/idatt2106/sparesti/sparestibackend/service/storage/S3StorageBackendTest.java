@@ -0,0 +1,236 @@
+package org.ntnu.idi.idatt2106.sparesti.sparestibackend.service.storage;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.ntnu.idi.idatt2106.sparesti.sparestibackend.service.storage.StorageBackend.StoredFile;
+import org.ntnu.idi.idatt2106.sparesti.sparestibackend.util.StorageProperties;
+
+/**
+ * Tests the S3 backend against a small in-process stand-in for an object store, which keeps
+ * objects in memory and answers PUT, GET, HEAD, DELETE and listings with path-style
+ * addressing.
+ */
+class S3StorageBackendTest {
+
+    private static final String KEY = "ab".repeat(32) + ".png";
+
+    private final Map<String, byte[]> objects = new ConcurrentHashMap<>();
+
+    @TempDir Path stagingLocation;
+
+    private HttpServer server;
+
+    private S3StorageBackend backend;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/bucket", this::handle);
+        server.start();
+
+        StorageProperties.S3 properties = new StorageProperties.S3();
+        properties.setEndpoint("http://localhost:" + server.getAddress().getPort());
+        properties.setBucket("bucket");
+        properties.setPrefix("images/");
+        properties.setAccessKey("access");
+        properties.setSecretKey("secret");
+        backend = S3StorageBackend.create(properties, stagingLocation);
+    }
+
+    @AfterEach
+    void tearDown() {
+        backend.close();
+        server.stop(0);
+    }
+
+    @Test
+    void testFilesAreStoredAsObjects() throws IOException {
+        Path stagingFile = backend.createStagingFile();
+        Files.writeString(stagingFile, "0123456789");
+
+        backend.put(KEY, stagingFile);
+
+        assertEquals(stagingLocation, stagingFile.getParent());
+        assertFalse(Files.exists(stagingFile));
+        assertArrayEquals(bytes("0123456789"), objects.get("images/" + KEY));
+        assertTrue(backend.exists(KEY));
+        assertTrue(backend.localFile(KEY).isEmpty());
+        assertEquals(10, backend.size(KEY));
+        try (InputStream inputStream = backend.open(KEY)) {
+            assertArrayEquals(bytes("0123456789"), inputStream.readAllBytes());
+        }
+        try (InputStream inputStream = backend.open(KEY, 3, 4)) {
+            assertArrayEquals(bytes("3456"), inputStream.readAllBytes());
+        }
+
+        backend.delete(KEY);
+        assertFalse(backend.exists(KEY));
+    }
+
+    @Test
+    void testMissingObjectIsReportedAsMissingFile() {
+        assertThrows(NoSuchFileException.class, () -> backend.open(KEY));
+        assertThrows(NoSuchFileException.class, () -> backend.open(KEY, 0, 1));
+        assertThrows(NoSuchFileException.class, () -> backend.size(KEY));
+    }
+
+    @Test
+    void testObjectsAreListedWithoutPrefix() throws IOException {
+        objects.put("images/" + KEY, bytes("first"));
+        objects.put("images/other.png", bytes("second"));
+        objects.put("elsewhere/" + KEY, bytes("third"));
+
+        try (Stream<StoredFile> files = backend.list()) {
+            assertEquals(List.of(KEY, "other.png"), files.map(StoredFile::key).sorted().toList());
+        }
+    }
+
+    @Test
+    void testOnlyOldStagingFilesAreDeleted() throws IOException {
+        Path oldFile = backend.createStagingFile();
+        Path newFile = backend.createStagingFile();
+        Instant now = Instant.now();
+        Files.setLastModifiedTime(oldFile, FileTime.from(now.minus(Duration.ofDays(1))));
+
+        assertEquals(1, backend.deleteStagingFiles(now.minus(Duration.ofHours(1))));
+        assertFalse(Files.exists(oldFile));
+        assertTrue(Files.exists(newFile));
+    }
+
+    /**
+     * Answers a request to the stand-in object store
+     * @param exchange The request and response
+     * @throws IOException If the response could not be written
+     */
+    private void handle(HttpExchange exchange) throws IOException {
+        String path = exchange.getRequestURI().getPath();
+        String key = path.length() > "/bucket/".length() ? path.substring("/bucket/".length()) : "";
+        try (exchange;
+                InputStream requestBody = exchange.getRequestBody()) {
+            byte[] body = requestBody.readAllBytes();
+            byte[] object = objects.get(key);
+            switch (exchange.getRequestMethod()) {
+                case "PUT" -> {
+                    objects.put(key, body);
+                    exchange.getResponseHeaders().add("ETag", "\"" + md5(body) + "\"");
+                    exchange.sendResponseHeaders(200, -1);
+                }
+                case "DELETE" -> {
+                    objects.remove(key);
+                    exchange.sendResponseHeaders(204, -1);
+                }
+                case "HEAD" -> {
+                    if (object == null) {
+                        exchange.sendResponseHeaders(404, -1);
+                    } else {
+                        exchange.getResponseHeaders().add("Content-Length", "" + object.length);
+                        exchange.sendResponseHeaders(200, -1);
+                    }
+                }
+                case "GET" -> {
+                    if (key.isEmpty()) {
+                        send(exchange, 200, bytes(listing(exchange.getRequestURI().getQuery())));
+                        return;
+                    }
+                    if (object == null) {
+                        send(exchange, 404, bytes(noSuchKey(key)));
+                        return;
+                    }
+                    String range = exchange.getRequestHeaders().getFirst("Range");
+                    if (range == null) {
+                        send(exchange, 200, object);
+                        return;
+                    }
+                    String[] bounds = range.substring("bytes=".length()).split("-");
+                    int start = Integer.parseInt(bounds[0]);
+                    int end = Math.min(Integer.parseInt(bounds[1]), object.length - 1);
+                    String contentRange = "bytes " + start + "-" + end + "/" + object.length;
+                    exchange.getResponseHeaders().add("Content-Range", contentRange);
+                    send(exchange, 206, Arrays.copyOfRange(object, start, end + 1));
+                }
+                default -> exchange.sendResponseHeaders(405, -1);
+            }
+        }
+    }
+
+    private static void send(HttpExchange exchange, int status, byte[] body) throws IOException {
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream outputStream = exchange.getResponseBody()) {
+            outputStream.write(body);
+        }
+    }
+
+    private String listing(String query) {
+        String prefix = "";
+        for (String parameter : query.split("&")) {
+            if (parameter.startsWith("prefix=")) {
+                prefix = parameter.substring("prefix=".length());
+            }
+        }
+        StringBuilder contents = new StringBuilder();
+        int count = 0;
+        for (Map.Entry<String, byte[]> entry : objects.entrySet()) {
+            if (!entry.getKey().startsWith(prefix)) continue;
+            count++;
+            contents.append("<Contents><Key>")
+                    .append(entry.getKey())
+                    .append("</Key><LastModified>")
+                    .append(Instant.now())
+                    .append("</LastModified><Size>")
+                    .append(entry.getValue().length)
+                    .append("</Size></Contents>");
+        }
+        return "<?xml version=\"1.0\" encoding=\"UTF-8\"?><ListBucketResult><Name>bucket</Name>"
+                + "<Prefix>"
+                + prefix
+                + "</Prefix><KeyCount>"
+                + count
+                + "</KeyCount><IsTruncated>false</IsTruncated>"
+                + contents
+                + "</ListBucketResult>";
+    }
+
+    private static String noSuchKey(String key) {
+        return "<?xml version=\"1.0\" encoding=\"UTF-8\"?><Error><Code>NoSuchKey</Code>"
+                + "<Message>The specified key does not exist.</Message><Key>"
+                + key
+                + "</Key></Error>";
+    }
+
+    private static String md5(byte[] data) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("MD5").digest(data));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static byte[] bytes(String text) {
+        return text.getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,111 @@
+package org.ntnu.idi.idatt2106.sparesti.sparestibackend.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+public class ApplicationUtilTest {
+
+    private static final long MAX_DIVIDEND = Long.MAX_VALUE / 100_000;
+
+    @Test
+    public void testExactHalvesAreRoundedAwayFromZero() {
+        // 1/2000 is 0.0005 percent
+        assertEquals(new BigDecimal("0.001"), ApplicationUtil.percent(1, 200_000));
+        assertEquals(new BigDecimal("-0.001"), ApplicationUtil.percent(-1, 200_000));
+        assertEquals(new BigDecimal("-0.001"), ApplicationUtil.percent(1, -200_000));
+        assertEquals(new BigDecimal("0.001"), ApplicationUtil.percent(-1, -200_000));
+        assertEquals(new BigDecimal("0.000"), ApplicationUtil.percent(1, 200_001));
+        assertEquals(new BigDecimal("-0.000"), ApplicationUtil.percent(-1, 200_001));
+    }
+
+    @Test
+    public void testPercentOfNegativeNumbers() {
+        assertEquals(new BigDecimal("-50.000"), ApplicationUtil.percent(-1, 2));
+        assertEquals(new BigDecimal("-33.333"), ApplicationUtil.percent(1, -3));
+        assertEquals(new BigDecimal("66.667"), ApplicationUtil.percent(-2, -3));
+        assertEquals(new BigDecimal("0.000"), ApplicationUtil.percent(0, -3));
+    }
+
+    @Test
+    public void testOverflowIsRejected() {
+        assertEquals(
+                BigDecimal.valueOf(MAX_DIVIDEND).multiply(BigDecimal.valueOf(100)).setScale(3),
+                ApplicationUtil.percent(MAX_DIVIDEND, 1));
+        assertThrows(ArithmeticException.class, () -> ApplicationUtil.percent(MAX_DIVIDEND + 1, 1));
+        assertThrows(
+                ArithmeticException.class, () -> ApplicationUtil.percent(-MAX_DIVIDEND - 1, 1));
+        assertThrows(ArithmeticException.class, () -> ApplicationUtil.percent(1, Long.MIN_VALUE));
+        assertThrows(ArithmeticException.class, () -> ApplicationUtil.percent(1, 0));
+    }
+
+    @Test
+    public void testLongPercentMatchesBigDecimalPercent() {
+        Random random = new Random(42);
+        for (int i = 0; i < 100_000; i++) {
+            long quot = random.nextLong() % (i % 2 == 0 ? 1_000_000 : MAX_DIVIDEND);
+            long divisor = random.nextLong() % (i % 3 == 0 ? 1_000 : Long.MAX_VALUE);
+            if (divisor == 0) continue;
+
+            assertEquals(
+                    oldPercent(BigDecimal.valueOf(quot), BigDecimal.valueOf(divisor)),
+                    ApplicationUtil.percent(quot, divisor),
+                    quot + " / " + divisor);
+        }
+    }
+
+    @Test
+    public void testAmountPercentMatchesBigDecimalPercent() {
+        Random random = new Random(42);
+        for (int i = 0; i < 100_000; i++) {
+            BigDecimal saved = BigDecimal.valueOf(random.nextLong() % 100_000_000, 2);
+            BigDecimal target = BigDecimal.valueOf(random.nextLong() % 100_000_000, 2);
+            if (target.signum() == 0) continue;
+
+            assertEquals(oldPercent(saved, target), ApplicationUtil.percent(saved, target));
+        }
+    }
+
+    @Test
+    public void testPercentDoesNotRoundItsInputs() {
+        BigDecimal third = new BigDecimal("0.333");
+        BigDecimal one = new BigDecimal("1.005");
+
+        assertEquals(new BigDecimal("33.300"), ApplicationUtil.percent(third, BigDecimal.ONE));
+        assertEquals(new BigDecimal("99.502"), ApplicationUtil.percent(BigDecimal.ONE, one));
+        assertEquals(oldPercent(third, one), ApplicationUtil.percent(third, one));
+    }
+
+    @Test
+    public void testPercentOfAmountsTooLargeForALong() {
+        BigDecimal large = new BigDecimal("1000000000000000000000.00");
+        BigDecimal huge = large.multiply(BigDecimal.TEN);
+
+        assertEquals(new BigDecimal("10.000"), ApplicationUtil.percent(large, huge));
+        assertEquals(
+                oldPercent(BigDecimal.valueOf(MAX_DIVIDEND), BigDecimal.ONE),
+                ApplicationUtil.percent(BigDecimal.valueOf(MAX_DIVIDEND), BigDecimal.ONE));
+        assertEquals(
+                oldPercent(BigDecimal.valueOf(-MAX_DIVIDEND - 1, 2), BigDecimal.ONE),
+                ApplicationUtil.percent(BigDecimal.valueOf(-MAX_DIVIDEND - 1, 2), BigDecimal.ONE));
+        assertEquals(
+                oldPercent(BigDecimal.ONE, BigDecimal.valueOf(Long.MIN_VALUE, 2)),
+                ApplicationUtil.percent(BigDecimal.ONE, BigDecimal.valueOf(Long.MIN_VALUE, 2)));
+        assertThrows(
+                ArithmeticException.class, () -> ApplicationUtil.percent(large, BigDecimal.ZERO));
+    }
+
+    /**
+     * Calculates a percentage like ApplicationUtil did before it divided longs
+     * @param quot Divident
+     * @param divisor Divisor
+     * @return Percentage with three decimals
+     */
+    private static BigDecimal oldPercent(BigDecimal quot, BigDecimal divisor) {
+        return quot.multiply(BigDecimal.valueOf(100)).divide(divisor, 3, RoundingMode.HALF_UP);
+    }
+}
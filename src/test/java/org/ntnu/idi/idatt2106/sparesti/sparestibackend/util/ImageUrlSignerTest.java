@@ -0,0 +1,76 @@
+package org.ntnu.idi.idatt2106.sparesti.sparestibackend.util;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.web.util.UriComponents;
+import org.springframework.web.util.UriComponentsBuilder;
+
+public class ImageUrlSignerTest {
+
+    private static final String KEY =
+            "0123456789abcdef0123456789abcdef0123456789abcdef0123456789abcdef.png";
+
+    @Test
+    public void testStartupFailsWithoutSigningKeyOutsideTestProfile() {
+        MockEnvironment environment = new MockEnvironment();
+        environment.setActiveProfiles("prod");
+
+        assertThrows(
+                IllegalStateException.class,
+                () -> new ImageUrlSigner(new StorageProperties(), environment));
+    }
+
+    @Test
+    public void testRandomSigningKeyIsOnlyUsedInTestProfile() {
+        MockEnvironment environment = new MockEnvironment();
+        environment.setActiveProfiles("test");
+
+        ImageUrlSigner signer = new ImageUrlSigner(new StorageProperties(), environment);
+
+        assertTrue(verify(signer, signer.sign(KEY)));
+    }
+
+    @Test
+    public void testConfiguredSigningKeyIsUsedOutsideTestProfile() {
+        StorageProperties properties = new StorageProperties();
+        properties.setUrlSigningKey("signing-key");
+        MockEnvironment environment = new MockEnvironment();
+        environment.setActiveProfiles("prod");
+
+        String url = new ImageUrlSigner(properties, environment).sign(KEY);
+
+        assertTrue(verify(new ImageUrlSigner(properties, Clock.systemUTC()), url));
+        properties.setUrlSigningKey("other-key");
+        assertFalse(verify(new ImageUrlSigner(properties, Clock.systemUTC()), url));
+    }
+
+    @Test
+    public void testSignerWithClockRequiresSigningKey() {
+        Clock clock = Clock.fixed(Instant.EPOCH, ZoneOffset.UTC);
+
+        assertThrows(
+                IllegalStateException.class,
+                () -> new ImageUrlSigner(new StorageProperties(), clock));
+    }
+
+    /**
+     * Verifies a signed URL with a signer
+     * @param signer The signer
+     * @param url The signed URL
+     * @return true if the URL is valid
+     */
+    private static boolean verify(ImageUrlSigner signer, String url) {
+        UriComponents uri = UriComponentsBuilder.fromUriString(url).build();
+        return signer.verify(
+                uri.getPath().substring(ImageUrlSigner.PATH.length()),
+                Long.parseLong(uri.getQueryParams().getFirst("expires")),
+                uri.getQueryParams().getFirst("signature"));
+    }
+}
@@ -0,0 +1,167 @@
+package org.ntnu.idi.idatt2106.sparesti.sparestibackend.util;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.ntnu.idi.idatt2106.sparesti.sparestibackend.mapper.GoalMapper;
+import org.ntnu.idi.idatt2106.sparesti.sparestibackend.model.Goal;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Benchmarks of the arithmetic on saved amounts, comparing the former double and BigDecimal
+ * arithmetic with {@link Money}. The cascade benchmarks spread a challenge's savings over the
+ * active goals, like ChallengeService does, and the mapping benchmarks compute the completion
+ * of a page of goals, alone and as part of mapping the goals to DTOs. Run with
+ * {@code mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=org.ntnu.idi.idatt2106.sparesti.sparestibackend.util.MoneyBenchmark}
+ *
+ * @author L.M.L. Nilsen
+ * @version 1.0
+ * @since 3.5.24
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MoneyBenchmark {
+
+    private static final int GOALS = 10;
+
+    private static final BigDecimal ONE_HUNDRED = new BigDecimal(100);
+
+    private final BigDecimal[] saved = new BigDecimal[GOALS];
+
+    private final BigDecimal[] targets = new BigDecimal[GOALS];
+
+    private final List<Goal> goals = new ArrayList<>();
+
+    private BigDecimal increment;
+
+    /**
+     * Creates goals that are partly saved, and an increment that completes about half of them
+     */
+    @Setup
+    public void setup() {
+        for (int i = 0; i < GOALS; i++) {
+            saved[i] = new BigDecimal(i * 37 + ".50");
+            targets[i] = new BigDecimal(i * 150 + 999 + ".99");
+            goals.add(
+                    new Goal(
+                            (long) i,
+                            "Goal " + i,
+                            saved[i],
+                            targets[i],
+                            null,
+                            (long) i + 1,
+                            ZonedDateTime.now(),
+                            null,
+                            null,
+                            null,
+                            null));
+        }
+        increment = new BigDecimal("5678.91");
+    }
+
+    /**
+     * Spreads the increment over the goals with double arithmetic, as before
+     * @return The new saved amounts
+     */
+    @Benchmark
+    public BigDecimal[] cascadeDouble() {
+        BigDecimal[] result = saved.clone();
+        double remaining = increment.doubleValue();
+        for (int i = 0; i < GOALS && remaining > 0; i++) {
+            double goalDifference = targets[i].doubleValue() - result[i].doubleValue();
+            if (remaining < goalDifference) {
+                result[i] = BigDecimal.valueOf(result[i].doubleValue() + remaining);
+            } else {
+                result[i] = targets[i];
+            }
+            remaining = remaining - goalDifference;
+        }
+        return result;
+    }
+
+    /**
+     * Spreads the increment over the goals with Money
+     * @return The new saved amounts
+     */
+    @Benchmark
+    public BigDecimal[] cascadeMoney() {
+        BigDecimal[] result = saved.clone();
+        Money remaining = Money.of(increment);
+        for (int i = 0; i < GOALS && remaining.isPositive(); i++) {
+            Money goalSaved = Money.of(result[i]);
+            Money goalDifference = Money.of(targets[i]).minus(goalSaved);
+            if (!remaining.isAtLeast(goalDifference)) {
+                result[i] = goalSaved.plus(remaining).toBigDecimal();
+            } else {
+                result[i] = targets[i];
+            }
+            remaining = remaining.minus(goalDifference);
+        }
+        return result;
+    }
+
+    /**
+     * Computes the completion of the goals with BigDecimal division, as before
+     * @param blackhole Consumes the results
+     */
+    @Benchmark
+    public void completionBigDecimal(Blackhole blackhole) {
+        for (int i = 0; i < GOALS; i++) {
+            blackhole.consume(
+                    saved[i].multiply(ONE_HUNDRED).divide(targets[i], 3, RoundingMode.HALF_UP));
+        }
+    }
+
+    /**
+     * Computes the completion of the goals with Money
+     * @param blackhole Consumes the results
+     */
+    @Benchmark
+    public void completionMoney(Blackhole blackhole) {
+        for (int i = 0; i < GOALS; i++) {
+            blackhole.consume(ApplicationUtil.percent(saved[i], targets[i]));
+        }
+    }
+
+    /**
+     * Maps the goals to DTOs, which computes their completion with Money
+     * @param blackhole Consumes the results
+     */
+    @Benchmark
+    public void mapGoals(Blackhole blackhole) {
+        for (Goal goal : goals) {
+            blackhole.consume(GoalMapper.INSTANCE.toDTO(goal));
+        }
+    }
+
+    /**
+     * Runs the benchmarks
+     * @param args Not used
+     * @throws RunnerException If a benchmark fails
+     */
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(MoneyBenchmark.class.getSimpleName()).build())
+                .run();
+    }
+}
@@ -0,0 +1,82 @@
+package org.ntnu.idi.idatt2106.sparesti.sparestibackend.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.math.BigDecimal;
+import org.junit.jupiter.api.Test;
+
+public class MoneyTest {
+
+    @Test
+    public void testAmountsAreRoundedHalfUpToWholeOre() {
+        assertEquals(new Money(1235), Money.of(new BigDecimal("12.345")));
+        assertEquals(new Money(1234), Money.of(new BigDecimal("12.3449")));
+        assertEquals(new Money(-1235), Money.of(new BigDecimal("-12.345")));
+        assertEquals(new Money(-1234), Money.of(new BigDecimal("-12.344")));
+        assertEquals(new Money(120000), Money.of(new BigDecimal("1.2E+3")));
+    }
+
+    @Test
+    public void testAmountsAreConvertedBackWithTwoDecimals() {
+        assertEquals(new BigDecimal("12.30"), Money.of(new BigDecimal("12.3")).toBigDecimal());
+        assertEquals(new BigDecimal("-0.05"), new Money(-5).toBigDecimal());
+        assertEquals(new BigDecimal("0.00"), Money.ZERO.toBigDecimal());
+    }
+
+    @Test
+    public void testAmountsTooLargeForALongAreRejected() {
+        BigDecimal max = BigDecimal.valueOf(Long.MAX_VALUE, 2);
+
+        assertEquals(new Money(Long.MAX_VALUE), Money.of(max));
+        assertThrows(ArithmeticException.class, () -> Money.of(max.add(new BigDecimal("0.01"))));
+        assertThrows(
+                ArithmeticException.class,
+                () -> Money.of(BigDecimal.valueOf(Long.MIN_VALUE, 2).subtract(BigDecimal.ONE)));
+    }
+
+    @Test
+    public void testArithmeticWithNegativeAmounts() {
+        Money saved = Money.of(new BigDecimal("10.50"));
+        Money spent = Money.of(new BigDecimal("-2.25"));
+
+        assertEquals(new Money(825), saved.plus(spent));
+        assertEquals(new Money(1275), saved.minus(spent));
+        assertEquals(new Money(-1275), spent.minus(saved));
+        assertFalse(spent.isPositive());
+        assertFalse(Money.ZERO.isPositive());
+        assertTrue(saved.isPositive());
+    }
+
+    @Test
+    public void testArithmeticOverflowIsRejected() {
+        Money max = new Money(Long.MAX_VALUE);
+        Money min = new Money(Long.MIN_VALUE);
+
+        assertThrows(ArithmeticException.class, () -> max.plus(new Money(1)));
+        assertThrows(ArithmeticException.class, () -> min.minus(new Money(1)));
+        assertThrows(ArithmeticException.class, () -> max.minus(new Money(-1)));
+    }
+
+    @Test
+    public void testComparison() {
+        Money less = new Money(-100);
+        Money more = new Money(100);
+
+        assertTrue(more.isAtLeast(less));
+        assertTrue(more.isAtLeast(new Money(100)));
+        assertFalse(less.isAtLeast(more));
+        assertTrue(less.compareTo(more) < 0);
+        assertEquals(0, more.compareTo(new Money(100)));
+    }
+
+    @Test
+    public void testPercentOfWhole() {
+        assertEquals(new BigDecimal("50.000"), new Money(50).percentOf(new Money(100)));
+        assertEquals(new BigDecimal("33.333"), new Money(1).percentOf(new Money(3)));
+        assertEquals(new BigDecimal("-66.667"), new Money(-2).percentOf(new Money(3)));
+        assertThrows(ArithmeticException.class, () -> new Money(1).percentOf(Money.ZERO));
+    }
+}
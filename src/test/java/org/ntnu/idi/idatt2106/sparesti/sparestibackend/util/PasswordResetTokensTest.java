@@ -0,0 +1,54 @@
+package org.ntnu.idi.idatt2106.sparesti.sparestibackend.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+
+public class PasswordResetTokensTest {
+
+    @Test
+    public void testStartupFailsWithoutTokenKeyOutsideTestProfile() {
+        MockEnvironment environment = new MockEnvironment();
+        environment.setActiveProfiles("prod");
+
+        assertThrows(
+                IllegalStateException.class,
+                () -> new PasswordResetTokens(new PasswordResetProperties(), environment));
+    }
+
+    @Test
+    public void testRandomTokenKeyIsOnlyUsedInTestProfile() {
+        MockEnvironment environment = new MockEnvironment();
+        environment.setActiveProfiles("test");
+
+        PasswordResetTokens tokens =
+                new PasswordResetTokens(new PasswordResetProperties(), environment);
+
+        assertEquals(
+                tokens.digest(tokens.token("request")), tokens.digest(tokens.token("request")));
+    }
+
+    @Test
+    public void testConfiguredTokenKeyIsUsedOutsideTestProfile() {
+        PasswordResetProperties properties = new PasswordResetProperties();
+        properties.setTokenKey("token-key");
+        MockEnvironment environment = new MockEnvironment();
+        environment.setActiveProfiles("prod");
+
+        String token = new PasswordResetTokens(properties, environment).token("request");
+
+        assertEquals(token, new PasswordResetTokens(properties).token("request"));
+        properties.setTokenKey("other-key");
+        assertNotEquals(token, new PasswordResetTokens(properties).token("request"));
+    }
+
+    @Test
+    public void testTokensWithoutEnvironmentRequireTokenKey() {
+        assertThrows(
+                IllegalStateException.class,
+                () -> new PasswordResetTokens(new PasswordResetProperties()));
+    }
+}
@@ -0,0 +1,119 @@
+package org.ntnu.idi.idatt2106.sparesti.sparestibackend.validation;
+
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import org.ntnu.idi.idatt2106.sparesti.sparestibackend.dto.user.RegisterRequest;
+import org.ntnu.idi.idatt2106.sparesti.sparestibackend.dto.user.UserUpdateDTO;
+import org.ntnu.idi.idatt2106.sparesti.sparestibackend.exception.validation.ObjectNotValidException;
+import org.ntnu.idi.idatt2106.sparesti.sparestibackend.repository.UserRepository;
+import org.ntnu.idi.idatt2106.sparesti.sparestibackend.validation.user.UserValidator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Benchmarks of the validation of registrations and user updates, without the database.
+ * Run with
+ * {@code mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=org.ntnu.idi.idatt2106.sparesti.sparestibackend.validation.ValidationBenchmark}
+ *
+ * @author L.M.L. Nilsen
+ * @version 1.0
+ * @since 3.5.24
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ValidationBenchmark {
+
+    private UserValidator<Object> userValidator;
+
+    private RegisterRequest registerRequest;
+
+    private RegisterRequest invalidRegisterRequest;
+
+    private UserUpdateDTO userUpdate;
+
+    /**
+     * Creates the validator, with a repository where no username or email is taken
+     */
+    @Setup
+    public void setup() {
+        UserRepository userRepository = mock(UserRepository.class, withSettings().stubOnly());
+        when(userRepository.findIdentitiesByUsernameOrEmail(anyString(), anyString()))
+                .thenReturn(List.of());
+        when(userRepository.findUsernameByEmail(anyString())).thenReturn(Optional.empty());
+        userValidator = new UserValidator<>(userRepository);
+
+        registerRequest =
+                new RegisterRequest(
+                        "Ola", "Nordmann", "ola_nordmann", "Passord123!", "ola@nordmann.no");
+        invalidRegisterRequest = new RegisterRequest("Ola", " ", null, "Passord123!", "ola");
+        userUpdate =
+                new UserUpdateDTO(
+                        "Kari", "Nordmann", "Passord123!", null, "kari@nordmann.no", null, null);
+    }
+
+    /**
+     * Validates a valid registration
+     * @return The request
+     */
+    @Benchmark
+    public Object register() {
+        userValidator.validate(registerRequest);
+        return registerRequest;
+    }
+
+    /**
+     * Validates a registration that violates its constraints, and collects the error messages
+     * @return The error messages
+     */
+    @Benchmark
+    public Object invalidRegister() {
+        try {
+            userValidator.validate(invalidRegisterRequest);
+            return null;
+        } catch (ObjectNotValidException e) {
+            return e.getErrorMessages();
+        }
+    }
+
+    /**
+     * Validates a valid user update
+     * @return The update
+     */
+    @Benchmark
+    public Object update() {
+        userValidator.validate(userUpdate);
+        return userUpdate;
+    }
+
+    /**
+     * Runs the benchmarks
+     * @param args Not used
+     * @throws RunnerException If a benchmark fails
+     */
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(ValidationBenchmark.class.getSimpleName()).build())
+                .run();
+    }
+}